@@ -0,0 +1,77 @@
+package es.usc.citius.jflap.bench;
+
+import edu.duke.cs.jflap.automata.fsa.FiniteStateAutomaton;
+import edu.duke.cs.jflap.file.BinaryCodec;
+import edu.duke.cs.jflap.file.XMLCodec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of a random NFA from a .jff file, with and without state
+ * coordinates, and from the binary cache format.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CodecBenchmark {
+    private static final Map<String, Boolean> LOGIC_ONLY = Collections.singletonMap(XMLCodec.LOGIC_ONLY, Boolean.TRUE);
+
+    @Param({"100", "1000"})
+    public int states;
+
+    private byte[] xml;
+    private byte[] xmlWithoutCoordinates;
+    private byte[] binary;
+
+    @Setup
+    public void setup() throws IOException {
+        FiniteStateAutomaton nfa = Corpus.randomNFA(states, 2, 1.5, 42);
+        xml = Corpus.encode(new XMLCodec(), nfa);
+        // Without coordinates every state has to be laid out.
+        xmlWithoutCoordinates = new String(xml, StandardCharsets.UTF_8)
+                .replaceAll("\\s*<[xy]>[^<]*</[xy]>", "").getBytes(StandardCharsets.UTF_8);
+        binary = Corpus.encode(new BinaryCodec(), nfa);
+    }
+
+    @Benchmark
+    public Serializable xmlDecode() {
+        return new XMLCodec().decode(new ByteArrayInputStream(xml));
+    }
+
+    @Benchmark
+    public Serializable xmlDecodeWithLayout() {
+        return new XMLCodec().decode(new ByteArrayInputStream(xmlWithoutCoordinates));
+    }
+
+    @Benchmark
+    public Serializable xmlDecodeLogicOnly() {
+        return new XMLCodec().decode(new ByteArrayInputStream(xmlWithoutCoordinates), LOGIC_ONLY);
+    }
+
+    @Benchmark
+    public Serializable binaryDecode() {
+        return new BinaryCodec().decode(ByteBuffer.wrap(binary), null);
+    }
+}
@@ -0,0 +1,123 @@
+package es.usc.citius.jflap.bench;
+
+import edu.duke.cs.jflap.automata.Automaton;
+import edu.duke.cs.jflap.automata.fsa.DFAMinimizer;
+import edu.duke.cs.jflap.automata.fsa.FiniteStateAutomaton;
+import edu.duke.cs.jflap.automata.fsa.Minimizer;
+import edu.duke.cs.jflap.automata.fsa.NFAToDFA;
+import edu.duke.cs.jflap.automata.fsa.StateEliminator;
+import edu.duke.cs.jflap.automata.graph.FSAEqualityChecker;
+import edu.duke.cs.jflap.regular.ExpressionFactory;
+import edu.duke.cs.jflap.regular.ExpressionNode;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of NFAs to DFAs, DFA minimization and FSA equality checking.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversionBenchmark {
+
+    /** The n-th from last NFA, whose DFA has 2^n states, and that DFA. */
+    @State(Scope.Benchmark)
+    public static class NthFromLast {
+        @Param({"4", "8", "12"})
+        public int n;
+
+        public FiniteStateAutomaton nfa;
+        public FiniteStateAutomaton dfa;
+
+        @Setup
+        public void setup() {
+            nfa = Corpus.nthFromLastNFA(n);
+            dfa = new NFAToDFA().convertToDFA(nfa);
+        }
+    }
+
+    /**
+     * The same DFAs with fewer states, for the tree-model minimizer, which
+     * takes minutes to minimize the 4096 states of n = 12.
+     */
+    @State(Scope.Benchmark)
+    public static class SmallNthFromLast {
+        @Param({"4", "8"})
+        public int n;
+
+        public FiniteStateAutomaton dfa;
+
+        @Setup
+        public void setup() {
+            dfa = new NFAToDFA().convertToDFA(Corpus.nthFromLastNFA(n));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class RandomNFA {
+        @Param({"8", "16", "32"})
+        public int states;
+
+        public FiniteStateAutomaton nfa;
+        public FiniteStateAutomaton dfa;
+
+        @Setup
+        public void setup() {
+            nfa = Corpus.randomNFA(states, 2, 1.5, 42);
+            dfa = new NFAToDFA().convertToDFA(nfa);
+        }
+    }
+
+    @Benchmark
+    public FiniteStateAutomaton nfaToDfaNthFromLast(NthFromLast state) {
+        return new NFAToDFA().convertToDFA(state.nfa);
+    }
+
+    @Benchmark
+    public FiniteStateAutomaton nfaToDfaRandom(RandomNFA state) {
+        return new NFAToDFA().convertToDFA(state.nfa);
+    }
+
+    @Benchmark
+    public ExpressionNode stateElimination(RandomNFA state) {
+        return new StateEliminator().convertToExpression(state.nfa, new ExpressionFactory());
+    }
+
+    @Benchmark
+    public FiniteStateAutomaton minimizer(SmallNthFromLast state) {
+        Minimizer minimizer = new Minimizer();
+        minimizer.initializeMinimizer();
+        Automaton automaton = minimizer.getMinimizeableAutomaton(state.dfa);
+        return minimizer.getMinimumDfa(automaton, minimizer.getDistinguishableGroupsTree(automaton));
+    }
+
+    @Benchmark
+    public FiniteStateAutomaton dfaMinimizer(NthFromLast state) {
+        return new DFAMinimizer().minimize(state.dfa);
+    }
+
+    /** The worst case, since equal automata are explored completely. */
+    @Benchmark
+    public boolean equalityNthFromLast(NthFromLast state) {
+        return new FSAEqualityChecker().equals(state.nfa, state.dfa);
+    }
+
+    @Benchmark
+    public boolean equalityRandom(RandomNFA state) {
+        return new FSAEqualityChecker().equals(state.nfa, state.dfa);
+    }
+}
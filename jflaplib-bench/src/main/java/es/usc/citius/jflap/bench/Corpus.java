@@ -0,0 +1,334 @@
+package es.usc.citius.jflap.bench;
+
+import edu.duke.cs.jflap.automata.State;
+import edu.duke.cs.jflap.automata.fsa.FSATransition;
+import edu.duke.cs.jflap.automata.fsa.FiniteStateAutomaton;
+import edu.duke.cs.jflap.automata.pda.PDATransition;
+import edu.duke.cs.jflap.automata.pda.PushdownAutomaton;
+import edu.duke.cs.jflap.automata.turing.TMTransition;
+import edu.duke.cs.jflap.automata.turing.TuringMachine;
+import edu.duke.cs.jflap.file.Codec;
+import edu.duke.cs.jflap.grammar.Grammar;
+import edu.duke.cs.jflap.grammar.Production;
+import edu.duke.cs.jflap.grammar.cfg.ContextFreeGrammar;
+import edu.duke.cs.jflap.grammar.parse.Operations;
+
+import java.awt.Point;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generators of the automata, grammars and inputs the benchmarks run on. Every
+ * generator is deterministic for its arguments, so runs are comparable.
+ */
+public final class Corpus {
+    private Corpus(){}
+
+    /**
+     * A random NFA over the first {@code symbols} lowercase letters. Each state
+     * has on average {@code density} transitions on each symbol, one in ten
+     * states has a lambda transition, and one in four is final.
+     */
+    public static FiniteStateAutomaton randomNFA(int states, int symbols, double density, long seed) {
+        Random random = new Random(seed);
+        FiniteStateAutomaton nfa = new FiniteStateAutomaton();
+        State[] s = createStates(nfa, states);
+        for (int i = 0; i < states; i++) {
+            if (random.nextInt(4) == 0) nfa.addFinalState(s[i]);
+            for (int a = 0; a < symbols; a++) {
+                for (double d = random.nextDouble(); d < density; d++) {
+                    nfa.addTransition(new FSATransition(s[i], s[random.nextInt(states)], symbol(a)));
+                }
+            }
+            if (random.nextInt(10) == 0) {
+                nfa.addTransition(new FSATransition(s[i], s[random.nextInt(states)], ""));
+            }
+        }
+        return nfa;
+    }
+
+    /**
+     * The NFA for strings over {a, b} whose n-th symbol from the end is an a.
+     * It has n + 1 states, and its smallest DFA has 2^n.
+     */
+    public static FiniteStateAutomaton nthFromLastNFA(int n) {
+        FiniteStateAutomaton nfa = new FiniteStateAutomaton();
+        State[] s = createStates(nfa, n + 1);
+        nfa.addTransition(new FSATransition(s[0], s[0], "a"));
+        nfa.addTransition(new FSATransition(s[0], s[0], "b"));
+        nfa.addTransition(new FSATransition(s[0], s[1], "a"));
+        for (int i = 1; i < n; i++) {
+            nfa.addTransition(new FSATransition(s[i], s[i + 1], "a"));
+            nfa.addTransition(new FSATransition(s[i], s[i + 1], "b"));
+        }
+        nfa.addFinalState(s[n]);
+        return nfa;
+    }
+
+    /**
+     * The deterministic PDA for a^n b^n, whose stack grows as deep as half its
+     * input.
+     */
+    public static PushdownAutomaton anbnPDA() {
+        PushdownAutomaton pda = new PushdownAutomaton();
+        State[] s = createStates(pda, 3);
+        pda.addTransition(new PDATransition(s[0], s[0], "a", "", "A"));
+        pda.addTransition(new PDATransition(s[0], s[1], "b", "A", ""));
+        pda.addTransition(new PDATransition(s[1], s[1], "b", "A", ""));
+        pda.addTransition(new PDATransition(s[1], s[2], "", "Z", "Z"));
+        pda.addFinalState(s[2]);
+        return pda;
+    }
+
+    /**
+     * The nondeterministic PDA for even palindromes over {a, b}, which guesses
+     * the middle of its input at every symbol.
+     */
+    public static PushdownAutomaton palindromePDA() {
+        PushdownAutomaton pda = new PushdownAutomaton();
+        State[] s = createStates(pda, 3);
+        pda.addTransition(new PDATransition(s[0], s[0], "a", "", "A"));
+        pda.addTransition(new PDATransition(s[0], s[0], "b", "", "B"));
+        pda.addTransition(new PDATransition(s[0], s[1], "", "", ""));
+        pda.addTransition(new PDATransition(s[1], s[1], "a", "A", ""));
+        pda.addTransition(new PDATransition(s[1], s[1], "b", "B", ""));
+        pda.addTransition(new PDATransition(s[1], s[2], "", "Z", "Z"));
+        pda.addFinalState(s[2]);
+        return pda;
+    }
+
+    /** The rules of the 2, 3 and 4 state busy beavers: state, read, write, move, next. */
+    private static final String[][] BUSY_BEAVERS = {
+        {},
+        {},
+        {"A0 1 R B", "A1 1 L B", "B0 1 L A", "B1 1 R H"},
+        {"A0 1 R B", "A1 1 R H", "B0 0 R C", "B1 1 R B", "C0 1 L C", "C1 1 L A"},
+        {"A0 1 R B", "A1 1 L B", "B0 1 L A", "B1 0 L C", "C0 1 R H", "C1 1 L D", "D0 1 R D", "D1 0 R A"},
+    };
+
+    /**
+     * The busy beaver Turing machine with 2, 3 or 4 states and 2 symbols, which
+     * halts on the blank tape after 6, 21 or 107 steps. The blank is the symbol
+     * 0, and the halting state H is final.
+     */
+    public static TuringMachine busyBeaver(int states) {
+        if (states < 2 || states >= BUSY_BEAVERS.length) {
+            throw new IllegalArgumentException("No busy beaver with " + states + " states");
+        }
+        TuringMachine tm = new TuringMachine(1);
+        State[] s = createStates(tm, states + 1);
+        Map<Character, State> byName = new HashMap<Character, State>();
+        for (int i = 0; i < states; i++) {
+            byName.put((char) ('A' + i), s[i]);
+        }
+        byName.put('H', s[states]);
+        tm.addFinalState(s[states]);
+        for (String rule : BUSY_BEAVERS[states]) {
+            String[] f = rule.split(" ");
+            tm.addTransition(new TMTransition(byName.get(f[0].charAt(0)), byName.get(f[3].charAt(0)),
+                    tapeSymbol(f[0].charAt(1)), tapeSymbol(f[1].charAt(0)), f[2]));
+        }
+        return tm;
+    }
+
+    /**
+     * A random grammar in Chomsky normal form with the start variable S and
+     * {@code variables - 1} others, over the first {@code terminals} lowercase
+     * letters. Each variable has a terminal production and
+     * {@code binaryPerVariable} productions to two variables.
+     */
+    public static Grammar randomCNFGrammar(int variables, int terminals, int binaryPerVariable, long seed) {
+        Random random = new Random(seed);
+        String[] v = new String[variables];
+        v[0] = "S";
+        for (int i = 1, c = 'A'; i < variables; c++) {
+            if (c != 'S') v[i++] = "" + (char) c;
+        }
+        Grammar g = new ContextFreeGrammar();
+        for (int i = 0; i < variables; i++) {
+            g.addProduction(new Production(v[i], symbol(random.nextInt(terminals))));
+            for (int j = 0; j < binaryPerVariable; j++) {
+                g.addProduction(new Production(v[i], v[random.nextInt(variables)] + v[random.nextInt(variables)]));
+            }
+        }
+        g.setStartVariable("S");
+        return g;
+    }
+
+    /**
+     * An LL(1) expression grammar with {@code levels} binary operators of
+     * increasing precedence, with two variables per level.
+     */
+    public static Grammar llExpressionGrammar(int levels) {
+        Grammar g = new ContextFreeGrammar();
+        for (int i = 0; i < levels; i++) {
+            String term = variable(2 * i), rest = variable(2 * i + 1), next = variable(2 * i + 2);
+            g.addProduction(new Production(term, next + rest));
+            g.addProduction(new Production(rest, operator(i) + next + rest));
+            g.addProduction(new Production(rest, ""));
+        }
+        String factor = variable(2 * levels);
+        g.addProduction(new Production(factor, "(" + variable(0) + ")"));
+        g.addProduction(new Production(factor, "x"));
+        g.setStartVariable(variable(0));
+        return g;
+    }
+
+    /**
+     * A left recursive SLR(1) expression grammar with {@code levels} binary
+     * operators of increasing precedence, with one variable per level.
+     */
+    public static Grammar lrExpressionGrammar(int levels) {
+        Grammar g = new ContextFreeGrammar();
+        for (int i = 0; i < levels; i++) {
+            String term = variable(i), next = variable(i + 1);
+            g.addProduction(new Production(term, term + operator(i) + next));
+            g.addProduction(new Production(term, next));
+        }
+        String factor = variable(levels);
+        g.addProduction(new Production(factor, "(" + variable(0) + ")"));
+        g.addProduction(new Production(factor, "x"));
+        g.setStartVariable(variable(0));
+        return g;
+    }
+
+    /** A random string of the first {@code symbols} lowercase letters. */
+    public static String randomInput(int symbols, int length, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(symbol(random.nextInt(symbols)));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A random sentence of {@link #lrExpressionGrammar}, and of
+     * {@link #llExpressionGrammar}, with {@code operands} x's, parenthesized
+     * about one time in eight.
+     */
+    public static String expression(int levels, int operands, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder();
+        int open = 0;
+        for (int i = 0; i < operands; i++) {
+            if (i > 0) {
+                if (open > 0 && random.nextInt(4) == 0) {
+                    sb.append(')');
+                    open--;
+                }
+                sb.append(operator(random.nextInt(levels)));
+            }
+            if (i < operands - 1 && random.nextInt(8) == 0) {
+                sb.append('(');
+                open++;
+            }
+            sb.append('x');
+        }
+        for (; open > 0; open--) {
+            sb.append(')');
+        }
+        return sb.toString();
+    }
+
+    /** A string of {@code n} a's followed by {@code n} b's. */
+    public static String anbn(int n) {
+        char[] c = new char[2 * n];
+        Arrays.fill(c, 0, n, 'a');
+        Arrays.fill(c, n, 2 * n, 'b');
+        return new String(c);
+    }
+
+    /** A random even palindrome over {a, b} of length {@code 2 * n}. */
+    public static String palindrome(int n, long seed) {
+        String half = randomInput(2, n, seed);
+        return half + new StringBuilder(half).reverse();
+    }
+
+    /** The bytes of a structure as the codec writes it to a file. */
+    public static byte[] encode(Codec codec, Serializable structure) throws IOException {
+        File file = File.createTempFile("corpus", ".tmp");
+        try {
+            codec.encode(structure, file, null);
+            return Files.readAllBytes(file.toPath());
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * The goto graph of the LR(0) item sets of the augmented grammar, built the
+     * way the LR parse table derivation builds it, together with the maps
+     * {@code LRParseTableGenerator.generate} needs.
+     */
+    public static final class GotoGraph {
+        public final Grammar augmented;
+        public final FiniteStateAutomaton dfa = new FiniteStateAutomaton();
+        public final Map<State, Set<Production>> stateToItems = new HashMap<State, Set<Production>>();
+        public final Map<Set<Production>, State> itemsToState = new HashMap<Set<Production>, State>();
+
+        @SuppressWarnings("unchecked")
+        public GotoGraph(Grammar grammar) {
+            augmented = Operations.getAugmentedGrammar(grammar);
+            Production start = augmented.getProductions()[0];
+            Set<Production> initial = new HashSet<Production>();
+            initial.add(new Production(start.getLHS(), Operations.ITEM_POSITION + start.getRHS()));
+            dfa.setInitialState(stateFor(Operations.closure(augmented, initial)));
+            for (int done = 0; done < dfa.getStates().length; done++) {
+                State state = dfa.getStateWithID(done);
+                Set<Production> items = stateToItems.get(state);
+                for (String symbol : Operations.getCanGoto(items)) {
+                    Set<Production> to = Operations.goTo(augmented, items, symbol);
+                    State next = itemsToState.get(to);
+                    if (next == null) next = stateFor(to);
+                    dfa.addTransition(new FSATransition(state, next, symbol));
+                }
+            }
+        }
+
+        private State stateFor(Set<Production> items) {
+            State state = dfa.createState(new Point());
+            for (Production item : items) {
+                if (item.getRHS().endsWith("" + Operations.ITEM_POSITION)) {
+                    dfa.addFinalState(state);
+                }
+            }
+            stateToItems.put(state, items);
+            itemsToState.put(items, state);
+            return state;
+        }
+    }
+
+    private static State[] createStates(edu.duke.cs.jflap.automata.Automaton automaton, int n) {
+        State[] s = new State[n];
+        for (int i = 0; i < n; i++) {
+            s[i] = automaton.createState(new Point(40 * (i % 20), 40 * (i / 20)));
+        }
+        automaton.setInitialState(s[0]);
+        return s;
+    }
+
+    private static String symbol(int index) {
+        return "" + (char) ('a' + index);
+    }
+
+    private static String tapeSymbol(char c) {
+        return c == '0' ? TMTransition.BLANK : "" + c;
+    }
+
+    private static String variable(int index) {
+        return "" + "ABCDEFGHIJKLMNOPQRTUVWXYZ".charAt(index);
+    }
+
+    private static String operator(int index) {
+        return "" + "+*-/%^&|<>=;~#@".charAt(index);
+    }
+}
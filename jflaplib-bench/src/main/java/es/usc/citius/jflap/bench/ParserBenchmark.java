@@ -0,0 +1,154 @@
+package es.usc.citius.jflap.bench;
+
+import edu.duke.cs.jflap.grammar.Grammar;
+import edu.duke.cs.jflap.grammar.parse.CYKParser;
+import edu.duke.cs.jflap.grammar.Production;
+import edu.duke.cs.jflap.grammar.parse.CompiledLRTable;
+import edu.duke.cs.jflap.grammar.parse.FirstFollowSets;
+import edu.duke.cs.jflap.grammar.parse.LL1Parser;
+import edu.duke.cs.jflap.grammar.parse.LLParseTable;
+import edu.duke.cs.jflap.grammar.parse.LLParseTableGenerator;
+import edu.duke.cs.jflap.grammar.parse.LRAutomaton;
+import edu.duke.cs.jflap.grammar.parse.LRParseTable;
+import edu.duke.cs.jflap.grammar.parse.LRParseTableGenerator;
+import edu.duke.cs.jflap.grammar.parse.LRParser;
+import edu.duke.cs.jflap.grammar.parse.Operations;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CYK parsing, FIRST and FOLLOW sets, generation of LL(1), SLR(1) and
+ * LALR(1) parse tables, LR parsing on the string table and on the compiled
+ * one, and LL(1) parsing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class CNF {
+        @Param({"5", "10", "20"})
+        public int variables;
+
+        @Param({"16", "64", "256"})
+        public int length;
+
+        public Grammar grammar;
+        public String input;
+
+        @Setup
+        public void setup() {
+            grammar = Corpus.randomCNFGrammar(variables, 3, 3, 42);
+            input = Corpus.randomInput(3, length, 42);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Expressions {
+        @Param({"2", "6", "12"})
+        public int levels;
+
+        public Grammar ll;
+        public Grammar lr;
+        public Corpus.GotoGraph gotoGraph;
+        public Map follow;
+        public LRParseTable slrTable;
+        public CompiledLRTable compiledTable;
+        public LL1Parser llParser;
+        public FirstFollowSets sets;
+        public Production extra;
+        public String sentence;
+
+        @Setup
+        public void setup() {
+            ll = Corpus.llExpressionGrammar(levels);
+            lr = Corpus.lrExpressionGrammar(levels);
+            gotoGraph = new Corpus.GotoGraph(lr);
+            follow = Operations.follow(lr);
+            slrTable = new LRAutomaton(lr).getParseTable(LRAutomaton.SLR1);
+            compiledTable = new LRAutomaton(lr).compile(LRAutomaton.LALR1);
+            llParser = new LL1Parser(ll);
+            sets = new FirstFollowSets(ll);
+            extra = new Production("A", "A(");
+            sentence = Corpus.expression(levels, 1000, 42);
+        }
+    }
+
+    @Benchmark
+    public boolean cyk(CNF state) {
+        return new CYKParser(state.grammar).solve(state.input);
+    }
+
+    @Benchmark
+    public Map firstFollowSets(Expressions state) {
+        return new FirstFollowSets(state.ll).getFollowSets();
+    }
+
+    /** One production added to the grammar and taken out again. */
+    @Benchmark
+    public boolean firstFollowEdit(Expressions state) {
+        state.sets.addProduction(state.extra);
+        return state.sets.removeProduction(state.extra);
+    }
+
+    @Benchmark
+    public LLParseTable llParseTable(Expressions state) {
+        return LLParseTableGenerator.generate(state.ll);
+    }
+
+    @Benchmark
+    public boolean llParse(Expressions state) {
+        return state.llParser.parse(state.sentence);
+    }
+
+    /** The LR(0) item sets and their goto graph, which the table is read from. */
+    @Benchmark
+    public Corpus.GotoGraph lrGotoGraph(Expressions state) {
+        return new Corpus.GotoGraph(state.lr);
+    }
+
+    @Benchmark
+    public LRParseTable lrParseTable(Expressions state) {
+        Corpus.GotoGraph graph = state.gotoGraph;
+        return LRParseTableGenerator.generate(graph.augmented, graph.dfa, graph.stateToItems,
+                graph.itemsToState, state.follow);
+    }
+
+    /** The item sets, goto graph and SLR(1) table in one headless pass. */
+    @Benchmark
+    public CompiledLRTable slrAutomaton(Expressions state) {
+        return new LRAutomaton(state.lr).compile(LRAutomaton.SLR1);
+    }
+
+    @Benchmark
+    public CompiledLRTable lalrAutomaton(Expressions state) {
+        return new LRAutomaton(state.lr).compile(LRAutomaton.LALR1);
+    }
+
+    /** Parsing on the string table, which is compiled on every call. */
+    @Benchmark
+    public boolean lrParseStringTable(Expressions state) {
+        return LRParser.parse(state.sentence, state.gotoGraph.augmented, state.slrTable);
+    }
+
+    @Benchmark
+    public boolean lrParseCompiled(Expressions state) {
+        return LRParser.parse(state.sentence, state.compiledTable);
+    }
+}
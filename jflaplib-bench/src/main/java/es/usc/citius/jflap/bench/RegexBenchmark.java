@@ -0,0 +1,82 @@
+package es.usc.citius.jflap.bench;
+
+import edu.duke.cs.jflap.automata.fsa.CompiledFSA;
+import edu.duke.cs.jflap.regular.CompiledExpression;
+import edu.duke.cs.jflap.regular.ExpressionMatcher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matching a batch of strings against the n-th from last expression
+ * {@code (a+b)*a(a+b)...(a+b)}, whose DFA has 2^n states, with the lazy DFA
+ * and with the compiled Glushkov NFA.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RegexBenchmark {
+    @Param({"4", "12", "20"})
+    public int n;
+
+    private CompiledExpression expression;
+    private ExpressionMatcher matcher;
+    private CompiledFSA nfa;
+    private String[] inputs;
+
+    @Setup
+    public void setup() {
+        StringBuilder re = new StringBuilder("(a+b)*a");
+        for (int i = 1; i < n; i++) {
+            re.append("(a+b)");
+        }
+        expression = new CompiledExpression(re.toString());
+        matcher = expression.matcher();
+        nfa = new CompiledFSA(expression.getAutomaton());
+        inputs = new String[1000];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = Corpus.randomInput(2, 40, i);
+        }
+    }
+
+    @Benchmark
+    public int compile() {
+        return new CompiledExpression(expression.getExpression()).getAlphabet().length;
+    }
+
+    @Benchmark
+    public int lazyDfa() {
+        int matched = 0;
+        for (String input : inputs) {
+            if (matcher.matches(input)) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    @Benchmark
+    public int glushkovNfa() {
+        int matched = 0;
+        for (String input : inputs) {
+            if (nfa.accepts(input)) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+}
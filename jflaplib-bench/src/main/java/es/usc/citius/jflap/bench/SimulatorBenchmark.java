@@ -0,0 +1,150 @@
+package es.usc.citius.jflap.bench;
+
+import edu.duke.cs.jflap.automata.fsa.CompiledFSA;
+import edu.duke.cs.jflap.automata.fsa.FSAStepWithClosureSimulator;
+import edu.duke.cs.jflap.automata.fsa.FiniteStateAutomaton;
+import edu.duke.cs.jflap.automata.pda.PDAStepByStateSimulator;
+import edu.duke.cs.jflap.automata.pda.PushdownAutomaton;
+import edu.duke.cs.jflap.automata.turing.TMSimulator;
+import edu.duke.cs.jflap.automata.turing.TuringMachine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulation of finite state automata, pushdown automata and Turing machines
+ * on one input.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimulatorBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class RandomNFA {
+        @Param({"10", "100", "1000"})
+        public int states;
+
+        @Param({"100", "1000"})
+        public int length;
+
+        public FiniteStateAutomaton nfa;
+        public CompiledFSA compiled;
+        public String input;
+
+        @Setup
+        public void setup() {
+            nfa = Corpus.randomNFA(states, 2, 1.5, 42);
+            compiled = new CompiledFSA(nfa);
+            input = Corpus.randomInput(2, length, 42);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class NthFromLast {
+        @Param({"4", "16", "64"})
+        public int n;
+
+        @Param({"1000"})
+        public int length;
+
+        public FiniteStateAutomaton nfa;
+        public CompiledFSA compiled;
+        public String input;
+
+        @Setup
+        public void setup() {
+            nfa = Corpus.nthFromLastNFA(n);
+            compiled = new CompiledFSA(nfa);
+            input = Corpus.randomInput(2, length, 42);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class DeepPDA {
+        @Param({"100", "1000"})
+        public int depth;
+
+        public PushdownAutomaton anbn;
+        public PushdownAutomaton palindrome;
+        public String anbnInput;
+        public String palindromeInput;
+
+        @Setup
+        public void setup() {
+            anbn = Corpus.anbnPDA();
+            palindrome = Corpus.palindromePDA();
+            anbnInput = Corpus.anbn(depth);
+            palindromeInput = Corpus.palindrome(depth, 42);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class BusyBeaver {
+        @Param({"2", "3", "4"})
+        public int states;
+
+        public TuringMachine tm;
+
+        @Setup
+        public void setup() {
+            tm = Corpus.busyBeaver(states);
+        }
+    }
+
+    // Without merging, the configurations of a random NFA grow exponentially
+    // with the input, so the step simulators are measured with it on.
+    private static FSAStepWithClosureSimulator fsaSimulator(FiniteStateAutomaton nfa) {
+        FSAStepWithClosureSimulator simulator = new FSAStepWithClosureSimulator(nfa);
+        simulator.setDeduplicating(true);
+        return simulator;
+    }
+
+    @Benchmark
+    public boolean fsaRandomNFA(RandomNFA state) {
+        return fsaSimulator(state.nfa).simulateInput(state.input);
+    }
+
+    @Benchmark
+    public boolean compiledRandomNFA(RandomNFA state) {
+        return state.compiled.accepts(state.input);
+    }
+
+    @Benchmark
+    public boolean fsaNthFromLast(NthFromLast state) {
+        return fsaSimulator(state.nfa).simulateInput(state.input);
+    }
+
+    @Benchmark
+    public boolean compiledNthFromLast(NthFromLast state) {
+        return state.compiled.accepts(state.input);
+    }
+
+    @Benchmark
+    public boolean pdaAnbn(DeepPDA state) {
+        return new PDAStepByStateSimulator(state.anbn).simulateInput(state.anbnInput);
+    }
+
+    @Benchmark
+    public boolean pdaPalindrome(DeepPDA state) {
+        return new PDAStepByStateSimulator(state.palindrome).simulateInput(state.palindromeInput);
+    }
+
+    @Benchmark
+    public boolean tmBusyBeaver(BusyBeaver state) {
+        return new TMSimulator(state.tm).run("", null).isHalted();
+    }
+}
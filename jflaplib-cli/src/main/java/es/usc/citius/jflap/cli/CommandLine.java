@@ -4,10 +4,10 @@ package es.usc.citius.jflap.cli;
 import com.beust.jcommander.JCommander;
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.Parameters;
-import edu.duke.cs.jflap.automata.AutomatonSimulator;
 import edu.duke.cs.jflap.automata.SimulatorFactory;
-import edu.duke.cs.jflap.automata.fsa.FSAToRegularExpressionConverter;
+import edu.duke.cs.jflap.automata.fsa.CompiledFSA;
 import edu.duke.cs.jflap.automata.fsa.FiniteStateAutomaton;
+import edu.duke.cs.jflap.automata.fsa.StateEliminator;
 import edu.duke.cs.jflap.automata.graph.FSAEqualityChecker;
 import edu.duke.cs.jflap.file.xml.AutomatonTransducer;
 
@@ -43,9 +43,7 @@ public class CommandLine {
         @Override
         public void run() {
             FiniteStateAutomaton a = IO.loadAutomaton(file.get(0));
-            FSAToRegularExpressionConverter.convertToSimpleAutomaton(a);
-            String re = FSAToRegularExpressionConverter.convertToRegularExpression(a);
-            System.out.println(re);
+            System.out.println(new StateEliminator().convertToRegularExpression(a));
         }
     }
 
@@ -77,11 +75,11 @@ public class CommandLine {
             File file = checked(new File(params.get(0)));
             String input = params.get(1);
             FiniteStateAutomaton automaton = IO.loadAutomaton(file);
-            // Load a simulator to test the automaton
-            AutomatonSimulator sim = SimulatorFactory.getSimulator(automaton);
-            if (sim == null) throw new RuntimeException("Cannot load an automaton simulator for " + automaton.getClass());
+            // Compile the automaton, only acceptance is needed here
+            CompiledFSA compiled = SimulatorFactory.getCompiledFSA(automaton);
+            if (compiled == null) throw new RuntimeException("Cannot compile an automaton simulator for " + automaton.getClass());
             // Test the automaton with an input
-            boolean accept = sim.simulateInput(input);
+            boolean accept = compiled.accepts(input);
             System.out.println(accept);
         }
     }
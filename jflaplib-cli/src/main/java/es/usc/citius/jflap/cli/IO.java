@@ -6,14 +6,20 @@ import edu.duke.cs.jflap.file.XMLCodec;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.Collections;
+import java.util.Map;
 
 public final class IO {
     private IO(){}
 
+    // Automata are only simulated here, so they are never laid out.
+    private static final Map<String, Boolean> LOGIC_ONLY = Collections.singletonMap(XMLCodec.LOGIC_ONLY, Boolean.TRUE);
+
     public static FiniteStateAutomaton loadAutomaton(String location){
         // Check if the location is a file
         File f = new File(location);
@@ -22,7 +28,12 @@ public final class IO {
         }
         // Check if it is a valid URL
         try {
-            return (FiniteStateAutomaton)new XMLCodec().decode(new URL(location).openStream());
+            InputStream stream = new URL(location).openStream();
+            try {
+                return (FiniteStateAutomaton)new XMLCodec().decode(stream, LOGIC_ONLY);
+            } finally {
+                stream.close();
+            }
         } catch (MalformedURLException e) {
             throw new RuntimeException(e);
         } catch (IOException e){
@@ -34,7 +45,7 @@ public final class IO {
 
     public static FiniteStateAutomaton loadAutomaton(File file){
         if (!file.isFile()) throw new RuntimeException(file.getAbsolutePath() + " does not exist");
-        return (FiniteStateAutomaton)new XMLCodec().decode(file, null);
+        return (FiniteStateAutomaton)new XMLCodec().decode(file, LOGIC_ONLY);
     }
 
 }
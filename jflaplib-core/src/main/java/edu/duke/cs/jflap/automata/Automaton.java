@@ -934,6 +934,9 @@ public class Automaton implements Serializable, Cloneable {
 	/** The cached array of final states. */
 	private State[] cachedFinalStates = null;
 
+	/** The lambda closures of the states, kept by the closure taker. */
+	transient ClosureCache closureCache = null;
+
 	/**
 	 * The collection of final states in this automaton. This is a subset of the
 	 * "states" collection.
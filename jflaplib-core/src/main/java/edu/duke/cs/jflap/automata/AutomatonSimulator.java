@@ -33,10 +33,24 @@ import java.util.*;
 
 public abstract class AutomatonSimulator {
 	/**
-	 * Creates an instance of <CODE>AutomatonSimulator</CODE>.
+	 * Creates an instance of <CODE>AutomatonSimulator</CODE> with the default
+	 * options.
 	 */
 	public AutomatonSimulator(Automaton automaton) {
+		this(automaton, SimulationOptions.getDefault());
+	}
+
+	/**
+	 * Creates an instance of <CODE>AutomatonSimulator</CODE>.
+	 * 
+	 * @param automaton
+	 *            the machine to simulate
+	 * @param options
+	 *            the options for the simulation
+	 */
+	public AutomatonSimulator(Automaton automaton, SimulationOptions options) {
 		myAutomaton = automaton;
+		myOptions = options;
 		myConfigurations = new HashSet();
 	}
 
@@ -84,12 +98,146 @@ public abstract class AutomatonSimulator {
 		return myAutomaton;
 	}
 
+	/**
+	 * Returns the options this simulator was created with.
+	 * 
+	 * @return the simulation options
+	 */
+	public SimulationOptions getOptions() {
+		return myOptions;
+	}
+
+	/**
+	 * Sets whether configurations are merged. When they are, the simulator
+	 * keeps only the first configuration to reach each combination of state,
+	 * input position and, for automata with one, stack, and drops any that
+	 * reach it later by other paths, so a configuration's parents trace one
+	 * path that led to it rather than every such path. This keeps the number
+	 * of configurations of a nondeterministic FSA polynomial in the input
+	 * length rather than exponential, and stops cycles of lambda transitions
+	 * from being followed forever. Configurations are not merged unless this
+	 * is turned on, except by the pushdown automaton simulators, which merge
+	 * them from the start.
+	 * 
+	 * @param deduplicating
+	 *            <CODE>true</CODE> to merge configurations, <CODE>false</CODE>
+	 *            to keep one for every path
+	 */
+	public void setDeduplicating(boolean deduplicating) {
+		myDeduplicating = deduplicating;
+	}
+
+	/**
+	 * Returns whether configurations are merged.
+	 * 
+	 * @return <CODE>true</CODE> if configurations are merged
+	 * @see #setDeduplicating
+	 */
+	public boolean isDeduplicating() {
+		return myDeduplicating;
+	}
+
+	/**
+	 * Forgets all configurations visited so far, as when a new simulation
+	 * begins.
+	 */
+	public void clearVisited() {
+		myVisited.clear();
+	}
+
+	/**
+	 * Marks a configuration as visited, and returns whether it should be
+	 * kept. Unless configurations are merged, every configuration is kept.
+	 * 
+	 * @param configuration
+	 *            the configuration reached
+	 * @return <CODE>false</CODE> if configurations are merged and one
+	 *         equivalent to <CODE>configuration</CODE> has already been
+	 *         visited, <CODE>true</CODE> otherwise
+	 */
+	public boolean visit(Configuration configuration) {
+		if (!myDeduplicating)
+			return true;
+		return myVisited.add(getDeduplicationKey(configuration));
+	}
+
+	/**
+	 * Returns the key under which configurations are merged; two
+	 * configurations with equal keys behave the same from then on, whatever
+	 * their parents. By default this is the configuration itself, which
+	 * merges nothing that differs in its parent.
+	 * 
+	 * @param configuration
+	 *            the configuration
+	 * @return the key for <CODE>configuration</CODE>
+	 */
+	protected Object getDeduplicationKey(Configuration configuration) {
+		return configuration;
+	}
+
+	/**
+	 * A key for merging configurations made of the state, the length of the
+	 * unprocessed input, and any other contents of the configuration, such as
+	 * the stack.
+	 */
+	protected static class ConfigurationKey {
+		/**
+		 * Instantiates a new key.
+		 * 
+		 * @param state
+		 *            the current state
+		 * @param remaining
+		 *            the length of the unprocessed input
+		 * @param contents
+		 *            the other contents of the configuration, or
+		 *            <CODE>null</CODE> if there are none
+		 */
+		public ConfigurationKey(State state, int remaining, Object contents) {
+			myState = state;
+			myRemaining = remaining;
+			myContents = contents;
+		}
+
+		public boolean equals(Object object) {
+			if (!(object instanceof ConfigurationKey))
+				return false;
+			ConfigurationKey key = (ConfigurationKey) object;
+			return myState == key.myState
+					&& myRemaining == key.myRemaining
+					&& (myContents == null ? key.myContents == null
+							: myContents.equals(key.myContents));
+		}
+
+		public int hashCode() {
+			return myState.hashCode() * 31 + myRemaining
+					^ (myContents == null ? 0 : myContents.hashCode());
+		}
+
+		private State myState;
+
+		private int myRemaining;
+
+		private Object myContents;
+	}
+
 	/** The automaton that the string will be run on. */
 	protected Automaton myAutomaton;
 
+	/** The options for the simulation. */
+	protected SimulationOptions myOptions;
+
 	/**
 	 * The set of configurations the machine could possibly be in at a given
 	 * moment in the simulation.
 	 */
 	protected Set myConfigurations;
+
+	/**
+	 * The keys of the configurations visited in this simulation, when
+	 * configurations are merged.
+	 */
+	protected Set myVisited = new HashSet();
+
+	/** Whether configurations are merged. */
+	private boolean myDeduplicating = false;
 }
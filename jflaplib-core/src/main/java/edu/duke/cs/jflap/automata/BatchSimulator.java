@@ -0,0 +1,476 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package edu.duke.cs.jflap.automata;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import edu.duke.cs.jflap.automata.turing.TMState;
+
+/**
+ * The batch simulator runs many input strings on many automata without any
+ * user interaction. Given N automata and M inputs, the N by M simulations are
+ * cut into chunks of inputs on one automaton that run on an executor, and each
+ * result is handed to a listener as soon as it is known.
+ * <P>
+ * Simulators keep their configurations in instance fields, and some of them
+ * rearrange the arrays cached by their automaton, so nothing mutable is
+ * shared between workers: each worker simulates on its own clone of the
+ * automaton with its own simulator. The automata passed in must not be edited
+ * while a batch is running.
+ * <P>
+ * Each simulation proceeds exactly as the multiple run pane does it, stepping
+ * every configuration of one generation before moving to the next, but
+ * instead of asking the user whether to continue it gives up once the number
+ * of configurations generated passes the configuration limit.
+ *
+ * @see edu.duke.cs.jflap.gui.action.MultipleSimulateAction
+ */
+
+public class BatchSimulator {
+	/**
+	 * Creates a batch simulator that runs on its own pool with as many daemon
+	 * worker threads as there are processors. The pool belongs to the
+	 * simulator, and its threads are stopped by {@link #shutdown}.
+	 */
+	public BatchSimulator() {
+		this(Executors.newFixedThreadPool(Runtime.getRuntime()
+				.availableProcessors(), new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "BatchSimulator");
+				thread.setDaemon(true);
+				return thread;
+			}
+		}));
+		myOwnsExecutor = true;
+	}
+
+	/**
+	 * Creates a batch simulator that runs on the given executor. The executor
+	 * still belongs to the caller, who must shut it down once it is no longer
+	 * needed; {@link #shutdown} leaves it running.
+	 *
+	 * @param executor
+	 *            the executor the simulations run on
+	 */
+	public BatchSimulator(ExecutorService executor) {
+		myExecutor = executor;
+	}
+
+	/**
+	 * Sets the maximum number of configurations a single simulation may
+	 * generate before it is given up with a <CODE>LIMIT</CODE> outcome.
+	 *
+	 * @param limit
+	 *            the configuration limit, or a value less than one for no
+	 *            limit at all
+	 */
+	public void setConfigurationLimit(int limit) {
+		myConfigurationLimit = limit;
+	}
+
+	/**
+	 * Returns the maximum number of configurations a single simulation may
+	 * generate.
+	 *
+	 * @return the configuration limit, or a value less than one if there is
+	 *         no limit
+	 */
+	public int getConfigurationLimit() {
+		return myConfigurationLimit;
+	}
+
+	/**
+	 * Sets whether the simulators merge configurations that reach the same
+	 * state at the same point in the input.
+	 *
+	 * @param deduplicating
+	 *            <CODE>true</CODE> to merge configurations
+	 * @see AutomatonSimulator#setDeduplicating
+	 */
+	public void setDeduplicating(boolean deduplicating) {
+		myDeduplicating = deduplicating;
+	}
+
+	/**
+	 * Returns whether the simulators merge configurations.
+	 *
+	 * @return <CODE>true</CODE> if configurations are merged
+	 */
+	public boolean isDeduplicating() {
+		return myDeduplicating;
+	}
+
+	/**
+	 * Runs every input on every automaton and returns all the results.
+	 *
+	 * @param automata
+	 *            the automata to simulate
+	 * @param inputs
+	 *            the input strings
+	 * @return the results, indexed first by automaton and then by input
+	 * @throws IllegalArgumentException
+	 *             if there is no simulator for one of the automata
+	 */
+	public Result[][] simulate(Automaton[] automata, String[] inputs) {
+		final Result[][] results = new Result[automata.length][inputs.length];
+		simulate(automata, inputs, new Listener() {
+			public void resultReady(Result result) {
+				results[result.getAutomatonIndex()][result.getInputIndex()] = result;
+			}
+		});
+		return results;
+	}
+
+	/**
+	 * Runs every input on every automaton, handing each result to the
+	 * listener as it is produced. The listener is called from the worker
+	 * threads, in no particular order, and so must be thread safe. This
+	 * method returns once every simulation has finished, or early, with the
+	 * rest cancelled, if the calling thread is interrupted.
+	 *
+	 * @param automata
+	 *            the automata to simulate
+	 * @param inputs
+	 *            the input strings
+	 * @param listener
+	 *            the listener that receives the results
+	 * @throws IllegalArgumentException
+	 *             if there is no simulator for one of the automata
+	 */
+	public void simulate(Automaton[] automata, String[] inputs,
+			Listener listener) {
+		for (int i = 0; i < automata.length; i++) {
+			if (SimulatorFactory.getSimulator(automata[i]) == null)
+				throw new IllegalArgumentException(
+						"No simulator is known for automaton " + i + ", a "
+								+ automata[i].getClass());
+			// Fill the lazily built caches now, so the workers cloning the
+			// automaton only ever read from it.
+			prepare(automata[i]);
+		}
+		if (automata.length == 0 || inputs.length == 0)
+			return;
+		ArrayList futures = new ArrayList();
+		for (int row = 0; row < automata.length; row++)
+			for (int from = 0; from < inputs.length; from += CHUNK_SIZE)
+				futures.add(myExecutor.submit(new Task(automata[row], row,
+						inputs, listener, from, Math.min(from + CHUNK_SIZE,
+								inputs.length))));
+		try {
+			for (int i = 0; i < futures.size(); i++)
+				((Future) futures.get(i)).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+			throw (RuntimeException) e.getCause();
+		} finally {
+			for (int i = 0; i < futures.size(); i++)
+				((Future) futures.get(i)).cancel(true);
+		}
+	}
+
+	/**
+	 * Stops the worker threads of the pool this simulator created, once the
+	 * simulations already started have finished. The simulator cannot be used
+	 * afterwards. An executor passed to the constructor is not shut down.
+	 */
+	public void shutdown() {
+		if (myOwnsExecutor)
+			myExecutor.shutdown();
+	}
+
+	/**
+	 * Fills the caches of states and transitions kept by an automaton and any
+	 * building blocks it contains.
+	 *
+	 * @param automaton
+	 *            the automaton to prepare
+	 */
+	private static void prepare(Automaton automaton) {
+		State[] states = automaton.getStates();
+		automaton.getFinalStates();
+		automaton.getTransitions();
+		for (int i = 0; i < states.length; i++) {
+			automaton.getTransitionsFromState(states[i]);
+			automaton.getTransitionsToState(states[i]);
+			if (states[i] instanceof TMState)
+				prepare(((TMState) states[i]).getInnerTM());
+		}
+	}
+
+	/**
+	 * Simulates one input on the automaton the simulator was built for.
+	 *
+	 * @param simulator
+	 *            the simulator, which must be used by this thread only
+	 * @param automatonIndex
+	 *            the index of the automaton in the batch
+	 * @param inputIndex
+	 *            the index of the input in the batch
+	 * @param input
+	 *            the input string
+	 * @return the result of the simulation
+	 */
+	private Result simulateOne(AutomatonSimulator simulator,
+			int automatonIndex, int inputIndex, String input) {
+		long start = System.nanoTime();
+		int steps = 0;
+		int generated = 0;
+		int outcome = REJECT;
+		Throwable error = null;
+		try {
+			simulator.clearVisited();
+			Configuration[] configs = visited(simulator, simulator
+					.getInitialConfigurations(input));
+			while (configs.length > 0) {
+				generated += configs.length;
+				if (myConfigurationLimit > 0 && generated > myConfigurationLimit) {
+					outcome = LIMIT;
+					break;
+				}
+				ArrayList next = new ArrayList();
+				boolean accepted = false;
+				for (int i = 0; i < configs.length; i++) {
+					if (configs[i].isAccept()) {
+						accepted = true;
+						break;
+					}
+					next.addAll(simulator.stepConfiguration(configs[i]));
+				}
+				if (accepted) {
+					outcome = ACCEPT;
+					break;
+				}
+				steps++;
+				configs = visited(simulator, (Configuration[]) next
+						.toArray(new Configuration[0]));
+			}
+		} catch (RuntimeException e) {
+			outcome = ERROR;
+			error = e;
+		}
+		return new Result(automatonIndex, inputIndex, input, outcome, steps,
+				generated, System.nanoTime() - start, error);
+	}
+
+	/**
+	 * Returns the configurations the simulator has not visited before, and
+	 * marks them as visited.
+	 *
+	 * @param simulator
+	 *            the simulator
+	 * @param configs
+	 *            the configurations reached
+	 * @return the configurations to keep
+	 */
+	private static Configuration[] visited(AutomatonSimulator simulator,
+			Configuration[] configs) {
+		if (!simulator.isDeduplicating())
+			return configs;
+		ArrayList kept = new ArrayList();
+		for (int i = 0; i < configs.length; i++)
+			if (simulator.visit(configs[i]))
+				kept.add(configs[i]);
+		return (Configuration[]) kept.toArray(new Configuration[0]);
+	}
+
+	/**
+	 * The task that runs a chunk of the inputs on one automaton. It clones
+	 * its automaton once and runs its inputs one after another.
+	 */
+	private class Task implements Runnable {
+		Task(Automaton automaton, int row, String[] inputs,
+				Listener listener, int from, int to) {
+			this.automaton = automaton;
+			this.row = row;
+			this.inputs = inputs;
+			this.listener = listener;
+			this.from = from;
+			this.to = to;
+		}
+
+		public void run() {
+			Automaton clone = (Automaton) automaton.clone();
+			AutomatonSimulator simulator = SimulatorFactory.getSimulator(clone);
+			simulator.setDeduplicating(myDeduplicating);
+			for (int i = from; i < to && !Thread.interrupted(); i++)
+				listener.resultReady(simulateOne(simulator, row, i, inputs[i]));
+		}
+
+		private final Automaton automaton;
+
+		private final int row;
+
+		private final String[] inputs;
+
+		private final Listener listener;
+
+		private final int from, to;
+	}
+
+	/**
+	 * The listener interface for receiving the results of a batch as they
+	 * are produced.
+	 */
+	public interface Listener {
+		/**
+		 * Called when one simulation of the batch has finished.
+		 *
+		 * @param result
+		 *            the result of that simulation
+		 */
+		public void resultReady(Result result);
+	}
+
+	/**
+	 * The result of running one input on one automaton.
+	 */
+	public static class Result {
+		/**
+		 * Instantiates a new result.
+		 */
+		Result(int automatonIndex, int inputIndex, String input, int outcome,
+				int steps, int configurations, long nanos, Throwable error) {
+			myAutomatonIndex = automatonIndex;
+			myInputIndex = inputIndex;
+			myInput = input;
+			myOutcome = outcome;
+			mySteps = steps;
+			myConfigurations = configurations;
+			myNanos = nanos;
+			myError = error;
+		}
+
+		/**
+		 * Returns the index of the automaton in the batch.
+		 */
+		public int getAutomatonIndex() {
+			return myAutomatonIndex;
+		}
+
+		/**
+		 * Returns the index of the input in the batch.
+		 */
+		public int getInputIndex() {
+			return myInputIndex;
+		}
+
+		/**
+		 * Returns the input string.
+		 */
+		public String getInput() {
+			return myInput;
+		}
+
+		/**
+		 * Returns the outcome of the simulation, one of <CODE>ACCEPT</CODE>,
+		 * <CODE>REJECT</CODE>, <CODE>LIMIT</CODE> or <CODE>ERROR</CODE>.
+		 */
+		public int getOutcome() {
+			return myOutcome;
+		}
+
+		/**
+		 * Returns if the input was accepted.
+		 */
+		public boolean isAccepted() {
+			return myOutcome == ACCEPT;
+		}
+
+		/**
+		 * Returns the number of steps simulated, that is, the number of
+		 * generations of configurations that were stepped.
+		 */
+		public int getSteps() {
+			return mySteps;
+		}
+
+		/**
+		 * Returns the total number of configurations generated.
+		 */
+		public int getConfigurations() {
+			return myConfigurations;
+		}
+
+		/**
+		 * Returns the time the simulation took, in nanoseconds.
+		 */
+		public long getNanos() {
+			return myNanos;
+		}
+
+		/**
+		 * Returns the exception that ended the simulation if the outcome is
+		 * <CODE>ERROR</CODE>, or <CODE>null</CODE> otherwise.
+		 */
+		public Throwable getError() {
+			return myError;
+		}
+
+		/**
+		 * Returns a string representation of this result.
+		 */
+		public String toString() {
+			return "[" + myAutomatonIndex + "," + myInputIndex + "] \""
+					+ myInput + "\": " + OUTCOMES[myOutcome] + " in "
+					+ mySteps + " steps";
+		}
+
+		private final int myAutomatonIndex, myInputIndex;
+
+		private final String myInput;
+
+		private final int myOutcome, mySteps, myConfigurations;
+
+		private final long myNanos;
+
+		private final Throwable myError;
+	}
+
+	/** The outcomes of a single simulation. */
+	public static final int ACCEPT = 0, REJECT = 1, LIMIT = 2, ERROR = 3;
+
+	/** The names of the outcomes. */
+	private static final String[] OUTCOMES = { "Accept", "Reject", "Limit",
+			"Error" };
+
+	/** The most simulations a task runs. */
+	private static final int CHUNK_SIZE = 64;
+
+	/** The executor the simulations run on. */
+	private ExecutorService myExecutor;
+
+	/** Whether the executor was created by, and belongs to, this simulator. */
+	private boolean myOwnsExecutor = false;
+
+	/** The most configurations a single simulation may generate. */
+	private int myConfigurationLimit = 1000000;
+
+	/** Whether the simulators merge configurations. */
+	private boolean myDeduplicating = false;
+}
@@ -0,0 +1,226 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package edu.duke.cs.jflap.automata;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import edu.duke.cs.jflap.automata.event.AutomataTransitionEvent;
+import edu.duke.cs.jflap.automata.event.AutomataTransitionListener;
+
+/**
+ * The closure cache holds the lambda closure of every state of one automaton.
+ * All closures are computed together the first time one is asked for: the
+ * strongly connected components of the graph of lambda transitions are found
+ * with Tarjan's algorithm, and since it finishes each component after every
+ * component it leads to, the closure of a component is simply its own states
+ * plus the closures of the components it has lambda transitions into.
+ * <P>
+ * The cache listens to the transitions of its automaton and throws the
+ * closures away whenever a transition is added, removed or changed. A state
+ * added since the closures were computed causes them to be computed again.
+ * The closures are computed and thrown away while holding the lock on the
+ * cache, so threads that share an automaton share one set of closures.
+ * 
+ * @see edu.duke.cs.jflap.automata.ClosureTaker
+ */
+
+class ClosureCache implements AutomataTransitionListener {
+	/**
+	 * Instantiates a cache for the closures of the states in an automaton.
+	 * 
+	 * @param automaton
+	 *            the automaton
+	 */
+	ClosureCache(Automaton automaton) {
+		myAutomaton = automaton;
+		automaton.addTransitionListener(this);
+	}
+
+	/**
+	 * Returns the closure of <CODE>state</CODE>, with <CODE>state</CODE>
+	 * itself first. The array is shared, and must not be modified.
+	 * 
+	 * @param state
+	 *            the state whose closure is wanted
+	 * @return the closure of <CODE>state</CODE>, or <CODE>null</CODE> if
+	 *         the state is not in the automaton
+	 */
+	synchronized State[] getClosure(State state) {
+		if (myClosures == null)
+			myClosures = computeClosures();
+		State[] closure = (State[]) myClosures.get(state);
+		if (closure == null && myAutomaton.states.contains(state)) {
+			myClosures = computeClosures();
+			closure = (State[]) myClosures.get(state);
+		}
+		return closure;
+	}
+
+	/**
+	 * Throws the closures away when a transition changes.
+	 * 
+	 * @param event
+	 *            the transition event
+	 */
+	public synchronized void automataTransitionChange(
+			AutomataTransitionEvent event) {
+		myClosures = null;
+	}
+
+	/**
+	 * Computes the closures of all states of the automaton.
+	 * 
+	 * @return the map from each state to its closure
+	 */
+	private HashMap computeClosures() {
+		State[] states = myAutomaton.getStates();
+		int n = states.length;
+		HashMap indices = new HashMap();
+		for (int i = 0; i < n; i++)
+			indices.put(states[i], new Integer(i));
+
+		// The lambda transitions out of each state.
+		LambdaTransitionChecker checker = LambdaCheckerFactory
+				.getLambdaChecker(myAutomaton);
+		int[][] lambdas = new int[n][];
+		int[] buffer = new int[16];
+		for (int i = 0; i < n; i++) {
+			Transition[] transitions = myAutomaton
+					.getTransitionsFromState(states[i]);
+			int count = 0;
+			for (int k = 0; checker != null && k < transitions.length; k++) {
+				if (!checker.isLambdaTransition(transitions[k]))
+					continue;
+				if (count == buffer.length) {
+					int[] larger = new int[count * 2];
+					System.arraycopy(buffer, 0, larger, 0, count);
+					buffer = larger;
+				}
+				buffer[count++] = ((Integer) indices.get(transitions[k]
+						.getToState())).intValue();
+			}
+			lambdas[i] = new int[count];
+			System.arraycopy(buffer, 0, lambdas[i], 0, count);
+		}
+
+		// Tarjan's algorithm, with an explicit stack of calls.
+		int[] number = new int[n];
+		int[] low = new int[n];
+		int[] component = new int[n];
+		Arrays.fill(component, -1);
+		int[] stack = new int[n];
+		int[] calls = new int[n];
+		int[] edges = new int[n];
+		int[][] closures = new int[n][];
+		int[] stamp = new int[n];
+		int[] members = new int[n];
+		HashMap map = new HashMap();
+		int numbered = 0, stacked = 0, components = 0;
+		for (int root = 0; root < n; root++) {
+			if (number[root] != 0)
+				continue;
+			int depth = 0;
+			calls[depth] = root;
+			edges[depth] = 0;
+			number[root] = low[root] = ++numbered;
+			stack[stacked++] = root;
+			while (depth >= 0) {
+				int v = calls[depth];
+				if (edges[depth] < lambdas[v].length) {
+					int w = lambdas[v][edges[depth]++];
+					if (number[w] == 0) {
+						number[w] = low[w] = ++numbered;
+						stack[stacked++] = w;
+						calls[++depth] = w;
+						edges[depth] = 0;
+					} else if (component[w] == -1 && number[w] < low[v]) {
+						low[v] = number[w];
+					}
+					continue;
+				}
+				depth--;
+				if (depth >= 0 && low[v] < low[calls[depth]])
+					low[calls[depth]] = low[v];
+				if (low[v] != number[v])
+					continue;
+
+				// v is the root of a component; every component it leads
+				// to is already finished.
+				int c = components++;
+				int size = 0;
+				int w;
+				do {
+					w = stack[--stacked];
+					component[w] = c;
+					stamp[w] = c + 1;
+					members[size++] = w;
+				} while (w != v);
+				int[] closure = new int[size];
+				System.arraycopy(members, 0, closure, 0, size);
+				int length = size;
+				for (int m = 0; m < size; m++) {
+					int[] out = lambdas[members[m]];
+					for (int k = 0; k < out.length; k++) {
+						int d = component[out[k]];
+						if (d == c)
+							continue;
+						int[] reach = closures[d];
+						for (int r = 0; r < reach.length; r++) {
+							if (stamp[reach[r]] == c + 1)
+								continue;
+							stamp[reach[r]] = c + 1;
+							if (length == closure.length) {
+								int[] larger = new int[length * 2];
+								System.arraycopy(closure, 0, larger, 0, length);
+								closure = larger;
+							}
+							closure[length++] = reach[r];
+						}
+					}
+				}
+				if (length < closure.length) {
+					int[] exact = new int[length];
+					System.arraycopy(closure, 0, exact, 0, length);
+					closure = exact;
+				}
+				closures[c] = closure;
+
+				// Each member gets the closure with itself first.
+				for (int m = 0; m < size; m++) {
+					State[] result = new State[length];
+					for (int r = 0; r < length; r++)
+						result[r] = states[closure[r]];
+					result[m] = result[0];
+					result[0] = states[members[m]];
+					map.put(states[members[m]], result);
+				}
+			}
+		}
+		return map;
+	}
+
+	/** The automaton whose closures are cached. */
+	private Automaton myAutomaton;
+
+	/** The map from each state to its closure, or null if out of date. */
+	private HashMap myClosures = null;
+}
@@ -40,34 +40,49 @@ public class ClosureTaker {
 	/**
 	 * Returns the closure of <CODE>state</CODE>, that is, all states
 	 * reachable from <CODE>state</CODE> without changing any internal state
-	 * (e.g. stack, tape, input) via lambda transitions.
+	 * (e.g. stack, tape, input) via lambda transitions. The closures of all
+	 * the states in <CODE>automaton</CODE> are computed once and kept until a
+	 * transition of the automaton changes, and each call returns a new copy
+	 * of the closure, which the caller may change. Closures may be taken from
+	 * several threads at once, as long as none of them changes the automaton.
 	 * 
 	 * @param state
 	 *            the state whose closure is being taken.
 	 * @param automaton
 	 *            the automaton
-	 * @return the set of states that represent the closure of state.
+	 * @return the set of states that represent the closure of state, with
+	 *         <CODE>state</CODE> first.
 	 */
 	public static State[] getClosure(State state, Automaton automaton) {
+		ClosureCache cache;
+		synchronized (CACHE_LOCK) {
+			if (automaton.closureCache == null)
+				automaton.closureCache = new ClosureCache(automaton);
+			cache = automaton.closureCache;
+		}
+		State[] closure = cache.getClosure(state);
+		if (closure != null)
+			return (State[]) closure.clone();
+		// The state is not in the automaton, so its closure is not cached.
 		List list = new ArrayList();
+		Set seen = new HashSet();
+		LambdaTransitionChecker checker = LambdaCheckerFactory
+				.getLambdaChecker(automaton);
 		list.add(state);
+		seen.add(state);
 		for (int i = 0; i < list.size(); i++) {
 			state = (State) list.get(i);
 			Transition transitions[] = automaton.getTransitionsFromState(state);
 			for (int k = 0; k < transitions.length; k++) {
-				Transition transition = transitions[k];
-				LambdaTransitionChecker checker = LambdaCheckerFactory
-						.getLambdaChecker(automaton);
 				/** if lambda transition */
-				if (checker.isLambdaTransition(transition)) {
-					State toState = transition.getToState();
-					if (!list.contains(toState)) {
-						list.add(toState);
-					}
-				}
+				if (checker.isLambdaTransition(transitions[k])
+						&& seen.add(transitions[k].getToState()))
+					list.add(transitions[k].getToState());
 			}
 		}
 		return (State[]) list.toArray(new State[0]);
 	}
 
+	/** The lock held while the closure cache of an automaton is created. */
+	private static final Object CACHE_LOCK = new Object();
 }
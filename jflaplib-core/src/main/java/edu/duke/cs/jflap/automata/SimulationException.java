@@ -0,0 +1,42 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package edu.duke.cs.jflap.automata;
+
+/**
+ * This exception is thrown when a simulation cannot go on because of a
+ * problem with the automaton being simulated, such as a building block with
+ * no initial state. The message describes the problem so that it may be shown
+ * to the user.
+ * 
+ * @see edu.duke.cs.jflap.automata.AutomatonSimulator#stepConfiguration
+ */
+
+public class SimulationException extends RuntimeException {
+	/**
+	 * Instantiates a new <CODE>SimulationException</CODE>.
+	 * 
+	 * @param message
+	 *            the description of the problem
+	 */
+	public SimulationException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,224 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package edu.duke.cs.jflap.automata;
+
+/**
+ * The simulation options are the settings that affect how automata are
+ * simulated and how their transitions are described: the symbol for the
+ * empty string, how Turing machines and pushdown automata accept, and how
+ * many configurations a simulation may generate. Options are immutable, so
+ * one object may be shared by any number of simulators on any number of
+ * threads; the <CODE>with</CODE> methods return changed copies.
+ * <P>
+ * Simulators are given their options when they are created. Those created
+ * without any, and transitions describing themselves, use the default
+ * options, which the preferences of the user interface keep up to date.
+ * 
+ * @see edu.duke.cs.jflap.automata.AutomatonSimulator
+ */
+
+public class SimulationOptions {
+	/**
+	 * Instantiates new simulation options.
+	 * 
+	 * @param emptyString
+	 *            the symbol shown for the empty string
+	 * @param acceptByFinalState
+	 *            whether Turing machines accept in final states
+	 * @param acceptByHalting
+	 *            whether Turing machines accept when they halt
+	 * @param pdaAcceptance
+	 *            how pushdown automata accept, either <CODE>FINAL_STATE</CODE>
+	 *            or <CODE>EMPTY_STACK</CODE>
+	 * @param configurationLimit
+	 *            the most configurations a simulation of an input may
+	 *            generate, or a value less than one for no limit
+	 * @throws IllegalArgumentException
+	 *             if the pushdown automaton acceptance is not one of the two
+	 *             known kinds
+	 */
+	public SimulationOptions(String emptyString, boolean acceptByFinalState,
+			boolean acceptByHalting, int pdaAcceptance, int configurationLimit) {
+		if (pdaAcceptance != FINAL_STATE && pdaAcceptance != EMPTY_STACK)
+			throw new IllegalArgumentException("Bad PDA acceptance "
+					+ pdaAcceptance);
+		myEmptyString = emptyString;
+		myAcceptByFinalState = acceptByFinalState;
+		myAcceptByHalting = acceptByHalting;
+		myPDAAcceptance = pdaAcceptance;
+		myConfigurationLimit = configurationLimit;
+	}
+
+	/**
+	 * Returns the symbol shown for the empty string.
+	 * 
+	 * @return the symbol for the empty string
+	 */
+	public String getEmptyString() {
+		return myEmptyString;
+	}
+
+	/**
+	 * Returns whether Turing machines accept in final states.
+	 * 
+	 * @return <CODE>true</CODE> if Turing machines accept in final states
+	 */
+	public boolean getAcceptByFinalState() {
+		return myAcceptByFinalState;
+	}
+
+	/**
+	 * Returns whether Turing machines accept when they halt.
+	 * 
+	 * @return <CODE>true</CODE> if Turing machines accept when they halt
+	 */
+	public boolean getAcceptByHalting() {
+		return myAcceptByHalting;
+	}
+
+	/**
+	 * Returns how pushdown automata accept.
+	 * 
+	 * @return <CODE>FINAL_STATE</CODE> or <CODE>EMPTY_STACK</CODE>
+	 */
+	public int getPDAAcceptance() {
+		return myPDAAcceptance;
+	}
+
+	/**
+	 * Returns the most configurations a simulation of an input may generate
+	 * before it gives up.
+	 * 
+	 * @return the configuration limit, or a value less than one if there is
+	 *         no limit
+	 */
+	public int getConfigurationLimit() {
+		return myConfigurationLimit;
+	}
+
+	/**
+	 * Returns a copy of these options with a different empty string.
+	 * 
+	 * @param emptyString
+	 *            the symbol shown for the empty string
+	 * @return the changed options
+	 */
+	public SimulationOptions withEmptyString(String emptyString) {
+		return new SimulationOptions(emptyString, myAcceptByFinalState,
+				myAcceptByHalting, myPDAAcceptance, myConfigurationLimit);
+	}
+
+	/**
+	 * Returns a copy of these options with different acceptance criteria for
+	 * Turing machines.
+	 * 
+	 * @param acceptByFinalState
+	 *            whether Turing machines accept in final states
+	 * @param acceptByHalting
+	 *            whether Turing machines accept when they halt
+	 * @return the changed options
+	 */
+	public SimulationOptions withTuringAcceptance(boolean acceptByFinalState,
+			boolean acceptByHalting) {
+		return new SimulationOptions(myEmptyString, acceptByFinalState,
+				acceptByHalting, myPDAAcceptance, myConfigurationLimit);
+	}
+
+	/**
+	 * Returns a copy of these options with a different acceptance criterion
+	 * for pushdown automata.
+	 * 
+	 * @param pdaAcceptance
+	 *            <CODE>FINAL_STATE</CODE> or <CODE>EMPTY_STACK</CODE>
+	 * @return the changed options
+	 */
+	public SimulationOptions withPDAAcceptance(int pdaAcceptance) {
+		return new SimulationOptions(myEmptyString, myAcceptByFinalState,
+				myAcceptByHalting, pdaAcceptance, myConfigurationLimit);
+	}
+
+	/**
+	 * Returns a copy of these options with a different configuration limit.
+	 * 
+	 * @param configurationLimit
+	 *            the configuration limit, or a value less than one for no
+	 *            limit
+	 * @return the changed options
+	 */
+	public SimulationOptions withConfigurationLimit(int configurationLimit) {
+		return new SimulationOptions(myEmptyString, myAcceptByFinalState,
+				myAcceptByHalting, myPDAAcceptance, configurationLimit);
+	}
+
+	/**
+	 * Returns the default options.
+	 * 
+	 * @return the default options
+	 */
+	public static SimulationOptions getDefault() {
+		return defaultOptions;
+	}
+
+	/**
+	 * Sets the default options.
+	 * 
+	 * @param options
+	 *            the new default options
+	 */
+	public static void setDefault(SimulationOptions options) {
+		if (options == null)
+			throw new IllegalArgumentException("Options may not be null");
+		defaultOptions = options;
+	}
+
+	/** Acceptance of pushdown automata by empty stack. */
+	public static final int EMPTY_STACK = 0;
+
+	/** Acceptance of pushdown automata by final state. */
+	public static final int FINAL_STATE = 1;
+
+	/**
+	 * The options JFLAP starts with: lambda for the empty string, Turing
+	 * machines that accept in final states only, pushdown automata that
+	 * accept in final states, and a limit of 10000 configurations, the number
+	 * after which JFLAP used to ask whether to go on.
+	 */
+	public static final SimulationOptions INITIAL = new SimulationOptions(
+			"\u03BB", true, false, FINAL_STATE, 10000);
+
+	/** The default options. */
+	private static volatile SimulationOptions defaultOptions = INITIAL;
+
+	/** The symbol for the empty string. */
+	private final String myEmptyString;
+
+	/** Whether Turing machines accept in final states. */
+	private final boolean myAcceptByFinalState;
+
+	/** Whether Turing machines accept when they halt. */
+	private final boolean myAcceptByHalting;
+
+	/** How pushdown automata accept. */
+	private final int myPDAAcceptance;
+
+	/** The most configurations a simulation may generate. */
+	private final int myConfigurationLimit;
+}
@@ -29,7 +29,8 @@ package edu.duke.cs.jflap.automata;
 
 public class SimulatorFactory {
 	/**
-	 * Returns the automaton simulator for this type of automaton.
+	 * Returns the automaton simulator for this type of automaton, using the
+	 * default simulation options.
 	 * 
 	 * @param automaton
 	 *            the automaton to get the simulator for
@@ -38,20 +39,56 @@ public class SimulatorFactory {
 	 *         automaton
 	 */
 	public static AutomatonSimulator getSimulator(Automaton automaton) {
+		return getSimulator(automaton, SimulationOptions.getDefault());
+	}
+
+	/**
+	 * Returns the automaton simulator for this type of automaton.
+	 * 
+	 * @param automaton
+	 *            the automaton to get the simulator for
+	 * @param options
+	 *            the options for the simulation
+	 * @return the appropriate automaton simulator for this automaton, or <CODE>null</CODE>
+	 *         if there is no automaton simulator known for this type of
+	 *         automaton
+	 */
+	public static AutomatonSimulator getSimulator(Automaton automaton,
+			SimulationOptions options) {
 		if (automaton instanceof edu.duke.cs.jflap.automata.fsa.FiniteStateAutomaton)
-			return new edu.duke.cs.jflap.automata.fsa.FSAStepWithClosureSimulator(automaton);
+			return new edu.duke.cs.jflap.automata.fsa.FSAStepWithClosureSimulator(automaton, options);
 		else if (automaton instanceof edu.duke.cs.jflap.automata.pda.PushdownAutomaton)
-			return new edu.duke.cs.jflap.automata.pda.PDAStepWithClosureSimulator(automaton);
+			return new edu.duke.cs.jflap.automata.pda.PDAStepWithClosureSimulator(automaton, options);
 		else if (automaton instanceof edu.duke.cs.jflap.automata.turing.TuringMachine)
-			return new edu.duke.cs.jflap.automata.turing.TMSimulator(automaton);
+			return new edu.duke.cs.jflap.automata.turing.TMSimulator(automaton, options);
         /*
          * Check for Moore must take place before check for Mealy because Moore
          * is a subclass of Mealy.
          */
         else if(automaton instanceof edu.duke.cs.jflap.automata.mealy.MooreMachine)
-            return new edu.duke.cs.jflap.automata.mealy.MooreStepByStateSimulator(automaton);
+            return new edu.duke.cs.jflap.automata.mealy.MooreStepByStateSimulator(automaton, options);
         else if(automaton instanceof edu.duke.cs.jflap.automata.mealy.MealyMachine)
-            return new edu.duke.cs.jflap.automata.mealy.MealyStepByStateSimulator(automaton);
+            return new edu.duke.cs.jflap.automata.mealy.MealyStepByStateSimulator(automaton, options);
+		return null;
+	}
+
+	/**
+	 * Returns a compiled acceptor for this automaton, for callers that only
+	 * need to know whether inputs are accepted and have no use for the
+	 * configurations of a step by step simulation. The compiled automaton is
+	 * a snapshot of <CODE>automaton</CODE> as it is now.
+	 * 
+	 * @param automaton
+	 *            the automaton to compile
+	 * @return the compiled form of this automaton, or <CODE>null</CODE> if
+	 *         there is no compiled form for this type of automaton
+	 * @see edu.duke.cs.jflap.automata.fsa.CompiledFSA
+	 */
+	public static edu.duke.cs.jflap.automata.fsa.CompiledFSA getCompiledFSA(
+			Automaton automaton) {
+		if (automaton instanceof edu.duke.cs.jflap.automata.fsa.FiniteStateAutomaton)
+			return new edu.duke.cs.jflap.automata.fsa.CompiledFSA(
+					(edu.duke.cs.jflap.automata.fsa.FiniteStateAutomaton) automaton);
 		return null;
 	}
 }
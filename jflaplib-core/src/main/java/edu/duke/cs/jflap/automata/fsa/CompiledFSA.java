@@ -0,0 +1,506 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package edu.duke.cs.jflap.automata.fsa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.duke.cs.jflap.automata.State;
+import edu.duke.cs.jflap.automata.Transition;
+
+/**
+ * A <CODE>CompiledFSA</CODE> is a snapshot of a finite state automaton
+ * translated into primitive arrays, intended for answering plain membership
+ * questions as fast as possible. States are numbered with int ids, the input
+ * alphabet is mapped to dense symbol indices, and transitions are kept in an
+ * <CODE>int[]</CODE> table indexed by state and symbol.
+ * <P>
+ * If the automaton is deterministic and has no lambda transitions, acceptance
+ * is decided by walking the table, which performs no allocation at all.
+ * Otherwise the compiled automaton runs in NFA mode: the set of active states
+ * is kept as a bitset, lambda closures are folded into the successor lists at
+ * compile time, and a simulation allocates only the two bitsets it alternates
+ * between. Either way, the time taken is linear in the length of the input.
+ * <P>
+ * Labels are interpreted the same way the <CODE>FSAStepWithClosureSimulator</CODE>
+ * interprets them: the empty label is lambda, a label with a bracketed range
+ * such as <CODE>[a-z]</CODE> matches any one character in the range, and a
+ * label of several characters must be matched in full. Multiple character
+ * labels are compiled into chains of internal states which do not correspond
+ * to any state of the original automaton.
+ * <P>
+ * Instances are immutable, so a single compiled automaton may be shared by
+ * any number of threads. Later changes to the original automaton are not
+ * reflected; compile it again after editing.
+ *
+ * @see edu.duke.cs.jflap.automata.SimulatorFactory#getCompiledFSA
+ */
+
+public class CompiledFSA {
+	/**
+	 * Compiles the given finite state automaton.
+	 *
+	 * @param automaton
+	 *            the automaton to compile
+	 */
+	public CompiledFSA(FiniteStateAutomaton automaton) {
+		State[] states = automaton.getStates();
+		Map stateIds = new HashMap();
+		for (int i = 0; i < states.length; i++)
+			stateIds.put(states[i], new Integer(i));
+
+		// Collect single character edges, lambda edges, and extra chain
+		// states for multiple character labels.
+		List edges = new ArrayList();
+		List lambdas = new ArrayList();
+		int stateCount = states.length;
+		BitSet alphabet = new BitSet();
+		Transition[] transitions = automaton.getTransitions();
+		for (int k = 0; k < transitions.length; k++) {
+			FSATransition transition = (FSATransition) transitions[k];
+			int from = ((Integer) stateIds.get(transition.getFromState()))
+					.intValue();
+			int to = ((Integer) stateIds.get(transition.getToState()))
+					.intValue();
+			String label = transition.getLabel();
+			if (label.length() == 0) {
+				lambdas.add(new int[] { from, to });
+			} else if (label.indexOf('[') >= 0) {
+				int bracket = label.indexOf('[');
+				char low = label.charAt(bracket + 1);
+				char high = label.charAt(bracket + 3);
+				for (int c = low; c <= high; c++) {
+					edges.add(new int[] { from, c, to });
+					alphabet.set(c);
+				}
+			} else {
+				int current = from;
+				for (int i = 0; i < label.length(); i++) {
+					int next = i == label.length() - 1 ? to : stateCount++;
+					edges.add(new int[] { current, label.charAt(i), next });
+					alphabet.set(label.charAt(i));
+					current = next;
+				}
+			}
+		}
+
+		// Dense symbol indices for the characters of the alphabet.
+		char[] symbols = new char[alphabet.cardinality()];
+		for (int c = alphabet.nextSetBit(0), i = 0; c >= 0; c = alphabet
+				.nextSetBit(c + 1))
+			symbols[i++] = (char) c;
+		int maxChar = symbols.length == 0 ? -1 : symbols[symbols.length - 1];
+		symbolForChar = new int[maxChar + 1];
+		Arrays.fill(symbolForChar, -1);
+		for (int i = 0; i < symbols.length; i++)
+			symbolForChar[symbols[i]] = i;
+		this.symbols = symbols;
+		this.stateCount = stateCount;
+		words = (stateCount + 63) >>> 6;
+
+		finals = new long[words];
+		State[] finalStates = automaton.getFinalStates();
+		for (int i = 0; i < finalStates.length; i++) {
+			Integer id = (Integer) stateIds.get(finalStates[i]);
+			if (id != null)
+				set(finals, id.intValue());
+		}
+		State initialState = automaton.getInitialState();
+		initial = initialState == null ? -1 : ((Integer) stateIds
+				.get(initialState)).intValue();
+
+		// Lambda closures as bitsets, one per state.
+		long[][] closures = computeClosures(stateCount, lambdas);
+
+		// Decide between the DFA table and the NFA successor lists.
+		int alphabetSize = symbols.length;
+		int[] direct = new int[stateCount * alphabetSize];
+		Arrays.fill(direct, DEAD);
+		boolean det = lambdas.isEmpty();
+		for (int i = 0; i < edges.size(); i++) {
+			int[] edge = (int[]) edges.get(i);
+			int cell = edge[0] * alphabetSize + symbolForChar[edge[1]];
+			if (direct[cell] != DEAD && direct[cell] != edge[2])
+				det = false;
+			direct[cell] = edge[2];
+		}
+		deterministic = det;
+		if (det) {
+			table = direct;
+			successorStart = null;
+			successors = null;
+			initialSet = null;
+			return;
+		}
+		table = null;
+
+		// For each (state, symbol), the union of the closures of its direct
+		// targets, stored compressed in one array.
+		long[][] cells = new long[stateCount * alphabetSize][];
+		for (int i = 0; i < edges.size(); i++) {
+			int[] edge = (int[]) edges.get(i);
+			int cell = edge[0] * alphabetSize + symbolForChar[edge[1]];
+			if (cells[cell] == null)
+				cells[cell] = new long[words];
+			or(cells[cell], closures[edge[2]]);
+		}
+		successorStart = new int[cells.length + 1];
+		int total = 0;
+		for (int i = 0; i < cells.length; i++) {
+			successorStart[i] = total;
+			if (cells[i] != null)
+				total += cardinality(cells[i]);
+		}
+		successorStart[cells.length] = total;
+		successors = new int[total];
+		for (int i = 0; i < cells.length; i++) {
+			if (cells[i] == null)
+				continue;
+			int pos = successorStart[i];
+			for (int s = nextSetBit(cells[i], 0); s >= 0; s = nextSetBit(
+					cells[i], s + 1))
+				successors[pos++] = s;
+		}
+		initialSet = initial == -1 ? new long[words] : closures[initial];
+	}
+
+	/**
+	 * Computes the lambda closure of every state, that is, the state itself
+	 * plus every state reachable from it through lambda transitions alone.
+	 *
+	 * @param stateCount
+	 *            the number of states
+	 * @param lambdas
+	 *            the list of lambda edges, as <CODE>{from, to}</CODE> pairs
+	 * @return the closure bitset for each state
+	 */
+	private long[][] computeClosures(int stateCount, List lambdas) {
+		long[][] closures = new long[stateCount][];
+		for (int s = 0; s < stateCount; s++) {
+			closures[s] = new long[words];
+			set(closures[s], s);
+		}
+		if (lambdas.isEmpty())
+			return closures;
+		int[][] lambdaTo = new int[stateCount][];
+		int[] counts = new int[stateCount];
+		for (int i = 0; i < lambdas.size(); i++)
+			counts[((int[]) lambdas.get(i))[0]]++;
+		for (int s = 0; s < stateCount; s++)
+			lambdaTo[s] = new int[counts[s]];
+		Arrays.fill(counts, 0);
+		for (int i = 0; i < lambdas.size(); i++) {
+			int[] edge = (int[]) lambdas.get(i);
+			lambdaTo[edge[0]][counts[edge[0]]++] = edge[1];
+		}
+		// Depth first search from each state with outgoing lambdas.
+		int[] stack = new int[stateCount];
+		for (int s = 0; s < stateCount; s++) {
+			if (lambdaTo[s].length == 0)
+				continue;
+			long[] closure = closures[s];
+			int top = 0;
+			stack[top++] = s;
+			while (top > 0) {
+				int u = stack[--top];
+				for (int i = 0; i < lambdaTo[u].length; i++) {
+					int v = lambdaTo[u][i];
+					if (!get(closure, v)) {
+						set(closure, v);
+						stack[top++] = v;
+					}
+				}
+			}
+		}
+		return closures;
+	}
+
+	/**
+	 * Returns if the compiled automaton accepts the given input, that is, if
+	 * some path from the initial state that reads the whole input ends in a
+	 * final state.
+	 *
+	 * @param input
+	 *            the input string
+	 * @return <CODE>true</CODE> if the input is accepted, <CODE>false</CODE>
+	 *         otherwise
+	 */
+	public boolean accepts(CharSequence input) {
+		if (initial == -1)
+			return false;
+		return deterministic ? acceptsDeterministic(input)
+				: acceptsNondeterministic(input);
+	}
+
+	/**
+	 * Runs the input through the deterministic transition table.
+	 */
+	private boolean acceptsDeterministic(CharSequence input) {
+		int alphabetSize = symbols.length;
+		int state = initial;
+		for (int i = 0, n = input.length(); i < n; i++) {
+			int symbol = symbolOf(input.charAt(i));
+			if (symbol == -1)
+				return false;
+			state = table[state * alphabetSize + symbol];
+			if (state == DEAD)
+				return false;
+		}
+		return get(finals, state);
+	}
+
+	/**
+	 * Runs the input through the automaton by tracking the set of reachable
+	 * states in a bitset.
+	 */
+	private boolean acceptsNondeterministic(CharSequence input) {
+		int alphabetSize = symbols.length;
+		long[] current = new long[words];
+		long[] next = new long[words];
+		System.arraycopy(initialSet, 0, current, 0, words);
+		for (int i = 0, n = input.length(); i < n; i++) {
+			int symbol = symbolOf(input.charAt(i));
+			if (symbol == -1)
+				return false;
+			Arrays.fill(next, 0L);
+			boolean any = false;
+			for (int w = 0; w < words; w++) {
+				long word = current[w];
+				while (word != 0) {
+					int s = (w << 6) + Long.numberOfTrailingZeros(word);
+					word &= word - 1;
+					int cell = s * alphabetSize + symbol;
+					for (int j = successorStart[cell], end = successorStart[cell + 1]; j < end; j++) {
+						int t = successors[j];
+						next[t >>> 6] |= 1L << t;
+						any = true;
+					}
+				}
+			}
+			if (!any)
+				return false;
+			long[] swap = current;
+			current = next;
+			next = swap;
+		}
+		for (int w = 0; w < words; w++)
+			if ((current[w] & finals[w]) != 0)
+				return true;
+		return false;
+	}
+
+	/**
+	 * Returns the symbol index of a character, or -1 if the character is not
+	 * in the alphabet of the automaton.
+	 */
+	private int symbolOf(char c) {
+		return c < symbolForChar.length ? symbolForChar[c] : -1;
+	}
+
+	/**
+	 * Returns a new bitset of compiled states holding the states the
+	 * automaton may be in before reading any input, that is, the closure of
+	 * the initial state. The bitset is sized for <CODE>step</CODE>.
+	 *
+	 * @return the initial set of states
+	 */
+	public long[] getInitialStates() {
+		long[] states = new long[words];
+		if (initial == -1)
+			return states;
+		if (deterministic)
+			set(states, initial);
+		else
+			System.arraycopy(initialSet, 0, states, 0, words);
+		return states;
+	}
+
+	/**
+	 * Computes the set of states reachable from a set of states on one
+	 * character, closure included. This is one step of the subset
+	 * construction, done on bitsets.
+	 *
+	 * @param from
+	 *            the set of states to step from
+	 * @param c
+	 *            the character read
+	 * @param into
+	 *            the bitset that receives the reachable states; it is cleared
+	 *            first, and must not be <CODE>from</CODE>
+	 * @return <CODE>true</CODE> if any state is reachable, <CODE>false</CODE>
+	 *         if <CODE>into</CODE> was left empty
+	 */
+	public boolean step(long[] from, char c, long[] into) {
+		Arrays.fill(into, 0L);
+		int symbol = symbolOf(c);
+		if (symbol == -1)
+			return false;
+		int alphabetSize = symbols.length;
+		boolean any = false;
+		for (int w = 0; w < words; w++) {
+			long word = from[w];
+			while (word != 0) {
+				int s = (w << 6) + Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+				int cell = s * alphabetSize + symbol;
+				if (deterministic) {
+					int t = table[cell];
+					if (t != DEAD) {
+						set(into, t);
+						any = true;
+					}
+					continue;
+				}
+				for (int j = successorStart[cell], end = successorStart[cell + 1]; j < end; j++) {
+					set(into, successors[j]);
+					any = true;
+				}
+			}
+		}
+		return any;
+	}
+
+	/**
+	 * Returns if a set of states contains a final state.
+	 *
+	 * @param states
+	 *            the set of compiled states
+	 * @return <CODE>true</CODE> if one of the states is final
+	 */
+	public boolean isAccepting(long[] states) {
+		for (int w = 0; w < words; w++)
+			if ((states[w] & finals[w]) != 0)
+				return true;
+		return false;
+	}
+
+	/**
+	 * Returns if the compiled automaton runs from the deterministic table, as
+	 * opposed to the bitset NFA mode.
+	 *
+	 * @return <CODE>true</CODE> if the automaton was compiled to a
+	 *         deterministic table
+	 */
+	public boolean isDeterministic() {
+		return deterministic;
+	}
+
+	/**
+	 * Returns the number of states in the compiled automaton. This includes
+	 * the internal states created for multiple character labels.
+	 *
+	 * @return the number of compiled states
+	 */
+	public int getStateCount() {
+		return stateCount;
+	}
+
+	/**
+	 * Returns the characters of the alphabet, in ascending order. The index
+	 * of a character in this array is its symbol index.
+	 *
+	 * @return the alphabet of the compiled automaton
+	 */
+	public char[] getAlphabet() {
+		return (char[]) symbols.clone();
+	}
+
+	private static boolean get(long[] bits, int i) {
+		return (bits[i >>> 6] & (1L << i)) != 0;
+	}
+
+	private static void set(long[] bits, int i) {
+		bits[i >>> 6] |= 1L << i;
+	}
+
+	private static void or(long[] into, long[] from) {
+		for (int i = 0; i < into.length; i++)
+			into[i] |= from[i];
+	}
+
+	private static int cardinality(long[] bits) {
+		int count = 0;
+		for (int i = 0; i < bits.length; i++)
+			count += Long.bitCount(bits[i]);
+		return count;
+	}
+
+	private static int nextSetBit(long[] bits, int from) {
+		int w = from >>> 6;
+		if (w >= bits.length)
+			return -1;
+		long word = bits[w] & (-1L << from);
+		while (true) {
+			if (word != 0)
+				return (w << 6) + Long.numberOfTrailingZeros(word);
+			if (++w == bits.length)
+				return -1;
+			word = bits[w];
+		}
+	}
+
+	/** The table entry for a missing transition. */
+	private static final int DEAD = -1;
+
+	/** The number of compiled states. */
+	private final int stateCount;
+
+	/** The number of longs in a state bitset. */
+	private final int words;
+
+	/** The alphabet, sorted; the index of a character is its symbol index. */
+	private final char[] symbols;
+
+	/** Maps a character to its symbol index, or -1 if not in the alphabet. */
+	private final int[] symbolForChar;
+
+	/** The id of the initial state, or -1 if there is no initial state. */
+	private final int initial;
+
+	/** The final states as a bitset. */
+	private final long[] finals;
+
+	/** Whether the automaton compiled to a deterministic table. */
+	private final boolean deterministic;
+
+	/**
+	 * The deterministic transition table, indexed by
+	 * <CODE>state * alphabetSize + symbol</CODE>, or <CODE>null</CODE> in
+	 * NFA mode.
+	 */
+	private final int[] table;
+
+	/**
+	 * In NFA mode, the start of the successors of each (state, symbol) cell in
+	 * <CODE>successors</CODE>; the cell ends where the next one starts.
+	 */
+	private final int[] successorStart;
+
+	/** In NFA mode, the closed successor states of every cell. */
+	private final int[] successors;
+
+	/** In NFA mode, the closure of the initial state. */
+	private final long[] initialSet;
+}
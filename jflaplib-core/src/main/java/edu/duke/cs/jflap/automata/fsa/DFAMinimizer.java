@@ -0,0 +1,327 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package edu.duke.cs.jflap.automata.fsa;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.duke.cs.jflap.automata.AutomatonChecker;
+import edu.duke.cs.jflap.automata.State;
+import edu.duke.cs.jflap.automata.StatePlacer;
+import edu.duke.cs.jflap.automata.Transition;
+
+/**
+ * The DFA minimizer computes the minimum DFA for a finite state automaton in
+ * a single call, using Hopcroft's partition refinement algorithm, which takes
+ * O(n k log n) time for n states and k terminals. Unlike the
+ * <CODE>Minimizer</CODE>, which keeps the groups of states in a tree model so
+ * that the user may split them one at a time, this works on an int encoding
+ * of the DFA and has nothing to do with Swing; the tree of distinguishable
+ * groups is built from it only when asked for, by
+ * <CODE>Minimizer.getDistinguishableGroupsTree</CODE>.
+ * <P>
+ * The minimizer keeps no state between calls, so one instance may be shared.
+ * 
+ * @see edu.duke.cs.jflap.automata.fsa.Minimizer
+ */
+
+public class DFAMinimizer {
+	/**
+	 * Creates an instance of <CODE>DFAMinimizer</CODE>.
+	 */
+	public DFAMinimizer() {
+
+	}
+
+	/**
+	 * Returns the minimum DFA accepting the same language as <CODE>automaton</CODE>,
+	 * which is not changed. Multiple character labels are split first, and if
+	 * the automaton is not deterministic it is converted to a DFA. Unreachable
+	 * states are dropped, and the implied trap state, if any, does not appear
+	 * in the result, unless the language is empty, when the result is a
+	 * single nonfinal initial state with no transitions. Each state of the result is labelled with the IDs of the
+	 * states of the DFA it stands for, and the initial state is state 0.
+	 * 
+	 * @param automaton
+	 *            the automaton to minimize
+	 * @return the minimum DFA for <CODE>automaton</CODE>
+	 */
+	public FiniteStateAutomaton minimize(FiniteStateAutomaton automaton) {
+		FiniteStateAutomaton dfa = automaton;
+		if (FSALabelHandler.hasMultipleCharacterLabels(dfa)) {
+			dfa = (FiniteStateAutomaton) automaton.clone();
+			FSALabelHandler.removeMultipleCharacterLabelsFromAutomaton(dfa);
+		}
+		if (new AutomatonChecker().isNFA(dfa))
+			dfa = new NFAToDFA().convertToDFA(dfa);
+		FiniteStateAutomaton minDfa = new FiniteStateAutomaton();
+		State initial = dfa.getInitialState();
+		if (initial == null)
+			return minDfa;
+
+		// Number the reachable states breadth first; the trap is last.
+		String[] alphabet = new FSAAlphabetRetriever().getAlphabet(dfa);
+		Map symbols = new HashMap();
+		for (int k = 0; k < alphabet.length; k++)
+			symbols.put(alphabet[k], new Integer(k));
+		Map indices = new HashMap();
+		State[] states = new State[dfa.getStates().length + 1];
+		states[0] = initial;
+		indices.put(initial, new Integer(0));
+		int count = 1;
+		for (int head = 0; head < count; head++) {
+			Transition[] transitions = dfa.getTransitionsFromState(states[head]);
+			for (int i = 0; i < transitions.length; i++) {
+				State to = transitions[i].getToState();
+				if (!indices.containsKey(to)) {
+					indices.put(to, new Integer(count));
+					states[count++] = to;
+				}
+			}
+		}
+		int trap = count;
+		int[] table = new int[(count + 1) * alphabet.length];
+		Arrays.fill(table, trap);
+		boolean[] finals = new boolean[count + 1];
+		for (int s = 0; s < count; s++) {
+			finals[s] = dfa.isFinalState(states[s]);
+			Transition[] transitions = dfa.getTransitionsFromState(states[s]);
+			for (int i = 0; i < transitions.length; i++) {
+				int symbol = ((Integer) symbols
+						.get(((FSATransition) transitions[i]).getLabel()))
+						.intValue();
+				table[s * alphabet.length + symbol] = ((Integer) indices
+						.get(transitions[i].getToState())).intValue();
+			}
+		}
+
+		int[] blocks = refine(count + 1, alphabet.length, table, finals, null);
+
+		// One state per block, numbered in order of first appearance. The
+		// trap block is left out unless the initial state is in it, when the
+		// language is empty and the initial state is all there is.
+		boolean empty = blocks[0] == blocks[trap];
+		int[] stateForBlock = new int[count + 1];
+		Arrays.fill(stateForBlock, -1);
+		State[] minStates = new State[count + 1];
+		StringBuffer[] labels = new StringBuffer[count + 1];
+		StatePlacer sp = new StatePlacer();
+		int created = 0;
+		for (int s = 0; s < count; s++) {
+			int block = blocks[s];
+			if (block == blocks[trap] && !empty)
+				continue;
+			if (stateForBlock[block] == -1) {
+				stateForBlock[block] = created;
+				minStates[created] = minDfa.createStateWithId(sp
+						.getPointForState(minDfa), created);
+				if (finals[s])
+					minDfa.addFinalState(minStates[created]);
+				labels[created] = new StringBuffer();
+				created++;
+			}
+			StringBuffer label = labels[stateForBlock[block]];
+			if (label.length() > 0)
+				label.append(",");
+			label.append(states[s].getID());
+		}
+		for (int m = 0; m < created; m++)
+			minStates[m].setLabel(labels[m].toString());
+		minDfa.setInitialState(minStates[0]);
+
+		// Transitions from one representative of each block.
+		boolean[] done = new boolean[count + 1];
+		for (int s = 0; s < count; s++) {
+			int block = blocks[s];
+			if (block == blocks[trap] || done[block])
+				continue;
+			done[block] = true;
+			for (int a = 0; a < alphabet.length; a++) {
+				int to = blocks[table[s * alphabet.length + a]];
+				if (to == blocks[trap])
+					continue;
+				minDfa.addTransition(new FSATransition(
+						minStates[stateForBlock[block]],
+						minStates[stateForBlock[to]], alphabet[a]));
+			}
+		}
+		return minDfa;
+	}
+
+	/**
+	 * Partitions the states of a complete DFA into blocks of equivalent
+	 * states with Hopcroft's algorithm.
+	 * <P>
+	 * Refinement starts from two blocks: the nonfinal states are block 0 and
+	 * the final states the next block (if there are no nonfinal states, the
+	 * final states are block 0). Every split that follows moves some states of
+	 * an existing block into a new block, numbered one more than the last.
+	 * 
+	 * @param stateCount
+	 *            the number of states n
+	 * @param alphabetSize
+	 *            the number of terminals k
+	 * @param table
+	 *            the transition table, where the entry at
+	 *            <CODE>s * alphabetSize + a</CODE> is the state reached from
+	 *            state <CODE>s</CODE> on terminal <CODE>a</CODE>
+	 * @param finals
+	 *            which states are final
+	 * @param listener
+	 *            the listener told about each split, or <CODE>null</CODE>
+	 * @return the block of each state; two states are equivalent exactly
+	 *         when they are in the same block
+	 */
+	public static int[] refine(int stateCount, int alphabetSize, int[] table,
+			boolean[] finals, SplitListener listener) {
+		int n = stateCount;
+		int[] blockOf = new int[n];
+		int[] elements = new int[n];
+		int[] location = new int[n];
+		int[] start = new int[n + 1];
+		int[] end = new int[n + 1];
+		int[] marked = new int[n + 1];
+		int blocks = 0;
+
+		// The initial partition into nonfinal and final states.
+		int position = 0;
+		for (int pass = 0; pass < 2; pass++) {
+			int first = position;
+			for (int s = 0; s < n; s++) {
+				if (finals[s] == (pass == 1)) {
+					elements[position] = s;
+					location[s] = position++;
+					blockOf[s] = blocks;
+				}
+			}
+			if (position > first) {
+				start[blocks] = first;
+				end[blocks] = position;
+				blocks++;
+			}
+		}
+		if (blocks < 2 || alphabetSize == 0)
+			return blockOf;
+
+		// Predecessors on each terminal, as a compressed array.
+		int[] predecessorStart = new int[alphabetSize * n + 1];
+		for (int s = 0; s < n; s++)
+			for (int a = 0; a < alphabetSize; a++)
+				predecessorStart[a * n + table[s * alphabetSize + a] + 1]++;
+		for (int i = 1; i < predecessorStart.length; i++)
+			predecessorStart[i] += predecessorStart[i - 1];
+		int[] predecessors = new int[n * alphabetSize];
+		int[] fill = new int[alphabetSize * n];
+		for (int s = 0; s < n; s++)
+			for (int a = 0; a < alphabetSize; a++) {
+				int cell = a * n + table[s * alphabetSize + a];
+				predecessors[predecessorStart[cell] + fill[cell]++] = s;
+			}
+		fill = null;
+
+		// The worklist of splitters, with the smaller initial block.
+		boolean[] waiting = new boolean[(n + 1) * alphabetSize];
+		int[] worklist = new int[(n + 1) * alphabetSize];
+		int pending = 0;
+		int smaller = end[0] - start[0] <= end[1] - start[1] ? 0 : 1;
+		for (int a = 0; a < alphabetSize; a++) {
+			worklist[pending++] = smaller * alphabetSize + a;
+			waiting[smaller * alphabetSize + a] = true;
+		}
+
+		int[] splitter = new int[n];
+		int[] touched = new int[n];
+		while (pending > 0) {
+			int entry = worklist[--pending];
+			waiting[entry] = false;
+			int block = entry / alphabetSize, a = entry % alphabetSize;
+
+			// Copy the splitter, since marking may reorder its elements.
+			int size = end[block] - start[block];
+			System.arraycopy(elements, start[block], splitter, 0, size);
+			int touchedCount = 0;
+			for (int i = 0; i < size; i++) {
+				int cell = a * n + splitter[i];
+				for (int j = predecessorStart[cell]; j < predecessorStart[cell + 1]; j++) {
+					int s = predecessors[j];
+					int b = blockOf[s];
+					int target = start[b] + marked[b];
+					if (location[s] < target)
+						continue; // Already marked.
+					if (marked[b] == 0)
+						touched[touchedCount++] = b;
+					int other = elements[target];
+					elements[target] = s;
+					elements[location[s]] = other;
+					location[other] = location[s];
+					location[s] = target;
+					marked[b]++;
+				}
+			}
+
+			for (int t = 0; t < touchedCount; t++) {
+				int b = touched[t];
+				int split = start[b] + marked[b];
+				marked[b] = 0;
+				if (split == end[b])
+					continue;
+				// The marked states move to a new block.
+				int created = blocks++;
+				start[created] = start[b];
+				end[created] = split;
+				start[b] = split;
+				for (int i = start[created]; i < end[created]; i++)
+					blockOf[elements[i]] = created;
+				if (listener != null)
+					listener.blockSplit(b, created, a);
+				int smallest = end[created] - start[created] <= end[b]
+						- start[b] ? created : b;
+				for (int c = 0; c < alphabetSize; c++) {
+					int add = waiting[b * alphabetSize + c] ? created : smallest;
+					waiting[add * alphabetSize + c] = true;
+					worklist[pending++] = add * alphabetSize + c;
+				}
+			}
+		}
+		return blockOf;
+	}
+
+	/**
+	 * The interface for being told about each split made by
+	 * <CODE>refine</CODE>.
+	 */
+	public interface SplitListener {
+		/**
+		 * Called when some states of a block are moved into a new block,
+		 * because they go into the splitter on the given terminal while the
+		 * rest of the block does not.
+		 * 
+		 * @param block
+		 *            the block that was split, which keeps the other states
+		 * @param created
+		 *            the new block
+		 * @param terminal
+		 *            the index of the terminal the block was split on
+		 */
+		public void blockSplit(int block, int created, int terminal);
+	}
+}
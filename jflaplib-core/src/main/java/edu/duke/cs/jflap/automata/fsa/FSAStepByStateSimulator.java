@@ -29,6 +29,7 @@ import edu.duke.cs.jflap.debug.EDebug;
 import edu.duke.cs.jflap.automata.Automaton;
 import edu.duke.cs.jflap.automata.AutomatonSimulator;
 import edu.duke.cs.jflap.automata.Configuration;
+import edu.duke.cs.jflap.automata.SimulationOptions;
 import edu.duke.cs.jflap.automata.State;
 import edu.duke.cs.jflap.automata.Transition;
 
@@ -53,6 +54,18 @@ public class FSAStepByStateSimulator extends AutomatonSimulator {
 		super(automaton);
 	}
 
+	/**
+	 * Creates a simulator for the given automaton with the given options.
+	 * 
+	 * @param automaton
+	 *            the machine to simulate
+	 * @param options
+	 *            the options for the simulation
+	 */
+	public FSAStepByStateSimulator(Automaton automaton, SimulationOptions options) {
+		super(automaton, options);
+	}
+
 	/**
 	 * Returns an FSAConfiguration object that represents the initial
 	 * configuration of the FSA, before any input has been processed. This
@@ -143,6 +156,20 @@ public class FSAStepByStateSimulator extends AutomatonSimulator {
 		return false;
 	}
 
+	/**
+	 * Returns the key under which configurations are merged, made of the
+	 * state and the position in the input.
+	 * 
+	 * @param configuration
+	 *            the configuration
+	 * @return the key for <CODE>configuration</CODE>
+	 */
+	protected Object getDeduplicationKey(Configuration configuration) {
+		FSAConfiguration config = (FSAConfiguration) configuration;
+		return new ConfigurationKey(config.getCurrentState(), config
+				.getUnprocessedInput().length(), null);
+	}
+
 	/**
 	 * Runs the automaton on the input string.
 	 * 
@@ -153,10 +180,12 @@ public class FSAStepByStateSimulator extends AutomatonSimulator {
 	public boolean simulateInput(String input) {
 		/** clear the configurations to begin new simulation. */
 		myConfigurations.clear();
+		clearVisited();
 		Configuration[] initialConfigs = getInitialConfigurations(input);
 		for (int k = 0; k < initialConfigs.length; k++) {
 			FSAConfiguration initialConfiguration = (FSAConfiguration) initialConfigs[k];
-			myConfigurations.add(initialConfiguration);
+			if (visit(initialConfiguration))
+				myConfigurations.add(initialConfiguration);
 		}
 		while (!myConfigurations.isEmpty()) {
 			if (isAccepted())
@@ -166,7 +195,9 @@ public class FSAStepByStateSimulator extends AutomatonSimulator {
 			while (it.hasNext()) {
 				FSAConfiguration configuration = (FSAConfiguration) it.next();
 				ArrayList configsToAdd = stepConfiguration(configuration);
-				configurationsToAdd.addAll(configsToAdd);
+				for (int k = 0; k < configsToAdd.size(); k++)
+					if (visit((Configuration) configsToAdd.get(k)))
+						configurationsToAdd.add(configsToAdd.get(k));
 				/**
 				 * Remove configuration since just stepped from that
 				 * configuration to all reachable configurations.
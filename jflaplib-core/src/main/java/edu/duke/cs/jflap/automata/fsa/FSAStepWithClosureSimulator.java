@@ -28,6 +28,7 @@ import edu.duke.cs.jflap.debug.EDebug;
 import edu.duke.cs.jflap.automata.Automaton;
 import edu.duke.cs.jflap.automata.ClosureTaker;
 import edu.duke.cs.jflap.automata.Configuration;
+import edu.duke.cs.jflap.automata.SimulationOptions;
 import edu.duke.cs.jflap.automata.State;
 import edu.duke.cs.jflap.automata.Transition;
 
@@ -50,6 +51,18 @@ public class FSAStepWithClosureSimulator extends FSAStepByStateSimulator {
 		super(automaton);
 	}
 
+	/**
+	 * Creates a simulator for the given automaton with the given options.
+	 * 
+	 * @param automaton
+	 *            the machine to simulate
+	 * @param options
+	 *            the options for the simulation
+	 */
+	public FSAStepWithClosureSimulator(Automaton automaton, SimulationOptions options) {
+		super(automaton, options);
+	}
+
 	/**
 	 * Returns an array of FSAConfiguration objects that represent the possible
 	 * initial configurations of the FSA, before any input has been processed,
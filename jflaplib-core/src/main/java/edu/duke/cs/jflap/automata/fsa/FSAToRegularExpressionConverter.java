@@ -20,7 +20,7 @@
 
 package edu.duke.cs.jflap.automata.fsa;
 
-import edu.duke.cs.jflap.gui.environment.Universe;
+import edu.duke.cs.jflap.automata.SimulationOptions;
 
 import java.util.ArrayList;
 
@@ -644,6 +644,7 @@ public static String getExpressionFromGTG(Automaton automaton) {
 	 * @param automaton
 	 *            the automaton
 	 * @return the regular expression that represents <CODE>automaton</CODE>.
+	 * @see edu.duke.cs.jflap.automata.fsa.StateEliminator
 	 */
 public static String convertToRegularExpression(Automaton automaton) {
 		if (!isConvertable(automaton))
@@ -656,7 +657,7 @@ public static String convertToRegularExpression(Automaton automaton) {
 	public static final String EMPTY = "\u00F8";
 
 	/* the string for lambda. */
-	public static final String LAMBDA_DISPLAY = Universe.curProfile.getEmptyString();
+	public static final String LAMBDA_DISPLAY = SimulationOptions.getDefault().getEmptyString();
 
 	public static final String LAMBDA = "";
 
@@ -20,7 +20,7 @@
 
 package edu.duke.cs.jflap.automata.fsa;
 
-import edu.duke.cs.jflap.gui.environment.Universe;
+import edu.duke.cs.jflap.automata.SimulationOptions;
 import edu.duke.cs.jflap.automata.Transition;
 import edu.duke.cs.jflap.automata.State;
 
@@ -93,7 +93,7 @@ public class FSATransition extends Transition {
 	public String getDescription() {
 		String desc = getLabel();
 		if (desc.length() == 0)
-			return Universe.curProfile.getEmptyString(); // I am a badass.
+			return SimulationOptions.getDefault().getEmptyString(); // I am a badass.
 		return getLabel();
 	}
 
@@ -22,6 +22,7 @@ package edu.duke.cs.jflap.automata.fsa;
 
 import java.awt.Point;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 
@@ -607,32 +608,95 @@ public class Minimizer {
 
 	/**
 	 * Returns the tree model of the process of distinguishing groups of states
-	 * in <CODE>automaton</CODE>.
+	 * in <CODE>automaton</CODE>. The groups are found with Hopcroft's
+	 * algorithm by the <CODE>DFAMinimizer</CODE>, and the tree records its
+	 * splits, so every group is split in two on the terminal set on its node.
 	 * 
 	 * @param automaton
-	 *            the automaton.
+	 *            the automaton, which must have a transition from every state
+	 *            on every terminal, as it does when it comes from
+	 *            <CODE>getMinimizeableAutomaton</CODE>.
 	 * @return the tree model of the process of distinguishing groups of states
 	 *         in <CODE>automaton</CODE>.
+	 * @throws IllegalArgumentException
+	 *             if some state has no transition on some terminal
 	 */
 	public DefaultTreeModel getDistinguishableGroupsTree(Automaton automaton) {
-		DefaultTreeModel tree = getInitializedTree(automaton);
-		// DefaultMutableTreeNode root =
-		// (DefaultMutableTreeNode) tree.getRoot();
-		MinimizeTreeNode root = (MinimizeTreeNode) tree.getRoot();
-		while (!isMinimized(automaton, tree)) {
-			State[] group = getDistinguishableGroup(automaton, tree);
-			ArrayList children = new ArrayList();
-			String terminal = getTerminalToSplit(group, automaton, tree);
-			children.addAll(splitOnTerminal(group, terminal, automaton, tree));
-			// children.addAll(split(group, automaton));
-			MinimizeTreeNode parent = getTreeNodeForObject(tree, root, group);
-			parent.setTerminal(terminal);
-			// DefaultMutableTreeNode parent =
-			// getTreeNodeForObject(tree, root, group);
-			addChildrenToParent(children, parent, tree);
+		State[] states = automaton.getStates();
+		final String[] alphabet = new FSAAlphabetRetriever()
+				.getAlphabet(automaton);
+		HashMap indices = new HashMap();
+		for (int k = 0; k < states.length; k++)
+			indices.put(states[k], new Integer(k));
+		HashMap symbols = new HashMap();
+		for (int k = 0; k < alphabet.length; k++)
+			symbols.put(alphabet[k], new Integer(k));
+		int[] table = new int[states.length * alphabet.length];
+		Arrays.fill(table, -1);
+		boolean[] finals = new boolean[states.length];
+		for (int k = 0; k < states.length; k++) {
+			finals[k] = automaton.isFinalState(states[k]);
+			Transition[] transitions = automaton.getTransitionsFromState(states[k]);
+			for (int i = 0; i < transitions.length; i++) {
+				int symbol = ((Integer) symbols
+						.get(((FSATransition) transitions[i]).getLabel()))
+						.intValue();
+				table[k * alphabet.length + symbol] = ((Integer) indices
+						.get(transitions[i].getToState())).intValue();
+			}
+		}
+		for (int k = 0; k < table.length; k++)
+			if (table[k] == -1)
+				throw new IllegalArgumentException("State "
+						+ states[k / alphabet.length].getName()
+						+ " has no transition on "
+						+ alphabet[k % alphabet.length]);
+
+		// The node holding each block grows two children at each split.
+		final MinimizeTreeNode root = new MinimizeTreeNode(states);
+		final MinimizeTreeNode[] nodes = new MinimizeTreeNode[states.length + 1];
+		for (int pass = 0; pass < 2; pass++) {
+			for (int k = 0; k < states.length; k++) {
+				if (finals[k] == (pass == 1)) {
+					nodes[root.getChildCount()] = new MinimizeTreeNode(null);
+					root.add(nodes[root.getChildCount()]);
+					break;
+				}
+			}
 		}
+		int[] blocks = DFAMinimizer.refine(states.length, alphabet.length,
+				table, finals, new DFAMinimizer.SplitListener() {
+					public void blockSplit(int block, int created, int terminal) {
+						MinimizeTreeNode parent = nodes[block];
+						parent.setTerminal(alphabet[terminal]);
+						nodes[block] = new MinimizeTreeNode(null);
+						nodes[created] = new MinimizeTreeNode(null);
+						parent.add(nodes[block]);
+						parent.add(nodes[created]);
+					}
+				});
 
-		return tree;
+		// Each group holds the states of the leaves below it, in order.
+		HashMap groups = new HashMap();
+		for (int k = 0; k < states.length; k++) {
+			MinimizeTreeNode node = nodes[blocks[k]];
+			while (node != root) {
+				ArrayList group = (ArrayList) groups.get(node);
+				if (group == null) {
+					group = new ArrayList();
+					groups.put(node, group);
+				}
+				group.add(states[k]);
+				node = (MinimizeTreeNode) node.getParent();
+			}
+		}
+		Iterator it = groups.keySet().iterator();
+		while (it.hasNext()) {
+			MinimizeTreeNode node = (MinimizeTreeNode) it.next();
+			node.setUserObject(((ArrayList) groups.get(node))
+					.toArray(new State[0]));
+		}
+		return new DefaultTreeModel(root);
 	}
 
 	/**
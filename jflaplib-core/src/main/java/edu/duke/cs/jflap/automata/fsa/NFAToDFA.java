@@ -23,7 +23,8 @@ package edu.duke.cs.jflap.automata.fsa;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.Iterator;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.StringTokenizer;
 
 import edu.duke.cs.jflap.automata.AlphabetRetriever;
@@ -352,6 +353,13 @@ public class NFAToDFA {
 	/**
 	 * Returns a deterministic finite state automaton equivalent to <CODE>automaton</CODE>.
 	 * <CODE>automaton</CODE> is not at all affected by this conversion.
+	 * <P>
+	 * Unlike the step by step methods above, which find the state for a set
+	 * of states by reading the labels of every state in the dfa, this builds
+	 * the dfa in one pass with a hash map from canonical (sorted) arrays of
+	 * nfa state indices to dfa states, and takes the closure of each nfa
+	 * state only once. The states and labels produced are the same, except
+	 * that the states in each label are listed in ascending order of ID.
 	 * 
 	 * @param automaton
 	 *            the automaton to convert to a dfa.
@@ -367,28 +375,158 @@ public class NFAToDFA {
 		if (FSALabelHandler.hasMultipleCharacterLabels(automaton)) {
 			FSALabelHandler.removeMultipleCharacterLabelsFromAutomaton(automaton);
 		}
+		State[] nfaStates = automaton.getStates();
+		Map indices = new HashMap();
+		for (int k = 0; k < nfaStates.length; k++)
+			indices.put(nfaStates[k], new Integer(k));
+		String[] alphabet = new FSAAlphabetRetriever().getAlphabet(automaton);
+		Map symbols = new HashMap();
+		for (int k = 0; k < alphabet.length; k++)
+			symbols.put(alphabet[k], new Integer(k));
+
+		/** the nfa states reachable from each state on each terminal. */
+		int[][][] moves = new int[nfaStates.length][alphabet.length][];
+		for (int k = 0; k < nfaStates.length; k++) {
+			Transition[] transitions = automaton
+					.getTransitionsFromState(nfaStates[k]);
+			int[] counts = new int[alphabet.length];
+			for (int i = 0; i < transitions.length; i++) {
+				Integer symbol = (Integer) symbols
+						.get(((FSATransition) transitions[i]).getLabel());
+				if (symbol != null)
+					counts[symbol.intValue()]++;
+			}
+			for (int a = 0; a < alphabet.length; a++)
+				moves[k][a] = new int[counts[a]];
+			Arrays.fill(counts, 0);
+			for (int i = 0; i < transitions.length; i++) {
+				Integer symbol = (Integer) symbols
+						.get(((FSATransition) transitions[i]).getLabel());
+				if (symbol != null) {
+					int a = symbol.intValue();
+					moves[k][a][counts[a]++] = ((Integer) indices
+							.get(transitions[i].getToState())).intValue();
+				}
+			}
+		}
+
 		/** create new finite state automaton. */
 		FiniteStateAutomaton dfa = new FiniteStateAutomaton();
-		State initialState = createInitialState(automaton, dfa);
-		/**
-		 * get initial state and add to list of states that need to be expanded.
-		 */
+		int[][] closures = new int[nfaStates.length][];
+		Map dfaStates = new HashMap();
 		ArrayList list = new ArrayList();
-		list.add(initialState);
-		/** while still more states to be expanded. */
-		while (!list.isEmpty()) {
-			ArrayList statesToExpand = new ArrayList();
-			Iterator it = list.iterator();
-			while (it.hasNext()) {
-				State state = (State) it.next();
-				/** expand state. */
-				statesToExpand.addAll(expandState(state, automaton, dfa));
-				it.remove();
+		int initial = ((Integer) indices.get(automaton.getInitialState()))
+				.intValue();
+		int[] initialSet = getClosureIndices(initial, automaton, nfaStates,
+				indices, closures).clone();
+		Arrays.sort(initialSet);
+		State initialState = createStateWithIndices(dfa, 0, initialSet,
+				nfaStates, automaton);
+		dfa.setInitialState(initialState);
+		dfaStates.put(new IndexSet(initialSet), initialState);
+		list.add(initialSet);
+
+		/** expand the sets of states breadth first. */
+		long[] marks = new long[(nfaStates.length + 63) >>> 6];
+		int[] reached = new int[nfaStates.length];
+		for (int head = 0; head < list.size(); head++) {
+			int[] set = (int[]) list.get(head);
+			State from = (State) dfaStates.get(new IndexSet(set));
+			for (int a = 0; a < alphabet.length; a++) {
+				int count = 0;
+				for (int i = 0; i < set.length; i++) {
+					int[] targets = moves[set[i]][a];
+					for (int j = 0; j < targets.length; j++) {
+						int[] closure = getClosureIndices(targets[j],
+								automaton, nfaStates, indices, closures);
+						for (int c = 0; c < closure.length; c++) {
+							int s = closure[c];
+							if ((marks[s >>> 6] & (1L << s)) == 0) {
+								marks[s >>> 6] |= 1L << s;
+								reached[count++] = s;
+							}
+						}
+					}
+				}
+				/** if any reachable states on terminal. */
+				if (count == 0)
+					continue;
+				int[] next = new int[count];
+				System.arraycopy(reached, 0, next, 0, count);
+				for (int i = 0; i < count; i++)
+					marks[next[i] >>> 6] = 0;
+				Arrays.sort(next);
+				IndexSet key = new IndexSet(next);
+				State to = (State) dfaStates.get(key);
+				if (to == null) {
+					to = createStateWithIndices(dfa, dfaStates.size(), next,
+							nfaStates, automaton);
+					dfaStates.put(key, to);
+					list.add(next);
+				}
+				dfa.addTransition(new FSATransition(from, to, alphabet[a]));
 			}
-			list.addAll(statesToExpand);
 		}
 
 		return dfa;
 	}
 
+	/**
+	 * Returns the indices of the states in the closure of the nfa state with
+	 * the given index, taking the closure the first time it is asked for.
+	 */
+	private int[] getClosureIndices(int index, Automaton nfa,
+			State[] nfaStates, Map indices, int[][] closures) {
+		if (closures[index] == null) {
+			State[] closure = ClosureTaker.getClosure(nfaStates[index], nfa);
+			int[] result = new int[closure.length];
+			for (int k = 0; k < closure.length; k++)
+				result[k] = ((Integer) indices.get(closure[k])).intValue();
+			closures[index] = result;
+		}
+		return closures[index];
+	}
+
+	/**
+	 * Creates a state in <CODE>dfa</CODE> with the given ID for the nfa
+	 * states with the given (sorted) indices. The state is labelled and made
+	 * final the way <CODE>createStateWithStates</CODE> does it, but the ID is
+	 * given rather than searched for.
+	 */
+	private State createStateWithIndices(Automaton dfa, int id, int[] set,
+			State[] nfaStates, Automaton nfa) {
+		State[] states = new State[set.length];
+		for (int k = 0; k < set.length; k++)
+			states[k] = nfaStates[set[k]];
+		StatePlacer sp = new StatePlacer();
+		State state = dfa.createStateWithId(sp.getPointForState(dfa), id);
+		state.setLabel(getStringForStates(states));
+		if (hasFinalState(states, nfa)) {
+			dfa.addFinalState(state);
+		}
+		return state;
+	}
+
+	/**
+	 * A sorted array of nfa state indices, usable as a hash key.
+	 */
+	private static class IndexSet {
+		IndexSet(int[] indices) {
+			this.indices = indices;
+			hash = Arrays.hashCode(indices);
+		}
+
+		public boolean equals(Object object) {
+			return Arrays.equals(indices, ((IndexSet) object).indices);
+		}
+
+		public int hashCode() {
+			return hash;
+		}
+
+		private final int[] indices;
+
+		private final int hash;
+	}
+
 }
@@ -0,0 +1,341 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package edu.duke.cs.jflap.automata.fsa;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import edu.duke.cs.jflap.automata.State;
+import edu.duke.cs.jflap.automata.Transition;
+import edu.duke.cs.jflap.regular.ExpressionFactory;
+import edu.duke.cs.jflap.regular.ExpressionNode;
+
+/**
+ * The state eliminator converts a finite state automaton to an equivalent
+ * regular expression in one call, by state elimination. Unlike the
+ * <CODE>FSAToRegularExpressionConverter</CODE>, which the step by step
+ * conversion in the GUI uses, it leaves the automaton alone, and builds the
+ * expression as a DAG of nodes from an <CODE>ExpressionFactory</CODE>, which
+ * shares subexpressions and simplifies them as they are made; the expression
+ * is only written out as a string at the end, if at all.
+ * <P>
+ * A new initial state and a new final state are joined to the automaton with
+ * lambda transitions, states that cannot be on any accepting path are
+ * dropped, and the remaining states of the automaton are then eliminated
+ * one at a time until only the expression between the new states is left.
+ * The order of elimination matters a great deal to the length of the
+ * result. By default the state eliminated next is the one of least weight,
+ * as proposed by Delgado and Morais: the weight of a state estimates how
+ * much longer eliminating it makes the expression, from the sizes of the
+ * expressions on its transitions and the number of transitions into and out
+ * of it. States may instead be eliminated in order of their IDs, which is
+ * much like the order of the older converter.
+ * <P>
+ * The eliminator keeps no state between calls, so one instance may be
+ * shared.
+ * 
+ * @see edu.duke.cs.jflap.regular.ExpressionFactory
+ */
+
+public class StateEliminator {
+	/**
+	 * Instantiates an eliminator that eliminates the states of least weight
+	 * first.
+	 */
+	public StateEliminator() {
+		this(ORDER_BY_WEIGHT);
+	}
+
+	/**
+	 * Instantiates an eliminator.
+	 * 
+	 * @param order
+	 *            the order in which to eliminate states, either
+	 *            <CODE>ORDER_BY_WEIGHT</CODE> or <CODE>ORDER_BY_ID</CODE>
+	 * @throws IllegalArgumentException
+	 *             if the order is not one of those
+	 */
+	public StateEliminator(int order) {
+		if (order != ORDER_BY_WEIGHT && order != ORDER_BY_ID)
+			throw new IllegalArgumentException("Bad elimination order "
+					+ order);
+		this.order = order;
+	}
+
+	/**
+	 * Returns a regular expression accepting the language of an automaton,
+	 * in JFLAP's syntax, with <CODE>!</CODE> for lambda.
+	 * 
+	 * @param automaton
+	 *            the automaton to convert, which is not changed
+	 * @return the regular expression for <CODE>automaton</CODE>
+	 * @see edu.duke.cs.jflap.regular.ExpressionNode#toString
+	 */
+	public String convertToRegularExpression(FiniteStateAutomaton automaton) {
+		return convertToExpression(automaton, new ExpressionFactory())
+				.toString();
+	}
+
+	/**
+	 * Returns the syntax tree of a regular expression accepting the language
+	 * of an automaton.
+	 * 
+	 * @param automaton
+	 *            the automaton to convert, which is not changed
+	 * @param factory
+	 *            the factory to make the expression with
+	 * @return the expression for <CODE>automaton</CODE>, which is the empty
+	 *         set if it accepts nothing
+	 */
+	public ExpressionNode convertToExpression(FiniteStateAutomaton automaton,
+			ExpressionFactory factory) {
+		State initial = automaton.getInitialState();
+		if (initial == null)
+			return factory.emptySet();
+		State[] states = automaton.getStates();
+		int n = states.length, start = n, end = n + 1;
+		Map indices = new HashMap();
+		for (int i = 0; i < n; i++)
+			indices.put(states[i], new Integer(i));
+		Graph graph = new Graph(n + 2, factory);
+		graph.add(start, ((Integer) indices.get(initial)).intValue(), factory
+				.lambda());
+		State[] finals = automaton.getFinalStates();
+		for (int i = 0; i < finals.length; i++)
+			graph.add(((Integer) indices.get(finals[i])).intValue(), end,
+					factory.lambda());
+		Transition[] transitions = automaton.getTransitions();
+		for (int i = 0; i < transitions.length; i++) {
+			int from = ((Integer) indices.get(transitions[i].getFromState()))
+					.intValue();
+			int to = ((Integer) indices.get(transitions[i].getToState()))
+					.intValue();
+			graph.add(from, to, label(((FSATransition) transitions[i])
+					.getLabel(), factory));
+		}
+
+		// Drop the states on no path from the start to the end.
+		boolean[] useful = graph.reachable(start, true);
+		boolean[] coreachable = graph.reachable(end, false);
+		int remaining = 0;
+		for (int s = 0; s < n; s++) {
+			useful[s] &= coreachable[s];
+			if (useful[s])
+				remaining++;
+			else
+				graph.remove(s);
+		}
+
+		for (; remaining > 0; remaining--) {
+			int next = -1;
+			long best = 0;
+			for (int s = 0; s < n; s++) {
+				if (!useful[s])
+					continue;
+				long key = order == ORDER_BY_ID ? states[s].getID() : graph
+						.weight(s);
+				if (next == -1 || key < best) {
+					next = s;
+					best = key;
+				}
+			}
+			graph.eliminate(next);
+			useful[next] = false;
+		}
+		ExpressionNode result = graph.get(start, end);
+		return result == null ? factory.emptySet() : result;
+	}
+
+	/**
+	 * Returns the expression for the label of a transition. As in the
+	 * simulators, the empty label is lambda, a label with a bracketed range
+	 * like <CODE>[a-z]</CODE> is any one character of the range, and any
+	 * other label is its characters in sequence.
+	 */
+	private static ExpressionNode label(String label, ExpressionFactory factory) {
+		int bracket = label.indexOf('[');
+		if (bracket < 0 || bracket + 3 >= label.length())
+			return factory.string(label);
+		ExpressionNode range = factory.emptySet();
+		for (char c = label.charAt(bracket + 1); c <= label.charAt(bracket + 3); c++)
+			range = factory.union(range, factory.symbol(c));
+		return range;
+	}
+
+	/**
+	 * The states being eliminated, with the expression on the single edge, if
+	 * any, from each state to each other.
+	 */
+	private static class Graph {
+		Graph(int states, ExpressionFactory factory) {
+			this.factory = factory;
+			out = new Map[states];
+			in = new Map[states];
+			for (int s = 0; s < states; s++) {
+				out[s] = new HashMap();
+				in[s] = new HashMap();
+			}
+		}
+
+		ExpressionNode get(int from, int to) {
+			return (ExpressionNode) out[from].get(new Integer(to));
+		}
+
+		/**
+		 * Adds an expression to the edge between two states, as a union with
+		 * what was there.
+		 */
+		void add(int from, int to, ExpressionNode expression) {
+			ExpressionNode old = get(from, to);
+			if (old != null)
+				expression = factory.union(old, expression);
+			out[from].put(new Integer(to), expression);
+			in[to].put(new Integer(from), expression);
+		}
+
+		/**
+		 * Removes a state and its edges.
+		 */
+		void remove(int state) {
+			Integer key = new Integer(state);
+			for (Iterator it = in[state].keySet().iterator(); it.hasNext();)
+				out[((Integer) it.next()).intValue()].remove(key);
+			for (Iterator it = out[state].keySet().iterator(); it.hasNext();)
+				in[((Integer) it.next()).intValue()].remove(key);
+			in[state].clear();
+			out[state].clear();
+		}
+
+		/**
+		 * Returns which states can be reached from a state, following edges
+		 * forward or backward.
+		 */
+		boolean[] reachable(int from, boolean forward) {
+			Map[] edges = forward ? out : in;
+			boolean[] seen = new boolean[out.length];
+			int[] stack = new int[out.length];
+			int top = 0;
+			seen[from] = true;
+			stack[top++] = from;
+			while (top > 0) {
+				int s = stack[--top];
+				for (Iterator it = edges[s].keySet().iterator(); it.hasNext();) {
+					int t = ((Integer) it.next()).intValue();
+					if (!seen[t]) {
+						seen[t] = true;
+						stack[top++] = t;
+					}
+				}
+			}
+			return seen;
+		}
+
+		/**
+		 * Returns the Delgado and Morais weight of a state: the size of each
+		 * expression into it times the number of edges out, the size of each
+		 * expression out of it times the number of edges in, and the size of
+		 * its loop times both, less the sizes already there.
+		 */
+		long weight(int state) {
+			Integer key = new Integer(state);
+			ExpressionNode loop = (ExpressionNode) out[state].get(key);
+			int ins = in[state].size() - (loop == null ? 0 : 1);
+			int outs = out[state].size() - (loop == null ? 0 : 1);
+			long weight = loop == null ? 0 : addProduct(0, loop.getSize(),
+					(long) ins * outs - 1);
+			for (Iterator it = in[state].entrySet().iterator(); it.hasNext();) {
+				Map.Entry entry = (Map.Entry) it.next();
+				if (!entry.getKey().equals(key))
+					weight = addProduct(weight, ((ExpressionNode) entry
+							.getValue()).getSize(), outs - 1);
+			}
+			for (Iterator it = out[state].entrySet().iterator(); it.hasNext();) {
+				Map.Entry entry = (Map.Entry) it.next();
+				if (!entry.getKey().equals(key))
+					weight = addProduct(weight, ((ExpressionNode) entry
+							.getValue()).getSize(), ins - 1);
+			}
+			return weight;
+		}
+
+		/**
+		 * Returns a weight plus a size times a count, held at the largest or
+		 * smallest <CODE>long</CODE> instead of overflowing, since sizes of
+		 * shared expressions may already be held at the largest.
+		 */
+		private long addProduct(long weight, long size, long count) {
+			long product;
+			if (count != 0 && size > Long.MAX_VALUE / Math.abs(count))
+				product = count > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+			else
+				product = size * count;
+			long sum = weight + product;
+			if (((weight ^ sum) & (product ^ sum)) < 0)
+				sum = weight < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+			return sum;
+		}
+
+		/**
+		 * Eliminates a state, replacing each path through it from p to q by
+		 * the expression pk kk* kq on the edge from p to q.
+		 */
+		void eliminate(int state) {
+			Integer key = new Integer(state);
+			ExpressionNode loop = (ExpressionNode) out[state].get(key);
+			ExpressionNode star = loop == null ? factory.lambda() : factory
+					.star(loop);
+			for (Iterator i = in[state].entrySet().iterator(); i.hasNext();) {
+				Map.Entry into = (Map.Entry) i.next();
+				int p = ((Integer) into.getKey()).intValue();
+				if (p == state)
+					continue;
+				for (Iterator o = out[state].entrySet().iterator(); o.hasNext();) {
+					Map.Entry outOf = (Map.Entry) o.next();
+					int q = ((Integer) outOf.getKey()).intValue();
+					if (q == state)
+						continue;
+					add(p, q, factory.concatenate(new ExpressionNode[] {
+							(ExpressionNode) into.getValue(), star,
+							(ExpressionNode) outOf.getValue() }));
+				}
+			}
+			remove(state);
+		}
+
+		private final ExpressionFactory factory;
+
+		/** The edges out of each state, keyed by the state they go to. */
+		private final Map[] out;
+
+		/** The edges into each state, keyed by the state they come from. */
+		private final Map[] in;
+	}
+
+	/** Eliminate the state of least weight next. */
+	public static final int ORDER_BY_WEIGHT = 0;
+
+	/** Eliminate states in order of their IDs. */
+	public static final int ORDER_BY_ID = 1;
+
+	/** The order of elimination. */
+	private final int order;
+}
@@ -20,12 +20,31 @@
 
 package edu.duke.cs.jflap.automata.graph;
 
-import edu.duke.cs.jflap.automata.fsa.NFAToDFA;
-import edu.duke.cs.jflap.automata.fsa.Minimizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.duke.cs.jflap.automata.fsa.CompiledFSA;
 import edu.duke.cs.jflap.automata.fsa.FiniteStateAutomaton;
 
 /**
  * This determines if two FSAs accept the same language.
+ * <P>
+ * The check is the algorithm of Hopcroft and Karp, run directly on the two
+ * automata: pairs of sets of states, one set from each automaton, are
+ * generated by the subset construction on the fly, breadth first from the
+ * pair of initial closures. Sets known to be equivalent are merged with
+ * union-find, so a pair whose sets are already related is not expanded again.
+ * The first pair whose sets disagree on acceptance ends the check, without
+ * the rest of either DFA ever being built. Because pairs are visited in order
+ * of the length of the string reaching them, the string reaching the first
+ * disagreeing pair is a shortest string accepted by one automaton and not
+ * the other.
+ * <P>
+ * The checker keeps no state between calls, so one instance may be used by
+ * any number of threads at once. Neither automaton is modified.
  * 
  * @author Thomas Finley
  */
@@ -43,35 +62,189 @@ public class FSAEqualityChecker {
 	 *         not
 	 */
 	public boolean equals(FiniteStateAutomaton fsa1, FiniteStateAutomaton fsa2) {
-		// Clone for safety.
-		fsa1 = (FiniteStateAutomaton) fsa1.clone();
-		fsa2 = (FiniteStateAutomaton) fsa2.clone();
-
-		// Make sure they're DFAs.
-		fsa1 = nfaConverter.convertToDFA(fsa1);
-		fsa2 = nfaConverter.convertToDFA(fsa2);
-		// Minimize the DFAs.
-		minimizer.initializeMinimizer();
-		fsa1 = (FiniteStateAutomaton) minimizer.getMinimizeableAutomaton(fsa1);
-		javax.swing.tree.DefaultTreeModel tree = minimizer
-				.getDistinguishableGroupsTree(fsa1);
-		fsa1 = minimizer.getMinimumDfa(fsa1, tree);
-
-		minimizer.initializeMinimizer();
-		fsa2 = (FiniteStateAutomaton) minimizer.getMinimizeableAutomaton(fsa2);
-		tree = minimizer.getDistinguishableGroupsTree(fsa2);
-		fsa2 = minimizer.getMinimumDfa(fsa2, tree);
-
-		// Check the minimized DFAs to see if they are the same.
-		return checker.equals(fsa1, fsa2);
+		return getCounterexample(fsa1, fsa2) == null;
+	}
+
+	/**
+	 * Returns a shortest string accepted by exactly one of two FSAs.
+	 * 
+	 * @param fsa1
+	 *            the first finite state automaton
+	 * @param fsa2
+	 *            the second finite state automaton
+	 * @return a shortest string in the symmetric difference of the languages
+	 *         of <CODE>fsa1</CODE> and <CODE>fsa2</CODE>, or <CODE>null</CODE>
+	 *         if they accept the same language
+	 */
+	public String getCounterexample(FiniteStateAutomaton fsa1,
+			FiniteStateAutomaton fsa2) {
+		CompiledFSA one = new CompiledFSA(fsa1), two = new CompiledFSA(fsa2);
+		char[] alphabet = mergeAlphabets(one.getAlphabet(), two.getAlphabet());
+
+		Map ids = new HashMap();
+		UnionFind classes = new UnionFind();
+		List queue = new ArrayList();
+		Pair start = new Pair(one.getInitialStates(), two.getInitialStates(),
+				null, '\0');
+		if (one.isAccepting(start.states1) != two.isAccepting(start.states2))
+			return "";
+		classes.union(idFor(ids, classes, 1, start.states1), idFor(ids,
+				classes, 2, start.states2));
+		queue.add(start);
+		for (int head = 0; head < queue.size(); head++) {
+			Pair pair = (Pair) queue.get(head);
+			for (int i = 0; i < alphabet.length; i++) {
+				long[] next1 = new long[pair.states1.length];
+				long[] next2 = new long[pair.states2.length];
+				one.step(pair.states1, alphabet[i], next1);
+				two.step(pair.states2, alphabet[i], next2);
+				int id1 = idFor(ids, classes, 1, next1);
+				int id2 = idFor(ids, classes, 2, next2);
+				if (classes.find(id1) == classes.find(id2))
+					continue;
+				Pair successor = new Pair(next1, next2, pair, alphabet[i]);
+				if (one.isAccepting(next1) != two.isAccepting(next2))
+					return successor.getString();
+				classes.union(id1, id2);
+				queue.add(successor);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the sorted union of two sorted alphabets.
+	 */
+	private static char[] mergeAlphabets(char[] a, char[] b) {
+		StringBuffer buffer = new StringBuffer();
+		int i = 0, j = 0;
+		while (i < a.length || j < b.length) {
+			char c;
+			if (j == b.length || (i < a.length && a[i] < b[j]))
+				c = a[i++];
+			else if (i == a.length || b[j] < a[i])
+				c = b[j++];
+			else {
+				c = a[i++];
+				j++;
+			}
+			buffer.append(c);
+		}
+		return buffer.toString().toCharArray();
+	}
+
+	/**
+	 * Returns the union-find id of a set of states of one of the automata,
+	 * giving it a new id the first time the set is seen.
+	 */
+	private static int idFor(Map ids, UnionFind classes, int side,
+			long[] states) {
+		StateSet key = new StateSet(side, states);
+		Integer id = (Integer) ids.get(key);
+		if (id == null) {
+			id = new Integer(classes.add());
+			ids.put(key, id);
+		}
+		return id.intValue();
 	}
 
-	/** The equality checker. */
-	private static DFAEqualityChecker checker = new DFAEqualityChecker();
+	/**
+	 * A set of states of one of the two automata, as a hash key.
+	 */
+	private static class StateSet {
+		StateSet(int side, long[] states) {
+			this.side = side;
+			this.states = states;
+			hash = side * 31 + Arrays.hashCode(states);
+		}
+
+		public boolean equals(Object object) {
+			StateSet other = (StateSet) object;
+			return side == other.side && Arrays.equals(states, other.states);
+		}
+
+		public int hashCode() {
+			return hash;
+		}
+
+		private final int side;
+
+		private final long[] states;
 
-	/** The converter for an NFA to a DFA. */
-	private static NFAToDFA nfaConverter = new NFAToDFA();
+		private final int hash;
+	}
+
+	/**
+	 * A pair of sets of states reached by the same string in both automata,
+	 * remembering the pair and character it was reached from.
+	 */
+	private static class Pair {
+		Pair(long[] states1, long[] states2, Pair parent, char c) {
+			this.states1 = states1;
+			this.states2 = states2;
+			this.parent = parent;
+			this.c = c;
+		}
+
+		/**
+		 * Returns the string that reaches this pair from the initial pair.
+		 */
+		String getString() {
+			StringBuffer buffer = new StringBuffer();
+			for (Pair p = this; p.parent != null; p = p.parent)
+				buffer.append(p.c);
+			return buffer.reverse().toString();
+		}
+
+		final long[] states1, states2;
+
+		final Pair parent;
+
+		final char c;
+	}
 
-	/** That which minimizes a DFA. */
-	private static Minimizer minimizer = new Minimizer();
+	/**
+	 * A growable union-find structure over int ids, with path halving and
+	 * union by size.
+	 */
+	private static class UnionFind {
+		/**
+		 * Adds a new singleton class and returns its id.
+		 */
+		int add() {
+			if (count == parent.length) {
+				parent = Arrays.copyOf(parent, count * 2);
+				size = Arrays.copyOf(size, count * 2);
+			}
+			parent[count] = count;
+			size[count] = 1;
+			return count++;
+		}
+
+		int find(int x) {
+			while (parent[x] != x) {
+				parent[x] = parent[parent[x]];
+				x = parent[x];
+			}
+			return x;
+		}
+
+		void union(int x, int y) {
+			x = find(x);
+			y = find(y);
+			if (x == y)
+				return;
+			if (size[x] < size[y]) {
+				int t = x;
+				x = y;
+				y = t;
+			}
+			parent[y] = x;
+			size[x] += size[y];
+		}
+
+		private int[] parent = new int[16], size = new int[16];
+
+		private int count = 0;
+	}
 }
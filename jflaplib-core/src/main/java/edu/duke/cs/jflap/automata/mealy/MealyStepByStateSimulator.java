@@ -51,6 +51,18 @@ public class MealyStepByStateSimulator extends AutomatonSimulator
         super(automaton);
     }
 
+	/**
+	 * Creates a simulator for the given automaton with the given options.
+	 * 
+	 * @param automaton
+	 *            the machine to simulate
+	 * @param options
+	 *            the options for the simulation
+	 */
+	public MealyStepByStateSimulator(Automaton automaton, SimulationOptions options) {
+		super(automaton, options);
+	}
+
     /**
      * Returns a <code>MealyConfiguration</code> that represents the 
      * initial configuration of the Mealy machine, before any input
@@ -20,7 +20,7 @@
 
 package edu.duke.cs.jflap.automata.mealy;
 
-import edu.duke.cs.jflap.gui.environment.Universe;
+import edu.duke.cs.jflap.automata.SimulationOptions;
 import edu.duke.cs.jflap.automata.State;
 import edu.duke.cs.jflap.automata.Transition;
 
@@ -138,9 +138,9 @@ public class MealyTransition extends Transition
         String label = getLabel();
         String output = getOutput();
         if(label == null || label.length() == 0)
-            label = Universe.curProfile.getEmptyString();
+            label = SimulationOptions.getDefault().getEmptyString();
         if(output == null || output.length() == 0)
-            output = Universe.curProfile.getEmptyString();;
+            output = SimulationOptions.getDefault().getEmptyString();;
         return label + " ; " + output;
     }
     
@@ -20,7 +20,7 @@
 
 package edu.duke.cs.jflap.automata.mealy;
 
-import edu.duke.cs.jflap.gui.environment.Universe;
+import edu.duke.cs.jflap.automata.SimulationOptions;
 
 import java.util.*;
 
@@ -120,7 +120,7 @@ public class MooreMachine extends MealyMachine
         if(myMap.get(state) == null)
             return "";
         else if(getOutput(state).length() == 0) // if output is empty string
-            return Universe.curProfile.getEmptyString();
+            return SimulationOptions.getDefault().getEmptyString();
         else
             return getOutput(state);
     }
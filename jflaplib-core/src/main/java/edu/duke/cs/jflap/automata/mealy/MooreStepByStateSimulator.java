@@ -52,6 +52,18 @@ public class MooreStepByStateSimulator extends MealyStepByStateSimulator
     {
         super(automaton);
     }
+
+	/**
+	 * Creates a simulator for the given automaton with the given options.
+	 * 
+	 * @param automaton
+	 *            the machine to simulate
+	 * @param options
+	 *            the options for the simulation
+	 */
+	public MooreStepByStateSimulator(Automaton automaton, SimulationOptions options) {
+		super(automaton, options);
+	}
     
     /**
      * Returns a <code>MooreConfiguration</code> that represents the 
@@ -20,7 +20,7 @@
 
 package edu.duke.cs.jflap.automata.mealy;
 
-import edu.duke.cs.jflap.gui.environment.Universe;
+import edu.duke.cs.jflap.automata.SimulationOptions;
 import edu.duke.cs.jflap.automata.State;
 import edu.duke.cs.jflap.automata.Transition;
 
@@ -112,7 +112,7 @@ public class MooreTransition extends MealyTransition
     public String getDescription()
     {
         if(getLabel() == null || getLabel().length() == 0)
-            return Universe.curProfile.getEmptyString();
+            return SimulationOptions.getDefault().getEmptyString();
         else
             return getLabel();
     }
@@ -20,10 +20,21 @@
 
 package edu.duke.cs.jflap.automata.pda;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.Map;
 
 /**
  * A character stack. Allows the pushing and popping of individual <CODE>char</CODE>s.
+ * <P>
+ * The characters are held in a persistent linked list whose cells are never
+ * changed once made, so copies of a stack share all their cells, and copying
+ * a stack, pushing or popping a character, and hashing a stack each take
+ * constant time however high the stack is. A configuration of a pushdown
+ * automaton may thus copy its parent's stack and change the top without
+ * paying for the rest.
  * 
  * @author Thomas Finley
  */
@@ -38,12 +49,14 @@ public class CharacterStack implements Serializable {
 
 	/**
 	 * Instantiates a character stack that is a copy of a given character stack.
+	 * The two stacks share their contents, but changing one does not change
+	 * the other.
 	 * 
 	 * @param stack
 	 *            the character stack to copy
 	 */
 	public CharacterStack(CharacterStack stack) {
-		this.buffer = new StringBuffer(stack.buffer.toString());
+		this.top = stack.top;
 	}
 
 	/**
@@ -53,8 +66,7 @@ public class CharacterStack implements Serializable {
 	 *            the character to push onto the stack
 	 */
 	public void push(char character) {
-		buffer.insert(0, character);
-		cachedHash = 0xdeadbeef;
+		top = new Cell(character, top);
 	}
 
 	/**
@@ -65,16 +77,39 @@ public class CharacterStack implements Serializable {
 	 *            the strings characters which we push onto the stack
 	 */
 	public void push(String string) {
-		buffer.insert(0, string);
-		cachedHash = 0xdeadbeef;
+		for (int i = string.length() - 1; i >= 0; i--)
+			top = new Cell(string.charAt(i), top);
+	}
+
+	/**
+	 * Pushes a string onto a stack, reusing the cells of other stacks pushed
+	 * with the same table where it can. Stacks built only by pushing with one
+	 * table onto stacks built the same way share all their cells whenever
+	 * they hold the same characters, so comparing them takes constant time.
+	 * 
+	 * @param string
+	 *            the strings characters which we push onto the stack
+	 * @param cells
+	 *            the table of cells to reuse, which should be used for no
+	 *            other purpose
+	 */
+	public void push(String string, Map cells) {
+		for (int i = string.length() - 1; i >= 0; i--) {
+			Cell cell = new Cell(string.charAt(i), top);
+			Cell shared = (Cell) cells.get(cell);
+			if (shared == null)
+				cells.put(cell, cell);
+			else
+				cell = shared;
+			top = cell;
+		}
 	}
 
 	/**
 	 * Clears the stack.
 	 */
 	public void clear() {
-		buffer = new StringBuffer();
-		cachedHash = 0xdeadbeef;
+		top = null;
 	}
 
 	/**
@@ -83,7 +118,7 @@ public class CharacterStack implements Serializable {
 	 * @return the number of characters on this stack
 	 */
 	public int height() {
-		return buffer.length();
+		return top == null ? 0 : top.height;
 	}
 
 	/**
@@ -94,10 +129,11 @@ public class CharacterStack implements Serializable {
 	 *         the stack
 	 */
 	public char pop() {
-		char[] toReturn = new char[1];
-		buffer.getChars(0, 1, toReturn, 0);
-		buffer.deleteCharAt(0);
-		return toReturn[0];
+		if (top == null)
+			return 0;
+		char character = top.character;
+		top = top.below;
+		return character;
 	}
 
 	/**
@@ -112,21 +148,48 @@ public class CharacterStack implements Serializable {
 	 *         stack
 	 */
 	public String pop(int number) {
-		if (buffer.length() < number)
+		if (height() < number)
 			return null;
 		char[] c = new char[number];
-		buffer.getChars(0, number, c, 0);
-		buffer.delete(0, number);
+		for (int i = 0; i < number; i++) {
+			c[i] = top.character;
+			top = top.below;
+		}
 		return new String(c);
 	}
 
+	/**
+	 * Returns if the top of this stack holds the given characters, without
+	 * popping them. The first character in the string is compared with the
+	 * top of the stack.
+	 * 
+	 * @param string
+	 *            the characters to look for
+	 * @return <CODE>true</CODE> if popping <CODE>string.length()</CODE>
+	 *         characters would return <CODE>string</CODE>
+	 */
+	public boolean startsWith(String string) {
+		int length = string.length();
+		if (height() < length)
+			return false;
+		Cell cell = top;
+		for (int i = 0; i < length; i++, cell = cell.below)
+			if (cell.character != string.charAt(i))
+				return false;
+		return true;
+	}
+
 	/**
 	 * Returns a string representation of this object.
 	 * 
 	 * @return a string representation of this object
 	 */
 	public String toString() {
-		return buffer.toString();
+		char[] c = new char[height()];
+		Cell cell = top;
+		for (int i = 0; i < c.length; i++, cell = cell.below)
+			c[i] = cell.character;
+		return new String(c);
 	}
 
 	/**
@@ -139,12 +202,15 @@ public class CharacterStack implements Serializable {
 	 *         otherwise
 	 */
 	public boolean equals(Object stack) {
-		try {
-			return ((CharacterStack) stack).buffer.toString().equals(
-					buffer.toString());
-		} catch (ClassCastException e) {
+		if (!(stack instanceof CharacterStack))
 			return false;
-		}
+		Cell a = top, b = ((CharacterStack) stack).top;
+		/** stop as soon as the two share the rest of their cells. */
+		for (; a != b; a = a.below, b = b.below)
+			if (a == null || b == null || a.hash != b.hash
+					|| a.character != b.character)
+				return false;
+		return true;
 	}
 
 	/**
@@ -153,14 +219,66 @@ public class CharacterStack implements Serializable {
 	 * @return a hash value for this character stack
 	 */
 	public int hashCode() {
-		if (cachedHash != 0xdeadbeef)
-			return cachedHash;
-		return cachedHash = buffer.toString().hashCode();
+		return top == null ? 0 : top.hash;
+	}
+
+	/**
+	 * Writes the characters of this stack, rather than its cells, so that
+	 * deep stacks do not nest the serialization too deeply.
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeObject(toString());
+	}
+
+	/**
+	 * Reads the characters written by <CODE>writeObject</CODE>.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException,
+			ClassNotFoundException {
+		in.defaultReadObject();
+		push((String) in.readObject());
 	}
 
-	/** The string buffer. */
-	private StringBuffer buffer = new StringBuffer();
+	/**
+	 * A cell of the stack, holding one character and the cells below it. The
+	 * height and hash of the stack from this cell down are kept with it. Two
+	 * cells are equal if they hold the same character above the very same
+	 * cell.
+	 */
+	private static class Cell {
+		Cell(char character, Cell below) {
+			this.character = character;
+			this.below = below;
+			if (below == null) {
+				height = 1;
+				hash = character;
+			} else {
+				height = below.height + 1;
+				hash = below.hash * 31 + character;
+			}
+		}
+
+		public boolean equals(Object object) {
+			if (!(object instanceof Cell))
+				return false;
+			Cell cell = (Cell) object;
+			return character == cell.character && below == cell.below;
+		}
+
+		public int hashCode() {
+			return hash;
+		}
+
+		final char character;
+
+		final Cell below;
+
+		final int height;
+
+		final int hash;
+	}
 
-	/** The cached hash value. */
-	private int cachedHash = 0xdeadbeef;
+	/** The top cell, or <CODE>null</CODE> if the stack is empty. */
+	private transient Cell top = null;
 }
@@ -97,7 +97,8 @@ public class PDAConfiguration extends Configuration {
 	}
 
 	/**
-	 * Returns the stack.
+	 * Returns the stack. Configurations share stacks with each other, so
+	 * callers that change the stack should change a copy.
 	 * 
 	 * @return the stack.
 	 */
@@ -135,7 +136,7 @@ public class PDAConfiguration extends Configuration {
 			return a.isFinalState(s);
 		}else if(myAcceptance == EMPTY_STACK){
 			CharacterStack stack = this.getStack();
-			if (this.getUnprocessedInput() == ""
+			if (this.getUnprocessedInput().length() == 0
 					&& stack.height() == 0) {
 				return true;
 			}
@@ -21,13 +21,14 @@
 package edu.duke.cs.jflap.automata.pda;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
-
-import javax.swing.JOptionPane;
+import java.util.Map;
 
 import edu.duke.cs.jflap.automata.Automaton;
 import edu.duke.cs.jflap.automata.AutomatonSimulator;
 import edu.duke.cs.jflap.automata.Configuration;
+import edu.duke.cs.jflap.automata.SimulationOptions;
 import edu.duke.cs.jflap.automata.State;
 import edu.duke.cs.jflap.automata.Transition;
 
@@ -47,23 +48,24 @@ public class PDAStepByStateSimulator extends AutomatonSimulator {
 	 *            the machine to simulate
 	 */
 	public PDAStepByStateSimulator(Automaton automaton) {
-		super(automaton);
-		/** default acceptance is by final state. */
-		
-		Object[] possibleValues = {"Final State", "Empty Stack"};
-		Object selectedValue = JOptionPane.showInputDialog(null,
-		            "Accept by", "Input",
-		            JOptionPane.INFORMATION_MESSAGE, null,
-		            possibleValues, possibleValues[0]);
-		if(selectedValue.equals(possibleValues[0])){
-			myAcceptance = FINAL_STATE;
-			//EDebug.print("fstate");
-		}else if(selectedValue.equals(possibleValues[1])){
-			myAcceptance = EMPTY_STACK;
-			//EDebug.print("estack");
-		}
-		//myAcceptance = FINAL_STATE;
-		//myAcceptance=selectedValue;
+		this(automaton, SimulationOptions.getDefault());
+	}
+
+	/**
+	 * Creates a PDA simulator for the given automaton, accepting by the mode
+	 * given in the options. Unlike the other simulators, which merge
+	 * configurations only when asked to, a PDA simulator merges them unless
+	 * this is turned off.
+	 * 
+	 * @param automaton
+	 *            the machine to simulate
+	 * @param options
+	 *            the options for the simulation
+	 */
+	public PDAStepByStateSimulator(Automaton automaton, SimulationOptions options) {
+		super(automaton, options);
+		myAcceptance = options.getPDAAcceptance();
+		setDeduplicating(true);
 	}
 
 	/**
@@ -77,8 +79,9 @@ public class PDAStepByStateSimulator extends AutomatonSimulator {
 	public Configuration[] getInitialConfigurations(String input) {
 		/** The stack should contain the bottom of stack marker. */
 		Configuration[] configs = new Configuration[1];
+		myCells.clear();
 		CharacterStack stack = new CharacterStack();
-		stack.push("Z");
+		stack.push("Z", myCells);
 		configs[0] = new PDAConfiguration(myAutomaton.getInitialState(), null,
 				input, input, stack, myAcceptance);
 		return configs;
@@ -106,17 +109,17 @@ public class PDAStepByStateSimulator extends AutomatonSimulator {
 			String inputToRead = transition.getInputToRead();
 			String stringToPop = transition.getStringToPop();
 			CharacterStack tempStack = configuration.getStack();
-			/** copy stack object so as to not alter original. */
-			CharacterStack stack = new CharacterStack(tempStack);
-			String stackContents = stack.pop(stringToPop.length());
 			if (unprocessedInput.startsWith(inputToRead)
-					&& stringToPop.equals(stackContents)) {
+					&& tempStack.startsWith(stringToPop)) {
+				/** copy stack object so as to not alter original. */
+				CharacterStack stack = new CharacterStack(tempStack);
+				stack.pop(stringToPop.length());
 				String input = "";
 				if (inputToRead.length() < unprocessedInput.length()) {
 					input = unprocessedInput.substring(inputToRead.length());
 				}
 				State toState = transition.getToState();
-				stack.push(transition.getStringToPush());
+				stack.push(transition.getStringToPush(), myCells);
 				PDAConfiguration configurationToAdd = new PDAConfiguration(
 						toState, configuration, totalInput, input, stack, myAcceptance);
 				list.add(configurationToAdd);
@@ -169,56 +172,179 @@ public class PDAStepByStateSimulator extends AutomatonSimulator {
 		return false;
 	}
 
+	/**
+	 * Returns the key under which configurations are merged, made of the
+	 * state, the position in the input and the stack.
+	 * 
+	 * @param configuration
+	 *            the configuration
+	 * @return the key for <CODE>configuration</CODE>
+	 */
+	protected Object getDeduplicationKey(Configuration configuration) {
+		PDAConfiguration config = (PDAConfiguration) configuration;
+		return new ConfigurationKey(config.getCurrentState(), config
+				.getUnprocessedInput().length(), config.getStack());
+	}
+
 	/**
 	 * Runs the automaton on the input string.
 	 * 
 	 * @param input
 	 *            the input string to be run on the automaton
-	 * @return true if the automaton accepts the input
+	 * @return true if the automaton accepts the input, and false if it
+	 *         rejects it or the configuration limit is reached first
+	 * @see #run
 	 */
 	public boolean simulateInput(String input) {
+		return run(input).isAccepted();
+	}
+
+	/**
+	 * Runs the automaton on the input string, searching the configurations
+	 * breadth first until one accepts, none are left, or more configurations
+	 * have been generated than the configuration limit of the options allows,
+	 * in which case the outcome is <CODE>BUDGET_EXCEEDED</CODE>. The default
+	 * options allow 10000 configurations, so that a PDA that keeps pushing on
+	 * lambda transitions still stops.
+	 * Unless merging has been turned off, configurations with the same state,
+	 * input position and stack are merged, so a nondeterministic automaton
+	 * that reaches the same configuration by many paths does the work for it
+	 * once.
+	 * 
+	 * @param input
+	 *            the input string to be run on the automaton
+	 * @return the result of the run
+	 * @see edu.duke.cs.jflap.automata.SimulationOptions#getConfigurationLimit
+	 */
+	public Result run(String input) {
+		long start = System.nanoTime();
+		int limit = myOptions.getConfigurationLimit();
 		/** clear the configurations to begin new simulation. */
 		myConfigurations.clear();
+		clearVisited();
 		Configuration[] initialConfigs = getInitialConfigurations(input);
 		for (int k = 0; k < initialConfigs.length; k++) {
 			PDAConfiguration initialConfiguration = (PDAConfiguration) initialConfigs[k];
-			myConfigurations.add(initialConfiguration);
+			if (visit(initialConfiguration))
+				myConfigurations.add(initialConfiguration);
 		}
-		int count = 0;
+		int count = myConfigurations.size();
 		while (!myConfigurations.isEmpty()) {
-			if (isAccepted())
-				return true;
 			ArrayList configurationsToAdd = new ArrayList();
 			Iterator it = myConfigurations.iterator();
 			while (it.hasNext()) {
 				PDAConfiguration configuration = (PDAConfiguration) it.next();
-				ArrayList configsToAdd = stepConfiguration(configuration);
-				configurationsToAdd.addAll(configsToAdd);
+				if (configuration.isAccept())
+					return new Result(ACCEPT, count, configuration, System
+							.nanoTime() - start);
 				it.remove();
-                count++;
-                if(count > 10000){
-                    int result = JOptionPane.showConfirmDialog(null, "JFLAP has generated 10000 configurations. Continue?");
-                    switch (result) {
-                    case JOptionPane.CANCEL_OPTION:
-                        continue;
-                    case JOptionPane.NO_OPTION:
-                        return false;
-                    default:
-                    }
-                }
+				ArrayList configsToAdd = stepConfiguration(configuration);
+				for (int k = 0; k < configsToAdd.size(); k++) {
+					if (!visit((Configuration) configsToAdd.get(k)))
+						continue;
+					configurationsToAdd.add(configsToAdd.get(k));
+					count++;
+					if (limit > 0 && count > limit)
+						return new Result(BUDGET_EXCEEDED, count, null,
+								System.nanoTime() - start);
+				}
 			}
 			myConfigurations.addAll(configurationsToAdd);
 		}
-		return false;
+		return new Result(REJECT, count, null, System.nanoTime() - start);
+	}
+
+	/**
+	 * The result of running a pushdown automaton on an input.
+	 * 
+	 * @see PDAStepByStateSimulator#run
+	 */
+	public static class Result {
+		/**
+		 * Instantiates a new result.
+		 */
+		Result(int outcome, int configurations, PDAConfiguration configuration,
+				long nanos) {
+			myOutcome = outcome;
+			myConfigurations = configurations;
+			myConfiguration = configuration;
+			myNanos = nanos;
+		}
+
+		/**
+		 * Returns the outcome of the run, one of <CODE>ACCEPT</CODE>,
+		 * <CODE>REJECT</CODE> or <CODE>BUDGET_EXCEEDED</CODE>.
+		 */
+		public int getOutcome() {
+			return myOutcome;
+		}
+
+		/**
+		 * Returns if the input was accepted.
+		 */
+		public boolean isAccepted() {
+			return myOutcome == ACCEPT;
+		}
+
+		/**
+		 * Returns the number of configurations generated.
+		 */
+		public int getConfigurations() {
+			return myConfigurations;
+		}
+
+		/**
+		 * Returns the accepting configuration, or <CODE>null</CODE> if the
+		 * input was not accepted.
+		 */
+		public PDAConfiguration getConfiguration() {
+			return myConfiguration;
+		}
+
+		/**
+		 * Returns the time the run took, in nanoseconds.
+		 */
+		public long getNanos() {
+			return myNanos;
+		}
+
+		/**
+		 * Returns a string representation of this result.
+		 */
+		public String toString() {
+			return OUTCOMES[myOutcome] + " after " + myConfigurations
+					+ " configurations";
+		}
+
+		private final int myOutcome;
+
+		private final int myConfigurations;
+
+		private final PDAConfiguration myConfiguration;
+
+		private final long myNanos;
 	}
 
 	/** The mode of acceptance (either by final state or empty stack). */
 	protected int myAcceptance;
 
+	/**
+	 * The cells of the stacks of this simulation, so that equal stacks share
+	 * them.
+	 */
+	protected Map myCells = new HashMap();
+
 	/** The variable to represent accept by empty stack. */
 	protected static final int EMPTY_STACK = 0;
 
 	/** The variable to represent accept by final state. */
 	protected static final int FINAL_STATE = 1;
 
+	/** The outcomes of a run. */
+	public static final int ACCEPT = 0, REJECT = 1, BUDGET_EXCEEDED = 2;
+
+	/** The names of the outcomes. */
+	private static final String[] OUTCOMES = { "Accept", "Reject",
+			"Budget exceeded" };
+
 }
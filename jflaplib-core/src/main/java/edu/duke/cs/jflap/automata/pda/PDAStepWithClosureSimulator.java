@@ -25,6 +25,7 @@ import java.util.ArrayList;
 import edu.duke.cs.jflap.automata.Automaton;
 import edu.duke.cs.jflap.automata.ClosureTaker;
 import edu.duke.cs.jflap.automata.Configuration;
+import edu.duke.cs.jflap.automata.SimulationOptions;
 import edu.duke.cs.jflap.automata.State;
 import edu.duke.cs.jflap.automata.Transition;
 
@@ -34,6 +35,18 @@ public class PDAStepWithClosureSimulator extends PDAStepByStateSimulator {
 		super(automaton);
 	}
 
+	/**
+	 * Creates a simulator for the given automaton with the given options.
+	 * 
+	 * @param automaton
+	 *            the machine to simulate
+	 * @param options
+	 *            the options for the simulation
+	 */
+	public PDAStepWithClosureSimulator(Automaton automaton, SimulationOptions options) {
+		super(automaton, options);
+	}
+
 	/**
 	 * Returns a PDAConfiguration array that represents the initial
 	 * configuration of the PDA, before any input has been processed. It returns
@@ -47,9 +60,10 @@ public class PDAStepWithClosureSimulator extends PDAStepByStateSimulator {
 		State init = myAutomaton.getInitialState();
 		State[] closure = ClosureTaker.getClosure(init, myAutomaton);
 		Configuration[] configs = new Configuration[closure.length];
+		myCells.clear();
+		CharacterStack stack = new CharacterStack();
+		stack.push("Z", myCells);
 		for (int k = 0; k < closure.length; k++) {
-			CharacterStack stack = new CharacterStack();
-			stack.push("Z");
 			configs[k] = new PDAConfiguration(closure[k], null, input, input,
 					stack, myAcceptance);
 		}
@@ -78,23 +92,23 @@ public class PDAStepWithClosureSimulator extends PDAStepByStateSimulator {
 			String inputToRead = transition.getInputToRead();
 			String stringToPop = transition.getStringToPop();
 			CharacterStack tempStack = configuration.getStack();
-			/** copy stack object so as to not alter original. */
-			CharacterStack stack = new CharacterStack(tempStack);
-			String stackContents = stack.pop(stringToPop.length());
 			if (unprocessedInput.startsWith(inputToRead)
-					&& stringToPop.equals(stackContents)) {
+					&& tempStack.startsWith(stringToPop)) {
+				/** copy stack object so as to not alter original. */
+				CharacterStack stack = new CharacterStack(tempStack);
+				stack.pop(stringToPop.length());
 				String input = "";
 				if (inputToRead.length() < unprocessedInput.length()) {
 					input = unprocessedInput.substring(inputToRead.length());
 				}
 				State toState = transition.getToState();
-				stack.push(transition.getStringToPush());
+				stack.push(transition.getStringToPush(), myCells);
 				State[] closure = ClosureTaker.getClosure(toState, myAutomaton);
+				/** configurations never alter their stacks, so share it. */
 				for (int i = 0; i < closure.length; i++) {
-					CharacterStack cstack = new CharacterStack(stack);
 					PDAConfiguration configurationToAdd = new PDAConfiguration(
 							closure[i], configuration, totalInput, input,
-							cstack, myAcceptance);
+							stack, myAcceptance);
 					list.add(configurationToAdd);
 				}
 
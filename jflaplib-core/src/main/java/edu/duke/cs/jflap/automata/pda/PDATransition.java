@@ -20,7 +20,7 @@
 
 package edu.duke.cs.jflap.automata.pda;
 
-import edu.duke.cs.jflap.gui.environment.Universe;
+import edu.duke.cs.jflap.automata.SimulationOptions;
 import edu.duke.cs.jflap.automata.Transition;
 import edu.duke.cs.jflap.automata.State;
 
@@ -159,13 +159,13 @@ public class PDATransition extends Transition {
 	public String getDescription() {
 		String input = getInputToRead();
 		if (input.length() == 0)
-			input = Universe.curProfile.getEmptyString();
+			input = SimulationOptions.getDefault().getEmptyString();
 		String toPop = getStringToPop();
 		if (toPop.length() == 0)
-			toPop = Universe.curProfile.getEmptyString();
+			toPop = SimulationOptions.getDefault().getEmptyString();
 		String toPush = getStringToPush();
 		if (toPush.length() == 0)
-			toPush = Universe.curProfile.getEmptyString();
+			toPush = SimulationOptions.getDefault().getEmptyString();
 		return input + " , " + toPop + " ; " + toPush;
 	}
 
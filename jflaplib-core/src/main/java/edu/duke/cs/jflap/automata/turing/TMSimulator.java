@@ -27,17 +27,17 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Comparator;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import edu.duke.cs.jflap.automata.Automaton;
 import edu.duke.cs.jflap.automata.AutomatonSimulator;
 import edu.duke.cs.jflap.automata.Configuration;
+import edu.duke.cs.jflap.automata.SimulationException;
+import edu.duke.cs.jflap.automata.SimulationOptions;
 import edu.duke.cs.jflap.automata.Transition;
-import edu.duke.cs.jflap.gui.environment.Universe;
 
 import edu.duke.cs.jflap.debug.EDebug;
 
-import javax.swing.JOptionPane;
-
 /**
  * The TM simulator progresses TM configurations on a possibly multitape Turing
  * machine.
@@ -55,7 +55,22 @@ public class TMSimulator extends AutomatonSimulator {
 	 *             if this automaton is not a Turing machine
 	 */
 	public TMSimulator(Automaton automaton) {
-		super(automaton);
+		this(automaton, SimulationOptions.getDefault());
+	}
+
+	/**
+	 * Creates a TM simulator for the given automaton, accepting by the
+	 * criteria given in the options.
+	 * 
+	 * @param automaton
+	 *            the machine to simulate
+	 * @param options
+	 *            the options for the simulation
+	 * @throws IllegalArgumentException
+	 *             if this automaton is not a Turing machine
+	 */
+	public TMSimulator(Automaton automaton, SimulationOptions options) {
+		super(automaton, options);
 		if (!(automaton instanceof TuringMachine))
 			throw new IllegalArgumentException(
 					"Automaton is not a Turing machine, but a "
@@ -78,8 +93,8 @@ public class TMSimulator extends AutomatonSimulator {
           
         List<AcceptanceFilter> tlist = new ArrayList<AcceptanceFilter>();
         
-        if (Universe.curProfile.getAcceptByFinalState()) tlist.add(new AcceptByFinalStateFilter());
-        if (Universe.curProfile.getAcceptByHalting()) tlist.add(new AcceptByHaltingFilter());
+        if (options.getAcceptByFinalState()) tlist.add(new AcceptByFinalStateFilter());
+        if (options.getAcceptByHalting()) tlist.add(new AcceptByHaltingFilter());
 
 
         myFilters = tlist.toArray(new AcceptanceFilter[0]);
@@ -179,12 +194,8 @@ public class TMSimulator extends AutomatonSimulator {
             for (int i = 0; i < characters.length; i++){
                 assert characters[i].length() == 1;
                 if (varToChar.containsKey(characters[i])){
-                    //warn the user that they are attempting something erroneous
-                    //MERLIN MERLIN MERLIN MERLIN MERLIN//
-                    JOptionPane.showMessageDialog(null,"You cannot use a variable on the left side of the assignment operator!\n Please fix this and restart the simulation.", 
-                            "Illegal Variable Location!\n"
-                            ,  JOptionPane.ERROR_MESSAGE);
-
+                    //the user is attempting something erroneous
+                    throw new SimulationException("You cannot use a variable on the left side of the assignment operator!\n Please fix this and restart the simulation.");
                 }
                 if (characters[i].charAt(0) == underHead) flag = true;; //take care of assignment somewhere else //here, it's only alphabet letters
             }
@@ -214,23 +225,20 @@ public class TMSimulator extends AutomatonSimulator {
     }
 
 	/**
-	 * Simulates one step for a particular configuration, adding the
-	 * next reachable configuration. In other words, this code is for a DETERMINISTIC
-	 * Turing machine. The ArrayList returned will have list 1.
-	 * @param config
-	 *            the configuration to simulate the one step on
-     *
-     * @return ArrayList containing the single configuration, or null if there are no valid transitions.
+	 * Returns the transition a configuration would take next, looking first in
+	 * the innermost building block and then in the machines around it. The
+	 * tapes are only read, so this may be used to see whether the machine can
+	 * still move without moving it.
+	 * 
+	 * @param configuration
+	 *            the configuration
+	 * @return the transition to take, or <CODE>null</CODE> if the machine
+	 *         halts here
+	 * @throws SimulationException
+	 *             if a building block lacks an initial state, or a
+	 *             transition assigns to a variable
 	 */
-	public ArrayList stepConfiguration(Configuration config) { //one step, and will dig into building blocks if necessary
-		
-        //MERLIN MERLIN MERLIN MERLIN MERLIN//
-
-        
-		ArrayList list = new ArrayList();
-		TMConfiguration configuration = (TMConfiguration) config;
-
-
+	private TMTransition findTransition(TMConfiguration configuration) {
 		TMState currentState = (TMState) configuration.getCurrentState(); //innerTM should never be null; because of the way we set it up in the constructor and in the restoration phase.
         TuringMachine tmp = null; //just a literally tmp, like /tmp
         
@@ -241,12 +249,8 @@ public class TMSimulator extends AutomatonSimulator {
 
             //check that the initial state exists
             if (currentState == null) {
-                    JOptionPane.showMessageDialog(null, "It appears that one of your building blocks, possibly nested, lacks an initial state.\n "+
-                            "Please resolve this problem and restart the simulation.",
-                            "Missing Initial State"
-                            ,  JOptionPane.ERROR_MESSAGE);
-
-                    return list;
+                    throw new SimulationException("It appears that one of your building blocks, possibly nested, lacks an initial state.\n "+
+                            "Please resolve this problem and restart the simulation.");
             }
         }
         
@@ -254,30 +258,19 @@ public class TMSimulator extends AutomatonSimulator {
         assert(tmp.getParent() == currentState);
 
         Transition[] trans = currentState.getAutomaton().getTransitionsFromState(currentState);
-        TMTransition tmt = null;
-        boolean success = false;
-outer:  while (true){
+        while (true){
 
             //sort the ones with the ! symbol to be the later ones. If there are multiple !, then the choice is arbitrary.
-            Arrays.sort(trans, new Comparator<Transition>(){
-                    public int compare (Transition a, Transition b){ //variables are only allowed with SINGLE TAPE, and same with NOT
-                        
-                        TMTransition tma = (TMTransition) a;
-                        TMTransition tmb = (TMTransition) b;
-                        
-                        char fa = tma.getRead(0).charAt(0);
-                        char fb = tmb.getRead(0).charAt(0);
-                        return (fa == '!')?(fb == '!' ? 0 : 1) : (fb == '!' ? 1 : 0);
-                    }
-                    });
+            //the array is cached by the automaton, so sort a copy of it.
+            trans = (Transition[]) trans.clone();
+            Arrays.sort(trans, BANG_LAST);
 
             //go through transitions at current level
             for (int i = 0; i < trans.length; i++){
-                tmt = (TMTransition) trans[i];
+                TMTransition tmt = (TMTransition) trans[i];
 
                 if (matches(configuration.getTapes(), tmt)){
-                    success = true;
-                    break outer;
+                    return tmt;
                 }
                 //tilda means to read nothing or write nothing, and it seems to be explicitly written for turing machines, rather differently from other automata
             }
@@ -294,7 +287,32 @@ outer:  while (true){
             }
             
         }
+        return null;
+	}
+
+	/**
+	 * Simulates one step for a particular configuration, adding the
+	 * next reachable configuration. In other words, this code is for a DETERMINISTIC
+	 * Turing machine. The ArrayList returned will have list 1.
+	 * @param config
+	 *            the configuration to simulate the one step on
+     *
+     * @return ArrayList containing the single configuration, or null if there are no valid transitions.
+	 * @throws SimulationException
+	 *             if a building block lacks an initial state, or a
+	 *             transition assigns to a variable
+	 */
+	public ArrayList stepConfiguration(Configuration config) { //one step, and will dig into building blocks if necessary
+		
+        //MERLIN MERLIN MERLIN MERLIN MERLIN//
+
         
+		ArrayList list = new ArrayList();
+		TMConfiguration configuration = (TMConfiguration) config;
+
+
+		TMTransition tmt = findTransition(configuration);
+        boolean success = tmt != null;
 
         if (success){ //if variables are used then they will be common to all tapes...
             if (configuration.getTapes().length > 1){
@@ -343,49 +361,269 @@ outer:  while (true){
 	}
 
 	/**
-	 * Returns true if the simulation of the input string on the automaton left
-	 * the machine in a final state. This method does not appear to be used. It is only left here because the class from which it inherited requires it.
+	 * Returns true if the last simulation of an input string left the machine
+	 * in an accepting configuration, by whichever acceptance criteria are in
+	 * use.
 	 * 
 	 * @return true if the simulation of the input string on the automaton left
-	 *         the machine in a final state
+	 *         the machine in an accepting configuration
 	 */
 	public boolean isAccepted() {
+		Iterator it = myConfigurations.iterator();
+		while (it.hasNext())
+			if (((Configuration) it.next()).isAccept())
+				return true;
 		return false;
 	}
 
 	/**
-	 * Runs the automaton on the input string.
+	 * Runs the automaton on the input string. This is the same as
+	 * <CODE>run</CODE> with no cancellation, so it gives up if a limit has
+	 * been set and is passed.
 	 * 
 	 * @param input
 	 *            the input string to be run on the automaton
 	 * @return true if the automaton accepts the input
 	 */
 	public boolean simulateInput(String input) {
-		/** clear the configurations to begin new simulation. */
-        //System.out.println("In Simulate Input");
+		return run(input, null).isAccepted();
+	}
+
+	/**
+	 * Sets the most steps a run may take before it is given up with a
+	 * <CODE>STEP_LIMIT</CODE> outcome.
+	 * 
+	 * @param limit
+	 *            the step limit, or a value less than one for no limit
+	 */
+	public void setStepLimit(long limit) {
+		myStepLimit = limit;
+	}
+
+	/**
+	 * Returns the most steps a run may take.
+	 * 
+	 * @return the step limit, or a value less than one if there is no limit
+	 */
+	public long getStepLimit() {
+		return myStepLimit;
+	}
+
+	/**
+	 * Sets the most cells any one tape may use before the run is given up
+	 * with a <CODE>TAPE_LIMIT</CODE> outcome.
+	 * 
+	 * @param limit
+	 *            the tape limit, or a value less than one for no limit
+	 */
+	public void setTapeLimit(int limit) {
+		myTapeLimit = limit;
+	}
+
+	/**
+	 * Returns the most cells any one tape may use.
+	 * 
+	 * @return the tape limit, or a value less than one if there is no limit
+	 */
+	public int getTapeLimit() {
+		return myTapeLimit;
+	}
+
+	/**
+	 * Sets how long a run may take before it is given up with a
+	 * <CODE>TIMEOUT</CODE> outcome.
+	 * 
+	 * @param millis
+	 *            the time limit in milliseconds, or a value less than one for
+	 *            no limit
+	 */
+	public void setTimeLimit(long millis) {
+		myTimeLimit = millis;
+	}
+
+	/**
+	 * Returns how long a run may take.
+	 * 
+	 * @return the time limit in milliseconds, or a value less than one if
+	 *         there is no limit
+	 */
+	public long getTimeLimit() {
+		return myTimeLimit;
+	}
+
+	/**
+	 * Runs the machine on an input string, written to every tape.
+	 * 
+	 * @param input
+	 *            the input string
+	 * @param cancelled
+	 *            the flag another thread may set to cancel the run, or
+	 *            <CODE>null</CODE> if the run cannot be cancelled
+	 * @return the result of the run
+	 * @see #run(String[], AtomicBoolean)
+	 */
+	public Result run(String input, AtomicBoolean cancelled) {
+		int tapes = ((TuringMachine) myAutomaton).tapes();
+		String[] inputs = new String[tapes];
+		for (int i = 0; i < tapes; i++)
+			inputs[i] = input;
+		return run(inputs, cancelled);
+	}
+
+	/**
+	 * Runs the machine on the input strings until it accepts or halts, or
+	 * until one of the step, tape or time limits is passed, or until it is
+	 * cancelled. The machine is deterministic, so the run follows the one
+	 * configuration it can be in. A machine that halts once the steps are
+	 * used up is not stopped by the step limit, so its result is still
+	 * <CODE>ACCEPT</CODE> or <CODE>REJECT</CODE>. The limits and the flag are checked between
+	 * steps, so a run ends within a step of being cancelled or timing out, and
+	 * no other thread is needed to stop it.
+	 * 
+	 * @param inputs
+	 *            the input strings, one per tape
+	 * @param cancelled
+	 *            the flag another thread may set to cancel the run, or
+	 *            <CODE>null</CODE> if the run cannot be cancelled
+	 * @return the result of the run
+	 */
+	public Result run(String[] inputs, AtomicBoolean cancelled) {
+		long start = System.nanoTime();
+		long deadline = start + myTimeLimit * 1000000L;
 		myConfigurations.clear();
-		Configuration[] initialConfigs = getInitialConfigurations(input);
-		for (int k = 0; k < initialConfigs.length; k++) {
-			TMConfiguration initialConfiguration = (TMConfiguration) initialConfigs[k];
-			myConfigurations.add(initialConfiguration);
-		}
-		while (!myConfigurations.isEmpty()) {
-			//System.out.println("HERE!!!!!");
-			if (isAccepted())
-				return true;
-			ArrayList configurationsToAdd = new ArrayList();
-			Iterator it = myConfigurations.iterator();
-			while (it.hasNext()) {
-				TMConfiguration configuration = (TMConfiguration) it.next();
-				ArrayList configsToAdd = stepConfiguration(configuration);
-				configurationsToAdd.addAll(configsToAdd);
-				it.remove();
+		TMConfiguration configuration = (TMConfiguration) getInitialConfigurations(inputs)[0];
+		long steps = 0;
+		int outcome;
+		while (true) {
+			if (configuration.isAccept()) {
+				outcome = ACCEPT;
+				break;
+			}
+			if (cancelled != null && cancelled.get()) {
+				outcome = CANCELLED;
+				break;
+			}
+			if (myTimeLimit > 0 && System.nanoTime() - deadline > 0) {
+				outcome = TIMEOUT;
+				break;
+			}
+			if (myStepLimit > 0 && steps >= myStepLimit
+					&& findTransition(configuration) != null) {
+				outcome = STEP_LIMIT;
+				break;
+			}
+			List next = stepConfiguration(configuration);
+			if (next.isEmpty()) {
+				outcome = REJECT;
+				break;
+			}
+			TMConfiguration following = (TMConfiguration) next.get(0);
+			if (following == configuration)
+				continue; // Halted, and now to see if that is accepting.
+			configuration = following;
+			steps++;
+			if (myTapeLimit > 0 && exceedsTapeLimit(configuration)) {
+				outcome = TAPE_LIMIT;
+				break;
 			}
-			myConfigurations.addAll(configurationsToAdd);
 		}
+		myConfigurations.add(configuration);
+		return new Result(outcome, steps, configuration, System.nanoTime()
+				- start);
+	}
+
+	/**
+	 * Returns whether any tape of a configuration uses more cells than the
+	 * tape limit allows.
+	 * 
+	 * @param configuration
+	 *            the configuration
+	 * @return <CODE>true</CODE> if a tape is longer than the limit
+	 */
+	private boolean exceedsTapeLimit(TMConfiguration configuration) {
+		Tape[] tapes = configuration.getTapes();
+		for (int i = 0; i < tapes.length; i++)
+			if (tapes[i].getLength() > myTapeLimit)
+				return true;
 		return false;
 	}
 
+	/**
+	 * The result of a run of the machine.
+	 */
+	public static class Result {
+		/**
+		 * Instantiates a new result.
+		 */
+		Result(int outcome, long steps, TMConfiguration configuration,
+				long nanos) {
+			myOutcome = outcome;
+			mySteps = steps;
+			myConfiguration = configuration;
+			myNanos = nanos;
+		}
+
+		/**
+		 * Returns the outcome of the run, one of <CODE>ACCEPT</CODE>,
+		 * <CODE>REJECT</CODE>, <CODE>STEP_LIMIT</CODE>,
+		 * <CODE>TAPE_LIMIT</CODE>, <CODE>TIMEOUT</CODE> or
+		 * <CODE>CANCELLED</CODE>.
+		 */
+		public int getOutcome() {
+			return myOutcome;
+		}
+
+		/**
+		 * Returns if the input was accepted.
+		 */
+		public boolean isAccepted() {
+			return myOutcome == ACCEPT;
+		}
+
+		/**
+		 * Returns if the machine halted, whether or not it accepted.
+		 */
+		public boolean isHalted() {
+			return myOutcome == ACCEPT || myOutcome == REJECT;
+		}
+
+		/**
+		 * Returns the number of transitions taken.
+		 */
+		public long getSteps() {
+			return mySteps;
+		}
+
+		/**
+		 * Returns the configuration the run ended in.
+		 */
+		public TMConfiguration getConfiguration() {
+			return myConfiguration;
+		}
+
+		/**
+		 * Returns the time the run took, in nanoseconds.
+		 */
+		public long getNanos() {
+			return myNanos;
+		}
+
+		/**
+		 * Returns a string representation of this result.
+		 */
+		public String toString() {
+			return OUTCOMES[myOutcome] + " after " + mySteps + " steps";
+		}
+
+		private final int myOutcome;
+
+		private final long mySteps;
+
+		private final TMConfiguration myConfiguration;
+
+		private final long myNanos;
+	}
+
 	public String[] getInputStrings() {
 		return inputStrings;
 	}
@@ -396,5 +634,35 @@ outer:  while (true){
 
     private AcceptanceFilter[] myFilters;
 
+	/** Orders transitions reading with the ! symbol after the others. */
+	private static final Comparator<Transition> BANG_LAST = new Comparator<Transition>(){
+                    public int compare (Transition a, Transition b){ //variables are only allowed with SINGLE TAPE, and same with NOT
+                        
+                        TMTransition tma = (TMTransition) a;
+                        TMTransition tmb = (TMTransition) b;
+                        
+                        char fa = tma.getRead(0).charAt(0);
+                        char fb = tmb.getRead(0).charAt(0);
+                        return (fa == '!')?(fb == '!' ? 0 : 1) : (fb == '!' ? -1 : 0);
+                    }
+                    };
+
+	/** The most steps a run may take. */
+	private long myStepLimit = 0;
+
+	/** The most cells a tape may use in a run. */
+	private int myTapeLimit = 0;
+
+	/** The most milliseconds a run may take. */
+	private long myTimeLimit = 0;
+
+	/** The outcomes of a run. */
+	public static final int ACCEPT = 0, REJECT = 1, STEP_LIMIT = 2,
+			TAPE_LIMIT = 3, TIMEOUT = 4, CANCELLED = 5;
+
+	/** The names of the outcomes. */
+	private static final String[] OUTCOMES = { "Accept", "Reject",
+			"Step limit", "Tape limit", "Timeout", "Cancelled" };
+
 
 }
@@ -25,6 +25,11 @@ import java.io.Serializable;
 /**
  * A tape for a Turing machine. The tape head can move across the tape, reading
  * and writing individual characters.
+ * <P>
+ * The cells in use are kept in a <CODE>char</CODE> array with room to grow
+ * at either end, so writing a character and moving the head take constant
+ * time, even when the head moves left of the first cell. Copies of a tape
+ * share the array until one of them writes to it.
  * 
  * @author Ryan Cavalcante
  */
@@ -45,23 +50,25 @@ public class Tape implements Serializable {
 	 *            the input string to write to the tape
 	 */
 	public Tape(String input) {
-		buffer = new StringBuffer();
 		if (input.equals(""))
 			input = "" + BLANK;
-		buffer.insert(0, input);
-		tapeHead = 0;
+		setContents(input);
 	}
 
 	/**
-	 * Instantiates a tape that is a copy of a given tape.
+	 * Instantiates a tape that is a copy of a given tape. The copy shares the
+	 * cells of the given tape until either is written to.
 	 * 
 	 * @param tape
 	 *            the tape to copy
 	 */
 	public Tape(Tape tape) {
-		this.buffer = new StringBuffer(tape.buffer.toString());
-		tapeHead = tape.getTapeHead();
+		cells = tape.cells;
+		start = tape.start;
+		end = tape.end;
+		head = tape.head;
 		cachedHash = tape.cachedHash;
+		shared = tape.shared = true;
 	}
 
 	/**
@@ -71,21 +78,30 @@ public class Tape implements Serializable {
 	 *            the character to write to the tape.
 	 */
 	public void writeChar(char character) {
-		buffer.deleteCharAt(tapeHead);
-		buffer.insert(tapeHead, character);
+		if (shared)
+			unshare(false, false);
+		cells[head] = character;
 		cachedHash = 0xdeadbeef;
 	}
 
 	/**
-	 * Writes <CODE>symbol</CODE> to the tape.
+	 * Writes <CODE>symbol</CODE> to the tape. The symbol replaces the
+	 * character under the tape head, so if it is longer than one character
+	 * the rest of the tape is pushed to the right.
 	 * 
 	 * @param symbol
 	 *            the symbol to write to the tape.
 	 */
 	public void write(String symbol) {
-		buffer.deleteCharAt(tapeHead);
-		buffer.insert(tapeHead, symbol);
-		cachedHash = 0xdeadbeef;
+		if (symbol.length() == 1) {
+			writeChar(symbol.charAt(0));
+			return;
+		}
+		int position = getTapeHead();
+		String contents = getContents();
+		setContents(contents.substring(0, position) + symbol
+				+ contents.substring(position + 1));
+		head = start + position;
 	}
 
 	/**
@@ -94,9 +110,7 @@ public class Tape implements Serializable {
 	 * @return the character pointed to by the tape head.
 	 */
 	public char readChar() {
-		char[] toReturn = new char[1];
-		buffer.getChars(tapeHead, tapeHead + 1, toReturn, 0);
-		return toReturn[0];
+		return cells[head];
 	}
 
 	/**
@@ -106,9 +120,7 @@ public class Tape implements Serializable {
 	 *         head.
 	 */
 	public String read() {
-		char[] toReturn = new char[1];
-		buffer.getChars(tapeHead, tapeHead + 1, toReturn, 0);
-		return new String(toReturn);
+		return String.valueOf(cells[head]);
 	}
 
 	/**
@@ -123,10 +135,10 @@ public class Tape implements Serializable {
 		try {
 			switch (direction.charAt(0)) {
 			case 'L':
-				tapeHead--;
+				moveLeft();
 				break;
 			case 'R':
-				tapeHead++;
+				moveRight();
 				break;
 			case 'S':
 				break;
@@ -138,29 +150,76 @@ public class Tape implements Serializable {
 			throw new IllegalArgumentException(
 					"Tape direction is empty string!");
 		}
+	}
 
-		/**
-		 * If the tape head is moved to an index out of the range of the buffer,
-		 * the buffer needs to grow accordingly, filled with blanks where
-		 * appropriate.
-		 */
-
-		if (tapeHead >= buffer.length()) {
-			int bufferLength = buffer.length();
-			buffer.setLength(tapeHead + 1);
-			for (int k = bufferLength; k < buffer.length(); k++) {
-				buffer.deleteCharAt(k);
-				buffer.insert(k, BLANK);
-			}
-		} else if (tapeHead < 0) {
-			int numToInsert = Math.abs(tapeHead);
-			char[] toInsert = new char[numToInsert];
-			for (int i = 0; i < numToInsert; i++) {
-				toInsert[i] = BLANK;
-			}
-			buffer.insert(0, toInsert);
-			tapeHead = 0;
+	/**
+	 * Moves the tape head one cell left, adding a blank cell if it moves past
+	 * the first cell.
+	 */
+	private void moveLeft() {
+		if (head > start) {
+			head--;
+			return;
 		}
+		if (start == 0 || shared)
+			unshare(start == 0, false);
+		head = --start;
+		cells[head] = BLANK;
+	}
+
+	/**
+	 * Moves the tape head one cell right, adding a blank cell if it moves past
+	 * the last cell.
+	 */
+	private void moveRight() {
+		if (head < end - 1) {
+			head++;
+			return;
+		}
+		if (end == cells.length || shared)
+			unshare(false, end == cells.length);
+		head = end++;
+		cells[head] = BLANK;
+	}
+
+	/**
+	 * Copies the cells into an array of this tape's own. An end that is to
+	 * grow gets as many free cells as there are cells in use, so that growing
+	 * takes constant amortized time; the other end keeps its free cells.
+	 * 
+	 * @param growLeft
+	 *            whether to make room before the first cell
+	 * @param growRight
+	 *            whether to make room after the last cell
+	 */
+	private void unshare(boolean growLeft, boolean growRight) {
+		int length = end - start;
+		int before = growLeft ? Math.max(length, 16) : start;
+		int after = growRight ? Math.max(length, 16) : cells.length - end;
+		char[] copy = new char[before + length + after];
+		System.arraycopy(cells, start, copy, before, length);
+		head += before - start;
+		start = before;
+		end = before + length;
+		cells = copy;
+		shared = false;
+	}
+
+	/**
+	 * Replaces the cells with the characters of a string, and puts the tape
+	 * head on the first.
+	 * 
+	 * @param contents
+	 *            the characters to put on the tape
+	 */
+	private void setContents(String contents) {
+		int length = contents.length();
+		cells = new char[length + 32];
+		start = head = 16;
+		end = start + length;
+		contents.getChars(0, length, cells, start);
+		cachedHash = 0xdeadbeef;
+		shared = false;
 	}
 
 	/**
@@ -170,7 +229,7 @@ public class Tape implements Serializable {
 	 * @return the contents of the tape as a string
 	 */
 	public String getContents() {
-		return buffer.toString();
+		return new String(cells, start, end - start);
 	}
 
 	/**
@@ -183,10 +242,10 @@ public class Tape implements Serializable {
 	 * @return the output of the tape
 	 */
 	public String getOutput() {
-		int nextBlank = buffer.indexOf("" + BLANK, getTapeHead());
-		if (nextBlank == -1)
-			nextBlank = buffer.length();
-		return buffer.substring(getTapeHead(), nextBlank);
+		int nextBlank = head;
+		while (nextBlank < end && cells[nextBlank] != BLANK)
+			nextBlank++;
+		return new String(cells, head, nextBlank - head);
 	}
 
 	/**
@@ -197,7 +256,17 @@ public class Tape implements Serializable {
 	 *         to.
 	 */
 	public int getTapeHead() {
-		return tapeHead;
+		return head - start;
+	}
+
+	/**
+	 * Returns the number of cells of the tape in use, that is, every cell
+	 * that has held input or been visited by the tape head.
+	 * 
+	 * @return the number of cells in use
+	 */
+	public int getLength() {
+		return end - start;
 	}
 
 	/**
@@ -206,7 +275,7 @@ public class Tape implements Serializable {
 	 * @return a string representation of the tape object.
 	 */
 	public String toString() {
-		return "[" + buffer.toString() + "]" + " TAPE HEAD AT " + tapeHead;
+		return "[" + getContents() + "]" + " TAPE HEAD AT " + getTapeHead();
 	}
 
 	/**
@@ -216,18 +285,18 @@ public class Tape implements Serializable {
 	 * 
 	 * @param section
 	 *            an array of two intergers, which will hold, when finished, the
-	 *            index of the first non-blank character in the first entry, and
-	 *            the index of the first blank character of the suffix. Here,
-	 *            <CODE>section[1]-section[0]</CODE> is the length of the
-	 *            non-trivial section.
+	 *            index in the cells of the first non-blank character in the
+	 *            first entry, and the index of the first blank character of the
+	 *            suffix. Here, <CODE>section[1]-section[0]</CODE> is the
+	 *            length of the non-trivial section.
 	 */
 	private void nonTrivial(int[] section) {
 		int s, e;
-		for (e = buffer.length() - 1; e > 0 && buffer.charAt(e) == BLANK; e--)
+		for (e = end - 1; e > start && cells[e] == BLANK; e--)
 			;
-		if (buffer.charAt(e) != BLANK)
+		if (cells[e] != BLANK)
 			e++;
-		for (s = 0; s < e && buffer.charAt(s) == BLANK; s++)
+		for (s = start; s < e && cells[s] == BLANK; s++)
 			;
 		section[0] = s;
 		section[1] = e;
@@ -262,11 +331,11 @@ public class Tape implements Serializable {
 		if (first[1] - first[0] != second[1] - second[0])
 			return false;
 		// If they're at different positions, who cares?
-		if (tapeHead - first[0] != t.tapeHead - second[0])
+		if (head - first[0] != t.head - second[0])
 			return false;
 		// If all else fails, compare the characters.
 		for (; first[0] < first[1]; first[0]++, second[0]++)
-			if (buffer.charAt(first[0]) != t.buffer.charAt(second[0]))
+			if (cells[first[0]] != t.cells[second[0]])
 				return false;
 		// We've made it!
 		return true;
@@ -282,14 +351,31 @@ public class Tape implements Serializable {
 			return cachedHash;
 		int[] bounds = new int[2];
 		this.nonTrivial(bounds);
-		return cachedHash = buffer.substring(bounds[0], bounds[1]).hashCode();
+		// The same as the hash code of the non-trivial section as a string.
+		int hash = 0;
+		for (int i = bounds[0]; i < bounds[1]; i++)
+			hash = 31 * hash + cells[i];
+		return cachedHash = hash;
 	}
 
-	/** The string buffer. */
-	private StringBuffer buffer = new StringBuffer();
+	/** The cells, of which those from start up to end are in use. */
+	private char[] cells;
+
+	/** The index in the cells of the first cell in use. */
+	private int start;
 
-	/** The tape head (index in buffer). */
-	private int tapeHead;
+	/** The index in the cells after the last cell in use. */
+	private int end;
+
+	/** The tape head (index in the cells). */
+	private int head;
+
+	/**
+	 * Whether the cells may be shared with a copy of this tape. It is
+	 * serialized, since tapes serialized together share their cells again
+	 * when they are read back.
+	 */
+	private boolean shared;
 
 	/** The cached hash code, since it takes a bit to compute. */
 	private int cachedHash = 0xdeadbeef;
@@ -0,0 +1,768 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package edu.duke.cs.jflap.file;
+
+import java.awt.Point;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.UnsupportedEncodingException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.duke.cs.jflap.automata.Automaton;
+import edu.duke.cs.jflap.automata.Note;
+import edu.duke.cs.jflap.automata.State;
+import edu.duke.cs.jflap.automata.Transition;
+import edu.duke.cs.jflap.automata.fsa.FSATransition;
+import edu.duke.cs.jflap.automata.fsa.FiniteStateAutomaton;
+import edu.duke.cs.jflap.automata.mealy.MealyMachine;
+import edu.duke.cs.jflap.automata.mealy.MealyTransition;
+import edu.duke.cs.jflap.automata.mealy.MooreMachine;
+import edu.duke.cs.jflap.automata.mealy.MooreTransition;
+import edu.duke.cs.jflap.automata.pda.PDATransition;
+import edu.duke.cs.jflap.automata.pda.PushdownAutomaton;
+import edu.duke.cs.jflap.automata.turing.TMState;
+import edu.duke.cs.jflap.automata.turing.TMTransition;
+import edu.duke.cs.jflap.automata.turing.TuringMachine;
+import edu.duke.cs.jflap.grammar.Grammar;
+import edu.duke.cs.jflap.grammar.Production;
+import edu.duke.cs.jflap.grammar.UnboundGrammar;
+
+/**
+ * This is the codec for reading and writing JFLAP structures in a compact
+ * binary format, meant as a cache of files that are loaded often. Finite
+ * state automata, pushdown automata, Turing machines, Mealy and Moore
+ * machines and grammars are supported.
+ * <P>
+ * A file starts with the bytes <CODE>JFLB</CODE>, a version byte and a type
+ * byte. Then comes a table of every string in the file, each written once as
+ * its length and UTF-8 bytes, and then the structure, in which strings are
+ * written as their index in the table plus one, or 0 for <CODE>null</CODE>.
+ * All counts and indices are unsigned varints, and IDs and coordinates are
+ * zigzag varints. An automaton is written column by column: the states,
+ * sorted by ID, as delta coded IDs, names, labels, x and y coordinates and
+ * initial and final flags, then the transitions as the indices of their from
+ * and to states, their control points, and the columns of the type of
+ * transition, and then the notes. A grammar is its left and right sides.
+ * <P>
+ * Files are read through a memory mapped buffer, and since coordinates are
+ * always stored nothing is ever laid out. The {@link XMLCodec#LOGIC_ONLY}
+ * parameter skips the notes.
+ * 
+ * @see edu.duke.cs.jflap.file.XMLCodec
+ */
+
+public class BinaryCodec extends Codec {
+	/**
+	 * Instantiates a new binary codec.
+	 */
+	public BinaryCodec() {
+
+	}
+
+	/**
+	 * Determines which files this FileFilter will allow, those with the
+	 * {@link #SUFFIX} extension.
+	 * 
+	 * @param f
+	 *            the file to check
+	 * @return if the file is a directory or a binary JFLAP file
+	 */
+	public boolean accept(File f) {
+		return f.isDirectory() || f.getName().endsWith(SUFFIX);
+	}
+
+	/**
+	 * Given a file, this will return a JFLAP structure associated with that
+	 * file.
+	 * 
+	 * @param file
+	 *            the file to decode into a structure
+	 * @param parameters
+	 *            the decoding parameters, as for
+	 *            {@link XMLCodec#decode(java.io.InputStream, Map)}, or
+	 *            <CODE>null</CODE>
+	 * @return a JFLAP structure resulting from the interpretation of the file
+	 * @throws ParseException
+	 *             if there was a problem reading the file
+	 */
+	public Serializable decode(File file, Map parameters) {
+		FileInputStream stream;
+		try {
+			stream = new FileInputStream(file);
+		} catch (IOException e) {
+			throw new ParseException("Could not open file to read!");
+		}
+		try {
+			FileChannel channel = stream.getChannel();
+			return decode(channel.map(FileChannel.MapMode.READ_ONLY, 0,
+					channel.size()), parameters);
+		} catch (IOException e) {
+			throw new ParseException("Could not open file to read!");
+		} finally {
+			try {
+				stream.close();
+			} catch (IOException e) {
+				logger.warn("Could not close {}", file, e);
+			}
+		}
+	}
+
+	/**
+	 * Reads a JFLAP structure from the remaining bytes of a buffer, which may
+	 * be memory mapped.
+	 * 
+	 * @param buffer
+	 *            the buffer to read
+	 * @param parameters
+	 *            the decoding parameters, or <CODE>null</CODE>
+	 * @return the JFLAP structure in the buffer
+	 * @throws ParseException
+	 *             if the buffer does not hold a structure in this format
+	 */
+	public Serializable decode(ByteBuffer buffer, Map parameters) {
+		boolean notes = parameters == null
+				|| !Boolean.TRUE.equals(parameters.get(XMLCodec.LOGIC_ONLY));
+		try {
+			Reader reader = new Reader(buffer);
+			for (int i = 0; i < MAGIC.length; i++)
+				if (buffer.get() != MAGIC[i])
+					throw new ParseException("Not a binary JFLAP file!");
+			int version = buffer.get();
+			if (version != VERSION)
+				throw new ParseException("Unsupported binary file version "
+						+ version + "!");
+			int type = buffer.get();
+			reader.readStrings();
+			if (type == GRAMMAR)
+				return reader.readGrammar();
+			if (type < FSA || type > MOORE)
+				throw new ParseException("Unknown structure type " + type
+						+ "!");
+			return reader.readAutomaton(type, notes);
+		} catch (BufferUnderflowException e) {
+			throw new ParseException("The binary file is truncated!");
+		} catch (IndexOutOfBoundsException e) {
+			throw new ParseException("The binary file is corrupt!");
+		} catch (IllegalArgumentException e) {
+			throw new ParseException("The binary file is corrupt!\n"
+					+ e.getMessage());
+		}
+	}
+
+	/**
+	 * Given a structure, this will attempt to write it to a file in the
+	 * binary format.
+	 * 
+	 * @param structure
+	 *            the structure to encode
+	 * @param file
+	 *            the file to save the structure to
+	 * @param parameters
+	 *            these parameters are ignored
+	 * @return the file to which the structure was written
+	 * @throws EncodeException
+	 *             if there was a problem writing the file
+	 */
+	public File encode(Serializable structure, File file, Map parameters) {
+		OutputStream stream = null;
+		try {
+			stream = new BufferedOutputStream(new FileOutputStream(file));
+			encode(structure, stream);
+			stream.close();
+			stream = null;
+			return file;
+		} catch (IOException e) {
+			throw new EncodeException("Could not open file to write!");
+		} finally {
+			if (stream != null)
+				try {
+					stream.close();
+				} catch (IOException e) {
+					logger.warn("Could not close {}", file, e);
+				}
+		}
+	}
+
+	/**
+	 * Writes a structure to a stream in the binary format. The stream is not
+	 * closed.
+	 * 
+	 * @param structure
+	 *            the structure to encode
+	 * @param stream
+	 *            the stream to write to
+	 * @throws EncodeException
+	 *             if this codec cannot encode the structure
+	 * @throws IOException
+	 *             if the stream could not be written
+	 */
+	public void encode(Serializable structure, OutputStream stream)
+			throws IOException {
+		int type = typeOf(structure);
+		if (type == -1)
+			throw new EncodeException(
+					"No binary format available for this structure!");
+		Sink body = new Sink();
+		Strings strings = new Strings();
+		if (type == GRAMMAR)
+			writeGrammar((Grammar) structure, body, strings);
+		else
+			writeAutomaton((Automaton) structure, type, body, strings);
+		Sink head = new Sink();
+		head.bytes(MAGIC, MAGIC.length);
+		head.add(VERSION);
+		head.add(type);
+		head.varint(strings.list.size());
+		for (int i = 0; i < strings.list.size(); i++) {
+			byte[] bytes = ((String) strings.list.get(i)).getBytes(UTF_8);
+			head.varint(bytes.length);
+			head.bytes(bytes, bytes.length);
+		}
+		stream.write(head.data, 0, head.size);
+		stream.write(body.data, 0, body.size);
+		stream.flush();
+	}
+
+	/**
+	 * Returns if this type of structure can be encoded with this encoder.
+	 * 
+	 * @param structure
+	 *            the structure to check
+	 * @return if the structure is an automaton or grammar of a supported type
+	 */
+	public boolean canEncode(Serializable structure) {
+		return typeOf(structure) != -1;
+	}
+
+	/**
+	 * Returns the description of this codec.
+	 * 
+	 * @return the description of this codec
+	 */
+	public String getDescription() {
+		return "JFLAP Binary Cache";
+	}
+
+	/**
+	 * Given a proposed filename, returns a new suggested filename. Binary
+	 * files have the suffix <CODE>.jfb</CODE> appended to them.
+	 * 
+	 * @param filename
+	 *            the proposed name
+	 * @param structure
+	 *            the structure that will be saved
+	 * @return the new suggestion for a name
+	 */
+	public String proposeFilename(String filename, Serializable structure) {
+		if (!filename.endsWith(SUFFIX))
+			return filename + SUFFIX;
+		return filename;
+	}
+
+	/**
+	 * Returns the type code of a structure, or -1 if it is not supported.
+	 * Subclasses of the automata are not supported, since they could not be
+	 * read back as themselves.
+	 */
+	private static int typeOf(Serializable structure) {
+		if (structure instanceof Grammar)
+			return GRAMMAR;
+		if (structure == null)
+			return -1;
+		Class c = structure.getClass();
+		if (c == FiniteStateAutomaton.class)
+			return FSA;
+		if (c == PushdownAutomaton.class)
+			return PDA;
+		if (c == TuringMachine.class)
+			return TM;
+		if (c == MealyMachine.class)
+			return MEALY;
+		if (c == MooreMachine.class)
+			return MOORE;
+		return -1;
+	}
+
+	/**
+	 * Writes the productions of a grammar as a column of left sides and a
+	 * column of right sides.
+	 */
+	private static void writeGrammar(Grammar grammar, Sink sink,
+			Strings strings) {
+		Production[] productions = grammar.getProductions();
+		sink.varint(productions.length);
+		for (int i = 0; i < productions.length; i++)
+			sink.varint(strings.ref(productions[i].getLHS()));
+		for (int i = 0; i < productions.length; i++)
+			sink.varint(strings.ref(productions[i].getRHS()));
+	}
+
+	/**
+	 * Writes the states, transitions and notes of an automaton, and for a
+	 * Turing machine the machines inside its states.
+	 */
+	private static void writeAutomaton(Automaton automaton, int type,
+			Sink sink, Strings strings) {
+		if (type == TM)
+			sink.varint(((TuringMachine) automaton).tapes());
+		State[] states = automaton.getStates();
+		Arrays.sort(states, BY_ID);
+		Map indices = new HashMap();
+		sink.varint(states.length);
+		int previous = 0;
+		for (int i = 0; i < states.length; i++) {
+			indices.put(states[i], new Integer(i));
+			sink.zigzag(states[i].getID() - previous);
+			previous = states[i].getID();
+		}
+		for (int i = 0; i < states.length; i++)
+			sink.varint(strings.ref(states[i].getName()));
+		for (int i = 0; i < states.length; i++)
+			sink.varint(strings.ref(states[i].getLabel()));
+		for (int i = 0; i < states.length; i++)
+			sink.zigzag(states[i].getPoint().x);
+		for (int i = 0; i < states.length; i++)
+			sink.zigzag(states[i].getPoint().y);
+		State initial = automaton.getInitialState();
+		for (int i = 0; i < states.length; i++)
+			sink.add((states[i] == initial ? INITIAL : 0)
+					| (automaton.isFinalState(states[i]) ? FINAL : 0));
+		if (type == MOORE)
+			for (int i = 0; i < states.length; i++)
+				sink.varint(strings.ref(((MooreMachine) automaton)
+						.getOutput(states[i])));
+		if (type == TM) {
+			for (int i = 0; i < states.length; i++)
+				sink.varint(strings.ref(((TMState) states[i])
+						.getInternalName()));
+			for (int i = 0; i < states.length; i++)
+				writeAutomaton(((TMState) states[i]).getInnerTM(), TM, sink,
+						strings);
+		}
+
+		Transition[] transitions = automaton.getTransitions();
+		sink.varint(transitions.length);
+		for (int i = 0; i < transitions.length; i++)
+			sink.varint(((Integer) indices.get(transitions[i].getFromState()))
+					.intValue());
+		for (int i = 0; i < transitions.length; i++)
+			sink.varint(((Integer) indices.get(transitions[i].getToState()))
+					.intValue());
+		for (int i = 0; i < transitions.length; i++)
+			sink.add(transitions[i].getControl() == null ? 0 : 1);
+		for (int i = 0; i < transitions.length; i++) {
+			Point control = transitions[i].getControl();
+			if (control != null) {
+				sink.zigzag(control.x);
+				sink.zigzag(control.y);
+			}
+		}
+		switch (type) {
+		case FSA:
+			for (int i = 0; i < transitions.length; i++)
+				sink.varint(strings.ref(((FSATransition) transitions[i])
+						.getLabel()));
+			break;
+		case PDA:
+			for (int i = 0; i < transitions.length; i++)
+				sink.varint(strings.ref(((PDATransition) transitions[i])
+						.getInputToRead()));
+			for (int i = 0; i < transitions.length; i++)
+				sink.varint(strings.ref(((PDATransition) transitions[i])
+						.getStringToPop()));
+			for (int i = 0; i < transitions.length; i++)
+				sink.varint(strings.ref(((PDATransition) transitions[i])
+						.getStringToPush()));
+			break;
+		case TM:
+			int tapes = ((TuringMachine) automaton).tapes();
+			for (int i = 0; i < transitions.length; i++)
+				sink.add(((TMTransition) transitions[i]).isBlockTransition() ? 1
+						: 0);
+			for (int tape = 0; tape < tapes; tape++) {
+				for (int i = 0; i < transitions.length; i++)
+					sink.varint(strings.ref(((TMTransition) transitions[i])
+							.getRead(tape)));
+				for (int i = 0; i < transitions.length; i++)
+					sink.varint(strings.ref(((TMTransition) transitions[i])
+							.getWrite(tape)));
+				for (int i = 0; i < transitions.length; i++)
+					sink.varint(strings.ref(((TMTransition) transitions[i])
+							.getDirection(tape)));
+			}
+			break;
+		default:
+			for (int i = 0; i < transitions.length; i++)
+				sink.varint(strings.ref(((MealyTransition) transitions[i])
+						.getLabel()));
+			if (type == MEALY)
+				for (int i = 0; i < transitions.length; i++)
+					sink.varint(strings.ref(((MealyTransition) transitions[i])
+							.getOutput()));
+		}
+
+		List notes = automaton.getNotes();
+		sink.varint(notes.size());
+		for (int i = 0; i < notes.size(); i++)
+			sink.varint(strings.ref(((Note) notes.get(i)).getText()));
+		for (int i = 0; i < notes.size(); i++)
+			sink.zigzag(notePoint((Note) notes.get(i)).x);
+		for (int i = 0; i < notes.size(); i++)
+			sink.zigzag(notePoint((Note) notes.get(i)).y);
+	}
+
+	/**
+	 * Returns the location of a note in the automaton.
+	 */
+	private static Point notePoint(Note note) {
+		Point p = note.getAutoPoint();
+		return p == null ? note.getLocation() : p;
+	}
+
+	/**
+	 * The strings of a file being written, in the order they were first met.
+	 */
+	private static class Strings {
+		/**
+		 * Returns the reference to a string, which is 0 for <CODE>null</CODE>
+		 * and the index of the string in the table plus one otherwise.
+		 */
+		int ref(String string) {
+			if (string == null)
+				return 0;
+			Integer index = (Integer) indices.get(string);
+			if (index == null) {
+				index = new Integer(list.size() + 1);
+				indices.put(string, index);
+				list.add(string);
+			}
+			return index.intValue();
+		}
+
+		final Map indices = new HashMap();
+
+		final List list = new ArrayList();
+	}
+
+	/**
+	 * A growable array of the bytes being written.
+	 */
+	private static class Sink {
+		void add(int b) {
+			if (size == data.length)
+				data = Arrays.copyOf(data, size * 2);
+			data[size++] = (byte) b;
+		}
+
+		void bytes(byte[] bytes, int length) {
+			if (size + length > data.length)
+				data = Arrays.copyOf(data, Math.max(size * 2, size + length));
+			System.arraycopy(bytes, 0, data, size, length);
+			size += length;
+		}
+
+		void varint(int value) {
+			while ((value & ~0x7F) != 0) {
+				add((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			add(value);
+		}
+
+		void zigzag(int value) {
+			varint((value << 1) ^ (value >> 31));
+		}
+
+		byte[] data = new byte[256];
+
+		int size = 0;
+	}
+
+	/**
+	 * Reads the string table and structure of a buffer.
+	 */
+	private static class Reader {
+		Reader(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		int varint() {
+			int value = 0;
+			for (int shift = 0; shift < 35; shift += 7) {
+				int b = buffer.get();
+				value |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0)
+					return value;
+			}
+			throw new ParseException("The binary file is corrupt!");
+		}
+
+		/**
+		 * Reads a count, which cannot be more than the bytes left since each
+		 * thing counted takes at least one.
+		 */
+		int count() {
+			int count = varint();
+			if (count < 0 || count > buffer.remaining())
+				throw new ParseException("The binary file is corrupt!");
+			return count;
+		}
+
+		int zigzag() {
+			int value = varint();
+			return (value >>> 1) ^ -(value & 1);
+		}
+
+		String string() {
+			int ref = varint();
+			return ref == 0 ? null : strings[ref - 1];
+		}
+
+		String[] strings(int count) {
+			String[] column = new String[count];
+			for (int i = 0; i < count; i++)
+				column[i] = string();
+			return column;
+		}
+
+		/**
+		 * Reads a column of strings that may not be <CODE>null</CODE>.
+		 */
+		String[] texts(int count) {
+			String[] column = strings(count);
+			for (int i = 0; i < count; i++)
+				if (column[i] == null)
+					throw new ParseException("The binary file is corrupt!");
+			return column;
+		}
+
+		int[] zigzags(int count) {
+			int[] column = new int[count];
+			for (int i = 0; i < count; i++)
+				column[i] = zigzag();
+			return column;
+		}
+
+		void readStrings() {
+			strings = new String[count()];
+			byte[] bytes = new byte[64];
+			for (int i = 0; i < strings.length; i++) {
+				int length = count();
+				if (length > bytes.length)
+					bytes = new byte[Math.max(length, bytes.length * 2)];
+				buffer.get(bytes, 0, length);
+				try {
+					strings[i] = new String(bytes, 0, length, UTF_8);
+				} catch (UnsupportedEncodingException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		}
+
+		Grammar readGrammar() {
+			int count = count();
+			String[] lhs = texts(count), rhs = texts(count);
+			Grammar g = new UnboundGrammar();
+			for (int i = 0; i < count; i++)
+				g.addProduction(new Production(lhs[i], rhs[i]));
+			return g;
+		}
+
+		Automaton readAutomaton(int type, boolean notes) {
+			Automaton automaton;
+			switch (type) {
+			case FSA:
+				automaton = new FiniteStateAutomaton();
+				break;
+			case PDA:
+				automaton = new PushdownAutomaton();
+				break;
+			case TM:
+				int tapes = varint();
+				if (tapes < 1 || tapes > 5)
+					throw new ParseException(tapes
+							+ " invalid # of tapes.  Valid # of tapes 1-5.");
+				automaton = new TuringMachine(tapes);
+				break;
+			case MEALY:
+				automaton = new MealyMachine();
+				break;
+			default:
+				automaton = new MooreMachine();
+			}
+
+			int count = count();
+			int[] ids = new int[count];
+			for (int i = 0, id = 0; i < count; i++)
+				ids[i] = id += zigzag();
+			String[] names = strings(count), labels = strings(count);
+			int[] xs = zigzags(count), ys = zigzags(count);
+			byte[] flags = new byte[count];
+			buffer.get(flags);
+			String[] outputs = type == MOORE ? strings(count) : null;
+			State[] states = new State[count];
+			if (type == TM) {
+				String[] tags = strings(count);
+				for (int i = 0; i < count; i++)
+					states[i] = ((TuringMachine) automaton).createInnerTM(
+							new Point(xs[i], ys[i]), readAutomaton(TM, notes),
+							tags[i], ids[i]);
+			} else
+				for (int i = 0; i < count; i++)
+					states[i] = automaton.createStateWithId(new Point(xs[i],
+							ys[i]), ids[i]);
+			for (int i = 0; i < count; i++) {
+				states[i].setName(names[i]);
+				states[i].setLabel(labels[i]);
+				if ((flags[i] & INITIAL) != 0)
+					automaton.setInitialState(states[i]);
+				if ((flags[i] & FINAL) != 0)
+					automaton.addFinalState(states[i]);
+				if (outputs != null)
+					((MooreMachine) automaton).setOutput(states[i], outputs[i]);
+			}
+
+			count = count();
+			int[] from = new int[count], to = new int[count];
+			for (int i = 0; i < count; i++)
+				from[i] = varint();
+			for (int i = 0; i < count; i++)
+				to[i] = varint();
+			byte[] controlled = new byte[count];
+			buffer.get(controlled);
+			Point[] controls = new Point[count];
+			for (int i = 0; i < count; i++)
+				if (controlled[i] != 0)
+					controls[i] = new Point(zigzag(), zigzag());
+			Transition[] transitions = new Transition[count];
+			switch (type) {
+			case FSA:
+				String[] labelColumn = texts(count);
+				for (int i = 0; i < count; i++)
+					transitions[i] = new FSATransition(states[from[i]],
+							states[to[i]], labelColumn[i]);
+				break;
+			case PDA:
+				String[] read = texts(count), pop = texts(count), push = texts(count);
+				for (int i = 0; i < count; i++)
+					transitions[i] = new PDATransition(states[from[i]],
+							states[to[i]], read[i], pop[i], push[i]);
+				break;
+			case TM:
+				int tapes = ((TuringMachine) automaton).tapes();
+				byte[] blocks = new byte[count];
+				buffer.get(blocks);
+				String[][] reads = new String[tapes][], writes = new String[tapes][], moves = new String[tapes][];
+				for (int tape = 0; tape < tapes; tape++) {
+					reads[tape] = texts(count);
+					writes[tape] = texts(count);
+					moves[tape] = texts(count);
+				}
+				for (int i = 0; i < count; i++) {
+					String[] r = new String[tapes], w = new String[tapes], m = new String[tapes];
+					for (int tape = 0; tape < tapes; tape++) {
+						r[tape] = reads[tape][i];
+						w[tape] = writes[tape][i];
+						m[tape] = moves[tape][i];
+					}
+					TMTransition t = new TMTransition(states[from[i]],
+							states[to[i]], r, w, m);
+					t.setBlockTransition(blocks[i] != 0);
+					transitions[i] = t;
+				}
+				break;
+			case MEALY:
+				String[] input = texts(count), output = texts(count);
+				for (int i = 0; i < count; i++)
+					transitions[i] = new MealyTransition(states[from[i]],
+							states[to[i]], input[i], output[i]);
+				break;
+			default:
+				String[] mooreLabels = texts(count);
+				for (int i = 0; i < count; i++)
+					transitions[i] = new MooreTransition(states[from[i]],
+							states[to[i]], mooreLabels[i]);
+			}
+			for (int i = 0; i < count; i++) {
+				automaton.addTransition(transitions[i]);
+				transitions[i].setControl(controls[i]);
+			}
+
+			count = count();
+			String[] noteTexts = texts(count);
+			int[] noteXs = zigzags(count), noteYs = zigzags(count);
+			if (notes)
+				for (int i = 0; i < count; i++)
+					automaton.addNote(new Note(new Point(noteXs[i], noteYs[i]),
+							noteTexts[i]));
+			return automaton;
+		}
+
+		final ByteBuffer buffer;
+
+		String[] strings;
+	}
+
+	/** Orders states by their IDs. */
+	private static final Comparator BY_ID = new Comparator() {
+		public int compare(Object o1, Object o2) {
+			int id1 = ((State) o1).getID(), id2 = ((State) o2).getID();
+			return id1 < id2 ? -1 : id1 == id2 ? 0 : 1;
+		}
+	};
+
+	/** The filename suffix. */
+	public static final String SUFFIX = ".jfb";
+
+	/** The bytes every binary file starts with. */
+	private static final byte[] MAGIC = { 'J', 'F', 'L', 'B' };
+
+	/** The version of the format that is written, and the only one read. */
+	public static final int VERSION = 1;
+
+	/** The type codes of the structures. */
+	private static final int FSA = 0, PDA = 1, TM = 2, MEALY = 3, MOORE = 4,
+			GRAMMAR = 5;
+
+	/** The flags of a state. */
+	private static final int INITIAL = 1, FINAL = 2;
+
+	/** The encoding of the strings. */
+	private static final String UTF_8 = "UTF-8";
+
+	private final Logger logger = LoggerFactory.getLogger(BinaryCodec.class);
+}
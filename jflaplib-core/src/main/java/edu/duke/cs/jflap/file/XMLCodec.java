@@ -53,15 +53,60 @@ public class XMLCodec extends Codec {
         return false;
     }
 
+	/**
+	 * Reads a JFLAP structure from a stream, which is read to its end but not
+	 * closed. Finite state automata, pushdown automata, Turing machines and
+	 * grammars are read by the {@link StreamingTransducer}; other structures
+	 * through a DOM.
+	 * 
+	 * @param stream
+	 *            the stream to read
+	 * @return the JFLAP structure in the stream
+	 * @throws ParseException
+	 *             if there was a problem reading the stream
+	 */
 	public Serializable decode(InputStream stream){
-		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+		return decode(stream, null);
+	}
+
+	/**
+	 * Reads a JFLAP structure from a stream, which is read to its end but not
+	 * closed. If the parameters map {@link #LOGIC_ONLY} to
+	 * <CODE>Boolean.TRUE</CODE>, automata are read without their notes and
+	 * states without coordinates are not laid out.
+	 * 
+	 * @param stream
+	 *            the stream to read
+	 * @param parameters
+	 *            the decoding parameters, or <CODE>null</CODE>
+	 * @return the JFLAP structure in the stream
+	 * @throws ParseException
+	 *             if there was a problem reading the stream
+	 */
+	public Serializable decode(InputStream stream, Map parameters) {
+		boolean layout = parameters == null
+				|| !Boolean.TRUE.equals(parameters.get(LOGIC_ONLY));
+		byte[] data;
 		try {
-			DocumentBuilder builder = factory.newDocumentBuilder();
-			Document doc = builder.parse(stream);
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			byte[] chunk = new byte[8192];
+			for (int n; (n = stream.read(chunk)) != -1;)
+				buffer.write(chunk, 0, n);
+			data = buffer.toByteArray();
+		} catch (IOException e) {
+			throw new ParseException("Could not open file to read!");
+		}
+		Serializable structure = STREAMING.read(new ByteArrayInputStream(
+				data), layout);
+		if (structure != null)
+			return structure;
+		try {
+			DocumentBuilder builder = AbstractTransducer.getDocumentBuilder();
+			Document doc = builder.parse(new ByteArrayInputStream(data));
 			Transducer transducer = TransducerFactory.getTransducer(doc);
+			if (!layout && transducer instanceof AutomatonTransducer)
+				return ((AutomatonTransducer) transducer).fromDOM(doc, false);
 			return transducer.fromDOM(doc);
-		} catch (ParserConfigurationException e) {
-			throw new ParseException("Java could not create the parser!");
 		} catch (IOException e) {
 			throw new ParseException("Could not open file to read!");
 		} catch (org.xml.sax.SAXException e) {
@@ -80,17 +125,28 @@ public class XMLCodec extends Codec {
 	 * @param file
 	 *            the file to decode into a structure
 	 * @param parameters
-	 *            these parameters are ignored
+	 *            the decoding parameters, as for
+	 *            {@link #decode(InputStream, Map)}, or <CODE>null</CODE>
 	 * @return a JFLAP structure resulting from the interpretation of the file
 	 * @throws ParseException
 	 *             if there was a problem reading the file
 	 */
 	public Serializable decode(File file, Map parameters) {
+		InputStream stream;
 		try {
-			return decode(new FileInputStream(file));
+			stream = new FileInputStream(file);
 		} catch (FileNotFoundException e) {
 			throw new RuntimeException(e);
 		}
+		try {
+			return decode(stream, parameters);
+		} finally {
+			try {
+				stream.close();
+			} catch (IOException e) {
+				logger.warn("Could not close {}", file, e);
+			}
+		}
 	}
 
 	/**
@@ -109,6 +165,25 @@ public class XMLCodec extends Codec {
 	 *             if there was a problem writing the file
 	 */
 	public File encode(Serializable structure, File file, Map parameters) {
+		if (STREAMING.canWrite(structure)) {
+			OutputStream stream = null;
+			try {
+				stream = new BufferedOutputStream(new FileOutputStream(file));
+				STREAMING.write(structure, stream);
+				stream.close();
+				stream = null;
+				return file;
+			} catch (IOException e) {
+				throw new EncodeException("Could not open file to write!");
+			} finally {
+				if (stream != null)
+					try {
+						stream.close();
+					} catch (IOException e) {
+						logger.warn("Could not close {}", file, e);
+					}
+			}
+		}
 		Transducer transducer = null;
 		try {
 			transducer = TransducerFactory.getTransducer(structure);
@@ -182,6 +257,16 @@ public class XMLCodec extends Codec {
 		return filename;
 	}
 
+	/**
+	 * The decoding parameter that, mapped to <CODE>Boolean.TRUE</CODE>, reads
+	 * only the logical structure of an automaton, for callers that never draw
+	 * it.
+	 */
+	public static final String LOGIC_ONLY = "logicOnly";
+
 	/** The filename suffix. */
 	public static final String SUFFIX = ".jff";
+
+	/** The transducer for structures that are read and written by StAX. */
+	private static final StreamingTransducer STREAMING = new StreamingTransducer();
 }
@@ -46,7 +46,7 @@ public abstract class AbstractTransducer implements Transducer {
 	 * @return a new document
 	 */
 	protected Document newEmptyDocument() {
-		Document doc = docBuilder.newDocument();
+		Document doc = getDocumentBuilder().newDocument();
 		// Add the processing instruction.
 		/*
 		 * doc.appendChild(doc.createProcessingInstruction ("xml",
@@ -142,16 +142,7 @@ public abstract class AbstractTransducer implements Transducer {
 	protected static Element createElement(Document document, String tagname,
 			Map attributes, String text) {
 		// Create the new element.
-        tagname = tagname.replaceAll("'", "");
-        tagname = tagname.replaceAll("&", "");
-        tagname = tagname.replaceAll("\"", "");
-        tagname = tagname.replaceAll("<", "");
-        tagname = tagname.replaceAll(">", "");
-        tagname = tagname.replaceAll(" ", "");
-
-        
-      //  System.out.println("TAG NAME = "+tagname);
-		Element element = document.createElement(tagname);
+		Element element = document.createElement(tagName(tagname));
 		// Set the attributes.
 		if (attributes != null) {
 			Iterator it = attributes.keySet().iterator();
@@ -167,17 +158,46 @@ public abstract class AbstractTransducer implements Transducer {
 		return element;
 	}
 
-	static {
-		try {
-			DocumentBuilderFactory factory = DocumentBuilderFactory
-					.newInstance();
-			docBuilder = factory.newDocumentBuilder();
-		} catch (Throwable e) {
-			// Err, this shouldn't happen.
-			logger.error("Unknown error: ", e);
-		}
+	/**
+	 * Strips the characters that may not appear in a tag name from a name.
+	 * 
+	 * @param name
+	 *            the proposed tag name
+	 * @return the tag name
+	 */
+	static String tagName(String name) {
+		name = name.replaceAll("'", "");
+		name = name.replaceAll("&", "");
+		name = name.replaceAll("\"", "");
+		name = name.replaceAll("<", "");
+		name = name.replaceAll(">", "");
+		name = name.replaceAll(" ", "");
+		return name;
 	}
 
-	/** The instance of the document builder. */
-	private static DocumentBuilder docBuilder;
+	/**
+	 * Returns the document builder of the calling thread, since a document
+	 * builder may not be used by two threads at once.
+	 * 
+	 * @return the document builder for this thread, reset for reuse
+	 */
+	public static DocumentBuilder getDocumentBuilder() {
+		DocumentBuilder builder = (DocumentBuilder) docBuilder.get();
+		builder.reset();
+		return builder;
+	}
+
+	/** The document builder of each thread. */
+	private static final ThreadLocal docBuilder = new ThreadLocal() {
+		protected Object initialValue() {
+			try {
+				return DocumentBuilderFactory.newInstance()
+						.newDocumentBuilder();
+			} catch (ParserConfigurationException e) {
+				// Err, this shouldn't happen.
+				logger.error("Unknown error: ", e);
+				throw new IllegalStateException(e.getMessage());
+			}
+		}
+	};
 }
@@ -366,7 +366,7 @@ public abstract class AutomatonTransducer extends AbstractTransducer {
 	 *            representation and should be kept as "isonodes" in the layout
 	 *            algorithm
 	 */
-	private void performLayout(Automaton automaton, Set locStates) {
+	static void performLayout(Automaton automaton, Set locStates) {
 		// Apply the graph layout algorithm to those states that
 		// appeared without the <x> and <y> tags.
 		if (locStates.size() == automaton.getStates().length)
@@ -404,7 +404,33 @@ public abstract class AutomatonTransducer extends AbstractTransducer {
         
 	}
 
+	/**
+	 * Given a document, this will return the corresponding automaton encoded in
+	 * the DOM document. If <CODE>layout</CODE> is <CODE>false</CODE> only
+	 * the logical structure is read: states without coordinates are left at
+	 * the origin instead of being laid out, and notes are not read.
+	 * 
+	 * @param document
+	 *            the DOM document to convert
+	 * @param layout
+	 *            <CODE>true</CODE> if states without coordinates should be
+	 *            laid out and notes read, <CODE>false</CODE> otherwise
+	 * @return the automaton encoded in the document
+	 */
+	public java.io.Serializable fromDOM(Document document, boolean layout) {
+		automatonMap.clear();
+        Node parent = document.getDocumentElement()
+        .getElementsByTagName(AUTOMATON_NAME).item(0);
+        if(parent == null) parent = document.getDocumentElement();
+        return readAutomaton(parent, document, layout);
+	}
+
 	public java.io.Serializable readAutomaton(Node parent, Document document) {
+		return readAutomaton(parent, document, true);
+	}
+
+	private java.io.Serializable readAutomaton(Node parent, Document document,
+			boolean layout) {
 		Set locatedStates = new java.util.HashSet();
 		Automaton root = createEmptyAutomaton(document);
         if(parent == null) return root;
@@ -412,10 +438,12 @@ public abstract class AutomatonTransducer extends AbstractTransducer {
 		// Read the states and transitions.
 		readTransitions(parent, root, readStates(parent, root, locatedStates,
 				document));
-		//read the notes
-		readnotes(parent, root, document);
-		// Do the layout if necessary.
-		performLayout(root, locatedStates);
+		if (layout) {
+			//read the notes
+			readnotes(parent, root, document);
+			// Do the layout if necessary.
+			performLayout(root, locatedStates);
+		}
 		automatonMap.put(parent.getNodeName(), root);
 		return root;
 	}
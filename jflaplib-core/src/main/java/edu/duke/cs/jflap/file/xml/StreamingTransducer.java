@@ -0,0 +1,906 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package edu.duke.cs.jflap.file.xml;
+
+import java.awt.Point;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import edu.duke.cs.jflap.automata.Automaton;
+import edu.duke.cs.jflap.automata.Note;
+import edu.duke.cs.jflap.automata.State;
+import edu.duke.cs.jflap.automata.Transition;
+import edu.duke.cs.jflap.automata.fsa.FSATransition;
+import edu.duke.cs.jflap.automata.fsa.FiniteStateAutomaton;
+import edu.duke.cs.jflap.automata.pda.PDATransition;
+import edu.duke.cs.jflap.automata.pda.PushdownAutomaton;
+import edu.duke.cs.jflap.automata.turing.TMState;
+import edu.duke.cs.jflap.automata.turing.TMTransition;
+import edu.duke.cs.jflap.automata.turing.TuringMachine;
+import edu.duke.cs.jflap.file.DataException;
+import edu.duke.cs.jflap.file.EncodeException;
+import edu.duke.cs.jflap.file.ParseException;
+import edu.duke.cs.jflap.grammar.Grammar;
+import edu.duke.cs.jflap.grammar.Production;
+import edu.duke.cs.jflap.grammar.UnboundGrammar;
+
+/**
+ * The streaming transducer reads and writes finite state automata, pushdown
+ * automata, Turing machines and grammars in the same XML format as the
+ * {@link FSATransducer}, {@link PDATransducer}, {@link TMTransducer} and
+ * {@link GrammarTransducer}, but with StAX instead of a DOM. A file is read
+ * in a single pass that keeps, for each element, only the text of its
+ * children and the states, transitions, notes and productions under it, and
+ * the structure is built from those at the end, by the same rules the DOM
+ * transducers follow. Files of other types are left to the DOM transducers.
+ * <P>
+ * The transducer keeps no state between calls, and the StAX factories are
+ * kept one per thread, so one instance may be used from many threads.
+ * 
+ * @see edu.duke.cs.jflap.file.XMLCodec
+ */
+
+public class StreamingTransducer {
+	/**
+	 * Instantiates a streaming transducer.
+	 */
+	public StreamingTransducer() {
+
+	}
+
+	/**
+	 * Returns if the type of a structure is one this transducer writes.
+	 * 
+	 * @param structure
+	 *            the structure to check
+	 * @return <CODE>true</CODE> if the structure is a finite state
+	 *         automaton, pushdown automaton, Turing machine or grammar
+	 */
+	public boolean canWrite(Serializable structure) {
+		return typeOf(structure) != null;
+	}
+
+	/**
+	 * Reads a structure from a stream, which is not closed.
+	 * 
+	 * @param stream
+	 *            the stream to read the XML document from
+	 * @return the structure encoded in the stream, or <CODE>null</CODE> if
+	 *         the document has a type this transducer does not read, in which
+	 *         case the stream must be read again by the DOM transducers
+	 * @throws ParseException
+	 *             if the stream is not well formed XML
+	 * @throws DataException
+	 *             if the structure in the document is not consistent
+	 */
+	public Serializable read(InputStream stream) {
+		return read(stream, true);
+	}
+
+	/**
+	 * Reads a structure from a stream, which is not closed. If
+	 * <CODE>layout</CODE> is <CODE>false</CODE> only the logical structure of
+	 * an automaton is built: states without coordinates are left at the
+	 * origin instead of being laid out, and notes are not read.
+	 * 
+	 * @param stream
+	 *            the stream to read the XML document from
+	 * @param layout
+	 *            <CODE>true</CODE> if states without coordinates should be
+	 *            laid out and notes read, <CODE>false</CODE> otherwise
+	 * @return the structure encoded in the stream, or <CODE>null</CODE> if
+	 *         the document has a type this transducer does not read
+	 * @throws ParseException
+	 *             if the stream is not well formed XML
+	 * @throws DataException
+	 *             if the structure in the document is not consistent
+	 */
+	public Serializable read(InputStream stream, boolean layout) {
+		Document document;
+		try {
+			document = parse(stream);
+		} catch (XMLStreamException e) {
+			throw new ParseException("Could not parse XML!\n" + e.getMessage());
+		}
+		String type = document.type;
+		if (FSA_TYPE.equals(type) || PDA_TYPE.equals(type)
+				|| TM_TYPE.equals(type)) {
+			Record container = (Record) document.named
+					.get(AUTOMATON_NAME);
+			if (container == null || container == document.root)
+				container = document.root;
+			return readAutomaton(container, document, new HashSet(), layout);
+		}
+		if (GRAMMAR_TYPE.equals(type))
+			return readGrammar(document);
+		return null;
+	}
+
+	/**
+	 * Writes a structure to a stream, which is flushed but not closed.
+	 * 
+	 * @param structure
+	 *            the structure to write, for which {@link #canWrite} is true
+	 * @param stream
+	 *            the stream to write the XML document to
+	 * @throws IllegalArgumentException
+	 *             if the structure is not of a type this transducer writes
+	 * @throws EncodeException
+	 *             if the document could not be written
+	 */
+	public void write(Serializable structure, OutputStream stream) {
+		String type = typeOf(structure);
+		if (type == null)
+			throw new IllegalArgumentException("Cannot stream object of "
+					+ structure.getClass() + "!");
+		try {
+			Writer writer = new Writer(((XMLOutputFactory) OUTPUT_FACTORY
+					.get()).createXMLStreamWriter(stream, "UTF-8"));
+			writer.out.writeStartDocument("UTF-8", "1.0");
+			writer.out.writeComment("Created with JFLAP "
+					+ edu.duke.cs.jflap.gui.AboutBox.VERSION + ".");
+			writer.out.writeStartElement(Transducer.STRUCTURE_NAME);
+			writer.leaf(Transducer.STRUCTURE_TYPE_NAME, null, type);
+			if (structure instanceof Grammar) {
+				Production[] productions = ((Grammar) structure)
+						.getProductions();
+				if (productions.length > 0)
+					writer.comment(COMMENT_PRODUCTIONS);
+				for (int i = 0; i < productions.length; i++) {
+					writer.start(GrammarTransducer.PRODUCTION_NAME);
+					writer.leaf(GrammarTransducer.PRODUCTION_LEFT_NAME, null,
+							productions[i].getLHS());
+					writer.leaf(GrammarTransducer.PRODUCTION_RIGHT_NAME, null,
+							productions[i].getRHS());
+					writer.end();
+				}
+			} else {
+				if (structure instanceof TuringMachine
+						&& ((TuringMachine) structure).tapes() > 1)
+					writer.leaf(TMTransducer.TURING_TAPES_NAME, null, ""
+							+ ((TuringMachine) structure).tapes());
+				writeAutomaton(writer, (Automaton) structure, AUTOMATON_NAME);
+			}
+			writer.end();
+			writer.out.writeEndDocument();
+			writer.out.flush();
+			writer.out.close();
+		} catch (XMLStreamException e) {
+			throw new EncodeException("Could not write XML!\n"
+					+ e.getMessage());
+		}
+	}
+
+	/**
+	 * Returns the type tag for a structure, or <CODE>null</CODE> if this
+	 * transducer does not write it. Subclasses of the automata, like Mealy
+	 * machines, have transducers of their own.
+	 */
+	private static String typeOf(Serializable structure) {
+		if (structure == null)
+			return null;
+		Class c = structure.getClass();
+		if (c == FiniteStateAutomaton.class)
+			return FSA_TYPE;
+		if (c == PushdownAutomaton.class)
+			return PDA_TYPE;
+		if (c == TuringMachine.class)
+			return TM_TYPE;
+		if (structure instanceof Grammar)
+			return GRAMMAR_TYPE;
+		return null;
+	}
+
+	/**
+	 * Reads a document into records.
+	 */
+	private static Document parse(InputStream stream)
+			throws XMLStreamException {
+		XMLStreamReader reader = ((XMLInputFactory) INPUT_FACTORY.get())
+				.createXMLStreamReader(stream);
+		Document document = new Document();
+		ArrayList open = new ArrayList();
+		try {
+			while (reader.hasNext()) {
+				int event = reader.next();
+				Record top = open.isEmpty() ? null : (Record) open.get(open
+						.size() - 1);
+				switch (event) {
+				case XMLStreamConstants.START_ELEMENT:
+					if (top != null)
+						top.interrupt();
+					Record record = new Record(reader.getLocalName());
+					for (int i = 0; i < reader.getAttributeCount(); i++)
+						record.attributes.put(reader.getAttributeLocalName(i),
+								reader.getAttributeValue(i));
+					if (!document.named.containsKey(record.name))
+						document.named.put(record.name, record);
+					if (record.name.equals(GrammarTransducer.PRODUCTION_NAME))
+						document.productions.add(record);
+					if (top == null)
+						document.root = record;
+					open.add(record);
+					break;
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.CDATA:
+				case XMLStreamConstants.SPACE:
+					if (top != null)
+						top.characters(reader.getText());
+					break;
+				case XMLStreamConstants.END_ELEMENT:
+					open.remove(open.size() - 1);
+					top.interrupt();
+					if (top.name.equals(Transducer.STRUCTURE_TYPE_NAME)
+							&& document.type == null)
+						document.type = top.text == null ? "" : top.text;
+					if (open.isEmpty())
+						break;
+					((Record) open.get(open.size() - 1)).add(top);
+					break;
+				default:
+					if (top != null)
+						top.interrupt();
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		return document;
+	}
+
+	/**
+	 * Builds the automaton whose states, transitions and notes are under a
+	 * record, as <CODE>AutomatonTransducer.readAutomaton</CODE> does.
+	 * 
+	 * @param container
+	 *            the record, or <CODE>null</CODE> for an empty automaton
+	 * @param reading
+	 *            the records being read, to catch blocks that contain
+	 *            themselves
+	 * @param layout
+	 *            if notes should be read and states without coordinates laid
+	 *            out
+	 */
+	private static Automaton readAutomaton(Record container,
+			Document document, Set reading, boolean layout) {
+		Automaton automaton = createEmptyAutomaton(document);
+		if (container == null)
+			return automaton;
+		if (!reading.add(container))
+			throw new DataException("The machine " + container.name
+					+ " contains itself!");
+		Set locatedStates = new HashSet();
+		createStates(container.blocks, automaton, locatedStates, document,
+				reading, layout);
+		createStates(container.states, automaton, locatedStates, document,
+				reading, layout);
+		for (int i = 0; i < container.transitions.size(); i++)
+			readTransition((Record) container.transitions.get(i), automaton);
+		if (layout) {
+			for (int i = 0; i < container.notes.size(); i++)
+				readNote((Record) container.notes.get(i), automaton);
+			AutomatonTransducer.performLayout(automaton, locatedStates);
+		}
+		reading.remove(container);
+		return automaton;
+	}
+
+	/**
+	 * Returns an empty automaton of the type of the document.
+	 */
+	private static Automaton createEmptyAutomaton(Document document) {
+		if (FSA_TYPE.equals(document.type))
+			return new FiniteStateAutomaton();
+		if (PDA_TYPE.equals(document.type))
+			return new PushdownAutomaton();
+		String s = (String) document.root.e2t
+				.get(TMTransducer.TURING_TAPES_NAME);
+		if (s == null)
+			s = "1";
+		try {
+			int tapes = Integer.parseInt(s);
+			if (tapes < 1 || tapes > 5)
+				throw new DataException(tapes
+						+ " invalid # of tapes.  Valid # of tapes 1-5.");
+			return new TuringMachine(tapes);
+		} catch (NumberFormatException e) {
+			throw new DataException("Error reading " + s
+					+ " as number of tapes.");
+		}
+	}
+
+	/**
+	 * Creates states from their records in order of their IDs, as
+	 * <CODE>AutomatonTransducer.createState</CODE> does.
+	 */
+	private static void createStates(List records, Automaton automaton,
+			Set locatedStates, Document document, Set reading, boolean layout) {
+		Map i2sn = new TreeMap();
+		for (int i = 0; i < records.size(); i++) {
+			Record record = (Record) records.get(i);
+			Integer id = AutomatonTransducer.parseID(record
+					.attribute(AutomatonTransducer.STATE_ID_NAME));
+			if (i2sn.put(id, record) != null)
+				throw new DataException("The state ID " + id
+						+ " appears twice!");
+		}
+		Iterator it = i2sn.keySet().iterator();
+		while (it.hasNext()) {
+			Integer id = (Integer) it.next();
+			Record record = (Record) i2sn.get(id);
+			Map e2t = record.e2t;
+			String x = (String) e2t.get(AutomatonTransducer.STATE_X_COORD_NAME);
+			String y = (String) e2t.get(AutomatonTransducer.STATE_Y_COORD_NAME);
+			Point p = new Point();
+			p.setLocation(coordinate(x, "x", "state " + id), coordinate(y,
+					"y", "state " + id));
+			State state;
+			if (!(automaton instanceof TuringMachine))
+				state = automaton.createStateWithId(p, id.intValue());
+			else if (e2t.containsKey(TAG_NAME)) {
+				String tag = (String) e2t.get(TAG_NAME);
+				if (tag == null)
+					tag = "";
+				Automaton inner = readAutomaton((Record) document.named
+						.get(tag), document, reading, layout);
+				state = ((TuringMachine) automaton).createInnerTM(p, inner,
+						tag, id.intValue());
+			} else
+				state = ((TuringMachine) automaton).createTMStateWithID(p, id
+						.intValue());
+			if (x != null && y != null)
+				locatedStates.add(state);
+			String name = record
+					.attribute(AutomatonTransducer.STATE_NAME_NAME);
+			state.setName(name.equals("") ? "q" + id.intValue() : name);
+			if (e2t.containsKey(AutomatonTransducer.STATE_NAME_NAME))
+				state.setName((String) e2t
+						.get(AutomatonTransducer.STATE_NAME_NAME));
+			if (e2t.containsKey(AutomatonTransducer.STATE_LABEL_NAME))
+				state.setLabel((String) e2t
+						.get(AutomatonTransducer.STATE_LABEL_NAME));
+			if (e2t.containsKey(AutomatonTransducer.STATE_FINAL_NAME))
+				automaton.addFinalState(state);
+			if (e2t.containsKey(AutomatonTransducer.STATE_INITIAL_NAME))
+				automaton.setInitialState(state);
+		}
+	}
+
+	/**
+	 * Returns a coordinate of a state or note, or 0 if it is absent.
+	 * 
+	 * @throws DataException
+	 *             if the coordinate is not a number
+	 */
+	private static double coordinate(String text, String axis, String owner) {
+		if (text == null)
+			return 0;
+		try {
+			return Double.parseDouble(text);
+		} catch (NumberFormatException e) {
+			throw new DataException("The " + axis + " coordinate " + text
+					+ " could not be read for " + owner + ".");
+		}
+	}
+
+	/**
+	 * Adds the transition of a record to an automaton, as
+	 * <CODE>AutomatonTransducer.readTransitions</CODE> does.
+	 */
+	private static void readTransition(Record record, Automaton automaton) {
+		Map e2t = record.e2t;
+		boolean isBlock = record.attribute(TMTransducer.IS_BLOCK).equals(
+				"true");
+		String fromName = (String) e2t
+				.get(AutomatonTransducer.TRANSITION_FROM_NAME);
+		if (fromName == null)
+			throw new DataException("A transition has no from state!");
+		int id = AutomatonTransducer.parseID(fromName).intValue();
+		State from = automaton.getStateWithID(id);
+		if (from == null)
+			throw new DataException("A transition is defined from "
+					+ "non-existent state " + id + "!");
+		String toName = (String) e2t.get(AutomatonTransducer.TRANSITION_TO_NAME);
+		if (toName == null)
+			throw new DataException("A transition has no to state!");
+		id = AutomatonTransducer.parseID(toName).intValue();
+		State to = automaton.getStateWithID(id);
+		if (to == null)
+			throw new DataException("A transition is defined to "
+					+ "non-existent state " + id + "!");
+		Transition transition;
+		if (automaton instanceof TuringMachine)
+			transition = createTMTransition(from, to, record, isBlock);
+		else if (automaton instanceof PushdownAutomaton) {
+			try {
+				transition = new PDATransition(from, to, text(e2t,
+						PDATransducer.TRANSITION_READ_NAME), text(e2t,
+						PDATransducer.TRANSITION_POP_NAME), text(e2t,
+						PDATransducer.TRANSITION_PUSH_NAME));
+			} catch (IllegalArgumentException e) {
+				throw new DataException(e.getMessage());
+			}
+		} else
+			transition = new FSATransition(from, to, text(e2t,
+					FSATransducer.TRANSITION_READ_NAME));
+		automaton.addTransition(transition);
+		String controlX = (String) e2t
+				.get(AutomatonTransducer.TRANSITION_CONTROL_X);
+		String controlY = (String) e2t
+				.get(AutomatonTransducer.TRANSITION_CONTROL_Y);
+		if (controlX != null && controlY != null)
+			transition.setControl(new Point(Integer.parseInt(controlX),
+					Integer.parseInt(controlY)));
+		else
+			transition.setControl(null);
+	}
+
+	/**
+	 * Returns the text of a child element, or the empty string if there is
+	 * none.
+	 */
+	private static String text(Map e2t, String name) {
+		String text = (String) e2t.get(name);
+		return text == null ? "" : text;
+	}
+
+	/**
+	 * Creates a Turing machine transition from the read, write and move
+	 * records of each tape, as <CODE>TMTransducer.createTransition</CODE>
+	 * does.
+	 */
+	private static Transition createTMTransition(State from, State to,
+			Record record, boolean isBlock) {
+		int tapes = ((TuringMachine) from.getAutomaton()).tapes();
+		String[] readStrings = new String[tapes], writeStrings = new String[tapes], moveStrings = new String[tapes];
+		Arrays.fill(readStrings, "");
+		Arrays.fill(writeStrings, "");
+		Arrays.fill(moveStrings, "R");
+		int[] counts = new int[3];
+		for (int i = 0; i < record.tapeEntries.size(); i++) {
+			Record entry = (Record) record.tapeEntries.get(i);
+			String tag = entry.name;
+			int kind = tag.equals(TMTransducer.TRANSITION_READ_NAME) ? 0 : tag
+					.equals(TMTransducer.TRANSITION_WRITE_NAME) ? 1 : 2;
+			String[] array = kind == 0 ? readStrings : kind == 1 ? writeStrings
+					: moveStrings;
+			String tapeString = entry.attribute(TMTransducer.TRANSITION_TAPE_NAME);
+			if (tapeString.length() == 0)
+				tapeString = "1";
+			int tape;
+			try {
+				tape = Integer.parseInt(tapeString);
+				if (tape < 1 || tape > tapes)
+					throw new DataException("In " + tag + " tag, tape " + tape
+							+ " identified but only 1-" + tapes
+							+ " are valid.");
+			} catch (NumberFormatException e) {
+				throw new DataException("In " + tag + " tag, error reading "
+						+ tapeString + " as tape.");
+			}
+			array[tape - 1] = entry.text == null ? "" : entry.text;
+			if (isBlock) {
+				writeStrings[counts[kind]] = "~";
+				moveStrings[counts[kind]] = "S";
+			}
+			counts[kind]++;
+		}
+		try {
+			TMTransition t = new TMTransition(from, to, readStrings,
+					writeStrings, moveStrings);
+			if (isBlock)
+				t.setBlockTransition(true);
+			return t;
+		} catch (IllegalArgumentException e) {
+			throw new DataException(e.getMessage());
+		}
+	}
+
+	/**
+	 * Adds the note of a record to an automaton.
+	 */
+	private static void readNote(Record record, Automaton automaton) {
+		String text = (String) record.e2t.get(AutomatonTransducer.NOTE_TEXT_NAME);
+		if (text == null)
+			return;
+		Point p = new Point();
+		String owner = "the note with text " + text;
+		p.setLocation(coordinate((String) record.e2t
+				.get(AutomatonTransducer.STATE_X_COORD_NAME), "x", owner),
+				coordinate((String) record.e2t
+						.get(AutomatonTransducer.STATE_Y_COORD_NAME), "y",
+						owner));
+		automaton.addNote(new Note(p, text));
+	}
+
+	/**
+	 * Builds the grammar of the production records, as
+	 * <CODE>GrammarTransducer.fromDOM</CODE> does.
+	 */
+	private static Grammar readGrammar(Document document) {
+		Grammar g = new UnboundGrammar();
+		for (int i = 0; i < document.productions.size(); i++) {
+			Map e2t = ((Record) document.productions.get(i)).e2t;
+			g.addProduction(new Production(text(e2t,
+					GrammarTransducer.PRODUCTION_LEFT_NAME), text(e2t,
+					GrammarTransducer.PRODUCTION_RIGHT_NAME)));
+		}
+		return g;
+	}
+
+	/**
+	 * Writes the elements of an automaton, as
+	 * <CODE>AutomatonTransducer.writeFields</CODE> does.
+	 */
+	private static void writeAutomaton(Writer writer, Automaton automaton,
+			String name) throws XMLStreamException {
+		writer.start(AbstractTransducer.tagName(name));
+		State[] states = automaton.getStates();
+		if (states.length > 0)
+			writer.comment(COMMENT_STATES);
+		for (int i = 0; i < states.length; i++)
+			writeState(writer, states[i]);
+		Transition[] transitions = automaton.getTransitions();
+		if (transitions.length > 0)
+			writer.comment(COMMENT_TRANSITIONS);
+		for (int i = 0; i < transitions.length; i++)
+			writeTransition(writer, transitions[i]);
+		if (automaton instanceof TuringMachine) {
+			Map references = ((TuringMachine) automaton).getBlockMap();
+			Iterator it = references.keySet().iterator();
+			if (it.hasNext())
+				writer.comment(COMMENT_AUTOMATA);
+			while (it.hasNext()) {
+				String inner = (String) it.next();
+				writeAutomaton(writer, (Automaton) references.get(inner),
+						inner);
+			}
+		}
+		List notes = automaton.getNotes();
+		for (int k = 0; k < notes.size(); k++) {
+			Note note = (Note) notes.get(k);
+			writer.start(AutomatonTransducer.NOTE_NAME);
+			writer.leaf(AutomatonTransducer.NOTE_TEXT_NAME, null, ""
+					+ note.getText());
+			writer.leaf(AutomatonTransducer.STATE_X_COORD_NAME, null, ""
+					+ note.getLocation().getX());
+			writer.leaf(AutomatonTransducer.STATE_Y_COORD_NAME, null, ""
+					+ note.getLocation().getY());
+			writer.end();
+		}
+		writer.end();
+	}
+
+	/**
+	 * Writes a state, or for a Turing machine a block, as
+	 * <CODE>AutomatonTransducer.createStateElement</CODE> and
+	 * <CODE>createBlockElement</CODE> do.
+	 */
+	private static void writeState(Writer writer, State state)
+			throws XMLStreamException {
+		boolean block = state instanceof TMState;
+		writer.start(block ? AutomatonTransducer.BLOCK_NAME
+				: AutomatonTransducer.STATE_NAME);
+		writer.out.writeAttribute(AutomatonTransducer.STATE_ID_NAME, ""
+				+ state.getID());
+		if (state.getName() != null)
+			writer.out.writeAttribute(AutomatonTransducer.STATE_NAME_NAME,
+					state.getName());
+		if (block)
+			writer.leaf(TAG_NAME, null, ""
+					+ ((TMState) state).getInternalName());
+		writer.leaf(AutomatonTransducer.STATE_X_COORD_NAME, null, ""
+				+ state.getPoint().getX());
+		writer.leaf(AutomatonTransducer.STATE_Y_COORD_NAME, null, ""
+				+ state.getPoint().getY());
+		if (!block && state.getLabel() != null)
+			writer.leaf(AutomatonTransducer.STATE_LABEL_NAME, null, state
+					.getLabel());
+		Automaton a = state.getAutomaton();
+		if (a.getInitialState() == state)
+			writer.leaf(AutomatonTransducer.STATE_INITIAL_NAME, null, null);
+		if (a.isFinalState(state))
+			writer.leaf(AutomatonTransducer.STATE_FINAL_NAME, null, null);
+		writer.end();
+	}
+
+	/**
+	 * Writes a transition, as the <CODE>createTransitionElement</CODE>
+	 * methods of the automaton transducers do.
+	 */
+	private static void writeTransition(Writer writer, Transition transition)
+			throws XMLStreamException {
+		writer.start(AutomatonTransducer.TRANSITION_NAME);
+		boolean block = transition instanceof TMTransition
+				&& ((TMTransition) transition).isBlockTransition();
+		if (block)
+			writer.out.writeAttribute(TMTransducer.IS_BLOCK, "true");
+		writer.leaf(AutomatonTransducer.TRANSITION_FROM_NAME, null, ""
+				+ transition.getFromState().getID());
+		writer.leaf(AutomatonTransducer.TRANSITION_TO_NAME, null, ""
+				+ transition.getToState().getID());
+		Point p = transition.getControl();
+		if (p != null) {
+			writer.leaf(AutomatonTransducer.TRANSITION_CONTROL_X, null, p.x
+					+ "");
+			writer.leaf(AutomatonTransducer.TRANSITION_CONTROL_Y, null, p.y
+					+ "");
+		}
+		if (transition instanceof FSATransition)
+			writer.leaf(FSATransducer.TRANSITION_READ_NAME, null,
+					((FSATransition) transition).getLabel());
+		else if (transition instanceof PDATransition) {
+			PDATransition t = (PDATransition) transition;
+			writer.leaf(PDATransducer.TRANSITION_READ_NAME, null, t
+					.getInputToRead());
+			writer.leaf(PDATransducer.TRANSITION_POP_NAME, null, t
+					.getStringToPop());
+			writer.leaf(PDATransducer.TRANSITION_PUSH_NAME, null, t
+					.getStringToPush());
+		} else {
+			TMTransition t = (TMTransition) transition;
+			int tapes = ((TuringMachine) t.getFromState().getAutomaton())
+					.tapes();
+			for (int i = 0; i < tapes; i++) {
+				String tape = tapes > 1 ? "" + (i + 1) : null;
+				String read = t.getRead(i), write = t.getWrite(i);
+				if (read.equals(TMTransition.BLANK))
+					read = "";
+				if (write.equals(TMTransition.BLANK))
+					write = "";
+				writer.leaf(TMTransducer.TRANSITION_READ_NAME, tape, read);
+				if (block)
+					break;
+				writer.leaf(TMTransducer.TRANSITION_WRITE_NAME, tape, write);
+				writer.leaf(TMTransducer.TRANSITION_MOVE_NAME, tape, t
+						.getDirection(i));
+			}
+		}
+		writer.end();
+	}
+
+	/**
+	 * A parsed document: its root, the first element of each name, and its
+	 * productions in document order.
+	 */
+	private static class Document {
+		Record root;
+
+		String type;
+
+		final Map named = new HashMap();
+
+		final List productions = new ArrayList();
+	}
+
+	/**
+	 * What is kept of an element: its attributes, its first text, the text
+	 * of each child element (the last, if a name repeats), and the children
+	 * that make up automata.
+	 */
+	private static class Record {
+		Record(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Adds text inside the element, if it continues the first text.
+		 */
+		void characters(String characters) {
+			if (textDone)
+				return;
+			text = text == null ? characters : text + characters;
+		}
+
+		/**
+		 * Notes that something other than text came inside the element,
+		 * which ends its first text.
+		 */
+		void interrupt() {
+			if (text != null)
+				textDone = true;
+		}
+
+		/**
+		 * Adds a finished child element.
+		 */
+		void add(Record child) {
+			e2t.put(child.name, child.text);
+			String n = child.name;
+			if (n.equals(AutomatonTransducer.STATE_NAME))
+				states.add(child);
+			else if (n.equals(AutomatonTransducer.BLOCK_NAME))
+				blocks.add(child);
+			else if (n.equals(AutomatonTransducer.TRANSITION_NAME))
+				transitions.add(child);
+			else if (n.equals(AutomatonTransducer.NOTE_NAME))
+				notes.add(child);
+			else if (n.equals(TMTransducer.TRANSITION_READ_NAME)
+					|| n.equals(TMTransducer.TRANSITION_WRITE_NAME)
+					|| n.equals(TMTransducer.TRANSITION_MOVE_NAME))
+				tapeEntries.add(child);
+		}
+
+		/**
+		 * Returns an attribute, or the empty string if it is absent.
+		 */
+		String attribute(String attribute) {
+			String value = (String) attributes.get(attribute);
+			return value == null ? "" : value;
+		}
+
+		final String name;
+
+		String text;
+
+		boolean textDone;
+
+		final Map attributes = new HashMap(4);
+
+		final Map e2t = new HashMap();
+
+		final List states = new ArrayList(), blocks = new ArrayList(),
+				transitions = new ArrayList(), notes = new ArrayList(),
+				tapeEntries = new ArrayList();
+	}
+
+	/**
+	 * Writes elements with the line breaks and tab indents that
+	 * <CODE>DOMPrettier</CODE> gives the DOM transducers' output.
+	 */
+	private static class Writer {
+		Writer(XMLStreamWriter out) {
+			this.out = out;
+		}
+
+		/**
+		 * Begins a line for a child of the open element.
+		 */
+		private void newLine() throws XMLStreamException {
+			hasChildren[depth] = true;
+			out.writeCharacters(NEWLINE);
+			for (int i = 0; i <= depth; i++)
+				out.writeCharacters(DOMPrettier.INDENT);
+		}
+
+		/**
+		 * Opens an element that will have children.
+		 */
+		void start(String name) throws XMLStreamException {
+			newLine();
+			out.writeStartElement(name);
+			if (++depth == hasChildren.length)
+				hasChildren = Arrays.copyOf(hasChildren, depth * 2);
+			hasChildren[depth] = false;
+		}
+
+		/**
+		 * Closes the open element, the root last of all.
+		 */
+		void end() throws XMLStreamException {
+			if (hasChildren[depth]) {
+				out.writeCharacters(NEWLINE);
+				for (int i = 0; i < depth; i++)
+					out.writeCharacters(DOMPrettier.INDENT);
+			}
+			out.writeEndElement();
+			depth--;
+		}
+
+		/**
+		 * Writes an element with only text in it.
+		 * 
+		 * @param tape
+		 *            the value of the tape attribute, or <CODE>null</CODE>
+		 *            for none
+		 * @param text
+		 *            the text, or <CODE>null</CODE> for an empty element
+		 */
+		void leaf(String name, String tape, String text)
+				throws XMLStreamException {
+			newLine();
+			if (text == null) {
+				out.writeEmptyElement(name);
+				return;
+			}
+			out.writeStartElement(name);
+			if (tape != null)
+				out.writeAttribute(TMTransducer.TRANSITION_TAPE_NAME, tape);
+			out.writeCharacters(text);
+			out.writeEndElement();
+		}
+
+		/**
+		 * Writes a comment for the children that follow.
+		 */
+		void comment(String comment) throws XMLStreamException {
+			newLine();
+			out.writeComment(comment);
+		}
+
+		final XMLStreamWriter out;
+
+		/** The depth of the open element, the root being 0. */
+		private int depth = 0;
+
+		/** For each open element, whether anything was written inside. */
+		private boolean[] hasChildren = new boolean[8];
+	}
+
+	/** The StAX input factory of each thread. */
+	private static final ThreadLocal INPUT_FACTORY = new ThreadLocal() {
+		protected Object initialValue() {
+			XMLInputFactory factory = XMLInputFactory.newInstance();
+			factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE,
+					Boolean.FALSE);
+			factory.setProperty(
+					XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+					Boolean.FALSE);
+			return factory;
+		}
+	};
+
+	/** The StAX output factory of each thread. */
+	private static final ThreadLocal OUTPUT_FACTORY = new ThreadLocal() {
+		protected Object initialValue() {
+			return XMLOutputFactory.newInstance();
+		}
+	};
+
+	/** The type tags, as the DOM transducers give them. */
+	private static final String FSA_TYPE = new FSATransducer().getType(),
+			PDA_TYPE = new PDATransducer().getType(),
+			TM_TYPE = new TMTransducer().getType(),
+			GRAMMAR_TYPE = new GrammarTransducer().getType();
+
+	/** The line separator that <CODE>DOMPrettier</CODE> uses. */
+	private static final String NEWLINE = System
+			.getProperty("line.separator");
+
+	/** The tag name of the element holding an automaton. */
+	private static final String AUTOMATON_NAME = "automaton";
+
+	/** The tag name of a block's inner machine reference. */
+	private static final String TAG_NAME = "tag";
+
+	/** The comments, as the DOM transducers write them. */
+	private static final String COMMENT_STATES = "The list of states.",
+			COMMENT_TRANSITIONS = "The list of transitions.",
+			COMMENT_AUTOMATA = "The list of automata",
+			COMMENT_PRODUCTIONS = "The list of productions.";
+}
@@ -155,12 +155,12 @@ public abstract class Grammar implements Serializable, Cloneable {
 	 *             if the production is unsuitable somehow
 	 */
 	public void addProduction(Production production) {
-        checkProduction(production);
-		GrammarChecker gc = new GrammarChecker();
+		checkProduction(production);
 		/** if production already in grammar. */
-		if (GrammarChecker.isProductionInGrammar(production, this))
+		if (isProduction(production))
 			return;
 		myProductions.add(production);
+		index(production);
 
 		/**
 		 * add all new variables introduced by production to set of variables.
@@ -204,30 +204,17 @@ public abstract class Grammar implements Serializable, Cloneable {
 	 *            the production to remove.
 	 */
 	public void removeProduction(Production production) {
+		if (!isProduction(production))
+			return;
 		myProductions.remove(production);
-		GrammarChecker gc = new GrammarChecker();
 		/**
-		 * Remove any variables that existed only in the production being
-		 * removed.
+		 * Remove any variables and terminals that existed only in the
+		 * production being removed.
 		 */
-		String[] variablesInProduction = production.getVariables();
-		for (int k = 0; k < variablesInProduction.length; k++) {
-			if (!GrammarChecker.isVariableInProductions(this,
-					variablesInProduction[k])) {
-				removeVariable(variablesInProduction[k]);
-			}
-		}
-
-		/**
-		 * Remove any terminals that existed only in the production being
-		 * removed.
-		 */
-		String[] terminalsInProduction = production.getTerminals();
-		for (int i = 0; i < terminalsInProduction.length; i++) {
-			if (!GrammarChecker.isTerminalInProductions(this,
-					terminalsInProduction[i])) {
-				removeTerminal(terminalsInProduction[i]);
-			}
+		String[] symbols = unindex(production);
+		for (int k = 0; k < symbols.length; k++) {
+			removeVariable(symbols[k]);
+			removeTerminal(symbols[k]);
 		}
 	}
 
@@ -237,7 +224,134 @@ public abstract class Grammar implements Serializable, Cloneable {
 	 * @return all productions in the grammar.
 	 */
 	public Production[] getProductions() {
-		return (Production[]) myProductions.toArray(new Production[0]);
+		if (myProductionArray == null)
+			myProductionArray = (Production[]) myProductions
+					.toArray(new Production[0]);
+		return (Production[]) myProductionArray.clone();
+	}
+
+	/**
+	 * Returns the productions in the grammar with <CODE>lhs</CODE> as their
+	 * left hand side, in the order they were added.
+	 * 
+	 * @param lhs
+	 *            the left hand side
+	 * @return the productions with <CODE>lhs</CODE> as their left hand side
+	 */
+	public Production[] getProductionsWithLHS(String lhs) {
+		buildIndex();
+		return lookUp(myLHSIndex, lhs);
+	}
+
+	/**
+	 * Returns the productions in the grammar whose right hand side contains
+	 * <CODE>symbol</CODE>, a variable or a terminal, in the order they were
+	 * added. Each production is returned once, however many times the symbol
+	 * occurs in it.
+	 * 
+	 * @param symbol
+	 *            the symbol
+	 * @return the productions with <CODE>symbol</CODE> on their right hand
+	 *         side
+	 */
+	public Production[] getProductionsWithSymbolOnRHS(String symbol) {
+		buildIndex();
+		return lookUp(myRHSIndex, symbol);
+	}
+
+	/**
+	 * Tells the grammar that productions in it were changed in place, through
+	 * <CODE>Production.setLHS</CODE> or <CODE>setRHS</CODE>, so that its
+	 * indices of the productions are rebuilt. The sets of variables and
+	 * terminals are left as they are.
+	 */
+	public void productionsChanged() {
+		myProductionSet = null;
+		myProductionArray = null;
+	}
+
+	/**
+	 * Returns the productions an index holds for a key.
+	 */
+	private static Production[] lookUp(Map index, String key) {
+		Set productions = (Set) index.get(key);
+		if (productions == null)
+			return new Production[0];
+		return (Production[]) productions.toArray(new Production[0]);
+	}
+
+	/**
+	 * Builds the indices of the productions from the list of productions, if
+	 * they have been dropped or not built yet.
+	 */
+	private void buildIndex() {
+		if (myProductionSet != null)
+			return;
+		myProductionSet = new HashSet();
+		myLHSIndex = new HashMap();
+		myRHSIndex = new HashMap();
+		mySymbolCounts = new HashMap();
+		for (Iterator it = myProductions.iterator(); it.hasNext();)
+			index((Production) it.next());
+	}
+
+	/**
+	 * Adds a production to the indices, and counts its symbols.
+	 */
+	private void index(Production production) {
+		myProductionArray = null;
+		if (myProductionSet == null) {
+			buildIndex();
+			return;
+		}
+		myProductionSet.add(production);
+		entries(myLHSIndex, production.getLHS()).add(production);
+		String rhs = production.getRHS();
+		for (int i = 0; i < rhs.length(); i++)
+			entries(myRHSIndex, rhs.substring(i, i + 1)).add(production);
+		String[] symbols = production.getSymbols();
+		for (int k = 0; k < symbols.length; k++) {
+			int[] count = (int[]) mySymbolCounts.get(symbols[k]);
+			if (count == null)
+				mySymbolCounts.put(symbols[k], count = new int[1]);
+			count[0]++;
+		}
+	}
+
+	/**
+	 * Removes a production from the indices.
+	 * 
+	 * @return the symbols that no production in the grammar has any more
+	 */
+	private String[] unindex(Production production) {
+		myProductionArray = null;
+		buildIndex();
+		myProductionSet.remove(production);
+		entries(myLHSIndex, production.getLHS()).remove(production);
+		String rhs = production.getRHS();
+		for (int i = 0; i < rhs.length(); i++)
+			entries(myRHSIndex, rhs.substring(i, i + 1)).remove(production);
+		ArrayList unused = new ArrayList();
+		String[] symbols = production.getSymbols();
+		for (int k = 0; k < symbols.length; k++) {
+			int[] count = (int[]) mySymbolCounts.get(symbols[k]);
+			if (count != null && --count[0] == 0) {
+				mySymbolCounts.remove(symbols[k]);
+				unused.add(symbols[k]);
+			}
+		}
+		return (String[]) unused.toArray(new String[0]);
+	}
+
+	/**
+	 * Returns the set of productions an index holds for a key, creating it if
+	 * there is none.
+	 */
+	private static Set entries(Map index, String key) {
+		Set productions = (Set) index.get(key);
+		if (productions == null)
+			index.put(key, productions = new LinkedHashSet());
+		return productions;
 	}
 
 	/**
@@ -247,6 +361,7 @@ public abstract class Grammar implements Serializable, Cloneable {
 	 *            the terminal to add.
 	 */
 	private void addTerminal(String terminal) {
+		myTerminalArray = null;
 		myTerminals.add(terminal);
 	}
 
@@ -257,6 +372,7 @@ public abstract class Grammar implements Serializable, Cloneable {
 	 *            the terminal to remove.
 	 */
 	private void removeTerminal(String terminal) {
+		myTerminalArray = null;
 		myTerminals.remove(terminal);
 	}
 
@@ -266,7 +382,9 @@ public abstract class Grammar implements Serializable, Cloneable {
 	 * @return all terminals in the grammar.
 	 */
 	public String[] getTerminals() {
-		return (String[]) myTerminals.toArray(new String[0]);
+		if (myTerminalArray == null)
+			myTerminalArray = (String[]) myTerminals.toArray(new String[0]);
+		return (String[]) myTerminalArray.clone();
 	}
 
 	/**
@@ -276,6 +394,7 @@ public abstract class Grammar implements Serializable, Cloneable {
 	 *            the variable to add.
 	 */
 	private void addVariable(String variable) {
+		myVariableArray = null;
 		myVariables.add(variable);
 	}
 
@@ -286,6 +405,7 @@ public abstract class Grammar implements Serializable, Cloneable {
 	 *            the variable to remove.
 	 */
 	private void removeVariable(String variable) {
+		myVariableArray = null;
 		myVariables.remove(variable);
 	}
 
@@ -295,7 +415,9 @@ public abstract class Grammar implements Serializable, Cloneable {
 	 * @return all variables in the grammar.
 	 */
 	public String[] getVariables() {
-		return (String[]) myVariables.toArray(new String[0]);
+		if (myVariableArray == null)
+			myVariableArray = (String[]) myVariables.toArray(new String[0]);
+		return (String[]) myVariableArray.clone();
 	}
 
 	/**
@@ -308,7 +430,8 @@ public abstract class Grammar implements Serializable, Cloneable {
 	 *         the grammar.
 	 */
 	public boolean isProduction(Production production) {
-		return myProductions.contains(production);
+		buildIndex();
+		return myProductionSet.contains(production);
 	}
 
 	/**
@@ -432,6 +555,26 @@ public abstract class Grammar implements Serializable, Cloneable {
 	/** Set of Production rules. */
 	protected List myProductions = new ArrayList();
 
+	/**
+	 * The productions as a set, or <CODE>null</CODE> if the indices below
+	 * must be rebuilt from <CODE>myProductions</CODE>.
+	 */
+	private transient Set myProductionSet;
+
+	/** The productions for each left hand side. */
+	private transient Map myLHSIndex;
+
+	/** The productions for each symbol on their right hand side. */
+	private transient Map myRHSIndex;
+
+	/** The number of productions each symbol appears in, as an int[1]. */
+	private transient Map mySymbolCounts;
+
+	/** The cached arrays of productions, variables and terminals. */
+	private transient Production[] myProductionArray;
+
+	private transient String[] myVariableArray, myTerminalArray;
+
 
 
 }
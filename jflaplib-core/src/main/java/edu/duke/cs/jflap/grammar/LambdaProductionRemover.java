@@ -24,7 +24,10 @@ import edu.duke.cs.jflap.grammar.cfg.ContextFreeGrammar;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -178,10 +181,10 @@ public class LambdaProductionRemover {
 	 *            grammar that have lambda transitions).
 	 */
 	public void addVariablesWithLambdaProductions(Grammar grammar, Set lambdaSet) {
-		while (areMoreVariablesWithLambdaProductions(grammar, lambdaSet)) {
-			String variable = getNewVariableWithLambdaProduction(grammar,
-					lambdaSet);
-			addVariableToLambdaSet(variable, lambdaSet);
+		Production[] productions = grammar.getProductions();
+		for (int k = 0; k < productions.length; k++) {
+			if (ProductionChecker.isLambdaProduction(productions[k]))
+				addVariableToLambdaSet(productions[k].getLHS(), lambdaSet);
 		}
 	}
 
@@ -319,10 +322,41 @@ public class LambdaProductionRemover {
 	 */
 	public HashSet getCompleteLambdaSet(Grammar grammar) {
 		HashSet lambdaSet = getNewLambdaSet();
-		while (areMoreVariablesToAddToLambdaSet(grammar, lambdaSet)) {
-			String variable = getNewVariableThatBelongsInLambdaSet(grammar,
-					lambdaSet);
+		/*
+		 * For each production with no terminals on the right hand side, count
+		 * the variables there not yet in the lambda set; when the count of a
+		 * production reaches zero its left hand side belongs in the set. Each
+		 * production is visited once per variable on its right hand side.
+		 */
+		Map remaining = new HashMap();
+		LinkedList worklist = new LinkedList();
+		Production[] productions = grammar.getProductions();
+		for (int k = 0; k < productions.length; k++) {
+			if (ProductionChecker.areTerminalsOnRHS(productions[k]))
+				continue;
+			int count = productions[k].getRHS().length();
+			if (count == 0)
+				worklist.add(productions[k].getLHS());
+			else
+				remaining.put(productions[k], new int[] { count });
+		}
+		while (!worklist.isEmpty()) {
+			String variable = (String) worklist.removeFirst();
+			if (isInLambdaSet(variable, lambdaSet))
+				continue;
 			addVariableToLambdaSet(variable, lambdaSet);
+			Production[] users = grammar.getProductionsWithSymbolOnRHS(variable);
+			for (int k = 0; k < users.length; k++) {
+				int[] count = (int[]) remaining.get(users[k]);
+				if (count == null)
+					continue;
+				String rhs = users[k].getRHS();
+				for (int i = rhs.indexOf(variable); i != -1; i = rhs.indexOf(
+						variable, i + 1))
+					count[0]--;
+				if (count[0] == 0)
+					worklist.add(users[k].getLHS());
+			}
 		}
 		return lambdaSet;
 	}
@@ -20,7 +20,7 @@
 
 package edu.duke.cs.jflap.grammar;
 
-import edu.duke.cs.jflap.gui.environment.Universe;
+import edu.duke.cs.jflap.automata.SimulationOptions;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -252,7 +252,7 @@ public class Production implements Serializable {
 		// buffer.append("->");
 		buffer.append('\u2192');
 		String rhs = getRHS();
-		buffer.append(rhs.length() == 0 ? Universe.curProfile.getEmptyString() : rhs);
+		buffer.append(rhs.length() == 0 ? SimulationOptions.getDefault().getEmptyString() : rhs);
 		// buffer.append('\n');
 		return buffer.toString();
 	}
@@ -25,8 +25,11 @@ import edu.duke.cs.jflap.grammar.cfg.ContextFreeGrammar;
 import java.awt.Point;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -63,10 +66,37 @@ public class UselessProductionRemover {
 	 */
 	public static Set getCompleteUsefulVariableSet(Grammar grammar) {
 		Set set = getNewUsefulVariableSet();
-		while (areMoreVariablesThatBelongInUsefulVariableSet(grammar, set)) {
-			String variable = getVariableThatBelongsInUsefulVariableSet(
-					grammar, set);
+		/*
+		 * For each production, count the variables on the right hand side not
+		 * yet in the set; when the count of a production reaches zero its
+		 * left hand side is useful. Each production is visited once per
+		 * variable on its right hand side.
+		 */
+		Map remaining = new HashMap();
+		LinkedList worklist = new LinkedList();
+		Production[] productions = grammar.getProductions();
+		for (int k = 0; k < productions.length; k++) {
+			int count = productions[k].getVariablesOnRHS().length;
+			if (count == 0)
+				worklist.add(productions[k].getLHS());
+			else
+				remaining.put(productions[k], new int[] { count });
+		}
+		while (!worklist.isEmpty()) {
+			String variable = (String) worklist.removeFirst();
+			if (set.contains(variable))
+				continue;
 			addToUsefulVariableSet(variable, set);
+			Production[] users = grammar.getProductionsWithSymbolOnRHS(variable);
+			for (int k = 0; k < users.length; k++) {
+				int[] count = (int[]) remaining.get(users[k]);
+				String rhs = users[k].getRHS();
+				for (int i = rhs.indexOf(variable); i != -1; i = rhs.indexOf(
+						variable, i + 1))
+					count[0]--;
+				if (count[0] == 0)
+					worklist.add(users[k].getLHS());
+			}
 		}
 		return set;
 	}
@@ -175,15 +205,7 @@ public class UselessProductionRemover {
 	 *         <CODE>ch</CODE>.
 	 */
 	private static boolean isInUsefulVariableSet(char ch, Set set) {
-		Iterator it = set.iterator();
-		while (it.hasNext()) {
-			String variable = (String) it.next();
-			char var = variable.charAt(0);
-			if (ch == var) {
-				return true;
-			}
-		}
-		return false;
+		return set.contains(String.valueOf(ch));
 	}
 
 	/**
@@ -20,11 +20,20 @@
 
 package edu.duke.cs.jflap.grammar.lsystem;
 
+import java.math.BigInteger;
 import java.util.*;
 
 /**
  * Given an L-system, this will expand the L-system, creating the vast lists of
- * symbols generated by successive expansions of the L-system.
+ * symbols generated by successive expansions of the L-system. Since those
+ * lists grow exponentially, a level may also be read lazily with
+ * {@link #lazyExpansionForLevel}, which never holds more than a few symbols
+ * of each level, and the number of symbols in a level may be had from
+ * {@link #symbolCountsForLevel} without expanding it at all.
+ * <P>
+ * Where a symbol has several replacements, the choices made for each level
+ * come from a randomizer seeded for that level, so a level is the same
+ * however it is produced, and however often.
  * 
  * @author Thomas Finley
  */
@@ -50,7 +59,7 @@ public class Expander {
 	 *            the seed for the randomizer
 	 */
 	public Expander(LSystem lsystem, long seed) {
-		stochiastic = new Random(seed);
+		this.seed = seed;
 		this.lsystem = lsystem;
 		cachedExpansions.add(lsystem.getAxiom());
 		initializeContexts();
@@ -74,21 +83,199 @@ public class Expander {
 			return (List) cachedExpansions.get(level);
 		List lastOne = (List) cachedExpansions.get(cachedExpansions.size() - 1);
 		for (int i = cachedExpansions.size(); i <= level; i++)
-			cachedExpansions.add(lastOne = expand(lastOne));
+			cachedExpansions.add(lastOne = expand(lastOne, randomForLevel(i)));
 		return lastOne;
 	}
 
+	/**
+	 * Returns the expansion at a given level of recursion, as symbols that are
+	 * produced only as they are iterated over. Each iterator rewrites the
+	 * axiom through every level at once, one symbol at a time, so it holds
+	 * only the replacement being read and the context around it at each
+	 * level. The symbols are the same as those of {@link #expansionForLevel}.
+	 * 
+	 * @param level
+	 *            the level of recursion to sink to
+	 * @return the string symbols, which may be iterated over many times
+	 * @throws IllegalArgumentException
+	 *             if the level is less than 0
+	 */
+	public Iterable lazyExpansionForLevel(final int level) {
+		if (level < 0)
+			throw new IllegalArgumentException("Recursion level " + level
+					+ " impossible!");
+		return new Iterable() {
+			public Iterator iterator() {
+				Iterator it = lsystem.getAxiom().iterator();
+				for (int i = 1; i <= level; i++)
+					it = new Rewriter(it, randomForLevel(i));
+				return it;
+			}
+		};
+	}
+
+	/**
+	 * Returns how many times each symbol appears in the expansion at a given
+	 * level. If every symbol has at most one replacement and there are no
+	 * contexts, this is worked out by raising the matrix of how many of each
+	 * symbol each replacement holds to the power of the level, so the
+	 * expansion is never made; otherwise the symbols of the level are counted
+	 * as they are produced.
+	 * 
+	 * @param level
+	 *            the level of recursion to sink to
+	 * @return the map from string symbols to their counts as
+	 *         <CODE>BigInteger</CODE>s, without symbols that do not appear
+	 * @throws IllegalArgumentException
+	 *             if the level is less than 0
+	 */
+	public Map symbolCountsForLevel(int level) {
+		if (level < 0)
+			throw new IllegalArgumentException("Recursion level " + level
+					+ " impossible!");
+		Map counts = new HashMap();
+		if (!isCountable()) {
+			Iterator it = lazyExpansionForLevel(level).iterator();
+			while (it.hasNext()) {
+				Object symbol = it.next();
+				BigInteger count = (BigInteger) counts.get(symbol);
+				counts.put(symbol, count == null ? BigInteger.ONE : count
+						.add(BigInteger.ONE));
+			}
+			return counts;
+		}
+		// Number the symbols that can appear.
+		List symbols = new ArrayList();
+		Map indices = new HashMap();
+		number(lsystem.getAxiom(), symbols, indices);
+		for (int i = 0; i < symbols.size(); i++) {
+			List[] replacements = lsystem.getReplacements((String) symbols
+					.get(i));
+			if (replacements.length > 0)
+				number(replacements[0], symbols, indices);
+		}
+		// Row a of the matrix counts the symbols that a becomes.
+		int n = symbols.size();
+		BigInteger[][] matrix = new BigInteger[n][n];
+		for (int a = 0; a < n; a++) {
+			Arrays.fill(matrix[a], BigInteger.ZERO);
+			List[] replacements = lsystem.getReplacements((String) symbols
+					.get(a));
+			List replacement = replacements.length > 0 ? replacements[0]
+					: Collections.singletonList(symbols.get(a));
+			for (int j = 0; j < replacement.size(); j++) {
+				int b = ((Integer) indices.get(replacement.get(j))).intValue();
+				matrix[a][b] = matrix[a][b].add(BigInteger.ONE);
+			}
+		}
+		BigInteger[] vector = new BigInteger[n];
+		Arrays.fill(vector, BigInteger.ZERO);
+		List axiom = lsystem.getAxiom();
+		for (int j = 0; j < axiom.size(); j++) {
+			int b = ((Integer) indices.get(axiom.get(j))).intValue();
+			vector[b] = vector[b].add(BigInteger.ONE);
+		}
+		// The counts of the axiom times the matrix to the level.
+		for (int power = level; power > 0; power >>= 1) {
+			if ((power & 1) != 0)
+				vector = multiply(new BigInteger[][] { vector }, matrix)[0];
+			if (power > 1)
+				matrix = multiply(matrix, matrix);
+		}
+		for (int b = 0; b < n; b++)
+			if (vector[b].signum() != 0)
+				counts.put(symbols.get(b), vector[b]);
+		return counts;
+	}
+
+	/**
+	 * Returns whether the symbols of a level can be counted without making
+	 * the expansion, which they can when every symbol has at most one
+	 * replacement and there are no contexts.
+	 * 
+	 * @return <CODE>true</CODE> if counting the symbols of a level does not
+	 *         take time proportional to their number
+	 * @see #symbolCountsForLevel
+	 */
+	public boolean isCountable() {
+		return contexts == null && !lsystem.nondeterministic();
+	}
+
+	/**
+	 * Returns the number of symbols in the expansion at a given level.
+	 * 
+	 * @param level
+	 *            the level of recursion to sink to
+	 * @return the number of symbols
+	 * @throws IllegalArgumentException
+	 *             if the level is less than 0
+	 * @see #symbolCountsForLevel
+	 */
+	public BigInteger sizeForLevel(int level) {
+		BigInteger size = BigInteger.ZERO;
+		Iterator it = symbolCountsForLevel(level).values().iterator();
+		while (it.hasNext())
+			size = size.add((BigInteger) it.next());
+		return size;
+	}
+
+	/**
+	 * Adds the symbols of a list not already numbered to the end of a list of
+	 * symbols, and maps them to their indices.
+	 */
+	private static void number(List list, List symbols, Map indices) {
+		for (int i = 0; i < list.size(); i++)
+			if (!indices.containsKey(list.get(i))) {
+				indices.put(list.get(i), new Integer(symbols.size()));
+				symbols.add(list.get(i));
+			}
+	}
+
+	/**
+	 * Multiplies two matrices.
+	 */
+	private static BigInteger[][] multiply(BigInteger[][] a, BigInteger[][] b) {
+		int n = b.length;
+		BigInteger[][] product = new BigInteger[a.length][n];
+		for (int i = 0; i < a.length; i++) {
+			Arrays.fill(product[i], BigInteger.ZERO);
+			for (int k = 0; k < n; k++) {
+				if (a[i][k].signum() == 0)
+					continue;
+				for (int j = 0; j < n; j++)
+					if (b[k][j].signum() != 0)
+						product[i][j] = product[i][j].add(a[i][k]
+								.multiply(b[k][j]));
+			}
+		}
+		return product;
+	}
+
+	/**
+	 * Returns the randomizer that chooses among replacements when a level is
+	 * made from the one before it.
+	 * 
+	 * @param level
+	 *            the level being made
+	 * @return a randomizer that is always seeded the same for the level
+	 */
+	private Random randomForLevel(int level) {
+		return new Random(seed ^ level * 0x9E3779B97F4A7C15L);
+	}
+
 	/**
 	 * Does the expansion of a given string list thing.
 	 * 
 	 * @param symbols
 	 *            the list of symbols to expand
+	 * @param random
+	 *            the randomizer for choosing among replacements
 	 * @return the expansion of the passed in symbols
 	 */
-	private List expand(List symbols) {
+	private List expand(List symbols, Random random) {
 		if (contexts == null)
-			return expandNoContext(symbols);
-		return expandContext(symbols);
+			return expandNoContext(symbols, random);
+		return expandContext(symbols, random);
 	}
 
 	/**
@@ -97,9 +284,11 @@ public class Expander {
 	 * 
 	 * @param symbols
 	 *            the list of symbols to expand
+	 * @param random
+	 *            the randomizer for choosing among replacements
 	 * @return the expansion of the passed in symbols
 	 */
-	private List expandNoContext(List symbols) {
+	private List expandNoContext(List symbols, Random random) {
 		List ne = new ArrayList();
 		for (int i = 0; i < symbols.size(); i++) {
 			String s = (String) symbols.get(i);
@@ -117,7 +306,7 @@ public class Expander {
 			default:
 				// If there's more than one possibility, we choose one
 				// nearly at random.
-				replacement = replacements[stochiastic
+				replacement = replacements[random
 						.nextInt(replacements.length)];
 				break;
 			}
@@ -135,9 +324,11 @@ public class Expander {
 	 * 
 	 * @param symbols
 	 *            the list of symbols to expand
+	 * @param random
+	 *            the randomizer for choosing among replacements
 	 * @return the expansion of the passed in symbols
 	 */
-	private List expandContext(List symbols) {
+	private List expandContext(List symbols, Random random) {
 		List ne = new ArrayList();
 		for (int i = 0; i < symbols.size(); i++) {
 			String s = (String) symbols.get(i);
@@ -162,7 +353,7 @@ public class Expander {
 			default:
 				// If there's more than one possibility, we choose one
 				// nearly at random.
-				replacement = replacements[stochiastic
+				replacement = replacements[random
 						.nextInt(replacements.length)];
 				break;
 			}
@@ -209,12 +400,108 @@ public class Expander {
 				tokens = tokens.subList(1, tokens.size());
 			}
 			contextsList.add(new Context(tokens, context, replacements));
+			maxBefore = Math.max(maxBefore, context);
+			maxAfter = Math.max(maxAfter, tokens.size() - context - 1);
 		}
 		// Set the array.
 		if (hasContexts)
 			contexts = (Context[]) contextsList.toArray(new Context[0]);
 	}
 
+	/**
+	 * This makes the symbols of a level from those of the level before,
+	 * which it reads as it goes. The symbols read are kept only as long as
+	 * some context could need them.
+	 */
+	private class Rewriter implements Iterator {
+		/**
+		 * Instantiates a rewriter.
+		 * 
+		 * @param below
+		 *            the symbols of the level before
+		 * @param random
+		 *            the randomizer for choosing among replacements
+		 */
+		public Rewriter(Iterator below, Random random) {
+			this.below = below;
+			this.random = random;
+		}
+
+		public boolean hasNext() {
+			while (index == replacement.size()) {
+				String s;
+				List[] replacements;
+				if (contexts == null) {
+					if (!below.hasNext())
+						return false;
+					s = (String) below.next();
+					replacements = lsystem.getReplacements(s);
+				} else {
+					while (window.size() <= center + maxAfter
+							&& below.hasNext())
+						window.add(below.next());
+					if (center == window.size())
+						return false;
+					s = (String) window.get(center);
+					ArrayList replacementsList = new ArrayList();
+					for (int j = 0; j < contexts.length; j++) {
+						List[] l = contexts[j].matches(window, center);
+						for (int k = 0; k < l.length; k++)
+							replacementsList.add(l[k]);
+					}
+					replacements = (List[]) replacementsList
+							.toArray(EMPTY_ARRAY);
+					if (++center > maxBefore) {
+						window.subList(0, center - maxBefore).clear();
+						center = maxBefore;
+					}
+				}
+				switch (replacements.length) {
+				case 0:
+					replacement = Collections.singletonList(s);
+					break;
+				case 1:
+					replacement = replacements[0];
+					break;
+				default:
+					replacement = replacements[random
+							.nextInt(replacements.length)];
+				}
+				index = 0;
+			}
+			return true;
+		}
+
+		public Object next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			return replacement.get(index++);
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		/** The symbols of the level before. */
+		private Iterator below;
+
+		/** The randomizer for choosing among replacements. */
+		private Random random;
+
+		/** The replacement being read, and the index of the next symbol. */
+		private List replacement = Collections.EMPTY_LIST;
+
+		private int index = 0;
+
+		/**
+		 * With contexts, the symbols of the level before around the next
+		 * one to replace, which is at <CODE>center</CODE>.
+		 */
+		private ArrayList window = new ArrayList();
+
+		private int center = 0;
+	}
+
 	/**
 	 * This is a class that is used to perform limited matchings of a list.
 	 */
@@ -284,8 +571,11 @@ public class Expander {
 	/** The L-system we are expanding. */
 	private LSystem lsystem;
 
-	/** For stochiastic l-systemness, this will generate random numbers. */
-	private Random stochiastic;
+	/**
+	 * For stochiastic l-systemness, the seed of the random numbers for each
+	 * level.
+	 */
+	private long seed;
 
 	/** The cached expansions. At index 0 is the axiom. */
 	private List cachedExpansions = new ArrayList();
@@ -296,6 +586,12 @@ public class Expander {
 	/** The contexts. */
 	private Context[] contexts = null;
 
+	/**
+	 * The most tokens any context looks at before and after its center
+	 * token.
+	 */
+	private int maxBefore = 0, maxAfter = 0;
+
 	/** An empty list. */
 	protected static final List[] EMPTY_ARRAY = new List[0];
 }
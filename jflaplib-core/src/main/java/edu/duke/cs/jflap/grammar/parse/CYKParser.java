@@ -16,17 +16,34 @@
 
 
 
-
 package edu.duke.cs.jflap.grammar.parse;
 
+import edu.duke.cs.jflap.grammar.CNFConverter;
 import edu.duke.cs.jflap.grammar.Grammar;
 import edu.duke.cs.jflap.grammar.Production;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * CYK Parser 
  * It parses grammar that is in CNF form and returns whether the String is accepted by language or not.
+ * <P>
+ * Each variable of the grammar is given a number, and the table is held as
+ * triangular arrays of bitsets: for each variable and each start in the
+ * input, a bitset of the ends of the substrings from that start that the
+ * variable derives, and for each variable and each end, a bitset of the
+ * starts. A production <CODE>A -> BC</CODE> then derives the substring from
+ * x to y if the ends for B from x and the starts for C to y share a split
+ * point, which is found by anding <CODE>long</CODE>s, 64 split points at a
+ * time. The productions are grouped by their right hand sides, so the split
+ * points of each pair BC are looked for once for all the variables that
+ * derive it. The substrings of one length do not depend on each other, and may be
+ * filled by several threads at once.
  * 
  * @author Kyung Min (Jason) Lee
  *
@@ -38,7 +55,7 @@ public class CYKParser {
 	private Production[] myProductions;
 
 	/** Start variable of the grammar */
-	private static String START_VARIABLE;
+	private String myStartVariable;
 	
 	/** Length of the input String */
 	private int myTargetLength;
@@ -46,13 +63,54 @@ public class CYKParser {
 	/** Productions that leads to the answer */
 	private ArrayList <Production> myAnswerProductions;
 	
-	/** Map to store the result of subparts */
-	private HashMap <String, HashSet<String>> myMap;
-	
 	/** Input string that CYK is trying to parse */
 	private String myTarget;
-	
-	private OrderCorrectly myOrderComparator;
+
+	/** The variables, indexed by their numbers. */
+	private String[] myVariables;
+
+	/** Maps each variable to its number. */
+	private HashMap <String, Integer> myNumbers;
+
+	/** Maps each terminal to the variables that produce it. */
+	private HashMap <String, int[]> myTerminalProductions;
+
+	/**
+	 * The productions with two variables <CODE>A -> BC</CODE>, as the numbers
+	 * of A, B and C at the same index of the three arrays.
+	 */
+	private int[] myParents, myFirsts, mySeconds;
+
+	/**
+	 * The distinct right hand sides <CODE>BC</CODE> of the productions with
+	 * two variables, as the numbers of B and C at the same index of the two
+	 * arrays.
+	 */
+	private int[] myPairFirsts, myPairSeconds;
+
+	/** For each right hand side, the variables that have it as a production. */
+	private int[][] myPairParents;
+
+	/**
+	 * For each variable and start x, the ends of the substrings starting at x
+	 * that the variable derives. Bit y of the bitset is held in word
+	 * <CODE>(y &gt;&gt; 6) - ((x + 1) &gt;&gt; 6)</CODE>.
+	 */
+	private long[][][] myEnds;
+
+	/**
+	 * For each variable that is the second of some production and each end y,
+	 * the starts of the substrings ending at y that the variable derives. Bit
+	 * x of the bitset is held in word <CODE>x &gt;&gt; 6</CODE>.
+	 */
+	private long[][][] myStarts;
+
+	/** The number of threads to fill the table with. */
+	private int myThreads = 1;
+
+	/** The shortest input for which more than one thread is used. */
+	private static final int PARALLEL_THRESHOLD = 256;
+
 	/**
 	 * Constructor for CYK Parser
 	 * @param grammar Grammar that is going to be used in CYK Parsing (It has to be in CNF Form)
@@ -60,8 +118,103 @@ public class CYKParser {
 	public CYKParser(Grammar grammar)
 	{
 		myProductions=grammar.getProductions();
-		START_VARIABLE=grammar.getStartVariable();
-	//	System.out.println("GRAMMAR = "+Arrays.asList(grammar.getProductions()));
+		myStartVariable=grammar.getStartVariable();
+		HashMap <String, Integer> numbers=new HashMap <String, Integer>();
+		ArrayList <String> variables=new ArrayList <String>();
+		HashMap <String, ArrayList<Integer>> terminals=new HashMap <String, ArrayList<Integer>>();
+		ArrayList <int[]> binary=new ArrayList <int[]>();
+		for (int i=0; i<myProductions.length; i++)
+		{
+			int lhs=number(myProductions[i].getLHS(), numbers, variables);
+			String[] tokens=CNFConverter.separateString(myProductions[i].getRHS());
+			if (tokens.length==1)
+			{
+				if (!terminals.containsKey(tokens[0]))
+					terminals.put(tokens[0], new ArrayList<Integer>());
+				terminals.get(tokens[0]).add(lhs);
+			}
+			else if (tokens.length==2)
+				binary.add(new int[] {lhs, number(tokens[0], numbers, variables),
+						number(tokens[1], numbers, variables)});
+		}
+		myVariables=variables.toArray(new String[0]);
+		myNumbers=numbers;
+
+		myTerminalProductions=new HashMap <String, int[]>();
+		for (Map.Entry<String, ArrayList<Integer>> entry : terminals.entrySet())
+		{
+			int[] lhs=new int[entry.getValue().size()];
+			for (int i=0; i<lhs.length; i++)
+				lhs[i]=entry.getValue().get(i);
+			myTerminalProductions.put(entry.getKey(), lhs);
+		}
+		myParents=new int[binary.size()];
+		myFirsts=new int[binary.size()];
+		mySeconds=new int[binary.size()];
+		for (int i=0; i<binary.size(); i++)
+		{
+			myParents[i]=binary.get(i)[0];
+			myFirsts[i]=binary.get(i)[1];
+			mySeconds[i]=binary.get(i)[2];
+		}
+
+		LinkedHashMap <Long, ArrayList<Integer>> pairs=new LinkedHashMap <Long, ArrayList<Integer>>();
+		for (int i=0; i<myParents.length; i++)
+		{
+			Long pair=((long) myFirsts[i]<<32) | mySeconds[i];
+			if (!pairs.containsKey(pair))
+				pairs.put(pair, new ArrayList<Integer>());
+			pairs.get(pair).add(myParents[i]);
+		}
+		myPairFirsts=new int[pairs.size()];
+		myPairSeconds=new int[pairs.size()];
+		myPairParents=new int[pairs.size()][];
+		int index=0;
+		for (Map.Entry<Long, ArrayList<Integer>> entry : pairs.entrySet())
+		{
+			myPairFirsts[index]=(int) (entry.getKey()>>>32);
+			myPairSeconds[index]=(int) entry.getKey().longValue();
+			myPairParents[index]=new int[entry.getValue().size()];
+			for (int i=0; i<myPairParents[index].length; i++)
+				myPairParents[index][i]=entry.getValue().get(i);
+			index++;
+		}
+	}
+
+	/**
+	 * Returns the number of a variable, giving it the next number if it has
+	 * none yet.
+	 */
+	private static int number(String variable, HashMap <String, Integer> numbers,
+			ArrayList <String> variables)
+	{
+		Integer number=numbers.get(variable);
+		if (number!=null)
+			return number;
+		numbers.put(variable, variables.size());
+		variables.add(variable);
+		return variables.size()-1;
+	}
+
+	/**
+	 * Sets the number of threads used to fill the table of long inputs. By
+	 * default the table is filled by the calling thread alone.
+	 * @param threads the number of threads, at least one
+	 */
+	public void setThreads(int threads)
+	{
+		if (threads<1)
+			throw new IllegalArgumentException("There must be at least one thread.");
+		myThreads=threads;
+	}
+
+	/**
+	 * Returns the number of threads used to fill the table of long inputs.
+	 * @return the number of threads
+	 */
+	public int getThreads()
+	{
+		return myThreads;
 	}
 	
 	/**
@@ -70,235 +223,208 @@ public class CYKParser {
 	 */
 	public boolean solve(String target)
 	{
-		myMap=new HashMap <String, HashSet<String>>();
 		int targetLength=target.length();
 		myTargetLength=targetLength;
 		myTarget=target;
+		myEnds=null;
+		myStarts=null;
 		
 		if (target.equals(""))
 			return false;
-		
+
+		int[][] first=new int[targetLength][];
 		for (int i=0; i<targetLength; i++)
 		{
-			String a=target.substring(i,i+1);
-			HashSet <String> temp=new HashSet <String>();
-			int count=0;
-
-			for (int j=0; j<myProductions.length; j++)
-			{
-				if (myProductions[j].getRHS().equals(a))
-				{
-					count++;
-					temp.add(myProductions[j].getLHS());
-				}
-			}
-			String key=i+","+i;
-			myMap.put(key, temp);
-			if (count==0)
-			{
+			first[i]=myTerminalProductions.get(target.substring(i,i+1));
+			if (first[i]==null)
 				return false;
-			}
-			count=0;
-				
 		}
-		//System.out.println(myMap);
-		
-		int increment=1;
-		for (int i=0; i<targetLength; i++)
+
+		boolean[] second=new boolean[myVariables.length];
+		for (int i=0; i<mySeconds.length; i++)
+			second[mySeconds[i]]=true;
+		myEnds=new long[myVariables.length][targetLength][];
+		myStarts=new long[myVariables.length][][];
+		for (int v=0; v<myVariables.length; v++)
 		{
-			for (int j=0; j<targetLength; j++)
-			{
-				if (targetLength<=j+increment)
-					break;
-				int k=j+increment;
-				checkProductions(j,k);
-				
-			//	System.out.print(myMap.get(j+","+k));
-			}
-			//System.out.println();
-			increment++;
+			for (int x=0; x<targetLength; x++)
+				myEnds[v][x]=new long[(targetLength>>6)-((x+1)>>6)+1];
+			if (!second[v])
+				continue;
+			myStarts[v]=new long[targetLength+1][];
+			for (int y=1; y<=targetLength; y++)
+				myStarts[v][y]=new long[((y-1)>>6)+1];
 		}
+		for (int i=0; i<targetLength; i++)
+			for (int j=0; j<first[i].length; j++)
+				add(first[i][j], i, i+1);
 		
-		if (increment==2)
-		{
-			return myMap.get("0,"+(targetLength-1)).contains(START_VARIABLE);
-		}
-
-		if (myMap.get("0,"+(targetLength-1)).contains(START_VARIABLE))
-			return true;
+		if (myThreads>1 && targetLength>=PARALLEL_THRESHOLD)
+			fillParallel(targetLength);
 		else
-			return false;
-	
+			for (int length=2; length<=targetLength; length++)
+				fill(length, 0, targetLength-length+1);
+
+		int start=numberOf(myStartVariable);
+		return start>=0 && contains(start, 0, targetLength);
 	}
-	
+
 	/**
-	 * Helper method of solve method that checks the surrounding production
-	 * @param x
-	 * @param y
+	 * Fills the table with several threads, one length after another.
 	 */
-	private void checkProductions(int x,int y)
+	private void fillParallel(int targetLength)
 	{
-		HashSet <String> tempSet=new HashSet <String>();
-		
-		for (int i=0; i<myProductions.length; i++)
+		ExecutorService executor=Executors.newFixedThreadPool(myThreads);
+		try
 		{
-			for (int k=x; k<y; k++)
+			for (int length=2; length<=targetLength; length++)
 			{
-				String key1=x+","+k;
-				String key2=(k+1)+","+y;
-				for (String A : myMap.get(key1))
+				int starts=targetLength-length+1;
+				int chunk=(starts+myThreads-1)/myThreads;
+				ArrayList <Callable<Object>> tasks=new ArrayList <Callable<Object>>();
+				for (int from=0; from<starts; from+=chunk)
 				{
-					for (String B : myMap.get(key2))
-					{
-						String target=A+B;
-						if (myProductions[i].getRHS().equals(target))
-						{
-							HashSet <String> temp2Set=new HashSet <String>();
-							tempSet.add(myProductions[i].getLHS());
-							temp2Set.add("0"+A+"/"+key1);
-							temp2Set.add("1"+B+"/"+key2);
-
-							String tempKey=x+","+y+myProductions[i].getLHS();
-							if (myMap.get(tempKey)!=null)
-								temp2Set.addAll(myMap.get(tempKey));
-
-							myMap.put(tempKey, temp2Set);
+					final int l=length, f=from, t=Math.min(from+chunk, starts);
+					tasks.add(new Callable<Object>() {
+						public Object call() {
+							fill(l, f, t);
+							return null;
 						}
-					}
+					});
 				}
+				for (Future<Object> future : executor.invokeAll(tasks))
+					future.get();
 			}
 		}
-		String key=x+","+y;
-		myMap.put(key, tempSet);
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("CYK parse was interrupted.", e);
+		}
+		catch (ExecutionException e)
+		{
+			throw new RuntimeException(e.getCause());
+		}
+		finally
+		{
+			executor.shutdown();
+		}
 	}
-	
+
 	/**
-	 * Method for getting the trace of how the parser achieved the target String
-	 * @return ArrayList of Productions that was applied to attain target String
+	 * Fills in the substrings of the given length, for each start from
+	 * <CODE>from</CODE> up to but not including <CODE>to</CODE>. Filling in
+	 * a substring changes only the bitsets of its own start and end, so
+	 * different substrings of one length may be filled at once.
 	 */
-	public ArrayList <Production> getTrace()
+	private void fill(int length, int from, int to)
 	{
-		myAnswerProductions=new ArrayList <Production>();
-		myOrderComparator=new OrderCorrectly();
-		
-	//	System.out.println("WHOLE MAP = "+myMap);
-		
-		getMoreProductions(START_VARIABLE, "0,"+(myTargetLength-1));
-		
-	//	System.out.println(myAnswerProductions);
-		
-		return myAnswerProductions;
+		for (int x=from; x<to; x++)
+		{
+			int y=x+length;
+			for (int p=0; p<myPairParents.length; p++)
+			{
+				int[] parents=myPairParents[p];
+				boolean missing=false;
+				for (int i=0; i<parents.length && !missing; i++)
+					missing=!contains(parents[i], x, y);
+				if (!missing || split(myPairFirsts[p], myPairSeconds[p], x, y)<0)
+					continue;
+				for (int i=0; i<parents.length; i++)
+					add(parents[i], x, y);
+			}
+		}
 	}
-	
+
 	/**
-	 * Helper method of getTrace method which recursively backtracks how Parser achieved the target String
-	 * @param variable Variable that we are chekcing
-	 * @param location Location of the variable
+	 * Returns the first split point m such that the first variable derives
+	 * the substring from x to m and the second the substring from m to y, or
+	 * -1 if there is none.
 	 */
-	private void getMoreProductions(String variable, String location)
+	private int split(int first, int second, int x, int y)
 	{
-	//	//System.out.println("WHOLE MAP = "+myMap);
-		if (myMap.get(location+variable)==null)
+		long[] ends=myEnds[first][x];
+		long[] starts=myStarts[second][y];
+		int base=(x+1)>>6;
+		for (int w=base, last=(y-1)>>6; w<=last; w++)
 		{
-		//	//System.out.println("Location inside = "+location);
-		//	//System.out.println("Variable inside = "+variable);
-			int loc=Integer.parseInt(location.substring(0,location.indexOf(",")));
-			myAnswerProductions.add(new Production(variable, myTarget.substring(loc,loc+1)));
-			return;
-			
+			long both=ends[w-base] & starts[w];
+			if (both!=0)
+				return (w<<6)+Long.numberOfTrailingZeros(both);
 		}
-		
-	/*	//System.out.println("Map = "+myMap.get(location+variable));
-		//System.out.println("Location = "+location);
-		//System.out.println("Variable = "+variable);*/
-		
-		ArrayList <String> optionsA=new ArrayList <String>();
-		ArrayList <String> optionsB=new ArrayList <String>();
-		
-		String[] A=new String[2];
-		String[] B=new String[2];
-		for (String var : myMap.get(location+variable))
-		{
-			if (var.startsWith("0"))
-				optionsA.add(var);
-			else
-				optionsB.add(var);
-		}
-		Collections.sort(optionsA, myOrderComparator);
-		Collections.sort(optionsB, myOrderComparator);
-		
-	//	//System.out.println("AAA = "+optionsA);
-	//	//System.out.println("BBB = "+optionsB);
-		
+		return -1;
+	}
+
+	/**
+	 * Records that a variable derives the substring from x to y.
+	 */
+	private void add(int variable, int x, int y)
+	{
+		myEnds[variable][x][(y>>6)-((x+1)>>6)]|=1L<<y;
+		if (myStarts[variable]!=null)
+			myStarts[variable][y][x>>6]|=1L<<x;
+	}
+
+	/**
+	 * Returns if a variable derives the substring from x to y.
+	 */
+	private boolean contains(int variable, int x, int y)
+	{
+		return (myEnds[variable][x][(y>>6)-((x+1)>>6)] & 1L<<y)!=0;
+	}
+
+	/**
+	 * Returns the number of a variable, or -1 if it is in no production.
+	 */
+	private int numberOf(String variable)
+	{
+		Integer number=myNumbers.get(variable);
+		return number==null ? -1 : number;
+	}
 	
+	/**
+	 * Method for getting the trace of how the parser achieved the target String
+	 * @return ArrayList of Productions that was applied to attain target String
+	 */
+	public ArrayList <Production> getTrace()
+	{
+		myAnswerProductions=new ArrayList <Production>();
+		int start=numberOf(myStartVariable);
+		if (myEnds==null || start<0 || !contains(start, 0, myTargetLength))
+			return myAnswerProductions;
 		
-		boolean isDone=false;
-		for (int i=0; i<optionsA.size(); i++)
+		// Each entry is a variable and the start and end of what it derives.
+		LinkedList <int[]> stack=new LinkedList <int[]>();
+		stack.addFirst(new int[] {start, 0, myTargetLength});
+		while (!stack.isEmpty())
 		{
-			int index=optionsA.get(i).indexOf("/");
-			String a=optionsA.get(i).substring(1, index);
-			String locA=optionsA.get(i).substring(index+1);
-			
-			for (int j=0; j<optionsB.size(); j++)
+			int[] node=stack.removeFirst();
+			int variable=node[0], x=node[1], y=node[2];
+			if (y==x+1)
 			{
-				index=optionsB.get(i).indexOf("/");
-				String b=optionsB.get(i).substring(1, index);
-				String locB=optionsB.get(i).substring(index+1);
-				
-				Production p=new Production(variable, a+b);
-				for (int k=0; k<myProductions.length; k++)
+				myAnswerProductions.add(new Production(myVariables[variable],
+						myTarget.substring(x, y)));
+				continue;
+			}
+			// Prefer the production that splits off the shortest left part.
+			int best=-1, bestSplit=y;
+			for (int i=0; i<myParents.length; i++)
+			{
+				if (myParents[i]!=variable)
+					continue;
+				int m=split(myFirsts[i], mySeconds[i], x, y);
+				if (m>0 && m<bestSplit)
 				{
-					if (myProductions[k].getLHS().equals(p.getLHS()) &&
-							myProductions[k].getRHS().equals(p.getRHS()))
-					{
-						A[0]=a;
-						A[1]=locA;
-						B[0]=b;
-						B[1]=locB;
-						isDone=true;
-						break;
-					}
+					best=i;
+					bestSplit=m;
 				}
-				if (isDone)
-					break;
 			}
-			if (isDone)
-				break;
+			myAnswerProductions.add(new Production(myVariables[variable],
+					myVariables[myFirsts[best]]+myVariables[mySeconds[best]]));
+			stack.addFirst(new int[] {mySeconds[best], bestSplit, y});
+			stack.addFirst(new int[] {myFirsts[best], x, bestSplit});
 		}
 		
-	//	//System.out.println("Selected = "+A[0]+" at "+A[1]);
-	//	//System.out.println("Selected = "+B[0]+" at "+B[1]);
-		
-		myAnswerProductions.add(new Production(variable, A[0]+B[0]));
-		getMoreProductions(A[0],A[1]);
-		getMoreProductions(B[0],B[1]);
-		
+		return myAnswerProductions;
 	}
 }
-
-final class OrderCorrectly implements Comparator
-{
-	public int compare(Object o1, Object o2) {
-		String str1=(String) o1;
-		String str2=(String) o2;
-		int index1=str1.indexOf("/");
-		String loc1=str1.substring(index1+1);
-		int index1_1=loc1.indexOf(",");
-		int lc1_1=Integer.parseInt(loc1.substring(0,index1_1));
-		int lc1_2=Integer.parseInt(loc1.substring(index1_1+1));
-	
-		int index2=str2.indexOf("/");
-		String loc2=str2.substring(index2+1);
-		int index2_1=loc2.indexOf(",");
-		int lc2_1=Integer.parseInt(loc2.substring(0,index2_1));
-		int lc2_2=Integer.parseInt(loc2.substring(index2_1+1));
-		
-		if (lc1_1==lc2_1)
-		{
-			return lc1_2-lc2_2;
-		}
-		
-		return lc1_1-lc2_1;
-	}
-	
-}
\ No newline at end of file
@@ -0,0 +1,251 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package edu.duke.cs.jflap.grammar.parse;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.StringTokenizer;
+
+import edu.duke.cs.jflap.grammar.Grammar;
+import edu.duke.cs.jflap.grammar.Production;
+
+/**
+ * A compiled LR table is an LR parse table as arrays of ints, so that the
+ * <CODE>LRParser</CODE> does not look up and parse a string for every move.
+ * <P>
+ * Terminals are numbered in column order, with <CODE>$</CODE> last, and so
+ * are variables. The action for a state and terminal is 0 for an error,
+ * <CODE>s + 1</CODE> for a shift to state <CODE>s</CODE>, and
+ * <CODE>-p - 1</CODE> for a reduction by production <CODE>p</CODE>; the
+ * reduction by production 0, the production of the augmented start variable,
+ * is acceptance. The goto for a state and variable is the state, or -1.
+ * <P>
+ * Where a cell holds more than one directive, only the first is kept; the
+ * table counts such cells as conflicts. Instances are immutable.
+ * 
+ * @see edu.duke.cs.jflap.grammar.parse.LRAutomaton#compile
+ */
+
+public class CompiledLRTable {
+	/**
+	 * Compiles a parse table, as filled in by the user or by
+	 * <CODE>LRAutomaton.getParseTable</CODE>.
+	 * 
+	 * @param grammar
+	 *            the augmented grammar, whose production 0 is the production
+	 *            of the new start variable
+	 * @param table
+	 *            the parse table
+	 * @throws IllegalArgumentException
+	 *             if an entry is not a directive
+	 */
+	public CompiledLRTable(Grammar grammar, LRParseTable table) {
+		int columns = table.getColumnCount(), t = 0;
+		while (t + 1 < columns && !table.getColumnName(t + 1).equals("$"))
+			t++;
+		t++;
+		int v = columns - 1 - t;
+		terminals = new char[t];
+		for (int x = 0; x < t; x++)
+			terminals[x] = table.getColumnName(x + 1).charAt(0);
+		Map variableNumbers = new HashMap();
+		for (int a = 0; a < v; a++)
+			variableNumbers.put(table.getColumnName(t + 1 + a), new Integer(a));
+		productions = grammar.getProductions();
+		lhs = new int[productions.length];
+		lengths = new int[productions.length];
+		for (int p = 0; p < productions.length; p++) {
+			Integer number = (Integer) variableNumbers.get(productions[p]
+					.getLHS());
+			lhs[p] = number == null ? -1 : number.intValue();
+			lengths[p] = productions[p].getRHS().length();
+		}
+		int states = table.getRowCount();
+		action = new int[states * t];
+		goTo = new int[states * v];
+		int conflicts = 0;
+		for (int s = 0; s < states; s++) {
+			for (int x = 0; x < t; x++) {
+				StringTokenizer st = new StringTokenizer((String) table
+						.getValueAt(s, x + 1));
+				if (!st.hasMoreTokens())
+					continue;
+				action[s * t + x] = directive(st.nextToken());
+				if (st.hasMoreTokens())
+					conflicts++;
+			}
+			for (int a = 0; a < v; a++) {
+				StringTokenizer st = new StringTokenizer((String) table
+						.getValueAt(s, t + 1 + a));
+				goTo[s * v + a] = st.hasMoreTokens() ? number(st.nextToken())
+						: -1;
+			}
+		}
+		variableCount = v;
+		conflictCount = conflicts;
+		initTerminalNumbers();
+	}
+
+	/**
+	 * Instantiates a compiled table from its arrays, as made by the
+	 * <CODE>LRAutomaton</CODE>.
+	 */
+	CompiledLRTable(char[] terminals, int[] action, int[] goTo,
+			int variableCount, int[] lhs, int[] lengths,
+			Production[] productions, int conflictCount) {
+		this.terminals = terminals;
+		this.action = action;
+		this.goTo = goTo;
+		this.variableCount = variableCount;
+		this.lhs = lhs;
+		this.lengths = lengths;
+		this.productions = productions;
+		this.conflictCount = conflictCount;
+		initTerminalNumbers();
+	}
+
+	/**
+	 * Returns the int form of a directive.
+	 */
+	private static int directive(String directive) {
+		if (directive.equals("acc"))
+			return -1;
+		if (directive.charAt(0) == 's')
+			return number(directive.substring(1)) + 1;
+		if (directive.charAt(0) == 'r')
+			return -number(directive.substring(1)) - 1;
+		throw new IllegalArgumentException("Bad directive " + directive);
+	}
+
+	private static int number(String string) {
+		try {
+			return Integer.parseInt(string);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Bad state number " + string);
+		}
+	}
+
+	/**
+	 * Sets up the lookup of terminal numbers from characters.
+	 */
+	private void initTerminalNumbers() {
+		asciiNumbers = new int[128];
+		Arrays.fill(asciiNumbers, -1);
+		otherNumbers = new HashMap();
+		for (int x = 0; x < terminals.length - 1; x++) {
+			if (terminals[x] < 128)
+				asciiNumbers[terminals[x]] = x;
+			else
+				otherNumbers.put(new Character(terminals[x]), new Integer(x));
+		}
+	}
+
+	/**
+	 * Returns the number of states.
+	 * 
+	 * @return the number of rows of the table
+	 */
+	public int getStateCount() {
+		return action.length / terminals.length;
+	}
+
+	/**
+	 * Returns the number of cells with more than one directive. The parser
+	 * follows the first.
+	 * 
+	 * @return the number of conflicts
+	 */
+	public int getConflictCount() {
+		return conflictCount;
+	}
+
+	/**
+	 * Returns the number of a terminal in the input, or -1 if it is not a
+	 * terminal of the grammar.
+	 */
+	int getTerminalNumber(char c) {
+		if (c < 128)
+			return asciiNumbers[c];
+		Integer number = (Integer) otherNumbers.get(new Character(c));
+		return number == null ? -1 : number.intValue();
+	}
+
+	/** Returns the number of <CODE>$</CODE>. */
+	int getEndNumber() {
+		return terminals.length - 1;
+	}
+
+	/** Returns the action for a state and terminal number. */
+	int getAction(int state, int terminal) {
+		return action[state * terminals.length + terminal];
+	}
+
+	/** Returns the goto for a state and variable number. */
+	int getGoto(int state, int variable) {
+		return goTo[state * variableCount + variable];
+	}
+
+	/** Returns the number of the left hand side of a production. */
+	int getLHS(int production) {
+		return lhs[production];
+	}
+
+	/** Returns the length of the right hand side of a production. */
+	int getLength(int production) {
+		return lengths[production];
+	}
+
+	/** Returns a production of the augmented grammar. */
+	Production getProduction(int production) {
+		return productions[production];
+	}
+
+	/** The terminals, with <CODE>$</CODE> last. */
+	private final char[] terminals;
+
+	/** The actions, by state then terminal. */
+	private final int[] action;
+
+	/** The gotos, by state then variable. */
+	private final int[] goTo;
+
+	/** The number of variables. */
+	private final int variableCount;
+
+	/** The variable number of the left hand side of each production. */
+	private final int[] lhs;
+
+	/** The length of the right hand side of each production. */
+	private final int[] lengths;
+
+	/** The productions of the augmented grammar. */
+	private final Production[] productions;
+
+	/** The number of cells with more than one directive. */
+	private final int conflictCount;
+
+	/** The numbers of the ASCII terminals, or -1. */
+	private int[] asciiNumbers;
+
+	/** The numbers of the other terminals. */
+	private Map otherNumbers;
+}
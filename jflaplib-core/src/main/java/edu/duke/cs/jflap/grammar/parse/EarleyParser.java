@@ -0,0 +1,397 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+
+package edu.duke.cs.jflap.grammar.parse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+
+import edu.duke.cs.jflap.grammar.Grammar;
+import edu.duke.cs.jflap.grammar.Production;
+import edu.duke.cs.jflap.grammar.ProductionChecker;
+
+/**
+ * The Earley parser decides whether a context free grammar derives a string,
+ * and finds a derivation if it does. Unlike the <CODE>CYKParser</CODE> it
+ * works on the grammar as it is, with lambda and unit productions and any
+ * number of symbols on the right hand side, so no conversion to Chomsky
+ * normal form is needed; unlike the <CODE>BruteParser</CODE> it takes time
+ * cubic in the length of the input at worst, and close to linear for most
+ * unambiguous grammars.
+ * <P>
+ * Each item of the parse, a production with a dot in it and the position
+ * where the production began, is made once for each position it reaches, and
+ * is shared by every parse that passes through it. Each item remembers the
+ * item it was advanced from and, if the symbol it moved past is a variable,
+ * the completed item for that variable, so a derivation is read back from
+ * the items without parsing again. Lambda productions are handled by moving
+ * past nullable variables when they are predicted.
+ * 
+ * @see edu.duke.cs.jflap.grammar.parse.CYKParser
+ * @see edu.duke.cs.jflap.grammar.parse.BruteParser
+ */
+
+public class EarleyParser {
+	/**
+	 * Instantiates a parser for a grammar. The grammar is read now, so later
+	 * changes to it do not affect this parser.
+	 * 
+	 * @param grammar
+	 *            the grammar to parse with
+	 * @throws IllegalArgumentException
+	 *             if the grammar is not context free
+	 */
+	public EarleyParser(Grammar grammar) {
+		myProductions = grammar.getProductions();
+		HashMap numbers = new HashMap();
+		ArrayList variables = new ArrayList();
+		for (int i = 0; i < myProductions.length; i++) {
+			if (!ProductionChecker.isRestrictedOnLHS(myProductions[i]))
+				throw new IllegalArgumentException("The production "
+						+ myProductions[i] + " is not context free.");
+			number(myProductions[i].getLHS().charAt(0), numbers, variables);
+			String rhs = myProductions[i].getRHS();
+			for (int j = 0; j < rhs.length(); j++)
+				if (ProductionChecker.isVariable(rhs.charAt(j)))
+					number(rhs.charAt(j), numbers, variables);
+		}
+		myVariables = new char[variables.size()];
+		for (int i = 0; i < myVariables.length; i++)
+			myVariables[i] = ((Character) variables.get(i)).charValue();
+
+		// Encode the right hand sides, variables as their numbers and
+		// terminals as their characters less than zero.
+		myLHS = new int[myProductions.length];
+		myRHS = new int[myProductions.length][];
+		int[] counts = new int[myVariables.length];
+		for (int i = 0; i < myProductions.length; i++) {
+			myLHS[i] = ((Integer) numbers.get(new Character(myProductions[i]
+					.getLHS().charAt(0)))).intValue();
+			counts[myLHS[i]]++;
+			String rhs = myProductions[i].getRHS();
+			myRHS[i] = new int[rhs.length()];
+			for (int j = 0; j < rhs.length(); j++) {
+				char c = rhs.charAt(j);
+				myRHS[i][j] = ProductionChecker.isVariable(c) ? ((Integer) numbers
+						.get(new Character(c))).intValue()
+						: -1 - c;
+			}
+		}
+		myProductionsOf = new int[myVariables.length][];
+		for (int v = 0; v < myVariables.length; v++) {
+			myProductionsOf[v] = new int[counts[v]];
+			counts[v] = 0;
+		}
+		for (int i = 0; i < myProductions.length; i++)
+			myProductionsOf[myLHS[i]][counts[myLHS[i]]++] = i;
+
+		// Find the nullable variables, and for each the production that
+		// first showed it nullable, so empty derivations never loop.
+		myEmptyProduction = new int[myVariables.length];
+		for (int v = 0; v < myVariables.length; v++)
+			myEmptyProduction[v] = -1;
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (int i = 0; i < myProductions.length; i++) {
+				if (myEmptyProduction[myLHS[i]] != -1)
+					continue;
+				boolean nullable = true;
+				for (int j = 0; j < myRHS[i].length && nullable; j++)
+					nullable = myRHS[i][j] >= 0
+							&& myEmptyProduction[myRHS[i][j]] != -1;
+				if (nullable) {
+					myEmptyProduction[myLHS[i]] = i;
+					changed = true;
+				}
+			}
+		}
+
+		Character start = grammar.getStartVariable() == null
+				|| grammar.getStartVariable().length() != 1 ? null
+				: new Character(grammar.getStartVariable().charAt(0));
+		Integer number = (Integer) numbers.get(start);
+		myStart = number == null ? -1 : number.intValue();
+	}
+
+	/**
+	 * Gives a variable the next number, if it has none yet.
+	 */
+	private static void number(char variable, HashMap numbers,
+			ArrayList variables) {
+		Character key = new Character(variable);
+		if (numbers.containsKey(key))
+			return;
+		numbers.put(key, new Integer(variables.size()));
+		variables.add(key);
+	}
+
+	/**
+	 * Returns whether the grammar derives the target string. Each character of
+	 * the string is one terminal.
+	 * 
+	 * @param target
+	 *            the string to parse
+	 * @return <CODE>true</CODE> if the start variable derives
+	 *         <CODE>target</CODE>
+	 */
+	public boolean solve(String target) {
+		myAnswer = null;
+		int n = target.length();
+		if (myStart == -1)
+			return false;
+		Chart[] charts = new Chart[n + 1];
+		charts[0] = new Chart(myVariables.length);
+		for (int k = 0; k < myProductionsOf[myStart].length; k++)
+			charts[0].add(myProductionsOf[myStart][k], 0, 0, null, null);
+		for (int j = 0; j <= n; j++) {
+			Chart chart = charts[j];
+			if (j < n)
+				charts[j + 1] = new Chart(myVariables.length);
+			for (int k = 0; k < chart.items.size(); k++) {
+				Item item = (Item) chart.items.get(k);
+				int[] rhs = myRHS[item.production];
+				if (item.dot == rhs.length) {
+					complete(item, charts, j);
+					continue;
+				}
+				int symbol = rhs[item.dot];
+				if (symbol < 0) {
+					// Scan.
+					if (j < n && target.charAt(j) == (char) (-1 - symbol))
+						charts[j + 1].add(item.production, item.dot + 1,
+								item.origin, item, null);
+					continue;
+				}
+				// Predict.
+				chart.waitFor(symbol, item);
+				if (!chart.predicted[symbol]) {
+					chart.predicted[symbol] = true;
+					for (int p = 0; p < myProductionsOf[symbol].length; p++)
+						chart.add(myProductionsOf[symbol][p], 0, j, null, null);
+				}
+				if (myEmptyProduction[symbol] != -1)
+					chart.add(item.production, item.dot + 1, item.origin, item,
+							null);
+			}
+		}
+		myAnswer = charts[n].find(myStart, myLHS, myRHS);
+		return myAnswer != null;
+	}
+
+	/**
+	 * Advances the items waiting for the variable of a completed item. Items
+	 * completed where they began are skipped, as the items waiting for their
+	 * variable moved past it when it was predicted.
+	 */
+	private void complete(Item item, Chart[] charts, int j) {
+		if (item.origin == j)
+			return;
+		ArrayList waiting = charts[item.origin].waiting[myLHS[item.production]];
+		if (waiting == null)
+			return;
+		for (int i = 0; i < waiting.size(); i++) {
+			Item parent = (Item) waiting.get(i);
+			charts[j].add(parent.production, parent.dot + 1, parent.origin,
+					parent, item);
+		}
+	}
+
+	/**
+	 * Returns the productions of a leftmost derivation of the last string
+	 * parsed, in the order they are applied.
+	 * 
+	 * @return the productions of the derivation, or an empty list if the
+	 *         last string was not derived
+	 */
+	public ArrayList<Production> getTrace() {
+		ArrayList<Production> trace = new ArrayList<Production>();
+		if (myAnswer == null)
+			return trace;
+		// Each entry is a completed item, or a nullable variable number.
+		LinkedList pending = new LinkedList();
+		pending.add(myAnswer);
+		while (!pending.isEmpty()) {
+			Object next = pending.removeFirst();
+			if (next instanceof Integer) {
+				int production = myEmptyProduction[((Integer) next).intValue()];
+				trace.add(myProductions[production]);
+				for (int i = myRHS[production].length - 1; i >= 0; i--)
+					pending.addFirst(new Integer(myRHS[production][i]));
+				continue;
+			}
+			Item item = (Item) next;
+			trace.add(myProductions[item.production]);
+			int[] rhs = myRHS[item.production];
+			for (; item.dot > 0; item = item.previous) {
+				int symbol = rhs[item.dot - 1];
+				if (symbol < 0)
+					continue;
+				pending.addFirst(item.child == null ? (Object) new Integer(
+						symbol) : item.child);
+			}
+		}
+		return trace;
+	}
+
+	/**
+	 * Returns the leftmost derivation of the last string parsed, as a chain of
+	 * parse nodes from the start variable down to the string, each the child
+	 * of the one before it and each applying one production, as the
+	 * <CODE>BruteParser</CODE> reports its answer.
+	 * 
+	 * @return the last parse node of the derivation, or <CODE>null</CODE> if
+	 *         the last string was not derived
+	 */
+	public ParseNode getAnswer() {
+		if (myAnswer == null)
+			return null;
+		ParseNode node = new ParseNode(String.valueOf(myVariables[myStart]),
+				new Production[0], new int[0]);
+		StringBuffer derivation = new StringBuffer(node.getDerivation());
+		ArrayList<Production> trace = getTrace();
+		int position = 0;
+		for (int i = 0; i < trace.size(); i++) {
+			Production production = trace.get(i);
+			while (!ProductionChecker.isVariable(derivation.charAt(position)))
+				position++;
+			derivation.replace(position, position + 1, production.getRHS());
+			ParseNode child = new ParseNode(derivation.toString(),
+					new Production[] { production }, new int[] { position });
+			node.add(child);
+			node = child;
+		}
+		return node;
+	}
+
+	/**
+	 * An item of the parse: a production, how much of it has been matched,
+	 * and where in the input it began.
+	 */
+	private static class Item {
+		Item(int production, int dot, int origin, Item previous, Item child) {
+			this.production = production;
+			this.dot = dot;
+			this.origin = origin;
+			this.previous = previous;
+			this.child = child;
+		}
+
+		final int production, dot, origin;
+
+		/** The item this was advanced from, or <CODE>null</CODE>. */
+		final Item previous;
+
+		/**
+		 * The completed item for the variable this was advanced past, or
+		 * <CODE>null</CODE> if it was a terminal or derived nothing.
+		 */
+		final Item child;
+	}
+
+	/**
+	 * The items that end at one position of the input.
+	 */
+	private static class Chart {
+		Chart(int variables) {
+			waiting = new ArrayList[variables];
+			predicted = new boolean[variables];
+		}
+
+		/**
+		 * Adds an item unless an equal one is already here. The first way an
+		 * item is reached is the one remembered.
+		 */
+		void add(int production, int dot, int origin, Item previous, Item child) {
+			Long key = new Long(((long) production << 42) | ((long) dot << 21)
+					| origin);
+			if (keys.containsKey(key))
+				return;
+			Item item = new Item(production, dot, origin, previous, child);
+			keys.put(key, item);
+			items.add(item);
+		}
+
+		/**
+		 * Notes that an item here waits for a variable.
+		 */
+		void waitFor(int variable, Item item) {
+			if (waiting[variable] == null)
+				waiting[variable] = new ArrayList();
+			waiting[variable].add(item);
+		}
+
+		/**
+		 * Returns a completed item for the start variable that began at the
+		 * start of the input, or <CODE>null</CODE> if there is none.
+		 */
+		Item find(int start, int[] lhs, int[][] rhs) {
+			for (int i = 0; i < items.size(); i++) {
+				Item item = (Item) items.get(i);
+				if (item.origin == 0 && lhs[item.production] == start
+						&& item.dot == rhs[item.production].length)
+					return item;
+			}
+			return null;
+		}
+
+		final ArrayList items = new ArrayList();
+
+		final HashMap keys = new HashMap();
+
+		/** For each variable, the items here waiting for it. */
+		final ArrayList[] waiting;
+
+		/** For each variable, whether its productions were predicted here. */
+		final boolean[] predicted;
+	}
+
+	/** The productions of the grammar. */
+	private Production[] myProductions;
+
+	/** The variables, indexed by their numbers. */
+	private char[] myVariables;
+
+	/** The number of the left hand side variable of each production. */
+	private int[] myLHS;
+
+	/**
+	 * The right hand side of each production, variables as their numbers and
+	 * each terminal <CODE>c</CODE> as <CODE>-1 - c</CODE>.
+	 */
+	private int[][] myRHS;
+
+	/** For each variable, the productions it is the left hand side of. */
+	private int[][] myProductionsOf;
+
+	/**
+	 * For each nullable variable, a production that derives nothing from it,
+	 * or -1 if it is not nullable.
+	 */
+	private int[] myEmptyProduction;
+
+	/** The number of the start variable, or -1 if it is in no production. */
+	private int myStart;
+
+	/** The completed start item of the last parse, if it was derived. */
+	private Item myAnswer;
+}
@@ -0,0 +1,831 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package edu.duke.cs.jflap.grammar.parse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import edu.duke.cs.jflap.grammar.Grammar;
+import edu.duke.cs.jflap.grammar.Production;
+import edu.duke.cs.jflap.grammar.ProductionChecker;
+
+/**
+ * The first and follow sets keep the FIRST and FOLLOW sets of the variables
+ * of a grammar, and which variables derive lambda, up to date as productions
+ * are added and removed, without going over the whole grammar again.
+ * <P>
+ * Symbols are numbered as they are first seen, and the sets are bitsets over
+ * the terminal numbers, where terminal 0 is the end of string
+ * <CODE>$</CODE>. The sets are computed with worklists of productions: when
+ * the FIRST set of a variable grows, only the productions it occurs in are
+ * looked at again, and when its FOLLOW set grows, only its own productions.
+ * <P>
+ * Adding a production can only make the sets grow, so the new production
+ * starts the worklists from the present sets. Removing one can make them
+ * shrink: the variables whose sets could depend on it are found first, their
+ * sets are emptied, and only they are computed again from the sets of the
+ * other variables, which stay as they are.
+ * <P>
+ * <CODE>Operations.first</CODE> and <CODE>Operations.follow</CODE> keep an
+ * instance for each grammar, and <CODE>update</CODE> it to the grammar's
+ * productions each time they are called.
+ * 
+ * @see edu.duke.cs.jflap.grammar.parse.Operations
+ */
+
+public class FirstFollowSets {
+	/**
+	 * Computes the sets for a grammar. The productions are copied, so later
+	 * changes to the grammar are seen only through <CODE>update</CODE> or
+	 * the methods that add and remove productions.
+	 * 
+	 * @param grammar
+	 *            the grammar
+	 */
+	public FirstFollowSets(Grammar grammar) {
+		terminal("$");
+		update(grammar);
+	}
+
+	/**
+	 * Brings the sets up to date with the productions and start variable of
+	 * a grammar. Only the productions that differ are added or removed,
+	 * unless there are so many that computing everything again is quicker.
+	 * 
+	 * @param grammar
+	 *            the grammar
+	 */
+	public void update(Grammar grammar) {
+		Production[] current = grammar.getProductions();
+		Set wanted = new HashSet();
+		ArrayList added = new ArrayList();
+		for (int i = 0; i < current.length; i++) {
+			Production production = new Production(current[i].getLHS(),
+					current[i].getRHS());
+			if (wanted.add(production) && !slots.containsKey(production))
+				added.add(production);
+		}
+		ArrayList removed = new ArrayList();
+		for (Iterator it = slots.keySet().iterator(); it.hasNext();) {
+			Object production = it.next();
+			if (!wanted.contains(production))
+				removed.add(production);
+		}
+		int changes = added.size() + removed.size();
+		if (changes > 8 && changes > slots.size() / 4) {
+			for (int i = 0; i < removed.size(); i++)
+				unregister(((Integer) slots.get(removed.get(i))).intValue());
+			for (int i = 0; i < added.size(); i++)
+				register((Production) added.get(i));
+			setStart(grammar.getStartVariable());
+			recompute();
+			return;
+		}
+		for (int i = 0; i < removed.size(); i++)
+			removeProduction((Production) removed.get(i));
+		for (int i = 0; i < added.size(); i++)
+			addProduction((Production) added.get(i));
+		setStartVariable(grammar.getStartVariable());
+	}
+
+	/**
+	 * Adds a production, and makes the sets grow to match.
+	 * 
+	 * @param production
+	 *            the production to add
+	 * @return <CODE>false</CODE> if the production was already there
+	 */
+	public boolean addProduction(Production production) {
+		if (slots.containsKey(production))
+			return false;
+		int p = register(new Production(production.getLHS(), production
+				.getRHS()));
+		IntList seeds = new IntList();
+		seeds.add(p);
+		IntList changed = propagateFirst(seeds);
+		for (int i = 0; i < changed.size(); i++)
+			seeds.addAll(occurrences[changed.get(i)]);
+		propagateFollow(seeds);
+		return true;
+	}
+
+	/**
+	 * Removes a production, and computes again the sets that may depend on
+	 * it.
+	 * 
+	 * @param production
+	 *            the production to remove
+	 * @return <CODE>false</CODE> if the production was not there
+	 */
+	public boolean removeProduction(Production production) {
+		Integer slot = (Integer) slots.get(production);
+		if (slot == null)
+			return false;
+		int p = slot.intValue(), a = lhs[p];
+		int[] removedRHS = rhs[p];
+
+		// The variables whose FIRST sets may depend on the left hand side.
+		boolean[] inFirst = new boolean[variableCount];
+		IntList firstAffected = new IntList();
+		inFirst[a] = true;
+		firstAffected.add(a);
+		for (int i = 0; i < firstAffected.size(); i++) {
+			int x = firstAffected.get(i);
+			IntList qs = occurrences[x];
+			for (int j = 0; j < qs.size(); j++) {
+				int q = qs.get(j);
+				if (!inFirst[lhs[q]] && beginsWith(rhs[q], x)) {
+					inFirst[lhs[q]] = true;
+					firstAffected.add(lhs[q]);
+				}
+			}
+		}
+		boolean[] oldNullable = (boolean[]) nullable.clone();
+		long[][] oldFirst = new long[firstAffected.size()][];
+		for (int i = 0; i < firstAffected.size(); i++) {
+			int x = firstAffected.get(i);
+			oldFirst[i] = (long[]) first[x].clone();
+			nullable[x] = false;
+			Arrays.fill(first[x], 0L);
+		}
+		unregister(p);
+		IntList seeds = new IntList();
+		for (int i = 0; i < firstAffected.size(); i++)
+			seeds.addAll(productionsOf[firstAffected.get(i)]);
+		propagateFirst(seeds);
+
+		// The variables whose FOLLOW sets may depend on what changed.
+		boolean[] inFollow = new boolean[variableCount];
+		IntList followAffected = new IntList();
+		addVariables(removedRHS, inFollow, followAffected);
+		for (int i = 0; i < firstAffected.size(); i++) {
+			int x = firstAffected.get(i);
+			if (nullable[x] == oldNullable[x]
+					&& Arrays.equals(first[x], oldFirst[i]))
+				continue;
+			IntList qs = occurrences[x];
+			for (int j = 0; j < qs.size(); j++)
+				addVariables(rhs[qs.get(j)], inFollow, followAffected);
+		}
+		for (int i = 0; i < followAffected.size(); i++) {
+			IntList qs = productionsOf[followAffected.get(i)];
+			for (int j = 0; j < qs.size(); j++) {
+				int[] symbols = rhs[qs.get(j)];
+				for (int k = symbols.length - 1; k >= 0 && symbols[k] >= 0; k--) {
+					if (!inFollow[symbols[k]]) {
+						inFollow[symbols[k]] = true;
+						followAffected.add(symbols[k]);
+					}
+					if (!oldNullable[symbols[k]])
+						break;
+				}
+			}
+		}
+		seeds.clear();
+		for (int i = 0; i < followAffected.size(); i++) {
+			int x = followAffected.get(i);
+			Arrays.fill(follow[x], 0L);
+			if (x == start)
+				set(follow[x], END);
+			seeds.addAll(occurrences[x]);
+		}
+		propagateFollow(seeds);
+		return true;
+	}
+
+	/**
+	 * Changes the start variable, whose FOLLOW set holds <CODE>$</CODE>.
+	 * 
+	 * @param variable
+	 *            the new start variable
+	 */
+	public void setStartVariable(String variable) {
+		Object old = start < 0 ? null : variableNames.get(start);
+		if (variable == null ? old == null : variable.equals(old))
+			return;
+		setStart(variable);
+		for (int x = 0; x < variableCount; x++)
+			Arrays.fill(follow[x], 0L);
+		if (start >= 0)
+			set(follow[start], END);
+		propagateFollow(allProductions());
+	}
+
+	/**
+	 * Sets the start variable without computing anything.
+	 */
+	private void setStart(String variable) {
+		start = variable == null ? -1 : variable(variable);
+		firstSets = followSets = null;
+	}
+
+	/**
+	 * Computes all the sets again from nothing.
+	 */
+	private void recompute() {
+		for (int x = 0; x < variableCount; x++) {
+			nullable[x] = false;
+			Arrays.fill(first[x], 0L);
+			Arrays.fill(follow[x], 0L);
+		}
+		if (start >= 0)
+			set(follow[start], END);
+		propagateFirst(allProductions());
+		propagateFollow(allProductions());
+	}
+
+	/**
+	 * Returns if a variable appears at the start of a right hand side, or
+	 * after variables that derive lambda.
+	 */
+	private boolean beginsWith(int[] symbols, int variable) {
+		for (int i = 0; i < symbols.length; i++) {
+			if (symbols[i] == variable)
+				return true;
+			if (symbols[i] < 0 || !nullable[symbols[i]])
+				return false;
+		}
+		return false;
+	}
+
+	/**
+	 * Adds the variables of a right hand side to a list, once each.
+	 */
+	private static void addVariables(int[] symbols, boolean[] in, IntList list) {
+		for (int i = 0; i < symbols.length; i++)
+			if (symbols[i] >= 0 && !in[symbols[i]]) {
+				in[symbols[i]] = true;
+				list.add(symbols[i]);
+			}
+	}
+
+	/**
+	 * Makes the FIRST sets and lambda derivations grow from the given
+	 * productions until nothing changes.
+	 * 
+	 * @return the variables whose sets changed
+	 */
+	private IntList propagateFirst(IntList seeds) {
+		IntList changed = new IntList();
+		boolean[] inChanged = new boolean[variableCount];
+		boolean[] queued = new boolean[lhs.length];
+		IntList queue = new IntList();
+		for (int i = 0; i < seeds.size(); i++)
+			enqueue(seeds.get(i), queue, queued);
+		for (int head = 0; head < queue.size(); head++) {
+			int p = queue.get(head);
+			queued[p] = false;
+			if (rhs[p] == null)
+				continue;
+			int a = lhs[p];
+			boolean grew = false, empty = true;
+			for (int i = 0; i < rhs[p].length && empty; i++) {
+				int x = rhs[p][i];
+				if (x < 0) {
+					grew |= set(first[a], -x - 1);
+					empty = false;
+				} else {
+					grew |= or(first[a], first[x]);
+					empty = nullable[x];
+				}
+			}
+			if (empty && !nullable[a])
+				nullable[a] = grew = true;
+			if (!grew)
+				continue;
+			if (!inChanged[a]) {
+				inChanged[a] = true;
+				changed.add(a);
+			}
+			IntList qs = occurrences[a];
+			for (int j = 0; j < qs.size(); j++)
+				enqueue(qs.get(j), queue, queued);
+		}
+		firstSets = followSets = null;
+		return changed;
+	}
+
+	/**
+	 * Makes the FOLLOW sets grow from the given productions until nothing
+	 * changes.
+	 */
+	private void propagateFollow(IntList seeds) {
+		boolean[] queued = new boolean[lhs.length];
+		IntList queue = new IntList();
+		for (int i = 0; i < seeds.size(); i++)
+			enqueue(seeds.get(i), queue, queued);
+		long[] trailer = new long[words];
+		for (int head = 0; head < queue.size(); head++) {
+			int p = queue.get(head);
+			queued[p] = false;
+			if (rhs[p] == null)
+				continue;
+			System.arraycopy(follow[lhs[p]], 0, trailer, 0, words);
+			for (int i = rhs[p].length - 1; i >= 0; i--) {
+				int x = rhs[p][i];
+				if (x < 0) {
+					Arrays.fill(trailer, 0L);
+					set(trailer, -x - 1);
+					continue;
+				}
+				if (or(follow[x], trailer)) {
+					IntList qs = productionsOf[x];
+					for (int j = 0; j < qs.size(); j++)
+						enqueue(qs.get(j), queue, queued);
+				}
+				if (!nullable[x])
+					Arrays.fill(trailer, 0L);
+				or(trailer, first[x]);
+			}
+		}
+		firstSets = followSets = null;
+	}
+
+	/**
+	 * Adds a production to a queue, if it is not already waiting there.
+	 */
+	private static void enqueue(int p, IntList queue, boolean[] queued) {
+		if (queued[p])
+			return;
+		queued[p] = true;
+		queue.add(p);
+	}
+
+	/**
+	 * Returns all the productions.
+	 */
+	private IntList allProductions() {
+		IntList all = new IntList();
+		for (int p = 0; p < lhs.length; p++)
+			if (rhs[p] != null)
+				all.add(p);
+		return all;
+	}
+
+	/**
+	 * Numbers the symbols of a production and indexes it, without computing
+	 * anything.
+	 * 
+	 * @return the slot of the production
+	 */
+	private int register(Production production) {
+		int p;
+		if (freeSlots.size() > 0) {
+			p = freeSlots.get(freeSlots.size() - 1);
+			freeSlots.removeLast();
+		} else {
+			p = slots.size();
+			if (p == lhs.length) {
+				int size = Math.max(8, p * 2);
+				lhs = grow(lhs, size);
+				int[][] bigger = new int[size][];
+				System.arraycopy(rhs, 0, bigger, 0, p);
+				rhs = bigger;
+				Production[] biggerProductions = new Production[size];
+				System.arraycopy(productions, 0, biggerProductions, 0, p);
+				productions = biggerProductions;
+			}
+		}
+		slots.put(production, new Integer(p));
+		productions[p] = production;
+		firstSets = followSets = null;
+		int a = variable(production.getLHS());
+		String string = production.getRHS();
+		int[] symbols = new int[string.length()];
+		for (int i = 0; i < symbols.length; i++) {
+			String symbol = string.substring(i, i + 1);
+			symbols[i] = ProductionChecker.isVariable(string.charAt(i)) ? variable(symbol)
+					: -terminal(symbol) - 1;
+		}
+		lhs[p] = a;
+		rhs[p] = symbols;
+		productionsOf[a].add(p);
+		variableUses[a]++;
+		for (int i = 0; i < symbols.length; i++) {
+			int x = symbols[i];
+			if (indexOf(symbols, x) < i)
+				continue;
+			if (x < 0) {
+				terminalUses[-x - 1]++;
+				continue;
+			}
+			occurrences[x].add(p);
+			if (x != a)
+				variableUses[x]++;
+		}
+		return p;
+	}
+
+	/**
+	 * Drops a production from the indices, without computing anything.
+	 */
+	private void unregister(int p) {
+		int a = lhs[p];
+		int[] symbols = rhs[p];
+		productionsOf[a].remove(p);
+		variableUses[a]--;
+		for (int i = 0; i < symbols.length; i++) {
+			int x = symbols[i];
+			if (indexOf(symbols, x) < i)
+				continue;
+			if (x < 0) {
+				terminalUses[-x - 1]--;
+				continue;
+			}
+			occurrences[x].remove(p);
+			if (x != a)
+				variableUses[x]--;
+		}
+		slots.remove(productions[p]);
+		productions[p] = null;
+		rhs[p] = null;
+		freeSlots.add(p);
+		firstSets = followSets = null;
+	}
+
+	private static int indexOf(int[] array, int value) {
+		for (int i = 0; i < array.length; i++)
+			if (array[i] == value)
+				return i;
+		return -1;
+	}
+
+	/**
+	 * Returns the number of a variable, numbering it if it is new.
+	 */
+	private int variable(String name) {
+		Integer number = (Integer) variableNumbers.get(name);
+		if (number != null)
+			return number.intValue();
+		int x = variableCount++;
+		if (x == nullable.length) {
+			int size = Math.max(8, x * 2);
+			boolean[] biggerNullable = new boolean[size];
+			System.arraycopy(nullable, 0, biggerNullable, 0, x);
+			nullable = biggerNullable;
+			first = grow(first, size);
+			follow = grow(follow, size);
+			variableUses = grow(variableUses, size);
+			IntList[] biggerProductions = new IntList[size], biggerOccurrences = new IntList[size];
+			System.arraycopy(productionsOf, 0, biggerProductions, 0, x);
+			System.arraycopy(occurrences, 0, biggerOccurrences, 0, x);
+			productionsOf = biggerProductions;
+			occurrences = biggerOccurrences;
+		}
+		first[x] = new long[words];
+		follow[x] = new long[words];
+		productionsOf[x] = new IntList();
+		occurrences[x] = new IntList();
+		variableNames.add(name);
+		variableNumbers.put(name, new Integer(x));
+		return x;
+	}
+
+	/**
+	 * Returns the number of a terminal, numbering it if it is new.
+	 */
+	private int terminal(String name) {
+		Integer number = (Integer) terminalNumbers.get(name);
+		if (number != null)
+			return number.intValue();
+		int t = terminalNames.size();
+		if (t == words * 64) {
+			words++;
+			for (int x = 0; x < variableCount; x++) {
+				first[x] = grow(first[x], words);
+				follow[x] = grow(follow[x], words);
+			}
+		}
+		if (t == terminalUses.length)
+			terminalUses = grow(terminalUses, Math.max(8, t * 2));
+		terminalNames.add(name);
+		terminalNumbers.put(name, new Integer(t));
+		return t;
+	}
+
+	private static int[] grow(int[] array, int size) {
+		int[] bigger = new int[size];
+		System.arraycopy(array, 0, bigger, 0, array.length);
+		return bigger;
+	}
+
+	private static long[] grow(long[] array, int size) {
+		long[] bigger = new long[size];
+		System.arraycopy(array, 0, bigger, 0, array.length);
+		return bigger;
+	}
+
+	private static long[][] grow(long[][] array, int size) {
+		long[][] bigger = new long[size][];
+		System.arraycopy(array, 0, bigger, 0, array.length);
+		return bigger;
+	}
+
+	private static boolean set(long[] bits, int i) {
+		long old = bits[i >> 6];
+		bits[i >> 6] |= 1L << i;
+		return bits[i >> 6] != old;
+	}
+
+	private static boolean or(long[] into, long[] from) {
+		boolean changed = false;
+		for (int w = 0; w < from.length; w++) {
+			long old = into[w];
+			into[w] |= from[w];
+			changed |= into[w] != old;
+		}
+		return changed;
+	}
+
+	/**
+	 * Returns the terminals of a bitset as a set of strings.
+	 */
+	private Set names(long[] bits) {
+		Set set = new HashSet();
+		for (int w = 0; w < bits.length; w++)
+			for (long b = bits[w]; b != 0; b &= b - 1)
+				set.add(terminalNames.get((w << 6)
+						+ Long.numberOfTrailingZeros(b)));
+		return set;
+	}
+
+	/**
+	 * Returns if a variable derives lambda.
+	 * 
+	 * @param variable
+	 *            the variable
+	 * @return if <CODE>variable</CODE> derives lambda
+	 */
+	public boolean isNullable(String variable) {
+		Integer number = (Integer) variableNumbers.get(variable);
+		return number != null && nullable[number.intValue()];
+	}
+
+	/**
+	 * Returns the FIRST set of a sequence of symbols, as
+	 * <CODE>Operations.first(Map, String)</CODE> does: the terminals that
+	 * may begin a string it derives, and the empty string if it derives
+	 * lambda.
+	 * 
+	 * @param sequence
+	 *            the sequence of symbols
+	 * @return the FIRST set of <CODE>sequence</CODE>
+	 */
+	public Set getFirst(String sequence) {
+		long[] bits = new long[words];
+		boolean empty = true;
+		for (int i = 0; i < sequence.length() && empty; i++) {
+			String symbol = sequence.substring(i, i + 1);
+			if (!ProductionChecker.isVariable(sequence.charAt(i))) {
+				Set set = names(bits);
+				set.add(symbol);
+				return set;
+			}
+			Integer number = (Integer) variableNumbers.get(symbol);
+			if (number == null)
+				return names(bits);
+			or(bits, first[number.intValue()]);
+			empty = nullable[number.intValue()];
+		}
+		Set set = names(bits);
+		if (empty)
+			set.add("");
+		return set;
+	}
+
+	/**
+	 * Returns the FOLLOW set of a variable.
+	 * 
+	 * @param variable
+	 *            the variable
+	 * @return the terminals, and <CODE>$</CODE>, that may follow
+	 *         <CODE>variable</CODE>
+	 */
+	public Set getFollow(String variable) {
+		Integer number = (Integer) variableNumbers.get(variable);
+		return number == null ? new HashSet() : names(follow[number
+				.intValue()]);
+	}
+
+	/**
+	 * Returns the FIRST sets of the symbols of the productions, as
+	 * <CODE>Operations.first(Grammar)</CODE> does. The map is kept until
+	 * the sets change, and must not be changed.
+	 * 
+	 * @return a map from the terminals and variables to their FIRST sets,
+	 *         which hold the empty string for variables that derive lambda
+	 */
+	public Map getFirstSets() {
+		if (firstSets != null)
+			return firstSets;
+		firstSets = new HashMap();
+		for (int t = 1; t < terminalNames.size(); t++)
+			if (terminalUses[t] > 0) {
+				Set set = new HashSet();
+				set.add(terminalNames.get(t));
+				firstSets.put(terminalNames.get(t), set);
+			}
+		for (int x = 0; x < variableCount; x++)
+			if (variableUses[x] > 0) {
+				Set set = names(first[x]);
+				if (nullable[x])
+					set.add("");
+				firstSets.put(variableNames.get(x), set);
+			}
+		return firstSets;
+	}
+
+	/**
+	 * Returns the FOLLOW sets of the variables of the productions and of the
+	 * start variable, as <CODE>Operations.follow</CODE> does. The map is
+	 * kept until the sets change, and must not be changed.
+	 * 
+	 * @return a map from the variables to their FOLLOW sets
+	 */
+	public Map getFollowSets() {
+		if (followSets != null)
+			return followSets;
+		followSets = new HashMap();
+		for (int x = 0; x < variableCount; x++)
+			if (variableUses[x] > 0 || x == start)
+				followSets.put(variableNames.get(x), names(follow[x]));
+		return followSets;
+	}
+
+	/**
+	 * Returns if the productions of each variable can be told apart by one
+	 * terminal of lookahead: their FIRST sets do not meet, at most one
+	 * derives lambda, and if one does, the FIRST sets of the others do not
+	 * meet the variable's FOLLOW set.
+	 * 
+	 * @return if the grammar is LL(1)
+	 */
+	public boolean isLL1() {
+		long[] seen = new long[words];
+		for (int a = 0; a < variableCount; a++) {
+			IntList ps = productionsOf[a];
+			Arrays.fill(seen, 0L);
+			boolean lambda = false;
+			for (int i = 0; i < ps.size(); i++) {
+				int[] symbols = rhs[ps.get(i)];
+				long[] bits = new long[words];
+				boolean empty = true;
+				for (int j = 0; j < symbols.length && empty; j++) {
+					if (symbols[j] < 0) {
+						set(bits, -symbols[j] - 1);
+						empty = false;
+					} else {
+						or(bits, first[symbols[j]]);
+						empty = nullable[symbols[j]];
+					}
+				}
+				if (empty) {
+					if (lambda)
+						return false;
+					lambda = true;
+					or(bits, follow[a]);
+				}
+				for (int w = 0; w < words; w++) {
+					if ((seen[w] & bits[w]) != 0)
+						return false;
+					seen[w] |= bits[w];
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * A growable list of ints.
+	 */
+	private static class IntList {
+		void add(int value) {
+			if (size == values.length)
+				values = grow(values, values.length * 2);
+			values[size++] = value;
+		}
+
+		void addAll(IntList list) {
+			for (int i = 0; i < list.size; i++)
+				add(list.values[i]);
+		}
+
+		void remove(int value) {
+			for (int i = 0; i < size; i++)
+				if (values[i] == value) {
+					values[i] = values[--size];
+					return;
+				}
+		}
+
+		void removeLast() {
+			size--;
+		}
+
+		void clear() {
+			size = 0;
+		}
+
+		int get(int i) {
+			return values[i];
+		}
+
+		int size() {
+			return size;
+		}
+
+		private int[] values = new int[4];
+
+		private int size;
+	}
+
+	/** The number of <CODE>$</CODE>. */
+	private static final int END = 0;
+
+	/** The slots of the productions, by production. */
+	private Map slots = new HashMap();
+
+	/** The slots freed by removed productions. */
+	private IntList freeSlots = new IntList();
+
+	/** The production in each slot, or <CODE>null</CODE>. */
+	private Production[] productions = new Production[0];
+
+	/** The left hand side of the production in each slot. */
+	private int[] lhs = new int[0];
+
+	/**
+	 * The right hand side of the production in each slot, with variables as
+	 * their numbers and terminal <CODE>t</CODE> as <CODE>-t - 1</CODE>, or
+	 * <CODE>null</CODE> for a free slot.
+	 */
+	private int[][] rhs = new int[0][];
+
+	/** The numbers of the variables. */
+	private Map variableNumbers = new HashMap();
+
+	/** The variables, by number. */
+	private ArrayList variableNames = new ArrayList();
+
+	/** The number of variables. */
+	private int variableCount;
+
+	/** The numbers of the terminals. */
+	private Map terminalNumbers = new HashMap();
+
+	/** The terminals, by number, with <CODE>$</CODE> first. */
+	private ArrayList terminalNames = new ArrayList();
+
+	/** The number of longs in a set of terminals. */
+	private int words = 1;
+
+	/** The number of productions each variable appears in. */
+	private int[] variableUses = new int[0];
+
+	/** The number of productions each terminal appears in. */
+	private int[] terminalUses = new int[0];
+
+	/** The productions of each variable. */
+	private IntList[] productionsOf = new IntList[0];
+
+	/** The productions each variable appears on the right hand side of. */
+	private IntList[] occurrences = new IntList[0];
+
+	/** Which variables derive lambda. */
+	private boolean[] nullable = new boolean[0];
+
+	/** The FIRST set of each variable. */
+	private long[][] first = new long[0][];
+
+	/** The FOLLOW set of each variable. */
+	private long[][] follow = new long[0][];
+
+	/** The number of the start variable, or -1. */
+	private int start = -1;
+
+	/** The maps of the sets, until the sets change. */
+	private Map firstSets, followSets;
+}
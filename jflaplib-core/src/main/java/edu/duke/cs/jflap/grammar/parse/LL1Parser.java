@@ -0,0 +1,421 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package edu.duke.cs.jflap.grammar.parse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.SortedSet;
+
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreeModel;
+
+import edu.duke.cs.jflap.grammar.Grammar;
+import edu.duke.cs.jflap.grammar.Production;
+
+/**
+ * The LL(1) parser parses strings with an LL(1) parse table, as the
+ * <CODE>LLParseController</CODE> does step by step in the GUI, but in one
+ * call and with no user interaction.
+ * <P>
+ * The table is compiled to an array of ints holding, for each variable and
+ * lookahead, the index of the production to expand by, and the parse stack
+ * is an array of ints that is kept between calls, so that a parse allocates
+ * nothing. Where a cell has more than one expansion the first is taken, as
+ * the GUI takes it, and the cell is reported as a <CODE>Conflict</CODE>. A
+ * choice that would expand variables forever without reading the lookahead
+ * is dropped from the table, so that every parse ends.
+ * <P>
+ * The parser is not thread-safe, since it keeps its stack; each thread needs
+ * its own.
+ * 
+ * @see edu.duke.cs.jflap.grammar.parse.LLParseTableGenerator
+ */
+
+public class LL1Parser {
+	/**
+	 * Instantiates a parser for a grammar, with the table the
+	 * <CODE>LLParseTableGenerator</CODE> generates for it.
+	 * 
+	 * @param grammar
+	 *            the grammar
+	 */
+	public LL1Parser(Grammar grammar) {
+		this(grammar, LLParseTableGenerator.generate(grammar));
+	}
+
+	/**
+	 * Instantiates a parser for a grammar with a parse table, which may have
+	 * been filled in by the user.
+	 * 
+	 * @param grammar
+	 *            the grammar
+	 * @param table
+	 *            the parse table for the grammar
+	 * @throws IllegalArgumentException
+	 *             if an expansion in the table is not a production of its
+	 *             variable, or a symbol of the grammar is not in the table
+	 */
+	public LL1Parser(Grammar grammar, LLParseTable table) {
+		// Terminals in column order, then $, then variables in row order.
+		int t = table.getColumnCount() - 2, v = table.getRowCount();
+		terminals = new char[t];
+		Map numbers = new HashMap();
+		for (int x = 0; x < t; x++) {
+			terminals[x] = table.getColumnName(x + 1).charAt(0);
+			numbers.put(table.getColumnName(x + 1), new Integer(x));
+		}
+		end = t;
+		variableBase = t + 1;
+		variables = new String[v];
+		for (int a = 0; a < v; a++) {
+			variables[a] = (String) table.getValueAt(a, 0);
+			numbers.put(variables[a], new Integer(variableBase + a));
+		}
+		Integer start = (Integer) numbers.get(grammar.getStartVariable());
+		startSymbol = start == null ? -1 : start.intValue();
+
+		// The right hand sides, reversed, ready to push.
+		productions = grammar.getProductions();
+		rhsStart = new int[productions.length + 1];
+		for (int p = 0; p < productions.length; p++)
+			rhsStart[p + 1] = rhsStart[p] + productions[p].getRHS().length();
+		reversedRHS = new int[rhsStart[productions.length]];
+		Map productionNumbers = new HashMap();
+		for (int p = 0; p < productions.length; p++) {
+			String rhs = productions[p].getRHS();
+			for (int j = 0; j < rhs.length(); j++) {
+				Integer number = (Integer) numbers.get(rhs.substring(j, j + 1));
+				if (number == null)
+					throw new IllegalArgumentException("The symbol "
+							+ rhs.charAt(j) + " is not in the table.");
+				reversedRHS[rhsStart[p + 1] - 1 - j] = number.intValue();
+			}
+			productionNumbers.put(productions[p], new Integer(p));
+		}
+
+		// The table, and the conflicts in it.
+		int columns = t + 1;
+		this.table = new int[v * columns];
+		ArrayList conflicts = new ArrayList();
+		for (int a = 0; a < v; a++)
+			for (int x = 0; x < columns; x++) {
+				String lookahead = table.getColumnName(x + 1);
+				SortedSet expansions = table.get(variables[a], lookahead);
+				Production[] choices = new Production[expansions.size()];
+				Iterator it = expansions.iterator();
+				for (int i = 0; it.hasNext(); i++) {
+					choices[i] = new Production(variables[a], (String) it
+							.next());
+					if (!productionNumbers.containsKey(choices[i]))
+						throw new IllegalArgumentException(choices[i]
+								+ " is not a production of the grammar.");
+				}
+				this.table[a * columns + x] = choices.length == 0 ? -1
+						: ((Integer) productionNumbers.get(choices[0]))
+								.intValue();
+				if (choices.length > 1)
+					conflicts.add(new Conflict(variables[a], lookahead,
+							choices));
+			}
+		this.conflicts = (Conflict[]) conflicts.toArray(new Conflict[0]);
+		removeLoops();
+
+		asciiNumbers = new int[128];
+		Arrays.fill(asciiNumbers, -1);
+		otherNumbers = new HashMap();
+		for (int x = 0; x < t; x++) {
+			if (terminals[x] < 128)
+				asciiNumbers[terminals[x]] = x;
+			else
+				otherNumbers.put(new Character(terminals[x]), new Integer(x));
+		}
+		stack = new int[16];
+	}
+
+	/**
+	 * Empties the cells whose expansion, on that lookahead, leads back to
+	 * the same variable on top of the stack without reading anything.
+	 */
+	private void removeLoops() {
+		int columns = end + 1, v = table.length / columns;
+		int[] status = new int[v];
+		for (int x = 0; x < columns; x++) {
+			Arrays.fill(status, UNKNOWN);
+			for (int a = 0; a < v; a++)
+				if (status(a, x, status) == LOOPS)
+					table[a * columns + x] = -1;
+		}
+	}
+
+	/**
+	 * Returns what expanding a variable does on a lookahead: reaches a
+	 * terminal or an empty cell, derives lambda, or loops.
+	 */
+	private int status(int variable, int lookahead, int[] status) {
+		if (status[variable] == VISITING)
+			return LOOPS;
+		if (status[variable] != UNKNOWN)
+			return status[variable];
+		int p = table[variable * (end + 1) + lookahead];
+		if (p < 0)
+			return status[variable] = STOPS;
+		status[variable] = VISITING;
+		int result = VANISHES;
+		for (int i = rhsStart[p + 1] - 1; i >= rhsStart[p]
+				&& result == VANISHES; i--)
+			result = reversedRHS[i] < variableBase ? STOPS : status(
+					reversedRHS[i] - variableBase, lookahead, status);
+		return status[variable] = result;
+	}
+
+	/**
+	 * Returns the cells of the table with more than one expansion.
+	 * 
+	 * @return the conflicts, by variable then lookahead; the array is empty
+	 *         if the table is LL(1)
+	 */
+	public Conflict[] getConflicts() {
+		return (Conflict[]) conflicts.clone();
+	}
+
+	/**
+	 * Returns the number of a terminal of the input, or -1 if it is not a
+	 * terminal of the grammar.
+	 */
+	private int terminal(CharSequence string, int p) {
+		if (p == string.length())
+			return end;
+		char c = string.charAt(p);
+		if (c < 128)
+			return asciiNumbers[c];
+		Integer number = (Integer) otherNumbers.get(new Character(c));
+		return number == null ? -1 : number.intValue();
+	}
+
+	/**
+	 * Parses a string.
+	 * 
+	 * @param string
+	 *            the string to parse
+	 * @return if the string is in the language of the grammar
+	 */
+	public boolean parse(CharSequence string) {
+		return parse(string, null);
+	}
+
+	/**
+	 * Parses a string, and returns its parse tree.
+	 * 
+	 * @param string
+	 *            the string to parse
+	 * @return the parse tree, whose nodes hold the symbols as strings, or
+	 *         <CODE>null</CODE> if the string is not in the language of the
+	 *         grammar
+	 */
+	public TreeModel parseTree(CharSequence string) {
+		if (startSymbol < 0)
+			return null;
+		DefaultMutableTreeNode root = new DefaultMutableTreeNode(
+				variables[startSymbol - variableBase]);
+		DefaultMutableTreeNode[] nodes = new DefaultMutableTreeNode[stack.length];
+		nodes[1] = root;
+		return parse(string, nodes) ? new DefaultTreeModel(root) : null;
+	}
+
+	/**
+	 * Parses a string, building the parse tree if there is an array for the
+	 * nodes on the stack, which holds the root.
+	 */
+	private boolean parse(CharSequence string, DefaultMutableTreeNode[] nodes) {
+		if (startSymbol < 0)
+			return false;
+		int columns = end + 1, top = 1, p = 0;
+		stack[0] = end;
+		stack[1] = startSymbol;
+		int read = terminal(string, 0);
+		while (read >= 0) {
+			int symbol = stack[top];
+			if (symbol < variableBase) {
+				// Match!
+				if (symbol != read)
+					return false;
+				if (symbol == end)
+					return true;
+				top--;
+				read = terminal(string, ++p);
+				continue;
+			}
+			// Expand!
+			int production = table[(symbol - variableBase) * columns + read];
+			if (production < 0)
+				return false;
+			int from = rhsStart[production], to = rhsStart[production + 1];
+			if (top + to - from >= stack.length) {
+				int[] bigger = new int[Math.max(stack.length * 2, top + to
+						- from + 1)];
+				System.arraycopy(stack, 0, bigger, 0, top + 1);
+				stack = bigger;
+			}
+			System.arraycopy(reversedRHS, from, stack, top, to - from);
+			if (nodes != null) {
+				if (nodes.length < stack.length) {
+					DefaultMutableTreeNode[] bigger = new DefaultMutableTreeNode[stack.length];
+					System.arraycopy(nodes, 0, bigger, 0, top + 1);
+					nodes = bigger;
+				}
+				DefaultMutableTreeNode parent = nodes[top];
+				String rhs = productions[production].getRHS();
+				for (int j = 0; j < rhs.length(); j++) {
+					DefaultMutableTreeNode child = new DefaultMutableTreeNode(
+							rhs.substring(j, j + 1));
+					parent.add(child);
+					nodes[top + rhs.length() - 1 - j] = child;
+				}
+			}
+			top += to - from - 1;
+		}
+		return false;
+	}
+
+	/**
+	 * A cell of the table with more than one expansion.
+	 */
+	public static class Conflict {
+		/**
+		 * Instantiates a conflict.
+		 * 
+		 * @param variable
+		 *            the variable of the cell
+		 * @param lookahead
+		 *            the lookahead terminal of the cell, or $
+		 * @param productions
+		 *            the productions in the cell
+		 */
+		public Conflict(String variable, String lookahead,
+				Production[] productions) {
+			this.variable = variable;
+			this.lookahead = lookahead;
+			this.productions = productions;
+		}
+
+		/**
+		 * Returns the variable of the cell.
+		 * 
+		 * @return the variable
+		 */
+		public String getVariable() {
+			return variable;
+		}
+
+		/**
+		 * Returns the lookahead of the cell.
+		 * 
+		 * @return the lookahead terminal, or $
+		 */
+		public String getLookahead() {
+			return lookahead;
+		}
+
+		/**
+		 * Returns the productions in the cell, the one the parser takes
+		 * first.
+		 * 
+		 * @return the productions in conflict
+		 */
+		public Production[] getProductions() {
+			return (Production[]) productions.clone();
+		}
+
+		/**
+		 * Returns a string representation of the conflict.
+		 * 
+		 * @return the variable, lookahead and productions
+		 */
+		public String toString() {
+			return "M[" + variable + ", " + lookahead + "] = "
+					+ Arrays.asList(productions);
+		}
+
+		private final String variable;
+
+		private final String lookahead;
+
+		private final Production[] productions;
+	}
+
+	/** The status of a variable not yet visited. */
+	private static final int UNKNOWN = 0;
+
+	/** The status of a variable being visited. */
+	private static final int VISITING = 1;
+
+	/** The status of a variable whose expansion reaches a terminal. */
+	private static final int STOPS = 2;
+
+	/** The status of a variable whose expansion derives lambda. */
+	private static final int VANISHES = 3;
+
+	/** The status of a variable whose expansion comes back to it. */
+	private static final int LOOPS = 4;
+
+	/** The terminals, in column order. */
+	private final char[] terminals;
+
+	/** The variables, in row order. */
+	private final String[] variables;
+
+	/** The number of <CODE>$</CODE>, one more than the last terminal. */
+	private final int end;
+
+	/** The number of the first variable, one more than <CODE>$</CODE>. */
+	private final int variableBase;
+
+	/** The number of the start variable, or -1 if it is not in the table. */
+	private final int startSymbol;
+
+	/** The productions of the grammar. */
+	private final Production[] productions;
+
+	/** Where the right hand side of each production starts. */
+	private final int[] rhsStart;
+
+	/** The right hand sides as symbol numbers, each reversed. */
+	private final int[] reversedRHS;
+
+	/** The production for each variable and lookahead, or -1. */
+	private final int[] table;
+
+	/** The cells with more than one expansion. */
+	private final Conflict[] conflicts;
+
+	/** The numbers of the ASCII terminals, or -1. */
+	private final int[] asciiNumbers;
+
+	/** The numbers of the other terminals. */
+	private final Map otherNumbers;
+
+	/** The parse stack, kept between calls. */
+	private int[] stack;
+}
@@ -0,0 +1,780 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package edu.duke.cs.jflap.grammar.parse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import edu.duke.cs.jflap.automata.State;
+import edu.duke.cs.jflap.automata.StatePlacer;
+import edu.duke.cs.jflap.automata.fsa.FSATransition;
+import edu.duke.cs.jflap.automata.fsa.FiniteStateAutomaton;
+import edu.duke.cs.jflap.grammar.Grammar;
+import edu.duke.cs.jflap.grammar.Production;
+import edu.duke.cs.jflap.grammar.ProductionChecker;
+
+/**
+ * The LR automaton is the canonical collection of LR(0) item sets of a
+ * context free grammar, with the goto function between them, built without
+ * user interaction. From it come LR(0), SLR(1) and LALR(1) parse tables,
+ * either as an <CODE>LRParseTable</CODE> for display or as a
+ * <CODE>CompiledLRTable</CODE> of ints for the <CODE>LRParser</CODE>.
+ * <P>
+ * The grammar is augmented with a production from a new start variable, as
+ * <CODE>Operations.getAugmentedGrammar</CODE> does, so production 0 is that
+ * production and production <CODE>i</CODE> + 1 is production <CODE>i</CODE>
+ * of the grammar. Items are ints: the items of production <CODE>p</CODE> are
+ * numbered consecutively, one for each position of the dot, and symbols are
+ * ints too, the terminals and the end of string <CODE>$</CODE> first, then
+ * the variables. A state is identified by its kernel, the sorted items that
+ * goto put in it, and new kernels are looked up in a hash table, so each
+ * item set is closed only once. The closure adds, for each variable after a
+ * dot, a precomputed list of the items that variable brings in.
+ * <P>
+ * LALR(1) lookaheads are found by propagation over the items of all the
+ * states: an item passes its lookaheads to the item goto makes of it, and to
+ * the items its closure adds when what follows the variable can be empty;
+ * those items also get the FIRST set of what follows spontaneously. The
+ * lookaheads are then spread to a fixed point with a worklist, starting from
+ * <CODE>$</CODE> on the item of production 0.
+ * <P>
+ * Conflicts in a table are resolved as yacc resolves them, in favour of
+ * shifting over reducing and of the earlier production between two
+ * reductions. The conflicts are counted, and <CODE>getParseTable</CODE>
+ * keeps every directive so that they show.
+ * 
+ * @see edu.duke.cs.jflap.grammar.parse.CompiledLRTable
+ * @see edu.duke.cs.jflap.grammar.parse.LRParser
+ */
+
+public class LRAutomaton {
+	/**
+	 * Builds the LR(0) automaton of a grammar. The grammar is read now, so
+	 * later changes to it do not affect this automaton.
+	 * 
+	 * @param grammar
+	 *            the grammar, which should not be augmented
+	 * @throws IllegalArgumentException
+	 *             if the grammar is not context free or has no start
+	 *             variable
+	 */
+	public LRAutomaton(Grammar grammar) {
+		this.grammar = grammar;
+		String start = grammar.getStartVariable();
+		if (start == null || start.length() != 1)
+			throw new IllegalArgumentException("The grammar has no start variable.");
+		Production[] original = grammar.getProductions();
+		for (int i = 0; i < original.length; i++)
+			if (!ProductionChecker.isRestrictedOnLHS(original[i]))
+				throw new IllegalArgumentException("The production "
+						+ original[i] + " is not context free.");
+
+		// Number the symbols: terminals, $, variables, then the new start.
+		Set terminalSet = new HashSet(), variableSet = new HashSet();
+		variableSet.add(new Character(start.charAt(0)));
+		for (int i = 0; i < original.length; i++) {
+			variableSet.add(new Character(original[i].getLHS().charAt(0)));
+			String rhs = original[i].getRHS();
+			for (int j = 0; j < rhs.length(); j++)
+				(ProductionChecker.isVariable(rhs.charAt(j)) ? variableSet
+						: terminalSet).add(new Character(rhs.charAt(j)));
+		}
+		terminalSet.remove(new Character(END));
+		Character[] terminalChars = (Character[]) terminalSet
+				.toArray(new Character[0]);
+		Character[] variableChars = (Character[]) variableSet
+				.toArray(new Character[0]);
+		Arrays.sort(terminalChars);
+		Arrays.sort(variableChars);
+		terminals = new char[terminalChars.length + 1];
+		Map numbers = new HashMap();
+		for (int i = 0; i < terminalChars.length; i++) {
+			terminals[i] = terminalChars[i].charValue();
+			numbers.put(terminalChars[i], new Integer(i));
+		}
+		terminals[terminalChars.length] = END;
+		int t = terminals.length;
+		variables = new char[variableChars.length];
+		for (int i = 0; i < variableChars.length; i++) {
+			variables[i] = variableChars[i].charValue();
+			numbers.put(variableChars[i], new Integer(t + i));
+		}
+		int v = variables.length;
+		int augmentedStart = t + v;
+
+		// The productions, and the items numbered along them.
+		productions = new Production[original.length + 1];
+		productions[0] = new Production(start + "'", start);
+		System.arraycopy(original, 0, productions, 1, original.length);
+		lhs = new int[productions.length];
+		rhs = new int[productions.length][];
+		itemBase = new int[productions.length + 1];
+		lhs[0] = augmentedStart;
+		rhs[0] = new int[] { ((Integer) numbers.get(new Character(start
+				.charAt(0)))).intValue() };
+		for (int p = 1; p < productions.length; p++) {
+			lhs[p] = ((Integer) numbers.get(new Character(productions[p]
+					.getLHS().charAt(0)))).intValue();
+			String string = productions[p].getRHS();
+			rhs[p] = new int[string.length()];
+			for (int j = 0; j < string.length(); j++)
+				rhs[p][j] = ((Integer) numbers.get(new Character(string
+						.charAt(j)))).intValue();
+		}
+		for (int p = 0; p < productions.length; p++)
+			itemBase[p + 1] = itemBase[p] + rhs[p].length + 1;
+		int items = itemBase[productions.length];
+		itemProduction = new int[items];
+		for (int p = 0; p < productions.length; p++)
+			for (int i = itemBase[p]; i < itemBase[p + 1]; i++)
+				itemProduction[i] = p;
+
+		computeFirstAndFollow();
+		computeClosureItems();
+		buildStates();
+	}
+
+	/**
+	 * Returns the symbol after the dot of an item, or -1 if the dot is at
+	 * the end.
+	 */
+	private int afterDot(int item) {
+		int p = itemProduction[item];
+		int dot = item - itemBase[p];
+		return dot < rhs[p].length ? rhs[p][dot] : -1;
+	}
+
+	/**
+	 * Finds which variables derive lambda, the FIRST sets of the variables
+	 * and of the rest of each item, and the FOLLOW sets, as bitsets over the
+	 * terminals.
+	 */
+	private void computeFirstAndFollow() {
+		int t = terminals.length, v = variables.length + 1;
+		int words = (t + 63) >> 6;
+		nullable = new boolean[v];
+		first = new long[v][words];
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (int p = 0; p < productions.length; p++) {
+				int a = lhs[p] - t;
+				boolean empty = true;
+				for (int j = 0; j < rhs[p].length && empty; j++) {
+					int x = rhs[p][j];
+					if (x < t) {
+						changed |= set(first[a], x);
+						empty = false;
+					} else {
+						changed |= or(first[a], first[x - t]);
+						empty = nullable[x - t];
+					}
+				}
+				if (empty && !nullable[a])
+					nullable[a] = changed = true;
+			}
+		}
+
+		// FIRST of what follows the dot of each item.
+		int items = itemProduction.length;
+		restFirst = new long[items][];
+		restNullable = new boolean[items];
+		for (int p = 0; p < productions.length; p++) {
+			long[] rest = new long[words];
+			boolean empty = true;
+			for (int dot = rhs[p].length; dot >= 0; dot--) {
+				int item = itemBase[p] + dot;
+				restFirst[item] = (long[]) rest.clone();
+				restNullable[item] = empty;
+				if (dot == 0)
+					break;
+				int x = rhs[p][dot - 1];
+				if (x < t) {
+					rest = new long[words];
+					set(rest, x);
+					empty = false;
+				} else {
+					if (!nullable[x - t])
+						rest = new long[words];
+					or(rest, first[x - t]);
+					empty &= nullable[x - t];
+				}
+			}
+		}
+
+		follow = new long[v][words];
+		set(follow[v - 1], t - 1);
+		changed = true;
+		while (changed) {
+			changed = false;
+			for (int p = 0; p < productions.length; p++)
+				for (int dot = 0; dot < rhs[p].length; dot++) {
+					int x = rhs[p][dot];
+					if (x < t)
+						continue;
+					int item = itemBase[p] + dot + 1;
+					changed |= or(follow[x - t], restFirst[item]);
+					if (restNullable[item])
+						changed |= or(follow[x - t], follow[lhs[p] - t]);
+				}
+		}
+	}
+
+	/**
+	 * Finds, for each variable, the items with the dot at the start that the
+	 * closure adds for that variable: those of its productions, and of the
+	 * productions of every variable that can begin them, and so on.
+	 */
+	private void computeClosureItems() {
+		int t = terminals.length, v = variables.length + 1;
+		int[][] productionsOf = productionsOf();
+		closureItems = new int[v][];
+		boolean[] reached = new boolean[v];
+		int[] queue = new int[v];
+		for (int a = 0; a < v; a++) {
+			Arrays.fill(reached, false);
+			int count = 0;
+			reached[a] = true;
+			queue[count++] = a;
+			int itemCount = 0;
+			for (int head = 0; head < count; head++) {
+				int[] ps = productionsOf[queue[head]];
+				itemCount += ps.length;
+				for (int i = 0; i < ps.length; i++) {
+					if (rhs[ps[i]].length == 0 || rhs[ps[i]][0] < t)
+						continue;
+					int b = rhs[ps[i]][0] - t;
+					if (!reached[b]) {
+						reached[b] = true;
+						queue[count++] = b;
+					}
+				}
+			}
+			closureItems[a] = new int[itemCount];
+			itemCount = 0;
+			for (int i = 0; i < count; i++) {
+				int[] ps = productionsOf[queue[i]];
+				for (int j = 0; j < ps.length; j++)
+					closureItems[a][itemCount++] = itemBase[ps[j]];
+			}
+		}
+	}
+
+	/**
+	 * Returns the productions of each variable.
+	 */
+	private int[][] productionsOf() {
+		int t = terminals.length, v = variables.length + 1;
+		int[] counts = new int[v];
+		for (int p = 0; p < productions.length; p++)
+			counts[lhs[p] - t]++;
+		int[][] productionsOf = new int[v][];
+		for (int a = 0; a < v; a++)
+			productionsOf[a] = new int[counts[a]];
+		Arrays.fill(counts, 0);
+		for (int p = 0; p < productions.length; p++)
+			productionsOf[lhs[p] - t][counts[lhs[p] - t]++] = p;
+		return productionsOf;
+	}
+
+	/**
+	 * Builds the states breadth first from the kernel of production 0.
+	 */
+	private void buildStates() {
+		int t = terminals.length, symbols = t + variables.length + 1;
+		Map kernels = new HashMap();
+		ArrayList closures = new ArrayList();
+		ArrayList gotos = new ArrayList();
+		int[] mark = new int[itemProduction.length];
+		int generation = 0;
+		int[][] buckets = new int[symbols][];
+		int[] bucketSizes = new int[symbols];
+		int[] start = new int[] { 0 };
+		kernels.put(new Kernel(start), new Integer(0));
+		closures.add(start);
+		for (int s = 0; s < closures.size(); s++) {
+			// Close the kernel.
+			int[] kernel = (int[]) closures.get(s);
+			generation++;
+			int[] closure = new int[kernel.length];
+			int size = 0;
+			for (int i = 0; i < kernel.length; i++) {
+				mark[kernel[i]] = generation;
+				closure[size++] = kernel[i];
+			}
+			for (int i = 0; i < kernel.length; i++) {
+				int x = afterDot(kernel[i]);
+				if (x < t)
+					continue;
+				int[] more = closureItems[x - t];
+				for (int j = 0; j < more.length; j++) {
+					if (mark[more[j]] == generation)
+						continue;
+					mark[more[j]] = generation;
+					if (size == closure.length)
+						closure = grow(closure);
+					closure[size++] = more[j];
+				}
+			}
+			closure = trim(closure, size);
+			Arrays.sort(closure);
+			closures.set(s, closure);
+
+			// Goto on each symbol after a dot.
+			int[] row = new int[symbols];
+			Arrays.fill(row, -1);
+			for (int i = 0; i < closure.length; i++) {
+				int x = afterDot(closure[i]);
+				if (x < 0)
+					continue;
+				if (buckets[x] == null)
+					buckets[x] = new int[4];
+				else if (bucketSizes[x] == buckets[x].length)
+					buckets[x] = grow(buckets[x]);
+				buckets[x][bucketSizes[x]++] = closure[i] + 1;
+			}
+			for (int x = 0; x < symbols; x++) {
+				if (bucketSizes[x] == 0)
+					continue;
+				// The closure is sorted, so each bucket is too.
+				int[] next = trim(buckets[x], bucketSizes[x]);
+				bucketSizes[x] = 0;
+				Kernel key = new Kernel(next);
+				Integer id = (Integer) kernels.get(key);
+				if (id == null) {
+					id = new Integer(closures.size());
+					kernels.put(key, id);
+					closures.add(next);
+				}
+				row[x] = id.intValue();
+			}
+			gotos.add(row);
+		}
+		this.closures = (int[][]) closures.toArray(new int[0][]);
+		this.gotos = (int[][]) gotos.toArray(new int[0][]);
+	}
+
+	private static int[] grow(int[] array) {
+		int[] bigger = new int[array.length * 2];
+		System.arraycopy(array, 0, bigger, 0, array.length);
+		return bigger;
+	}
+
+	private static int[] trim(int[] array, int size) {
+		int[] trimmed = new int[size];
+		System.arraycopy(array, 0, trimmed, 0, size);
+		return trimmed;
+	}
+
+	/**
+	 * Computes the LALR(1) lookaheads of the items of every state, the first
+	 * time they are needed.
+	 */
+	private void computeLookaheads() {
+		if (lookaheads != null)
+			return;
+		int t = terminals.length, words = (t + 63) >> 6;
+		int[] offsets = new int[closures.length + 1];
+		for (int s = 0; s < closures.length; s++)
+			offsets[s + 1] = offsets[s] + closures[s].length;
+		int nodes = offsets[closures.length];
+		long[][] la = new long[nodes][words];
+		int[][] edges = new int[nodes][];
+		int[] edgeCounts = new int[nodes];
+		int[][] productionsOf = productionsOf();
+		for (int s = 0; s < closures.length; s++) {
+			int[] closure = closures[s];
+			for (int k = 0; k < closure.length; k++) {
+				int item = closure[k], node = offsets[s] + k;
+				int x = afterDot(item);
+				if (x < 0)
+					continue;
+				int to = gotos[s][x];
+				addEdge(edges, edgeCounts, node, offsets[to]
+						+ Arrays.binarySearch(closures[to], item + 1));
+				if (x < t)
+					continue;
+				int[] ps = productionsOf[x - t];
+				for (int i = 0; i < ps.length; i++) {
+					int added = offsets[s]
+							+ Arrays.binarySearch(closure, itemBase[ps[i]]);
+					or(la[added], restFirst[item + 1]);
+					if (restNullable[item + 1])
+						addEdge(edges, edgeCounts, node, added);
+				}
+			}
+		}
+		set(la[offsets[0] + Arrays.binarySearch(closures[0], 0)], t - 1);
+
+		// Spread the lookaheads to a fixed point.
+		int[] queue = new int[nodes];
+		boolean[] queued = new boolean[nodes];
+		int head = 0, tail = 0, pending = nodes;
+		for (int n = 0; n < nodes; n++) {
+			queue[n] = n;
+			queued[n] = true;
+		}
+		while (pending > 0) {
+			int n = queue[head];
+			head = (head + 1) % nodes;
+			pending--;
+			queued[n] = false;
+			for (int e = 0; e < edgeCounts[n]; e++) {
+				int m = edges[n][e];
+				if (or(la[m], la[n]) && !queued[m]) {
+					queued[m] = true;
+					queue[tail] = m;
+					tail = (tail + 1) % nodes;
+					pending++;
+				}
+			}
+		}
+		lookaheadOffsets = offsets;
+		lookaheads = la;
+	}
+
+	private static void addEdge(int[][] edges, int[] counts, int from, int to) {
+		if (edges[from] == null)
+			edges[from] = new int[2];
+		else if (counts[from] == edges[from].length)
+			edges[from] = grow(edges[from]);
+		edges[from][counts[from]++] = to;
+	}
+
+	private static boolean set(long[] bits, int i) {
+		long old = bits[i >> 6];
+		bits[i >> 6] |= 1L << i;
+		return bits[i >> 6] != old;
+	}
+
+	private static boolean or(long[] into, long[] from) {
+		boolean changed = false;
+		for (int w = 0; w < into.length; w++) {
+			long old = into[w];
+			into[w] |= from[w];
+			changed |= into[w] != old;
+		}
+		return changed;
+	}
+
+	/**
+	 * Returns the number of states.
+	 * 
+	 * @return the number of item sets in the canonical collection
+	 */
+	public int getStateCount() {
+		return closures.length;
+	}
+
+	/**
+	 * Returns the state goto reaches from a state on a symbol.
+	 * 
+	 * @param state
+	 *            the state
+	 * @param symbol
+	 *            the grammar symbol
+	 * @return the state reached, or -1 if there is none
+	 */
+	public int getGoto(int state, char symbol) {
+		int x = symbolIndex(symbol);
+		return x < 0 ? -1 : gotos[state][x];
+	}
+
+	/**
+	 * Returns the items of a state as productions with the
+	 * <CODE>Operations.ITEM_POSITION</CODE> character in their right hand
+	 * sides, as <CODE>Operations.closure</CODE> returns them.
+	 * 
+	 * @param state
+	 *            the state
+	 * @return the set of items of <CODE>state</CODE>, kernel and closure
+	 */
+	public Set getItems(int state) {
+		Set items = new HashSet();
+		for (int i = 0; i < closures[state].length; i++) {
+			int item = closures[state][i];
+			Production p = productions[itemProduction[item]];
+			StringBuffer sb = new StringBuffer(p.getRHS());
+			sb.insert(item - itemBase[itemProduction[item]],
+					Operations.ITEM_POSITION);
+			items.add(new Production(p.getLHS(), sb.toString()));
+		}
+		return items;
+	}
+
+	/**
+	 * Returns the goto graph as a finite state automaton, like the one the
+	 * user builds in the GUI: state <CODE>i</CODE> has ID <CODE>i</CODE>,
+	 * state 0 is initial, and the states with a completed item are final.
+	 * 
+	 * @return the goto graph
+	 */
+	public FiniteStateAutomaton getGotoGraph() {
+		FiniteStateAutomaton graph = new FiniteStateAutomaton();
+		StatePlacer sp = new StatePlacer();
+		State[] states = new State[closures.length];
+		for (int s = 0; s < states.length; s++) {
+			states[s] = graph.createStateWithId(sp.getPointForState(graph), s);
+			for (int i = 0; i < closures[s].length; i++)
+				if (afterDot(closures[s][i]) < 0) {
+					graph.addFinalState(states[s]);
+					break;
+				}
+		}
+		graph.setInitialState(states[0]);
+		for (int s = 0; s < states.length; s++)
+			for (int x = 0; x < gotos[s].length; x++)
+				if (gotos[s][x] >= 0)
+					graph.addTransition(new FSATransition(states[s],
+							states[gotos[s][x]], String.valueOf(symbol(x))));
+		return graph;
+	}
+
+	/**
+	 * Returns a parse table as the GUI shows it, with rows for the states of
+	 * <CODE>getGotoGraph</CODE> and columns for the symbols of the augmented
+	 * grammar. Every directive is kept where there is a conflict.
+	 * 
+	 * @param kind
+	 *            <CODE>LR0</CODE>, <CODE>SLR1</CODE> or <CODE>LALR1</CODE>
+	 * @return the parse table
+	 */
+	public LRParseTable getParseTable(int kind) {
+		int[][] actions = actions(kind, null);
+		Grammar augmented = Operations.getAugmentedGrammar(grammar);
+		LRParseTable table = new LRParseTable(augmented, getGotoGraph());
+		int t = terminals.length;
+		for (int s = 0; s < closures.length; s++) {
+			for (int x = 0; x < t; x++) {
+				String symbol = String.valueOf(terminals[x]);
+				for (int i = 0; actions[s * t + x] != null
+						&& i < actions[s * t + x].length; i++) {
+					int action = actions[s * t + x][i];
+					table.appendValueAt(action > 0 ? "s" + (action - 1)
+							: action == -1 ? "acc" : "r" + (-action - 1), s,
+							symbol);
+				}
+			}
+			for (int a = 0; a < variables.length; a++)
+				if (gotos[s][t + a] >= 0)
+					table.appendValueAt("" + gotos[s][t + a], s, String
+							.valueOf(variables[a]));
+		}
+		return table;
+	}
+
+	/**
+	 * Returns a parse table of ints for the <CODE>LRParser</CODE>, with any
+	 * conflicts resolved.
+	 * 
+	 * @param kind
+	 *            <CODE>LR0</CODE>, <CODE>SLR1</CODE> or <CODE>LALR1</CODE>
+	 * @return the compiled parse table
+	 */
+	public CompiledLRTable compile(int kind) {
+		int[] conflicts = new int[1];
+		int[][] actions = actions(kind, conflicts);
+		int t = terminals.length, v = variables.length;
+		int[] action = new int[closures.length * t];
+		int[] goTo = new int[closures.length * v];
+		for (int i = 0; i < action.length; i++)
+			action[i] = actions[i] == null ? 0 : actions[i][0];
+		for (int s = 0; s < closures.length; s++)
+			System.arraycopy(gotos[s], t, goTo, s * v, v);
+		int[] lhsVariable = new int[productions.length];
+		int[] lengths = new int[productions.length];
+		for (int p = 0; p < productions.length; p++) {
+			lhsVariable[p] = lhs[p] - t;
+			lengths[p] = rhs[p].length;
+		}
+		return new CompiledLRTable(terminals, action, goTo, v, lhsVariable,
+				lengths, productions, conflicts[0]);
+	}
+
+	/**
+	 * Returns the directives for each state and terminal, at
+	 * <CODE>state * terminals + terminal</CODE>, with the one that wins any
+	 * conflict first. A shift to state <CODE>s</CODE> is <CODE>s + 1</CODE>
+	 * and a reduction by production <CODE>p</CODE> is <CODE>-p - 1</CODE>,
+	 * so that -1, the reduction by production 0, is acceptance.
+	 */
+	private int[][] actions(int kind, int[] conflicts) {
+		if (kind != LR0 && kind != SLR1 && kind != LALR1)
+			throw new IllegalArgumentException("Bad kind of table " + kind);
+		if (kind == LALR1)
+			computeLookaheads();
+		int t = terminals.length;
+		int[][] actions = new int[closures.length * t][];
+		int count = 0;
+		long[] all = new long[(t + 63) >> 6];
+		for (int x = 0; x < t; x++)
+			set(all, x);
+		long[] end = new long[all.length];
+		set(end, t - 1);
+		for (int s = 0; s < closures.length; s++) {
+			for (int x = 0; x < t - 1; x++)
+				if (gotos[s][x] >= 0)
+					actions[s * t + x] = new int[] { gotos[s][x] + 1 };
+			for (int i = 0; i < closures[s].length; i++) {
+				int item = closures[s][i];
+				if (afterDot(item) >= 0)
+					continue;
+				int p = itemProduction[item];
+				long[] la = p == 0 ? end : kind == LR0 ? all
+						: kind == SLR1 ? follow[lhs[p] - t]
+								: lookaheads[lookaheadOffsets[s] + i];
+				for (int w = 0; w < la.length; w++)
+					for (long bits = la[w]; bits != 0; bits &= bits - 1) {
+						int x = (w << 6) + Long.numberOfTrailingZeros(bits);
+						int[] old = actions[s * t + x];
+						if (old == null) {
+							actions[s * t + x] = new int[] { -p - 1 };
+							continue;
+						}
+						if (old.length == 1)
+							count++;
+						// Shifts win, then earlier productions, which come
+						// first in the sorted closure.
+						int[] more = new int[old.length + 1];
+						System.arraycopy(old, 0, more, 0, old.length);
+						more[old.length] = -p - 1;
+						actions[s * t + x] = more;
+					}
+			}
+		}
+		if (conflicts != null)
+			conflicts[0] = count;
+		return actions;
+	}
+
+	/**
+	 * Returns the character of a symbol number.
+	 */
+	private char symbol(int x) {
+		return x < terminals.length ? terminals[x] : variables[x
+				- terminals.length];
+	}
+
+	/**
+	 * Returns the number of a symbol, or -1 if the grammar does not have it.
+	 */
+	private int symbolIndex(char c) {
+		for (int x = 0; x < terminals.length; x++)
+			if (terminals[x] == c)
+				return x;
+		for (int a = 0; a < variables.length; a++)
+			if (variables[a] == c)
+				return terminals.length + a;
+		return -1;
+	}
+
+	/**
+	 * A kernel as a hash key.
+	 */
+	private static class Kernel {
+		Kernel(int[] items) {
+			this.items = items;
+			hash = Arrays.hashCode(items);
+		}
+
+		public boolean equals(Object object) {
+			return Arrays.equals(items, ((Kernel) object).items);
+		}
+
+		public int hashCode() {
+			return hash;
+		}
+
+		final int[] items;
+
+		final int hash;
+	}
+
+	/** The kind of table that reduces on every terminal. */
+	public static final int LR0 = 0;
+
+	/** The kind of table that reduces on the FOLLOW set of the variable. */
+	public static final int SLR1 = 1;
+
+	/** The kind of table that reduces on the LALR(1) lookaheads. */
+	public static final int LALR1 = 2;
+
+	/** The end of string character. */
+	public static final char END = '$';
+
+	/** The grammar, unaugmented. */
+	private final Grammar grammar;
+
+	/** The terminals, sorted, then <CODE>$</CODE>. */
+	private final char[] terminals;
+
+	/** The variables, sorted. */
+	private final char[] variables;
+
+	/** The productions of the augmented grammar. */
+	private final Production[] productions;
+
+	/** The left hand side symbol of each production. */
+	private final int[] lhs;
+
+	/** The right hand side symbols of each production. */
+	private final int[][] rhs;
+
+	/** The first item of each production, and the number of items last. */
+	private final int[] itemBase;
+
+	/** The production of each item. */
+	private final int[] itemProduction;
+
+	/** Which variables derive lambda. */
+	private boolean[] nullable;
+
+	/** The FIRST set of each variable. */
+	private long[][] first;
+
+	/** The FIRST set of what follows the dot of each item. */
+	private long[][] restFirst;
+
+	/** Whether what follows the dot of each item derives lambda. */
+	private boolean[] restNullable;
+
+	/** The FOLLOW set of each variable. */
+	private long[][] follow;
+
+	/** The items each variable after a dot adds to a closure. */
+	private int[][] closureItems;
+
+	/** The sorted items of each state. */
+	private int[][] closures;
+
+	/** The goto of each state on each symbol, or -1. */
+	private int[][] gotos;
+
+	/** The index of the first item of each state in the lookaheads. */
+	private int[] lookaheadOffsets;
+
+	/** The LALR(1) lookaheads of the items of all states, once computed. */
+	private long[][] lookaheads;
+}
@@ -21,13 +21,20 @@
 package edu.duke.cs.jflap.grammar.parse;
 
 import edu.duke.cs.jflap.grammar.*;
-import java.util.*;
 import javax.swing.tree.*;
 
 /**
- * This class does LR parsing. It is a test class only.
+ * This class does LR parsing. The parse tables are first compiled to a
+ * <CODE>CompiledLRTable</CODE>, so that each move is a lookup in an int
+ * array; the stack holds states as ints.
+ * <P>
+ * A table without conflicts may still reduce forever without shifting, when
+ * a variable of the grammar derives itself, as with <CODE>S -> AS</CODE> and
+ * <CODE>A -> </CODE>lambda. The reductions since the last shift are watched,
+ * and the string is rejected as soon as they are seen to go around forever.
  * 
  * @author Thomas Finley
+ * @see edu.duke.cs.jflap.grammar.parse.LRAutomaton
  */
 
 public abstract class LRParser {
@@ -40,45 +47,57 @@ public abstract class LRParser {
 	 *            the augmented grammar
 	 * @param table
 	 *            the parse table
+	 * @return if the string is accepted
 	 */
-	public static void parse(String string, Grammar grammar, LRParseTable table) {
-		string = string + "$";
-		int p = 0;
-		IntStack stack = new IntStack();
-		stack.push(0);
-		Production[] productions = grammar.getProductions();
-		while (true) {
-			int state = stack.peekInt();
-			String read = "" + string.charAt(p);
-			String entry = table.getValueAt(state, read);
-			// //System.out.println("Action: "+entry);
-			// //System.out.println("Stack : "+stack);
-			// //System.out.println("Input : "+string.substring(p));
-			if (entry.length() == 0) {
+	public static boolean parse(String string, Grammar grammar,
+			LRParseTable table) {
+		return parse(string, new CompiledLRTable(grammar, table));
+	}
+
+	/**
+	 * This action will perform parsing of a string on a compiled table.
+	 * 
+	 * @param string
+	 *            the string to parse
+	 * @param table
+	 *            the compiled parse table
+	 * @return if the string is accepted, which it is not if the parser
+	 *         would reduce forever
+	 */
+	public static boolean parse(String string, CompiledLRTable table) {
+		int[] stack = new int[16];
+		int top = 0, p = 0;
+		Reductions reductions = new Reductions(table);
+		int read = terminal(string, 0, table);
+		while (read >= 0) {
+			int entry = table.getAction(stack[top], read);
+			if (entry == 0) {
 				// Error! No derivation.
-				// //System.out.println("Parse error");
-				return;
-			} else if (entry.charAt(0) == 's') {
+				return false;
+			} else if (entry > 0) {
 				// Shift!
-				stack.push(read); // Push the symbol.
-				stack.push(Integer.parseInt(entry.substring(1)));
-				p++; // Move to next input symbol.
-			} else if (entry.charAt(0) == 'r') {
+				if (++top == stack.length)
+					stack = grow(stack);
+				stack[top] = entry - 1;
+				read = terminal(string, ++p, table);
+				reductions.shifted(top);
+			} else if (entry == -1) {
+				return true;
+			} else {
 				// Reduce!
-				int prodNumber = Integer.parseInt(entry.substring(1));
-				Production red = productions[prodNumber];
-				for (int i = 0; i < 2 * red.getRHS().length(); i++)
-					stack.pop();
-				state = stack.peekInt();
-				stack.push(red.getLHS());
-				stack.push(Integer.parseInt(table.getValueAt(state, red
-						.getLHS())));
-				// //System.out.println(red);
-			} else if (entry.charAt(0) == 'a') {
-				// //System.out.println("Acceptance!");
-				return;
+				int production = -entry - 1;
+				top -= table.getLength(production);
+				int state = table.getGoto(stack[top], table.getLHS(production));
+				if (state < 0)
+					return false;
+				if (++top == stack.length)
+					stack = grow(stack);
+				stack[top] = state;
+				if (reductions.endless(stack, top))
+					return false;
 			}
 		}
+		return false;
 	}
 
 	/**
@@ -94,68 +113,173 @@ public abstract class LRParser {
 	 */
 	public static TreeModel parseTree(String string, Grammar grammar,
 			LRParseTable table) {
-		string = string + "$";
-		int p = 0;
-		IntStack stack = new IntStack();
-		stack.push(0);
-		Production[] productions = grammar.getProductions();
-		int nodeNum = 0;
-		while (true) {
-			int state = stack.peekInt();
-			String read = "" + string.charAt(p);
-			String entry = table.getValueAt(state, read);
-			if (entry.length() == 0) {
-				// Error! No derivation.
-				// //System.out.println("Parse error");
-				DefaultMutableTreeNode node = new DefaultMutableTreeNode();
-				Object[] elements = stack.toArray();
-				for (int i = 0; i < elements.length; i++)
-					if (elements[i] instanceof MutableTreeNode)
-						node.add((MutableTreeNode) elements[i]);
-				return new DefaultTreeModel(node);
-			} else if (entry.charAt(0) == 's') {
+		return parseTree(string, new CompiledLRTable(grammar, table));
+	}
+
+	/**
+	 * This action will perform parsing of a string on a compiled table. If
+	 * the string is rejected, or the parser would reduce forever, the tree
+	 * has an unlabeled root over the subtrees built so far.
+	 * 
+	 * @param string
+	 *            the string to parse
+	 * @param table
+	 *            the compiled parse table
+	 * @return the parse tree
+	 */
+	public static TreeModel parseTree(String string, CompiledLRTable table) {
+		int[] stack = new int[16];
+		MutableTreeNode[] nodes = new MutableTreeNode[16];
+		int top = 0, p = 0;
+		Reductions reductions = new Reductions(table);
+		int read = terminal(string, 0, table);
+		while (read >= 0) {
+			int entry = table.getAction(stack[top], read);
+			if (entry == 0) {
+				break;
+			} else if (entry > 0) {
 				// Shift!
-				TreeNode node = new DefaultMutableTreeNode(read, false);
-				stack.push(node); // Push the symbol.
-				stack.push(Integer.parseInt(entry.substring(1)));
-				p++; // Move to next input symbol.
-			} else if (entry.charAt(0) == 'r') {
+				if (++top == stack.length) {
+					stack = grow(stack);
+					nodes = grow(nodes);
+				}
+				stack[top] = entry - 1;
+				nodes[top] = new DefaultMutableTreeNode(""
+						+ string.charAt(p), false);
+				read = terminal(string, ++p, table);
+				reductions.shifted(top);
+			} else if (entry == -1) {
+				// Acceptance!
+				return new DefaultTreeModel(nodes[top]);
+			} else {
 				// Reduce!
-				int prodNumber = Integer.parseInt(entry.substring(1));
-				Production red = productions[prodNumber];
+				int production = -entry - 1;
+				Production red = table.getProduction(production);
 				DefaultMutableTreeNode node = new DefaultMutableTreeNode(red
 						.getLHS());
-				for (int i = 0; i < red.getRHS().length(); i++) {
-					stack.pop(); // Pops the state.
-					MutableTreeNode c = (MutableTreeNode) stack.pop();
-					node.insert(c, 0);
-					// Pops the symbol.
+				int length = table.getLength(production);
+				for (int i = 0; i < length; i++)
+					node.add(nodes[top - length + 1 + i]);
+				top -= length;
+				int state = table.getGoto(stack[top], table.getLHS(production));
+				if (state < 0)
+					break;
+				if (++top == stack.length) {
+					stack = grow(stack);
+					nodes = grow(nodes);
 				}
-				state = stack.peekInt();
-				stack.push(node);
-				stack.push(Integer.parseInt(table.getValueAt(state, red
-						.getLHS())));
-				// //System.out.println(red);
-			} else if (entry.charAt(0) == 'a') {
-				// //System.out.println("Acceptance!");
-				stack.pop();
-				return new DefaultTreeModel((TreeNode) stack.pop());
+				stack[top] = state;
+				nodes[top] = node;
+				if (reductions.endless(stack, top))
+					break;
 			}
 		}
+		// Error! No derivation.
+		DefaultMutableTreeNode node = new DefaultMutableTreeNode();
+		for (int i = 1; i <= top; i++)
+			node.add(nodes[i]);
+		return new DefaultTreeModel(node);
+	}
+
+	/**
+	 * Returns the number of the terminal at a position of the string, where
+	 * the end is <CODE>$</CODE>, or -1 for a character that is not a
+	 * terminal.
+	 */
+	private static int terminal(String string, int p, CompiledLRTable table) {
+		return p == string.length() ? table.getEndNumber() : table
+				.getTerminalNumber(string.charAt(p));
 	}
 
-	private static class IntStack extends Stack {
-		int push(int item) {
-			push(new Integer(item));
-			return item;
+	/**
+	 * Watches the reductions a parser makes between two shifts. The
+	 * lookahead does not change between shifts, so the reductions depend only
+	 * on the stack, and they go around forever exactly when either the stack
+	 * repeats or it grows without end. A repeat is found by comparing the
+	 * stack with copies taken after 1, 2, 4, 8 and so on reductions, which
+	 * finds any cycle within twice its length. Growth is found once the
+	 * stack is more states above where it was at the shift than the table
+	 * has: two of the states pushed since are then the same, and nothing
+	 * below the lower one was looked at between them, so the parser will
+	 * push the states between them again and again.
+	 */
+	private static class Reductions {
+		Reductions(CompiledLRTable table) {
+			states = table.getStateCount();
 		}
 
-		int popInt() {
-			return ((Integer) pop()).intValue();
+		/**
+		 * Starts watching again after a shift.
+		 * 
+		 * @param top
+		 *            the index of the top of the stack after the shift
+		 */
+		void shifted(int top) {
+			base = top;
+			saved = null;
+			count = 0;
+			period = 1;
 		}
 
-		int peekInt() {
-			return ((Integer) peek()).intValue();
+		/**
+		 * Returns if the reductions are seen to go on forever, given the
+		 * stack after one more of them.
+		 * 
+		 * @param stack
+		 *            the stack
+		 * @param top
+		 *            the index of the top of the stack
+		 * @return <CODE>true</CODE> if the parser will never shift again
+		 */
+		boolean endless(int[] stack, int top) {
+			if (top - base > states)
+				return true;
+			if (saved != null && top == savedTop) {
+				int i = top;
+				while (i >= 0 && stack[i] == saved[i])
+					i--;
+				if (i < 0)
+					return true;
+			}
+			if (++count == period) {
+				if (saved == null || saved.length <= top)
+					saved = new int[stack.length];
+				System.arraycopy(stack, 0, saved, 0, top + 1);
+				savedTop = top;
+				count = 0;
+				period *= 2;
+			}
+			return false;
 		}
+
+		/** The number of states of the table. */
+		private int states;
+
+		/** The index of the top of the stack at the last shift. */
+		private int base = 0;
+
+		/** The stack as it was when last copied, or null if not yet copied. */
+		private int[] saved = null;
+
+		/** The index of the top of the copied stack. */
+		private int savedTop;
+
+		/** The reductions since the stack was last copied. */
+		private int count = 0;
+
+		/** The reductions after which the stack is copied next. */
+		private int period = 1;
+	}
+
+	private static int[] grow(int[] array) {
+		int[] bigger = new int[array.length * 2];
+		System.arraycopy(array, 0, bigger, 0, array.length);
+		return bigger;
+	}
+
+	private static MutableTreeNode[] grow(MutableTreeNode[] array) {
+		MutableTreeNode[] bigger = new MutableTreeNode[array.length * 2];
+		System.arraycopy(array, 0, bigger, 0, array.length);
+		return bigger;
 	}
 }
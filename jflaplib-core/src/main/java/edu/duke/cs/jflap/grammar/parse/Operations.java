@@ -24,8 +24,6 @@ import edu.duke.cs.jflap.grammar.*;
 import edu.duke.cs.jflap.grammar.cfg.ContextFreeGrammar;
 import java.util.*;
 
-import javax.swing.JOptionPane;
-
 /**
  * This is a utility class for finding out things about a grammar for purposes
  * of parsing.
@@ -56,38 +54,31 @@ public class Operations {
 	 *         for this grammar
 	 */
 	public static Map first(Grammar grammar) {
-		if (CACHED_FIRST.containsKey(grammar))
-			return (Map) CACHED_FIRST.get(grammar);
-		Map first = new HashMap();
-		// Put the terminals in the map.
-		String[] terminals = grammar.getTerminals();
-		for (int i = 0; i < terminals.length; i++) {
-			Set termSet = new HashSet();
-			termSet.add(terminals[i]);
-			first.put(terminals[i], termSet);
-		}
-		// Put the variables in the map as empty sets.
-		String[] variables = grammar.getVariables();
-		for (int i = 0; i < variables.length; i++) {
-			first.put(variables[i], new HashSet());
+		synchronized (CACHED_SETS) {
+			return Collections.unmodifiableMap(sets(grammar).getFirstSets());
 		}
+	}
 
-		// Repeatedly go over the productions until there is no more
-		// change.
-		boolean hasChanged = true;
-		Production[] productions = grammar.getProductions();
-		while (hasChanged) {
-			hasChanged = false;
-			for (int i = 0; i < productions.length; i++) {
-				String variable = productions[i].getLHS();
-				String rhs = productions[i].getRHS();
-				Set firstRhs = first(first, rhs);
-				if (setForKey(first, variable).addAll(firstRhs))
-					hasChanged = true;
-			}
+	/**
+	 * Returns the first and follow sets kept for a grammar, brought up to
+	 * date with its productions. The sets are shared by every caller, so a
+	 * caller on more than one thread should use {@link #first(Grammar)},
+	 * {@link #follow(Grammar)} and {@link #isLL1(Grammar)} instead, which
+	 * read them while holding the lock on the cache.
+	 * 
+	 * @param grammar
+	 *            the grammar
+	 * @return the first and follow sets of <CODE>grammar</CODE>
+	 */
+	public static FirstFollowSets sets(Grammar grammar) {
+		synchronized (CACHED_SETS) {
+			FirstFollowSets sets = (FirstFollowSets) CACHED_SETS.get(grammar);
+			if (sets == null)
+				CACHED_SETS.put(grammar, sets = new FirstFollowSets(grammar));
+			else
+				sets.update(grammar);
+			return sets;
 		}
-		CACHED_FIRST.put(grammar, Collections.unmodifiableMap(first));
-		return first(grammar);
 	}
 
 	/**
@@ -106,18 +97,15 @@ public class Operations {
 			first.add("");
 		for (int j = 0; j < sequence.length(); j++) {
 			Set s = setForKey(firstSets, sequence.substring(j, j + 1));
+			first.addAll(s);
 			if (!s.contains("")) {
-				// Doesn't contain lambda. Add it and get the
-				// hell out of dodge.
-				first.addAll(s);
+				// Doesn't contain lambda. Get the hell out of dodge.
+				first.remove("");
 				break;
 			}
 			// Does contain lambda. Damn it.
 			if (j != sequence.length() - 1)
-				s.remove("");
-			first.addAll(s);
-			if (j != sequence.length() - 1)
-				s.add("");
+				first.remove("");
 		}
 		return first;
 	}
@@ -131,106 +119,43 @@ public class Operations {
 	 * @return the map of non-terminals to the follow sets
 	 */
 	public static Map follow(Grammar grammar) {
-		if (CACHED_FOLLOW.containsKey(grammar))
-			return (Map) CACHED_FOLLOW.get(grammar);
-		Map follow = new HashMap();
-		// Add the mapping from the initial variable to the end of
-		// string character.
-		Set initialSet = new HashSet();
-		initialSet.add("$");
-		follow.put(grammar.getStartVariable(), initialSet);
-		// Make every follow mapping empty for now.
-		String[] variables = grammar.getVariables();
-		for (int i = 0; i < variables.length; i++)
-			if (!variables[i].equals(grammar.getStartVariable()))
-				follow.put(variables[i], new HashSet());
-		// Get the first sets.
-		Map firstSets = first(grammar);
-		// Iterate repeatedly over the productions until we're
-		// completely done.
-		Production[] productions = grammar.getProductions();
-		boolean hasChanged = true;
-		while (hasChanged) {
-			hasChanged = false;
-			for (int i = 0; i < productions.length; i++) {
-				String variable = productions[i].getLHS();
-				String rhs = productions[i].getRHS();
-				for (int j = 0; j < rhs.length(); j++) {
-					String rhsVariable = rhs.substring(j, j + 1);
-					if (!grammar.isVariable(rhsVariable))
-						continue;
-					Set firstFollowing = first(firstSets, rhs.substring(j + 1));
-					// Is lambda in that following the variable? For
-					// A->aBb where lambda is in FIRST(b), everything
-					// in FOLLOW(A) is in FOLLOW(B).
-					if (firstFollowing.remove("")) {
-						if (setForKey(follow, rhsVariable).addAll(
-								setForKey(follow, variable)))
-							hasChanged = true;
-					}
-					// For A->aBb, everything in FIRST(b) except
-					// lambda is put in FOLLOW(B).
-					if (setForKey(follow, rhsVariable).addAll(firstFollowing))
-						hasChanged = true;
-				}
-			}
+		synchronized (CACHED_SETS) {
+			return Collections.unmodifiableMap(sets(grammar).getFollowSets());
 		}
-		CACHED_FOLLOW.put(grammar, Collections.unmodifiableMap(follow));
-		return follow(grammar);
 	}
 
 	/**
-	 * This returns if a grammar is LL(1).
+	 * This returns if a grammar is LL(1). A grammar with a variable that has
+	 * no productions is not LL(1).
 	 * 
 	 * @param grammar
 	 *            the grammar to test
 	 * @return if the grammar is LL(1)
+	 * @see #getUndefinedVariable
 	 */
 	public static boolean isLL1(Grammar grammar) {
-		Map first = first(grammar);
-		Map follow = follow(grammar);
-        if(follow == null){
-            JOptionPane.showMessageDialog(null, "JFLAP failed to find a follow set.", "Error", JOptionPane.ERROR_MESSAGE);
-            return false;
-        }
-		Map varToProd = new HashMap();
-
-		Production[] productions = grammar.getProductions();
-		for (int i = 0; i < productions.length; i++) {
-			String variable = productions[i].getLHS();
-			if (!varToProd.containsKey(variable))
-				varToProd.put(variable, new ArrayList());
-			((List) varToProd.get(variable)).add(productions[i]);
+		if (getUndefinedVariable(grammar) != null)
+			return false;
+		synchronized (CACHED_SETS) {
+			return sets(grammar).isLL1();
 		}
+	}
+
+	/**
+	 * Returns a variable of a grammar that has no productions, as happens when
+	 * a variable is used on the right hand side without a derivation for it.
+	 * 
+	 * @param grammar
+	 *            the grammar to check
+	 * @return a variable without productions, or <CODE>null</CODE> if every
+	 *         variable has some
+	 */
+	public static String getUndefinedVariable(Grammar grammar) {
 		String[] variables = grammar.getVariables();
-		for (int i = 0; i < variables.length; i++) {
-			Set followVar = (Set) follow.get(variables[i]);
-            List varList = ((List) varToProd.get(variables[i]));
-            if(varList == null){
-                JOptionPane.showMessageDialog(null, "JFLAP failed to find a variable.  You may have used a variable on the right hand side without providing a derivation for it.", "Error", JOptionPane.ERROR_MESSAGE);
-                return false;
-            }
-			productions = (Production[]) varList.toArray(new Production[0]);
-			for (int j = 0; j < productions.length; j++) {
-				String alpha = productions[j].getRHS();
-				Set alphaFirst = first(first, alpha);
-				for (int k = j + 1; k < productions.length; k++) {
-					String beta = productions[k].getRHS();
-					Set betaFirst = first(first, beta);
-					// Condition 1 & 2
-					if (betaFirst.removeAll(alphaFirst))
-						return false;
-					// Condition 3
-					if (betaFirst.contains(""))
-						if (alphaFirst.removeAll(followVar))
-							return false;
-					if (alphaFirst.contains(""))
-						if (betaFirst.removeAll(followVar))
-							return false;
-				}
-			}
-		}
-		return true;
+		for (int i = 0; i < variables.length; i++)
+			if (grammar.getProductionsWithLHS(variables[i]).length == 0)
+				return variables[i];
+		return null;
 	}
 
 	/**
@@ -253,6 +178,7 @@ public class Operations {
             return null;
             }
 		startProduction.setLHS(start + "'");
+		g.productionsChanged();
 		for (int i = 0; i < prods.length; i++)
 			g.addProduction(prods[i]);
 		return g;
@@ -400,11 +326,11 @@ public class Operations {
 		return (String[]) symbols.toArray(new String[0]);
 	}
 
-	/** The cached first sets, maps from grammars to first sets. */
-	private static WeakHashMap CACHED_FIRST = new WeakHashMap();
-
-	/** The cached follow sets, maps from grammars to follow sets. */
-	private static WeakHashMap CACHED_FOLLOW = new WeakHashMap();
+	/**
+	 * The cached first and follow sets, maps from grammars to sets. The map
+	 * is also the lock that guards it and the sets in it.
+	 */
+	private static final WeakHashMap CACHED_SETS = new WeakHashMap();
 
 	/**
 	 * The cached variables to productions maps, maps from grammars to maps from
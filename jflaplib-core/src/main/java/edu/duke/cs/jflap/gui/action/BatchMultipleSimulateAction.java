@@ -74,6 +74,7 @@ import javax.swing.table.TableColumnModel;
 import edu.duke.cs.jflap.automata.Automaton;
 import edu.duke.cs.jflap.automata.AutomatonSimulator;
 import edu.duke.cs.jflap.automata.Configuration;
+import edu.duke.cs.jflap.automata.SimulationException;
 import edu.duke.cs.jflap.automata.NondeterminismDetector;
 import edu.duke.cs.jflap.automata.NondeterminismDetectorFactory;
 import edu.duke.cs.jflap.automata.SimulatorFactory;
@@ -170,7 +171,14 @@ public class BatchMultipleSimulateAction extends MultipleSimulateAction {
 					associatedConfigurations.add(configs[i]);
 					return 0;
 				} else {
-					next.addAll(simulator.stepConfiguration(configs[i]));
+					try {
+						next.addAll(simulator.stepConfiguration(configs[i]));
+					} catch (SimulationException e) {
+						JOptionPane.showMessageDialog(frame, e.getMessage(),
+								"Simulation Error", JOptionPane.ERROR_MESSAGE);
+						associatedConfigurations.add(lastConsidered);
+						return 1;
+					}
 				}
 			}
 			configs = (Configuration[]) next.toArray(new Configuration[0]);
@@ -354,7 +362,8 @@ public class BatchMultipleSimulateAction extends MultipleSimulateAction {
 				if(getObject() instanceof Automaton){
 	                Automaton currentAuto = (Automaton)getEnvironment().myObjects.get(0);
 					AutomatonSimulator simulator = SimulatorFactory
-							.getSimulator(currentAuto);
+							.getSimulator(currentAuto, SimulateAction
+									.getOptions(currentAuto));
 					String[][] inputs = model.getInputs();
 	                int uniqueInputs = inputs.length;
 	                int tapes = 1;
@@ -369,7 +378,8 @@ public class BatchMultipleSimulateAction extends MultipleSimulateAction {
 	                        if(r%uniqueInputs==0){
 	                            currentAuto = (Automaton)getEnvironment().myObjects.get(r/uniqueInputs);
 	                           
-	                            simulator = SimulatorFactory.getSimulator(currentAuto);                         
+	                            simulator = SimulatorFactory.getSimulator(currentAuto,
+	                            		SimulateAction.getOptions(currentAuto));                         
 	                        }
 	                    }
 						Configuration[] configs = null;
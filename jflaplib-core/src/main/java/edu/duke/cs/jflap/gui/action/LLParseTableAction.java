@@ -59,6 +59,8 @@ public class LLParseTableAction extends GrammarAction {
 		if (g == null)
 			return;
 		if (!Operations.isLL1(g)) {
+			if (Operations.getUndefinedVariable(g) != null)
+				JOptionPane.showMessageDialog(frame, "JFLAP failed to find a variable.  You may have used a variable on the right hand side without providing a derivation for it.", "Error", JOptionPane.ERROR_MESSAGE);
 			if (JOptionPane.showConfirmDialog(frame,
 					"The grammar is not LL(1).\nContinue anyway?",
 					"Grammar not LL(1)", JOptionPane.YES_NO_OPTION) == JOptionPane.NO_OPTION)
@@ -34,6 +34,7 @@ import javax.swing.JOptionPane;
 import edu.duke.cs.jflap.automata.Automaton;
 import edu.duke.cs.jflap.automata.AutomatonSimulator;
 import edu.duke.cs.jflap.automata.Configuration;
+import edu.duke.cs.jflap.automata.SimulationException;
 
 /**
  * This is the action used for the simulation of input on an automaton with no
@@ -149,7 +150,13 @@ public class NoInteractionSimulateAction extends SimulateAction {
 					if (!reportConfiguration(configs[i], frame))
 						return;
 				} else {
-					next.addAll(simulator.stepConfiguration(configs[i]));
+					try {
+						next.addAll(simulator.stepConfiguration(configs[i]));
+					} catch (SimulationException e) {
+						JOptionPane.showMessageDialog(frame, e.getMessage(),
+								"Simulation Error", JOptionPane.ERROR_MESSAGE);
+						return;
+					}
 				}
 			}
 			configs = (Configuration[]) next.toArray(new Configuration[0]);
@@ -25,6 +25,7 @@ import edu.duke.cs.jflap.automata.AutomatonSimulator;
 import edu.duke.cs.jflap.automata.Configuration;
 import edu.duke.cs.jflap.automata.NondeterminismDetector;
 import edu.duke.cs.jflap.automata.NondeterminismDetectorFactory;
+import edu.duke.cs.jflap.automata.SimulationOptions;
 import edu.duke.cs.jflap.automata.SimulatorFactory;
 import edu.duke.cs.jflap.automata.State;
 import edu.duke.cs.jflap.grammar.Grammar;
@@ -44,6 +45,7 @@ import java.util.*;
 import java.io.*;
 import edu.duke.cs.jflap.automata.graph.AutomatonDirectedGraph;
 import edu.duke.cs.jflap.automata.mealy.MealyMachine;
+import edu.duke.cs.jflap.automata.pda.PushdownAutomaton;
 import edu.duke.cs.jflap.automata.turing.TuringMachine;
 import edu.duke.cs.jflap.automata.turing.TMSimulator;
 
@@ -93,7 +95,30 @@ public class SimulateAction extends AutomatonAction {
 	 * @return a simulator for this automaton
 	 */
 	protected AutomatonSimulator getSimulator(Automaton automaton) {
-		return SimulatorFactory.getSimulator(automaton);
+		return SimulatorFactory.getSimulator(automaton, getOptions(automaton));
+	}
+
+	/**
+	 * Returns the options to simulate this automaton with. These are the
+	 * options of the current profile, except that for pushdown automata the
+	 * user is asked whether to accept by final state or by empty stack.
+	 * 
+	 * @param automaton
+	 *            the automaton that will be simulated
+	 * @return the options for simulating the automaton
+	 */
+	public static SimulationOptions getOptions(Automaton automaton) {
+		SimulationOptions options = Universe.curProfile.getSimulationOptions();
+		if (!(automaton instanceof PushdownAutomaton))
+			return options;
+		Object[] possibleValues = {"Final State", "Empty Stack"};
+		Object selectedValue = JOptionPane.showInputDialog(null,
+		            "Accept by", "Input",
+		            JOptionPane.INFORMATION_MESSAGE, null,
+		            possibleValues, possibleValues[0]);
+		if (possibleValues[1].equals(selectedValue))
+			return options.withPDAAcceptance(SimulationOptions.EMPTY_STACK);
+		return options.withPDAAcceptance(SimulationOptions.FINAL_STATE);
 	}
 
 	/**
@@ -65,9 +65,11 @@ public class SimulateNoClosureAction extends SimulateAction {
 	 */
 	protected AutomatonSimulator getSimulator(Automaton automaton) {
 		if (automaton instanceof edu.duke.cs.jflap.automata.fsa.FiniteStateAutomaton)
-			return new edu.duke.cs.jflap.automata.fsa.FSAStepByStateSimulator(automaton);
+			return new edu.duke.cs.jflap.automata.fsa.FSAStepByStateSimulator(automaton,
+					getOptions(automaton));
 		else
-			return new edu.duke.cs.jflap.automata.pda.PDAStepByStateSimulator(automaton);
+			return new edu.duke.cs.jflap.automata.pda.PDAStepByStateSimulator(automaton,
+					getOptions(automaton));
 	}
 
 	/**
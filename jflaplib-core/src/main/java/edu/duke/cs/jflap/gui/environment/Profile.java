@@ -42,6 +42,7 @@ import javax.xml.transform.stream.StreamResult;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
+import edu.duke.cs.jflap.automata.SimulationOptions;
 import edu.duke.cs.jflap.file.xml.DOMPrettier;
 import edu.duke.cs.jflap.gui.editor.TMTransitionCreator;
 
@@ -166,6 +167,7 @@ public class Profile {
 	 */
 	public void setEmptyString(String empty){
 		emptyString = empty;
+		SimulationOptions.setDefault(getSimulationOptions());
 	}
 	
 	/**
@@ -195,6 +197,7 @@ public class Profile {
 	public void setAcceptByFinalState(boolean t) {
 		turingAcceptByFinalState = t;
 		turingAcceptByFinalStateCheckBox.setSelected(t);
+		SimulationOptions.setDefault(getSimulationOptions());
 	}
 	/**
 	 * Sets whether Turing machines will accept by halting.
@@ -204,6 +207,7 @@ public class Profile {
 	public void setAcceptByHalting(boolean t) {
 		turingAcceptByHalting = t;
 		turingAcceptByHaltingCheckBox.setSelected(t);
+		SimulationOptions.setDefault(getSimulationOptions());
 	}
 
 	/**
@@ -234,6 +238,19 @@ public class Profile {
         return turingAcceptByHalting;
     }
 
+	/**
+	 * Returns the simulation options these preferences describe. Changes to
+	 * the empty string and the Turing machine acceptance criteria are also
+	 * made to the default simulation options.
+	 * 
+	 * @return the options for simulating automata
+	 */
+	public SimulationOptions getSimulationOptions() {
+		return SimulationOptions.getDefault().withEmptyString(emptyString)
+				.withTuringAcceptance(turingAcceptByFinalState,
+						turingAcceptByHalting);
+	}
+
 	/**
 	 * Returns the JCheckBoxMenuItem that can allow the user to change whether
 	 * Turing machine final states are allowed.
@@ -32,6 +32,9 @@ import java.awt.Image;
 import java.awt.Point;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -44,6 +47,7 @@ import javax.swing.JScrollPane;
 import javax.swing.JSpinner;
 import javax.swing.JTextField;
 import javax.swing.SpinnerNumberModel;
+import javax.swing.SwingUtilities;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 
@@ -112,9 +116,9 @@ public class DisplayPane extends JPanel {
 	 * Updates the display.Graphics2D;
 	 */
 	private void updateDisplay() {
-		int recursionDepth = spinnerModel.getNumber().intValue();
-		final List expansion = expander.expansionForLevel(recursionDepth);
-		progressBar.setMaximum(expansion.size() * 2);
+		final int recursionDepth = spinnerModel.getNumber().intValue();
+		final Iterable expansion = expander
+				.lazyExpansionForLevel(recursionDepth);
 		imageDisplay.setImage(null);
 		Image renderImage = null;
 
@@ -129,9 +133,27 @@ public class DisplayPane extends JPanel {
 
 		final Thread drawThread = new Thread() {
 			public void run() {
-				if (expansion.size() < 70) {
+				// Counting the symbols of a stochastic or context sensitive
+				// L-system means making the whole expansion, so the progress
+				// bar just shows that something is happening then.
+				final BigInteger size = expander.isCountable() ? expander
+						.sizeForLevel(recursionDepth) : null;
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+						if (size == null)
+							progressBar.setIndeterminate(true);
+						else
+							progressBar.setMaximum(size.min(MAX_PROGRESS)
+									.intValue() * 2);
+					}
+				});
+				List symbols = new ArrayList();
+				Iterator it = expansion.iterator();
+				while (it.hasNext() && symbols.size() < 70)
+					symbols.add(it.next());
+				if (!it.hasNext() && symbols.size() < 70) {
 					String expansionString = LSystemInputPane
-							.listAsString(expansion);
+							.listAsString(symbols);
 					expansionDisplay.setText(expansionString);
 				} else
 					expansionDisplay.setText("Suffice to say, quite long.");
@@ -153,7 +175,12 @@ public class DisplayPane extends JPanel {
 				t.stop();
 				imageDisplay.repaint();
 				imageDisplay.revalidate();
-				progressBar.setValue(progressBar.getMaximum());
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+						progressBar.setIndeterminate(false);
+						progressBar.setValue(progressBar.getMaximum());
+					}
+				});
 			}
 		};
 		drawThread.start();
@@ -167,7 +194,7 @@ public class DisplayPane extends JPanel {
 	 */
 	public void printComponent(Graphics g) {
 		int recursionDepth = spinnerModel.getNumber().intValue();
-		List expansion = expander.expansionForLevel(recursionDepth);
+		Iterable expansion = expander.lazyExpansionForLevel(recursionDepth);
 		// Now, set the display.
 		Map parameters = lsystem.getValues();
 		Matrix m = new Matrix();
@@ -193,6 +220,10 @@ public class DisplayPane extends JPanel {
 	/** The L-system we are displaying here. */
 	private LSystem lsystem;
 
+	/** The most symbols the progress bar counts up to, times two. */
+	private static final BigInteger MAX_PROGRESS = BigInteger
+			.valueOf(Integer.MAX_VALUE / 2);
+
 	/** The current expander. */
 	private Expander expander = null;
 
@@ -35,7 +35,6 @@ import java.util.EmptyStackException;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
@@ -111,7 +110,8 @@ public class Renderer {
 	 * 
 	 * @return the number of symbols processed, the max value of which is twice
 	 *         the number of symbols passed into the <CODE>render</CODE>
-	 *         method
+	 *         method, since they are read once to find the bounds and once to
+	 *         draw
 	 */
 	public int getDoneSymbols() {
 		return completedSymbols;
@@ -149,7 +149,8 @@ public class Renderer {
 	 * image.
 	 * 
 	 * @param symbols
-	 *            a list of symbols
+	 *            the symbols, which are iterated over twice and need never be
+	 *            held all at once
 	 * @param parameters
 	 *            the parameters
 	 * @param matrix
@@ -169,7 +170,7 @@ public class Renderer {
 	 *             if there is a passed in graphics object and its clip area is
 	 *             not set
 	 */
-	public Image render(List symbols, Map parameters, Matrix matrix,
+	public Image render(Iterable symbols, Map parameters, Matrix matrix,
 			Graphics2D graphics, Point2D origin) {
 		BufferedImage image = null;
 		Rectangle2D bounds = new Rectangle2D.Double();
@@ -178,7 +179,6 @@ public class Renderer {
 					"Graphics needs a non-null clip!");
 		if (matrix == null)
 			matrix = new Matrix();
-		totalSymbols = symbols.size() * 2;
 		completedSymbols = 0;
 		isActive = true;
 		for (int i = 0; i < 2; i++) {
@@ -367,9 +367,6 @@ public class Renderer {
 	/** The number of symbols completed sofar. */
 	private int completedSymbols;
 
-	/** The number of symbols to process. */
-	private int totalSymbols;
-
 	/** The set of words that can be assigned to. */
 	public static Set ASSIGN_WORDS;
 
@@ -35,6 +35,7 @@ import javax.swing.JSplitPane;
 
 import edu.duke.cs.jflap.automata.AutomatonSimulator;
 import edu.duke.cs.jflap.automata.Configuration;
+import edu.duke.cs.jflap.automata.SimulationException;
 import edu.duke.cs.jflap.automata.turing.TMSimulator;
 import edu.duke.cs.jflap.automata.turing.TMConfiguration;
 import edu.duke.cs.jflap.automata.turing.TMState;
@@ -122,6 +123,19 @@ public class ConfigurationController implements ConfigurationSelectionListener {
 		configurationToTraceWindow.clear();
 	}
 
+	/**
+	 * Tells the user about a problem with the automaton that stopped a
+	 * configuration from being stepped. The configuration is then treated as
+	 * rejected.
+	 * 
+	 * @param e
+	 *            the exception describing the problem
+	 */
+	private void showSimulationError(SimulationException e) {
+		JOptionPane.showMessageDialog(configurations, e.getMessage(),
+				"Simulation Error", JOptionPane.ERROR_MESSAGE);
+	}
+
 	/**
 	 * The step method takes all configurations from the configuration pane, and
 	 * replaces them with "successor" transitions.
@@ -139,7 +153,13 @@ public class ConfigurationController implements ConfigurationSelectionListener {
         if (!blockStep){ //for ordinary automaton
             for (int i = 0; i < configs.length; i++) {
                 //System.out.println("HERE!");
-                ArrayList next = simulator.stepConfiguration(configs[i]);
+                ArrayList next;
+                try {
+                    next = simulator.stepConfiguration(configs[i]);
+                } catch (SimulationException e) {
+                    showSimulationError(e);
+                    next = new ArrayList();
+                }
                 //MERLIN MERLIN MERLIN MERLIN MERLIN//
                 if (next.size() == 0) { //crucial check for rejection
                     //System.out.println("Rejected");
@@ -158,7 +178,13 @@ public class ConfigurationController implements ConfigurationSelectionListener {
 
             if (configs.length == 0) break; //bit of a hack, but not much time to debug right now.
             
-            List next = ((TMSimulator) simulator).stepBlock((TMConfiguration)configs[0]);
+            List next;
+            try {
+                next = ((TMSimulator) simulator).stepBlock((TMConfiguration)configs[0]);
+            } catch (SimulationException e) {
+                showSimulationError(e);
+                next = new ArrayList();
+            }
             //MERLIN MERLIN MERLIN MERLIN MERLIN//
             if (next.size() == 0) { //crucial check for rejection
                 //System.out.println("Rejected");
@@ -0,0 +1,342 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package edu.duke.cs.jflap.regular;
+
+import java.util.Arrays;
+
+import edu.duke.cs.jflap.automata.State;
+import edu.duke.cs.jflap.automata.StatePlacer;
+import edu.duke.cs.jflap.automata.fsa.FSATransition;
+import edu.duke.cs.jflap.automata.fsa.FiniteStateAutomaton;
+
+/**
+ * A compiled expression is the Glushkov automaton of a regular expression,
+ * built directly from its syntax tree with no user interaction, unlike the
+ * step by step conversion of <CODE>REToFSAController</CODE>.
+ * <P>
+ * Each symbol in the expression is a position, numbered from 1 in order, and
+ * position 0 is the start. The automaton has one state per position and no
+ * lambda transitions: from any position it goes to each position that may
+ * follow it in a matched string, on that position's symbol. The sets of
+ * positions are kept as bitsets, so a set of states of the automaton can be
+ * stepped on a symbol with a few word operations; this is what the lazy DFA
+ * of the <CODE>ExpressionMatcher</CODE> is built on. The follow sets take
+ * space quadratic in the number of symbols.
+ * <P>
+ * Instances are immutable and may be shared by any number of threads, but
+ * each thread needs its own matcher.
+ * 
+ * @see edu.duke.cs.jflap.regular.ExpressionMatcher
+ */
+
+public class CompiledExpression {
+	/**
+	 * Compiles a regular expression string.
+	 * 
+	 * @param expression
+	 *            the regular expression, in JFLAP's syntax
+	 * @throws UnsupportedOperationException
+	 *             if the expression is not properly formed
+	 * @see edu.duke.cs.jflap.regular.ExpressionParser#parse
+	 */
+	public CompiledExpression(String expression) {
+		this(ExpressionParser.parse(expression));
+	}
+
+	/**
+	 * Compiles a regular expression syntax tree.
+	 * 
+	 * @param expression
+	 *            the syntax tree of the expression
+	 */
+	public CompiledExpression(ExpressionNode expression) {
+		this.expression = expression;
+		int positions = expression.getSymbolCount() + 1;
+		words = (positions + 63) >> 6;
+		symbols = new char[positions];
+		follow = new long[positions][words];
+		positionCount = 1;
+		Sets root = glushkov(expression);
+		or(follow[0], root.first);
+		accepting = root.last;
+		if (root.nullable)
+			accepting[0] |= 1L;
+
+		// The alphabet, and the positions of each symbol in it.
+		char[] sorted = new char[positions - 1];
+		System.arraycopy(symbols, 1, sorted, 0, sorted.length);
+		Arrays.sort(sorted);
+		int distinct = 0;
+		for (int i = 0; i < sorted.length; i++)
+			if (i == 0 || sorted[i] != sorted[i - 1])
+				sorted[distinct++] = sorted[i];
+		alphabet = new char[distinct];
+		System.arraycopy(sorted, 0, alphabet, 0, distinct);
+		Arrays.fill(asciiIndex, -1);
+		for (int a = 0; a < alphabet.length; a++)
+			if (alphabet[a] < asciiIndex.length)
+				asciiIndex[alphabet[a]] = a;
+		symbolMasks = new long[alphabet.length][words];
+		for (int p = 1; p < positions; p++) {
+			int a = getSymbolIndex(symbols[p]);
+			symbolMasks[a][p >> 6] |= 1L << p;
+		}
+	}
+
+	/**
+	 * The nullability and the first and last positions of a subexpression.
+	 */
+	private static class Sets {
+		boolean nullable;
+
+		long[] first;
+
+		long[] last;
+	}
+
+	/**
+	 * Numbers the positions of a subexpression, adds the pairs of positions
+	 * that may follow one another within it to the follow sets, and returns
+	 * its first and last positions.
+	 */
+	private Sets glushkov(ExpressionNode node) {
+		Sets sets = new Sets();
+		sets.first = new long[words];
+		sets.last = new long[words];
+		switch (node.getKind()) {
+		case ExpressionNode.SYMBOL:
+			int p = positionCount++;
+			symbols[p] = node.getSymbol();
+			sets.first[p >> 6] |= 1L << p;
+			sets.last[p >> 6] |= 1L << p;
+			break;
+		case ExpressionNode.LAMBDA:
+			sets.nullable = true;
+			break;
+		case ExpressionNode.EMPTY_SET:
+			break;
+		case ExpressionNode.UNION:
+			for (int i = 0; i < node.getChildCount(); i++) {
+				Sets child = glushkov(node.getChild(i));
+				sets.nullable |= child.nullable;
+				or(sets.first, child.first);
+				or(sets.last, child.last);
+			}
+			break;
+		case ExpressionNode.STAR:
+			Sets child = glushkov(node.getChild(0));
+			addFollow(child.last, child.first);
+			sets.nullable = true;
+			sets.first = child.first;
+			sets.last = child.last;
+			break;
+		case ExpressionNode.CONCATENATION:
+			Sets[] children = new Sets[node.getChildCount()];
+			for (int i = 0; i < children.length; i++)
+				children[i] = glushkov(node.getChild(i));
+			// Right to left, the first positions of the rest of the
+			// concatenation are what may follow the last of each child.
+			long[] restFirst = new long[words];
+			boolean restNullable = true;
+			for (int i = children.length - 1; i >= 0; i--) {
+				addFollow(children[i].last, restFirst);
+				if (restNullable)
+					or(sets.last, children[i].last);
+				if (!children[i].nullable)
+					Arrays.fill(restFirst, 0L);
+				or(restFirst, children[i].first);
+				restNullable &= children[i].nullable;
+			}
+			sets.first = restFirst;
+			sets.nullable = restNullable;
+			break;
+		}
+		return sets;
+	}
+
+	/**
+	 * Adds a set of positions to the follow set of each of another set of
+	 * positions.
+	 */
+	private void addFollow(long[] from, long[] to) {
+		for (int w = 0; w < words; w++)
+			for (long bits = from[w]; bits != 0; bits &= bits - 1)
+				or(follow[(w << 6) + Long.numberOfTrailingZeros(bits)], to);
+	}
+
+	private static void or(long[] into, long[] from) {
+		for (int w = 0; w < into.length; w++)
+			into[w] |= from[w];
+	}
+
+	/**
+	 * Returns the syntax tree this was compiled from.
+	 * 
+	 * @return the syntax tree of the expression
+	 */
+	public ExpressionNode getExpression() {
+		return expression;
+	}
+
+	/**
+	 * Returns the symbols in the expression.
+	 * 
+	 * @return the distinct symbols of the expression, in increasing order
+	 */
+	public char[] getAlphabet() {
+		return (char[]) alphabet.clone();
+	}
+
+	/**
+	 * Returns a new matcher for this expression.
+	 * 
+	 * @return a matcher caching at most
+	 *         <CODE>ExpressionMatcher.DEFAULT_MAX_STATES</CODE> states
+	 */
+	public ExpressionMatcher matcher() {
+		return new ExpressionMatcher(this);
+	}
+
+	/**
+	 * Returns the Glushkov automaton of the expression as a new finite state
+	 * automaton, with no lambda transitions and every label a single symbol.
+	 * Only the positions that can be reached from the start are made states;
+	 * state 0 is the initial state, and each other state is labelled with
+	 * its symbol and the number of its position.
+	 * 
+	 * @return an automaton accepting the language of the expression
+	 */
+	public FiniteStateAutomaton getAutomaton() {
+		FiniteStateAutomaton automaton = new FiniteStateAutomaton();
+		StatePlacer sp = new StatePlacer();
+		State[] states = new State[symbols.length];
+		int[] queue = new int[symbols.length];
+		int count = 0;
+		states[0] = automaton.createStateWithId(sp.getPointForState(automaton), 0);
+		queue[count++] = 0;
+		for (int head = 0; head < count; head++) {
+			int p = queue[head];
+			for (int w = 0; w < words; w++)
+				for (long bits = follow[p][w]; bits != 0; bits &= bits - 1) {
+					int q = (w << 6) + Long.numberOfTrailingZeros(bits);
+					if (states[q] == null) {
+						states[q] = automaton.createStateWithId(sp
+								.getPointForState(automaton), count);
+						states[q].setLabel(symbols[q] + "" + q);
+						queue[count++] = q;
+					}
+					automaton.addTransition(new FSATransition(states[p],
+							states[q], String.valueOf(symbols[q])));
+				}
+		}
+		automaton.setInitialState(states[0]);
+		for (int i = 0; i < count; i++)
+			if (contains(accepting, queue[i]))
+				automaton.addFinalState(states[queue[i]]);
+		return automaton;
+	}
+
+	/**
+	 * Returns the number of words in each set of positions.
+	 */
+	int getWords() {
+		return words;
+	}
+
+	/**
+	 * Returns the set containing just the start position.
+	 */
+	long[] getStart() {
+		long[] start = new long[words];
+		start[0] = 1L;
+		return start;
+	}
+
+	/**
+	 * Returns the union of the follow sets of a set of positions.
+	 */
+	long[] getFollow(long[] positions) {
+		long[] union = new long[words];
+		for (int w = 0; w < words; w++)
+			for (long bits = positions[w]; bits != 0; bits &= bits - 1)
+				or(union, follow[(w << 6) + Long.numberOfTrailingZeros(bits)]);
+		return union;
+	}
+
+	/**
+	 * Returns whether a set of positions contains a final one.
+	 */
+	boolean isAccepting(long[] positions) {
+		for (int w = 0; w < words; w++)
+			if ((positions[w] & accepting[w]) != 0)
+				return true;
+		return false;
+	}
+
+	/**
+	 * Returns the index of a symbol in the alphabet, or -1 if the expression
+	 * does not have it.
+	 */
+	int getSymbolIndex(char c) {
+		if (c < asciiIndex.length)
+			return asciiIndex[c];
+		int a = Arrays.binarySearch(alphabet, c);
+		return a < 0 ? -1 : a;
+	}
+
+	/**
+	 * Returns the positions of the symbol at an index in the alphabet.
+	 */
+	long[] getSymbolMask(int index) {
+		return symbolMasks[index];
+	}
+
+	private static boolean contains(long[] set, int p) {
+		return (set[p >> 6] & (1L << p)) != 0;
+	}
+
+	/** The syntax tree of the expression. */
+	private final ExpressionNode expression;
+
+	/** The number of longs in a set of positions. */
+	private final int words;
+
+	/** The symbol of each position; position 0 is the start. */
+	private final char[] symbols;
+
+	/** The positions that may follow each position. */
+	private final long[][] follow;
+
+	/** The positions a matched string may end at. */
+	private final long[] accepting;
+
+	/** The distinct symbols, sorted. */
+	private final char[] alphabet;
+
+	/** The index in the alphabet of each ASCII symbol, or -1. */
+	private final int[] asciiIndex = new int[128];
+
+	/** The positions of each symbol of the alphabet. */
+	private final long[][] symbolMasks;
+
+	/** The next position to number while compiling. */
+	private int positionCount;
+}
@@ -20,7 +20,7 @@
 
 package edu.duke.cs.jflap.regular;
 
-import edu.duke.cs.jflap.gui.environment.Universe;
+import edu.duke.cs.jflap.automata.SimulationOptions;
 
 import java.util.*;
 
@@ -125,6 +125,6 @@ public class Discretizer {
 	 *         string
 	 */
 	public static String delambda(String string) {
-		return string.equals(Universe.curProfile.getEmptyString()) ? "" : string;
+		return string.equals(SimulationOptions.getDefault().getEmptyString()) ? "" : string;
 	}
 }
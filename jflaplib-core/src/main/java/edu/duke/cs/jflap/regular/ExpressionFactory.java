@@ -0,0 +1,307 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package edu.duke.cs.jflap.regular;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An expression factory builds regular expression nodes that are hash-consed
+ * and simplified as they are built. Every node the factory returns is the
+ * single instance of that expression among all the nodes it has made, so an
+ * expression built up from shared parts, as in state elimination, is a DAG
+ * whose size is the number of distinct subexpressions rather than the length
+ * of its string, and two nodes are equal exactly when they are the same
+ * object.
+ * <P>
+ * The simplifications all preserve the language and never make an
+ * expression longer:
+ * <UL>
+ * <LI>the empty set is dropped from unions, and makes any concatenation
+ * containing it the empty set;</LI>
+ * <LI>lambda is dropped from concatenations, and from unions with another
+ * member that matches the empty string;</LI>
+ * <LI>nested unions and concatenations are flattened, repeated members of a
+ * union are dropped, and so is a member <CODE>r</CODE> of a union that also
+ * contains <CODE>r*</CODE>;</LI>
+ * <LI><CODE>r*r*</CODE> becomes <CODE>r*</CODE>;</LI>
+ * <LI>the star of lambda or of the empty set is lambda, <CODE>r**</CODE> is
+ * <CODE>r*</CODE>, and within a starred union lambda is dropped and the
+ * stars of members are removed, so that <CODE>(!+a*+b)*</CODE> is
+ * <CODE>(a+b)*</CODE>.</LI>
+ * </UL>
+ * <P>
+ * A factory is not safe for use by several threads at once.
+ * 
+ * @see edu.duke.cs.jflap.automata.fsa.StateEliminator
+ */
+
+public class ExpressionFactory {
+	/**
+	 * Instantiates a factory with no nodes made yet.
+	 */
+	public ExpressionFactory() {
+		lambda = intern(new ExpressionNode(ExpressionNode.LAMBDA));
+		emptySet = intern(new ExpressionNode(ExpressionNode.EMPTY_SET));
+	}
+
+	/**
+	 * Returns the node for a symbol.
+	 * 
+	 * @param symbol
+	 *            the symbol
+	 * @return the node matching just <CODE>symbol</CODE>
+	 */
+	public ExpressionNode symbol(char symbol) {
+		return intern(new ExpressionNode(symbol));
+	}
+
+	/**
+	 * Returns the node for lambda.
+	 * 
+	 * @return the node matching just the empty string
+	 */
+	public ExpressionNode lambda() {
+		return lambda;
+	}
+
+	/**
+	 * Returns the node for the empty set.
+	 * 
+	 * @return the node matching nothing
+	 */
+	public ExpressionNode emptySet() {
+		return emptySet;
+	}
+
+	/**
+	 * Returns the node for a string of symbols, which is lambda if the string
+	 * is empty.
+	 * 
+	 * @param string
+	 *            the symbols
+	 * @return the node matching just <CODE>string</CODE>
+	 */
+	public ExpressionNode string(String string) {
+		ExpressionNode[] symbols = new ExpressionNode[string.length()];
+		for (int i = 0; i < symbols.length; i++)
+			symbols[i] = symbol(string.charAt(i));
+		return concatenate(symbols);
+	}
+
+	/**
+	 * Returns the simplified union of two expressions made by this factory.
+	 * 
+	 * @param a
+	 *            the first expression
+	 * @param b
+	 *            the second expression
+	 * @return the union of <CODE>a</CODE> and <CODE>b</CODE>
+	 */
+	public ExpressionNode union(ExpressionNode a, ExpressionNode b) {
+		if (a == b)
+			return a;
+		if (a == emptySet)
+			return b;
+		if (b == emptySet)
+			return a;
+		ArrayList members = new ArrayList();
+		addMembers(members, a, ExpressionNode.UNION);
+		addMembers(members, b, ExpressionNode.UNION);
+		return union(members);
+	}
+
+	/**
+	 * Returns the simplified union of a list of distinct, flattened members.
+	 */
+	private ExpressionNode union(ArrayList members) {
+		boolean nullable = false;
+		Set starred = new HashSet();
+		for (int i = 0; i < members.size(); i++) {
+			ExpressionNode member = (ExpressionNode) members.get(i);
+			if (member != lambda && member.isNullable())
+				nullable = true;
+			if (member.getKind() == ExpressionNode.STAR)
+				starred.add(member.getChild(0));
+		}
+		for (Iterator it = members.iterator(); it.hasNext();) {
+			ExpressionNode member = (ExpressionNode) it.next();
+			if (member == emptySet || (member == lambda && nullable)
+					|| starred.contains(member))
+				it.remove();
+		}
+		if (members.isEmpty())
+			return emptySet;
+		if (members.size() == 1)
+			return (ExpressionNode) members.get(0);
+		return intern(new ExpressionNode(ExpressionNode.UNION,
+				(ExpressionNode[]) members.toArray(new ExpressionNode[0])));
+	}
+
+	/**
+	 * Returns the simplified concatenation of two expressions made by this
+	 * factory.
+	 * 
+	 * @param a
+	 *            the first expression
+	 * @param b
+	 *            the second expression
+	 * @return <CODE>a</CODE> followed by <CODE>b</CODE>
+	 */
+	public ExpressionNode concatenate(ExpressionNode a, ExpressionNode b) {
+		return concatenate(new ExpressionNode[] { a, b });
+	}
+
+	/**
+	 * Returns the simplified concatenation of any number of expressions made
+	 * by this factory.
+	 * 
+	 * @param nodes
+	 *            the expressions, in order
+	 * @return the expressions concatenated, which is lambda if there are none
+	 */
+	public ExpressionNode concatenate(ExpressionNode[] nodes) {
+		ArrayList factors = new ArrayList();
+		for (int i = 0; i < nodes.length; i++) {
+			if (nodes[i] == emptySet)
+				return emptySet;
+			ArrayList flat = new ArrayList();
+			addMembers(flat, nodes[i], ExpressionNode.CONCATENATION);
+			for (int j = 0; j < flat.size(); j++) {
+				ExpressionNode factor = (ExpressionNode) flat.get(j);
+				if (factor == lambda)
+					continue;
+				if (factor.getKind() == ExpressionNode.STAR
+						&& !factors.isEmpty()
+						&& factors.get(factors.size() - 1) == factor)
+					continue;
+				factors.add(factor);
+			}
+		}
+		if (factors.isEmpty())
+			return lambda;
+		if (factors.size() == 1)
+			return (ExpressionNode) factors.get(0);
+		return intern(new ExpressionNode(ExpressionNode.CONCATENATION,
+				(ExpressionNode[]) factors.toArray(new ExpressionNode[0])));
+	}
+
+	/**
+	 * Returns the simplified Kleene star of an expression made by this
+	 * factory.
+	 * 
+	 * @param node
+	 *            the expression
+	 * @return the star of <CODE>node</CODE>
+	 */
+	public ExpressionNode star(ExpressionNode node) {
+		if (node == lambda || node == emptySet)
+			return lambda;
+		if (node.getKind() == ExpressionNode.STAR)
+			return node;
+		if (node.getKind() == ExpressionNode.UNION) {
+			// (!+r*+s)* is (r+s)*.
+			ArrayList members = new ArrayList();
+			boolean changed = false;
+			for (int i = 0; i < node.getChildCount(); i++) {
+				ExpressionNode member = node.getChild(i);
+				if (member == lambda) {
+					changed = true;
+					continue;
+				}
+				if (member.getKind() == ExpressionNode.STAR) {
+					member = member.getChild(0);
+					changed = true;
+				}
+				addMembers(members, member, ExpressionNode.UNION);
+			}
+			if (changed)
+				return star(union(members));
+		}
+		return intern(new ExpressionNode(ExpressionNode.STAR,
+				new ExpressionNode[] { node }));
+	}
+
+	/**
+	 * Returns the node this factory uses for an expression, which may have
+	 * been made anywhere, such as by the <CODE>ExpressionParser</CODE>. The
+	 * expression is not simplified.
+	 * 
+	 * @param node
+	 *            the expression
+	 * @return the node of this factory equal to <CODE>node</CODE>
+	 */
+	public ExpressionNode intern(ExpressionNode node) {
+		ExpressionNode interned = (ExpressionNode) nodes.get(node);
+		if (interned != null)
+			return interned;
+		if (node.getChildCount() > 0) {
+			ExpressionNode[] children = new ExpressionNode[node.getChildCount()];
+			boolean same = true;
+			for (int i = 0; i < children.length; i++) {
+				children[i] = intern(node.getChild(i));
+				same &= children[i] == node.getChild(i);
+			}
+			if (!same)
+				node = new ExpressionNode(node.getKind(), children);
+		}
+		nodes.put(node, node);
+		return node;
+	}
+
+	/**
+	 * Returns the number of distinct nodes this factory has made.
+	 * 
+	 * @return the number of nodes
+	 */
+	public int getNodeCount() {
+		return nodes.size();
+	}
+
+	/**
+	 * Adds an expression to a list of the members of a union or
+	 * concatenation, adding its children instead if it is of that kind, and
+	 * leaving out members already in the list.
+	 */
+	private static void addMembers(ArrayList members, ExpressionNode node,
+			int kind) {
+		if (node.getKind() != kind) {
+			if (kind == ExpressionNode.CONCATENATION || !members.contains(node))
+				members.add(node);
+			return;
+		}
+		for (int i = 0; i < node.getChildCount(); i++)
+			addMembers(members, node.getChild(i), kind);
+	}
+
+	/** The nodes made so far, each mapped to itself. */
+	private final Map nodes = new HashMap();
+
+	/** The node for lambda. */
+	private final ExpressionNode lambda;
+
+	/** The node for the empty set. */
+	private final ExpressionNode emptySet;
+}
@@ -0,0 +1,218 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package edu.duke.cs.jflap.regular;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An expression matcher decides whether strings match a compiled expression
+ * with a lazily built DFA. Each state of the DFA is a set of positions of the
+ * expression's Glushkov automaton, and is created the first time a string
+ * reaches it; its transitions are filled in as strings take them. Matching
+ * a string already covered by the cached states walks one array element per
+ * character and allocates nothing, so a matcher grows faster the more
+ * strings it is given, while a DFA exponentially larger than the expression
+ * is never built unless the strings really visit all of it.
+ * <P>
+ * The number of cached states is bounded. When a new state would exceed the
+ * bound the whole cache is thrown away and built again from the states
+ * strings go on to visit, so memory stays bounded even for expressions
+ * whose DFA is huge, at the cost of some recomputation.
+ * <P>
+ * A matcher is not safe for use by several threads at once; get one per
+ * thread from the shared <CODE>CompiledExpression</CODE>.
+ * 
+ * @see edu.duke.cs.jflap.regular.CompiledExpression#matcher
+ */
+
+public class ExpressionMatcher {
+	/**
+	 * Instantiates a matcher caching at most <CODE>DEFAULT_MAX_STATES</CODE>
+	 * states.
+	 * 
+	 * @param expression
+	 *            the compiled expression to match
+	 */
+	public ExpressionMatcher(CompiledExpression expression) {
+		this(expression, DEFAULT_MAX_STATES);
+	}
+
+	/**
+	 * Instantiates a matcher.
+	 * 
+	 * @param expression
+	 *            the compiled expression to match
+	 * @param maxStates
+	 *            the most DFA states to cache at once
+	 * @throws IllegalArgumentException
+	 *             if <CODE>maxStates</CODE> is not positive
+	 */
+	public ExpressionMatcher(CompiledExpression expression, int maxStates) {
+		if (maxStates < 1)
+			throw new IllegalArgumentException("The cache must hold a state.");
+		this.expression = expression;
+		this.maxStates = maxStates;
+		alphabetSize = expression.getAlphabet().length;
+		dead = new DFAState(new long[expression.getWords()]);
+		initial = intern(expression.getStart());
+	}
+
+	/**
+	 * Returns whether a whole string matches the expression.
+	 * 
+	 * @param input
+	 *            the string to match
+	 * @return <CODE>true</CODE> if the expression matches <CODE>input</CODE>
+	 */
+	public boolean matches(CharSequence input) {
+		DFAState state = initial;
+		for (int i = 0; i < input.length(); i++) {
+			int a = expression.getSymbolIndex(input.charAt(i));
+			if (a < 0)
+				return false;
+			DFAState next = state.next[a];
+			if (next == null)
+				next = step(state, a);
+			if (next == dead)
+				return false;
+			state = next;
+		}
+		return state.accepting;
+	}
+
+	/**
+	 * Computes and caches the transition out of a state on a symbol.
+	 */
+	private DFAState step(DFAState state, int a) {
+		if (state.follow == null)
+			state.follow = expression.getFollow(state.positions);
+		long[] mask = expression.getSymbolMask(a);
+		long[] positions = new long[mask.length];
+		boolean empty = true;
+		for (int w = 0; w < mask.length; w++) {
+			positions[w] = state.follow[w] & mask[w];
+			empty &= positions[w] == 0;
+		}
+		DFAState next = empty ? dead : intern(positions);
+		state.next[a] = next;
+		return next;
+	}
+
+	/**
+	 * Returns the cached state for a set of positions, creating it, and first
+	 * flushing the cache if it is full.
+	 */
+	private DFAState intern(long[] positions) {
+		DFAState state = new DFAState(positions);
+		DFAState cached = (DFAState) states.get(state);
+		if (cached != null)
+			return cached;
+		if (states.size() >= maxStates) {
+			states.clear();
+			flushes++;
+			initial = new DFAState(initial.positions);
+			states.put(initial, initial);
+			if (state.equals(initial))
+				return initial;
+		}
+		states.put(state, state);
+		return state;
+	}
+
+	/**
+	 * Returns the number of DFA states currently cached.
+	 * 
+	 * @return the number of cached states
+	 */
+	public int getCachedStateCount() {
+		return states.size();
+	}
+
+	/**
+	 * Returns how many times the cache has been thrown away because it was
+	 * full. If this keeps growing, the strings visit more of the DFA than
+	 * fits in the cache.
+	 * 
+	 * @return the number of flushes so far
+	 */
+	public int getFlushCount() {
+		return flushes;
+	}
+
+	/**
+	 * A state of the lazy DFA.
+	 */
+	private class DFAState {
+		DFAState(long[] positions) {
+			this.positions = positions;
+			accepting = expression.isAccepting(positions);
+			next = new DFAState[alphabetSize];
+			hash = Arrays.hashCode(positions);
+		}
+
+		public boolean equals(Object object) {
+			return Arrays.equals(positions, ((DFAState) object).positions);
+		}
+
+		public int hashCode() {
+			return hash;
+		}
+
+		/** The positions of the Glushkov automaton this state stands for. */
+		final long[] positions;
+
+		final boolean accepting;
+
+		/** The successor on each symbol, or null if not yet computed. */
+		final DFAState[] next;
+
+		/** The union of the follow sets of the positions, once computed. */
+		long[] follow;
+
+		final int hash;
+	}
+
+	/** The number of states cached if no other bound is given. */
+	public static final int DEFAULT_MAX_STATES = 10000;
+
+	/** The compiled expression. */
+	private final CompiledExpression expression;
+
+	/** The most states to cache. */
+	private final int maxStates;
+
+	/** The number of distinct symbols of the expression. */
+	private final int alphabetSize;
+
+	/** The state with no positions, from which nothing matches. */
+	private final DFAState dead;
+
+	/** The cached states, each mapped to itself. */
+	private final Map states = new HashMap();
+
+	/** The state for the start position. */
+	private DFAState initial;
+
+	/** The number of times the cache was flushed. */
+	private int flushes = 0;
+}
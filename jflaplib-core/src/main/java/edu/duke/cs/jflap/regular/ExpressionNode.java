@@ -0,0 +1,311 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package edu.duke.cs.jflap.regular;
+
+import java.util.Arrays;
+
+/**
+ * An expression node is one node of the syntax tree of a regular expression.
+ * A node is either a single symbol, lambda (the expression matching only the
+ * empty string), the empty set, or one of the three operators: the union or
+ * the concatenation of any number of subexpressions, or the Kleene star of
+ * one. Unions and concatenations are flat, so that <CODE>a+b+c</CODE> is one
+ * union of three symbols rather than two nested unions; this keeps the depth
+ * of the tree down to the nesting of parentheses and stars in the expression.
+ * <P>
+ * Nodes are immutable, and are equal when they have the same kind and equal
+ * children in the same order, so they may be used as hash keys.
+ * 
+ * @see edu.duke.cs.jflap.regular.ExpressionParser
+ */
+
+public class ExpressionNode {
+	/**
+	 * Instantiates a node for a single symbol.
+	 * 
+	 * @param symbol
+	 *            the symbol the node matches
+	 */
+	public ExpressionNode(char symbol) {
+		this(SYMBOL, symbol, NO_CHILDREN);
+	}
+
+	/**
+	 * Instantiates a node without children, which is lambda or the empty
+	 * set.
+	 * 
+	 * @param kind
+	 *            either <CODE>LAMBDA</CODE> or <CODE>EMPTY_SET</CODE>
+	 * @throws IllegalArgumentException
+	 *             if the kind is not one of those
+	 */
+	public ExpressionNode(int kind) {
+		this(kind, '\0', NO_CHILDREN);
+		if (kind != LAMBDA && kind != EMPTY_SET)
+			throw new IllegalArgumentException("Bad kind of leaf " + kind);
+	}
+
+	/**
+	 * Instantiates an operator node.
+	 * 
+	 * @param kind
+	 *            either <CODE>UNION</CODE>, <CODE>CONCATENATION</CODE> or
+	 *            <CODE>STAR</CODE>
+	 * @param children
+	 *            the subexpressions, of which there must be at least two for
+	 *            a union or concatenation and exactly one for a star; the
+	 *            array is copied
+	 * @throws IllegalArgumentException
+	 *             if the kind is not one of those, or the number of children
+	 *             is wrong
+	 */
+	public ExpressionNode(int kind, ExpressionNode[] children) {
+		this(kind, '\0', (ExpressionNode[]) children.clone());
+		if (kind == STAR ? children.length != 1
+				: (kind != UNION && kind != CONCATENATION)
+						|| children.length < 2)
+			throw new IllegalArgumentException("Bad operator " + kind
+					+ " with " + children.length + " children");
+	}
+
+	private ExpressionNode(int kind, char symbol, ExpressionNode[] children) {
+		this.kind = kind;
+		this.symbol = symbol;
+		this.children = children;
+		int h = kind * 31 + symbol;
+		long length = kind == UNION ? children.length - 1 : kind == STAR ? 1
+				: 0;
+		boolean empty = kind == LAMBDA || kind == STAR || kind == CONCATENATION;
+		for (int i = 0; i < children.length; i++) {
+			h = h * 31 + children[i].hashCode();
+			// A shared subexpression may be counted many times over.
+			length = children[i].size > Long.MAX_VALUE - length ? Long.MAX_VALUE
+					: length + children[i].size;
+			if (kind == UNION)
+				empty |= children[i].nullable;
+			else if (kind == CONCATENATION)
+				empty &= children[i].nullable;
+		}
+		hash = h;
+		size = children.length == 0 ? 1 : length;
+		nullable = empty;
+	}
+
+	/**
+	 * Returns the kind of this node.
+	 * 
+	 * @return one of <CODE>SYMBOL</CODE>, <CODE>LAMBDA</CODE>,
+	 *         <CODE>EMPTY_SET</CODE>, <CODE>UNION</CODE>,
+	 *         <CODE>CONCATENATION</CODE> or <CODE>STAR</CODE>
+	 */
+	public int getKind() {
+		return kind;
+	}
+
+	/**
+	 * Returns the symbol of a symbol node.
+	 * 
+	 * @return the symbol, or <CODE>'\0'</CODE> if this is not a symbol node
+	 */
+	public char getSymbol() {
+		return symbol;
+	}
+
+	/**
+	 * Returns the number of children of this node.
+	 * 
+	 * @return the number of children, which is 0 for the leaves
+	 */
+	public int getChildCount() {
+		return children.length;
+	}
+
+	/**
+	 * Returns one child of this node.
+	 * 
+	 * @param index
+	 *            the index of the child
+	 * @return the child at <CODE>index</CODE>
+	 */
+	public ExpressionNode getChild(int index) {
+		return children[index];
+	}
+
+	/**
+	 * Returns the number of symbol nodes in the tree under this node, which
+	 * is the number of states less one of the automaton the
+	 * <CODE>CompiledExpression</CODE> builds.
+	 * 
+	 * @return the number of symbols in this expression
+	 */
+	public int getSymbolCount() {
+		if (kind == SYMBOL)
+			return 1;
+		int count = 0;
+		for (int i = 0; i < children.length; i++)
+			count += children[i].getSymbolCount();
+		return count;
+	}
+
+	/**
+	 * Returns the size of this expression, which is the length of its string
+	 * without parentheses. It is computed when the node is created, so it is
+	 * cheap even for a node that shares subexpressions and so stands for a
+	 * string far longer than the nodes it is made of.
+	 * 
+	 * @return the number of symbols, lambdas, empty sets and operators in
+	 *         this expression, or <CODE>Long.MAX_VALUE</CODE> if there are
+	 *         more than that
+	 */
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * Returns whether this expression matches the empty string.
+	 * 
+	 * @return <CODE>true</CODE> if lambda is in the language of this
+	 *         expression
+	 */
+	public boolean isNullable() {
+		return nullable;
+	}
+
+	public boolean equals(Object object) {
+		if (object == this)
+			return true;
+		if (!(object instanceof ExpressionNode))
+			return false;
+		ExpressionNode other = (ExpressionNode) object;
+		return hash == other.hash && kind == other.kind
+				&& symbol == other.symbol
+				&& Arrays.equals(children, other.children);
+	}
+
+	public int hashCode() {
+		return hash;
+	}
+
+	/**
+	 * Returns this expression in the syntax JFLAP uses, with the fewest
+	 * parentheses needed, <CODE>!</CODE> for lambda and
+	 * <CODE>&oslash;</CODE> for the empty set. Parsing the string gives back
+	 * an equal node.
+	 * 
+	 * @return this expression as a string
+	 */
+	public String toString() {
+		StringBuffer buffer = new StringBuffer();
+		append(buffer, precedence(UNION));
+		return buffer.toString();
+	}
+
+	/**
+	 * Appends this expression to a buffer, in parentheses if its operator
+	 * binds more loosely than the place it is in requires.
+	 */
+	private void append(StringBuffer buffer, int required) {
+		boolean parens = precedence(kind) < required;
+		if (parens)
+			buffer.append('(');
+		switch (kind) {
+		case SYMBOL:
+			buffer.append(symbol);
+			break;
+		case LAMBDA:
+			buffer.append(ExpressionParser.LAMBDA_CHARACTER);
+			break;
+		case EMPTY_SET:
+			buffer.append(ExpressionParser.EMPTY_SET_CHARACTER);
+			break;
+		case STAR:
+			children[0].append(buffer, precedence(STAR));
+			buffer.append('*');
+			break;
+		default:
+			// Nested operators of the same kind keep their parentheses.
+			int inner = kind == UNION ? precedence(CONCATENATION)
+					: precedence(STAR);
+			for (int i = 0; i < children.length; i++) {
+				if (i > 0 && kind == UNION)
+					buffer.append('+');
+				children[i].append(buffer, inner);
+			}
+		}
+		if (parens)
+			buffer.append(')');
+	}
+
+	/**
+	 * Returns how tightly an operator binds, where a concatenation binds more
+	 * tightly than a union and a star more tightly than either.
+	 */
+	private static int precedence(int kind) {
+		switch (kind) {
+		case UNION:
+			return 0;
+		case CONCATENATION:
+			return 1;
+		case STAR:
+			return 2;
+		default:
+			return 3;
+		}
+	}
+
+	/** The kind of a node for a single symbol. */
+	public static final int SYMBOL = 0;
+
+	/** The kind of a node for lambda. */
+	public static final int LAMBDA = 1;
+
+	/** The kind of a node for the empty set. */
+	public static final int EMPTY_SET = 2;
+
+	/** The kind of a node for a union. */
+	public static final int UNION = 3;
+
+	/** The kind of a node for a concatenation. */
+	public static final int CONCATENATION = 4;
+
+	/** The kind of a node for a Kleene star. */
+	public static final int STAR = 5;
+
+	private static final ExpressionNode[] NO_CHILDREN = new ExpressionNode[0];
+
+	/** The kind of this node. */
+	private final int kind;
+
+	/** The symbol of a symbol node. */
+	private final char symbol;
+
+	/** The children of an operator node. */
+	private final ExpressionNode[] children;
+
+	/** The cached hash code. */
+	private final int hash;
+
+	/** The length of the expression without parentheses. */
+	private final long size;
+
+	/** Whether the expression matches the empty string. */
+	private final boolean nullable;
+}
@@ -0,0 +1,181 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package edu.duke.cs.jflap.regular;
+
+import java.util.ArrayList;
+
+/**
+ * The expression parser turns a regular expression string in JFLAP's syntax
+ * into a tree of <CODE>ExpressionNode</CODE>s. In that syntax
+ * <CODE>+</CODE> is union, juxtaposition is concatenation, <CODE>*</CODE> is
+ * the Kleene star, and parentheses group. Lambda is written <CODE>!</CODE>,
+ * as in the expression editor, or with the lambda or epsilon character, as
+ * in the expressions the <CODE>FSAToRegularExpressionConverter</CODE>
+ * produces; that converter writes the empty set as <CODE>&oslash;</CODE>,
+ * and the empty string stands for lambda. Every other character is a
+ * symbol.
+ * <P>
+ * Parentheses are kept in the tree: <CODE>(ab)c</CODE> is a concatenation
+ * whose first child is a concatenation, while <CODE>abc</CODE> is a single
+ * concatenation of three symbols.
+ * 
+ * @see edu.duke.cs.jflap.regular.CompiledExpression
+ */
+
+public class ExpressionParser {
+	/**
+	 * Instantiates a parser for one expression.
+	 */
+	private ExpressionParser(String expression) {
+		this.expression = expression;
+	}
+
+	/**
+	 * Parses a regular expression.
+	 * 
+	 * @param expression
+	 *            the regular expression string
+	 * @return the syntax tree of <CODE>expression</CODE>
+	 * @throws UnsupportedOperationException
+	 *             if the expression is not properly formed, like
+	 *             <CODE>RegularExpression.asCheckedString</CODE>
+	 */
+	public static ExpressionNode parse(String expression) {
+		if (expression.length() == 0)
+			return new ExpressionNode(ExpressionNode.LAMBDA);
+		ExpressionParser parser = new ExpressionParser(expression);
+		ExpressionNode node = parser.parseUnion();
+		if (parser.position < expression.length())
+			throw parser.error("The parentheses are unbalanced!");
+		return node;
+	}
+
+	/**
+	 * Returns whether a character stands for lambda.
+	 * 
+	 * @param c
+	 *            the character
+	 * @return <CODE>true</CODE> if <CODE>c</CODE> is <CODE>!</CODE> or the
+	 *         lambda or epsilon character
+	 */
+	public static boolean isLambda(char c) {
+		return c == LAMBDA_CHARACTER || c == '\u03BB' || c == '\u03B5';
+	}
+
+	/**
+	 * Parses terms separated by <CODE>+</CODE>.
+	 */
+	private ExpressionNode parseUnion() {
+		ArrayList terms = new ArrayList();
+		terms.add(parseConcatenation());
+		while (position < expression.length()
+				&& expression.charAt(position) == '+') {
+			position++;
+			terms.add(parseConcatenation());
+		}
+		return combine(ExpressionNode.UNION, terms);
+	}
+
+	/**
+	 * Parses one or more factors up to a <CODE>+</CODE>, a closing
+	 * parenthesis or the end.
+	 */
+	private ExpressionNode parseConcatenation() {
+		ArrayList factors = new ArrayList();
+		while (position < expression.length()) {
+			char c = expression.charAt(position);
+			if (c == '+' || c == ')')
+				break;
+			factors.add(parseStar());
+		}
+		if (factors.isEmpty())
+			throw error("Operators are poorly formatted.");
+		return combine(ExpressionNode.CONCATENATION, factors);
+	}
+
+	/**
+	 * Parses an atom followed by any number of stars.
+	 */
+	private ExpressionNode parseStar() {
+		ExpressionNode node = parseAtom();
+		while (position < expression.length()
+				&& expression.charAt(position) == '*') {
+			position++;
+			node = new ExpressionNode(ExpressionNode.STAR,
+					new ExpressionNode[] { node });
+		}
+		return node;
+	}
+
+	/**
+	 * Parses a parenthesized expression or a single character.
+	 */
+	private ExpressionNode parseAtom() {
+		char c = expression.charAt(position++);
+		if (c == '(') {
+			ExpressionNode node = parseUnion();
+			if (position == expression.length())
+				throw error("The parentheses are unbalanced!");
+			position++;
+			return node;
+		}
+		if (c == '*') {
+			position--;
+			throw error("Operators are poorly formatted.");
+		}
+		if (isLambda(c))
+			return new ExpressionNode(ExpressionNode.LAMBDA);
+		if (c == EMPTY_SET_CHARACTER)
+			return new ExpressionNode(ExpressionNode.EMPTY_SET);
+		return new ExpressionNode(c);
+	}
+
+	/**
+	 * Returns the single node of a list, or an operator node over all of
+	 * them.
+	 */
+	private static ExpressionNode combine(int kind, ArrayList nodes) {
+		if (nodes.size() == 1)
+			return (ExpressionNode) nodes.get(0);
+		return new ExpressionNode(kind, (ExpressionNode[]) nodes
+				.toArray(new ExpressionNode[0]));
+	}
+
+	/**
+	 * Returns the exception for a malformed expression, naming the position.
+	 */
+	private UnsupportedOperationException error(String message) {
+		return new UnsupportedOperationException(message + " (at position "
+				+ (position + 1) + " of \"" + expression + "\")");
+	}
+
+	/** The character for lambda in the expression editor. */
+	public static final char LAMBDA_CHARACTER = '!';
+
+	/** The character for the empty set. */
+	public static final char EMPTY_SET_CHARACTER = '\u00F8';
+
+	/** The expression being parsed. */
+	private final String expression;
+
+	/** The index of the next character to parse. */
+	private int position = 0;
+}
@@ -185,6 +185,19 @@ public class RegularExpression implements Serializable {
 		return string;
 	}
 
+	/**
+	 * Compiles the expression, so that strings may be matched against it or
+	 * it may be converted to an automaton in one call.
+	 *
+	 * @return the compiled expression
+	 * @throws UnsupportedOperationException
+	 *             if the expression is not properly formed
+	 * @see edu.duke.cs.jflap.regular.CompiledExpression
+	 */
+	public CompiledExpression compile() {
+		return new CompiledExpression(asString());
+	}
+
 	/**
 	 * Adds a listener to this object.
 	 * 
@@ -0,0 +1,91 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+
+
+
+
+
+package edu.duke.cs.jflap.grammar.parse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import edu.duke.cs.jflap.grammar.Grammar;
+import edu.duke.cs.jflap.grammar.Production;
+import edu.duke.cs.jflap.grammar.cfg.ContextFreeGrammar;
+
+/**
+ * Checks that the LR parser ends on grammars whose tables have no conflicts
+ * but would have it reduce forever.
+ */
+
+public class LRParserTest {
+	/**
+	 * Returns a grammar built from pairs of left and right hand sides.
+	 */
+	private static Grammar grammar(String[][] productions) {
+		Grammar grammar = new ContextFreeGrammar();
+		for (int i = 0; i < productions.length; i++)
+			grammar.addProduction(new Production(productions[i][0],
+					productions[i][1]));
+		grammar.setStartVariable("S");
+		return grammar;
+	}
+
+	/** Inputs that are tried on each table. */
+	private static final String[] INPUTS = { "", "a", "b", "ab", "ba", "bb",
+			"aab", "bab", "babab" };
+
+	@Test(timeout = 10000)
+	public void cyclicGrammarIsRejected() {
+		// S derives AS and A derives lambda, so S derives itself, and the
+		// language is empty.
+		Grammar grammar = grammar(new String[][] { { "S", "AS" },
+				{ "A", "" }, { "C", "aA" }, { "C", "A" }, { "B", "BaS" },
+				{ "B", "aAb" } });
+		int[] kinds = { LRAutomaton.LR0, LRAutomaton.SLR1, LRAutomaton.LALR1 };
+		for (int k = 0; k < kinds.length; k++) {
+			CompiledLRTable table = new LRAutomaton(grammar).compile(kinds[k]);
+			assertEquals(0, table.getConflictCount());
+			for (int i = 0; i < INPUTS.length; i++) {
+				assertFalse(INPUTS[i], LRParser.parse(INPUTS[i], table));
+				assertEquals(INPUTS[i], "", LRParser.parseTree(INPUTS[i],
+						table).getRoot().toString());
+			}
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void lambdaProductionsStillParse() {
+		// Reductions by lambda productions that do end are not cut short.
+		Grammar grammar = grammar(new String[][] { { "S", "ABc" },
+				{ "S", "aSb" }, { "A", "" }, { "B", "" } });
+		CompiledLRTable table = new LRAutomaton(grammar)
+				.compile(LRAutomaton.SLR1);
+		assertEquals(0, table.getConflictCount());
+		assertTrue(LRParser.parse("c", table));
+		assertTrue(LRParser.parse("aacbb", table));
+		assertFalse(LRParser.parse("aacb", table));
+	}
+}